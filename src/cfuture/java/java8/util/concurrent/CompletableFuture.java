@@ -8,13 +8,14 @@ package java8.util.concurrent;
 
 import java8.util.Objects;
 
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Future;
 import java.util.concurrent.FutureTask;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -59,7 +60,25 @@ import java8.util.function.Supplier;
  * example: {@code supplyAsync(supplier, delayedExecutor(timeout,
  * timeUnit))}.  To support methods with delays and timeouts, this
  * class maintains at most one daemon thread for triggering and
- * cancelling actions, not for running them.
+ * cancelling actions, not for running them.  The delays are
+ * scheduled on a {@link DelayScheduler}, by default a hashed timing
+ * wheel with a resolution of one millisecond, on which scheduling
+ * and cancelling take constant time.  A different scheduler may be
+ * configured by setting the {@linkplain System#getProperty system
+ * property} {@code java8.util.concurrent.CompletableFuture.delayScheduler}
+ * to the class name of a {@code DelayScheduler} with a public
+ * no-argument constructor.  The {@linkplain
+ * ClassLoader#getSystemClassLoader() system class loader} is used to
+ * load this class.  Upon any error in establishing this setting, the
+ * default scheduler is used.  Similarly, setting the system property
+ * {@code java8.util.concurrent.CompletableFuture.asyncBatchSize} to
+ * an integer greater than one causes the <em>async</em> dependents
+ * that are triggered by the completion of a future to be submitted to
+ * their executors in batches of up to that many dependents, one task
+ * per batch and executor, instead of one task per dependent.  This
+ * reduces the submission overhead for futures with many async
+ * dependents at the cost of less parallelism among the dependents of
+ * a batch.
  *
  * <li>All CompletionStage methods are implemented independently of
  * other public methods, so the behavior of one method is not impacted
@@ -203,14 +222,34 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
      *   across both while pushing actions.  The second completion is
      *   a CoCompletion pointing to the first, shared so that at most
      *   one performs the action.  The multiple-arity methods allOf
-     *   does this pairwise to form trees of completions.  Method
-     *   anyOf is handled differently from allOf because completion of
-     *   any source should trigger a cleanStack of other sources.
-     *   Each AnyOf completion can reach others via a shared array.
+     *   and allResults push a single AllOf completion per source, all
+     *   sharing a Countdown of the incomplete sources, so that wide
+     *   fan-ins need neither intermediate futures nor CoCompletions.
+     *   Method anyOf is handled differently from allOf because
+     *   completion of any source should trigger a cleanStack of other
+     *   sources.  Each AnyOf completion can reach others via a shared
+     *   array.
      *
      * Note that the generic type parameters of methods vary according
      * to whether "this" is a source, dependent, or completion.
      *
+     * If ASYNC_BATCH_SIZE > 1, postComplete collects the async
+     * dependents that are claimed while it pops dependents in a
+     * thread-local Drain instead of submitting each of them to its
+     * executor right away.  The Drain groups them by executor and
+     * submits a CompletionBatch per executor whenever
+     * ASYNC_BATCH_SIZE dependents have been collected for it, and
+     * the remainder when the outermost postComplete returns.  A
+     * claimed dependent must not wait in the Drain while code that
+     * might wait for it runs in the same thread, or that code would
+     * deadlock.  So before postComplete triggers any dependent other
+     * than an async one (whose tryFire only claims it), the Drain is
+     * flushed, and collecting is suspended while the dependent runs.
+     * Collecting is suspended as well while a batch is submitted,
+     * since the executor may run it in the caller's thread.  Async
+     * dependents claimed meanwhile are batched by the postComplete
+     * of their own source.
+     *
      * Method postComplete is called upon completion unless the target
      * is guaranteed not to be observable (i.e., not yet returned or
      * linked). Multiple threads can call postComplete, which
@@ -417,6 +456,34 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
     public static interface AsynchronousCompletionTask {
     }
 
+    /**
+     * A scheduler of the delayed actions that implement {@link
+     * #orTimeout orTimeout}, {@link #completeOnTimeout
+     * completeOnTimeout} and the executors returned by {@link
+     * #delayedExecutor(long, TimeUnit, Executor) delayedExecutor}.
+     * The actions only trigger or cancel other actions and return
+     * quickly.  Almost all timeouts are cancelled well before their
+     * deadline, so a scheduler should support cancelling cheaply and
+     * should release cancelled actions promptly.
+     *
+     * @see CompletableFuture
+     * @since 1.5.7
+     */
+    public static interface DelayScheduler {
+        /**
+         * Runs the given action once after the given delay (or as soon
+         * as possible if non-positive).
+         *
+         * @param command the action to run
+         * @param delay how long to delay, in units of {@code unit}
+         * @param unit a {@code TimeUnit} determining how to interpret
+         *        the {@code delay} parameter
+         * @return a Future whose {@code cancel} method cancels the
+         *         action if it has not run yet
+         */
+        Future<?> schedule(Runnable command, long delay, TimeUnit unit);
+    }
+
     private static final boolean USE_COMMON_POOL =
         (ForkJoinPool.getCommonPoolParallelism() > 1);
 
@@ -442,6 +509,24 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
         return Objects.requireNonNull(e);
     }
 
+    /**
+     * The maximum number of async dependents that are submitted to
+     * their executor in one task, batching is disabled unless greater
+     * than one.
+     */
+    static final int ASYNC_BATCH_SIZE = asyncBatchSize();
+
+    private static int asyncBatchSize() {
+        try {  // ignore exceptions in accessing/parsing the property
+            String bs = System.getProperty
+                ("java8.util.concurrent.CompletableFuture.asyncBatchSize");
+            if (bs != null)
+                return Math.max(Integer.parseInt(bs), 0);
+        } catch (Exception ignore) {
+        }
+        return 0;
+    }
+
     // Modes for Completion.tryFire. Signedness matters.
     static final int SYNC   =  0;
     static final int ASYNC  =  1;
@@ -484,6 +569,25 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
      * when known to be done.
      */
     final void postComplete() {
+        if (ASYNC_BATCH_SIZE > 1) {
+            Drain drain = Drain.current();
+            boolean activated = drain.activate();
+            try {
+                popDependents(drain);
+            } finally {
+                if (activated)
+                    drain.deactivate();
+            }
+        }
+        else
+            popDependents(null);
+    }
+
+    /**
+     * Implements postComplete, collecting the claimed async
+     * dependents in the given active drain, if not null.
+     */
+    final void popDependents(Drain drain) {
         /*
          * On each step, variable f holds current dependents to pop
          * and run.  It is extended along only one path at a time,
@@ -501,11 +605,24 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
                     }
                     casNext(h, t, null);    // try to detach
                 }
-                f = (d = h.tryFire(NESTED)) == null ? this : d;
+                d = (drain == null || isAsync(h))
+                    ? h.tryFire(NESTED) : drain.fireSync(h);
+                f = (d == null) ? this : d;
             }
         }
     }
 
+    /**
+     * Returns true if c is an async dependent whose tryFire at most
+     * claims it, without running any action in the caller's thread.
+     */
+    static boolean isAsync(Completion c) {
+        if (c instanceof CoCompletion)
+            c = ((CoCompletion) c).base;
+        return c instanceof UniCompletion
+            && ((UniCompletion<?,?>) c).executor != null;
+    }
+
     /** Traverses stack and unlinks one or more dead Completions, if found. */
     final void cleanStack() {
         boolean unlinked = false;
@@ -527,6 +644,176 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
         }
     }
 
+    /**
+     * A task that runs claimed async dependents that share an
+     * executor.
+     */
+    @SuppressWarnings("serial")
+    static final class CompletionBatch extends ForkJoinTask<Void>
+        implements Runnable, AsynchronousCompletionTask {
+        final Executor executor;
+        final Completion[] tasks;
+        int size;
+        CompletionBatch(Executor executor, int capacity) {
+            this.executor = executor;
+            this.tasks = new Completion[capacity];
+        }
+
+        /** Submits this batch, or its only task, to the executor. */
+        final void submit() {
+            if (size == 1)
+                executor.execute(tasks[0]);
+            else
+                executor.execute(this);
+        }
+
+        public final Void getRawResult()       { return null; }
+        public final void setRawResult(Void v) {}
+        public final boolean exec()            { run(); return false; }
+
+        /**
+         * Fires all tasks, rethrowing the first exception thrown by
+         * any of them after all of them have been fired.
+         */
+        public final void run() {
+            Throwable ex = null;
+            Completion[] ts = tasks;
+            for (int i = 0, n = size; i < n; ++i) {
+                Completion c = ts[i];
+                ts[i] = null;
+                try {
+                    c.tryFire(ASYNC);
+                } catch (Throwable x) {
+                    if (ex == null)
+                        ex = x;
+                }
+            }
+            if (ex != null)
+                ForkJoinTask.rethrow(ex);
+        }
+    }
+
+    /**
+     * The per-thread collector of the async dependents that are
+     * claimed during an outermost postComplete.
+     */
+    static final class Drain {
+        private static final ThreadLocal<Drain> DRAIN =
+            new ThreadLocal<Drain>();
+
+        final int batchSize;
+        boolean active;
+        CompletionBatch[] batches = new CompletionBatch[4];
+        int count;
+
+        Drain(int batchSize) { this.batchSize = batchSize; }
+
+        static Drain current() {
+            Drain d = DRAIN.get();
+            if (d == null)
+                DRAIN.set(d = new Drain(ASYNC_BATCH_SIZE));
+            return d;
+        }
+
+        /**
+         * Starts collecting claimed completions, returning false if
+         * this drain is already active.
+         */
+        final boolean activate() {
+            if (active)
+                return false;
+            active = true;
+            return true;
+        }
+
+        /** Submits the collected completions and stops collecting. */
+        final void deactivate() {
+            try {
+                flush();
+            } finally {
+                active = false;
+            }
+        }
+
+        /**
+         * Adds a claimed completion to the batch of its executor,
+         * submitting the batch if it is full.
+         */
+        final void add(Executor e, Completion c) {
+            CompletionBatch b = null;
+            int i = 0;
+            for (; i < count; ++i) {
+                if (batches[i].executor == e) {
+                    b = batches[i];
+                    break;
+                }
+            }
+            if (b == null) {
+                if (count == batches.length)
+                    batches = Arrays.copyOf(batches, count << 1);
+                batches[count++] = b = new CompletionBatch(e, batchSize);
+            }
+            b.tasks[b.size++] = c;
+            if (b.size == batchSize) {
+                batches[i] = batches[--count];
+                batches[count] = null;
+                submit(b);
+            }
+        }
+
+        /**
+         * Submits all batches, rethrowing the first exception thrown
+         * by an executor after all of them have been tried.
+         * Completions that are added meanwhile are submitted by the
+         * same loop.
+         */
+        final void flush() {
+            RuntimeException ex = null;
+            while (count > 0) {
+                CompletionBatch b = batches[--count];
+                batches[count] = null;
+                try {
+                    submit(b);
+                } catch (RuntimeException x) {
+                    if (ex == null)
+                        ex = x;
+                }
+            }
+            if (ex != null)
+                throw ex;
+        }
+
+        /**
+         * Submits the given batch with collecting suspended, as the
+         * executor may run the batch in the caller's thread.
+         */
+        private void submit(CompletionBatch b) {
+            boolean wasActive = active;
+            active = false;
+            try {
+                b.submit();
+            } finally {
+                active = wasActive;
+            }
+        }
+
+        /**
+         * Flushes this active drain and fires the given dependent
+         * in NESTED mode with collecting suspended, so that an
+         * action run in the caller's thread never waits for a
+         * dependent that was claimed but not submitted.
+         */
+        final CompletableFuture<?> fireSync(Completion c) {
+            flush();
+            active = false;
+            try {
+                return c.tryFire(NESTED);
+            } finally {
+                active = true;
+            }
+        }
+    }
+
     /* ------------- One-input Completions -------------- */
 
     /** A Completion with a source, dependent, and executor. */
@@ -553,7 +840,12 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
                 if (e == null)
                     return true;
                 executor = null; // disable
-                e.execute(this);
+                Drain drain;
+                if (ASYNC_BATCH_SIZE > 1
+                    && (drain = Drain.current()).active)
+                    drain.add(e, this);
+                else
+                    e.execute(this);
             }
             return false;
         }
@@ -1393,62 +1685,6 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
         return d;
     }
 
-    @SuppressWarnings("serial")
-    static final class BiRelay<T,U> extends BiCompletion<T,U,Void> { // for And
-        BiRelay(CompletableFuture<Void> dep,
-                CompletableFuture<T> src, CompletableFuture<U> snd) {
-            super(null, dep, src, snd);
-        }
-        final CompletableFuture<Void> tryFire(int mode) {
-            CompletableFuture<Void> d;
-            CompletableFuture<T> a;
-            CompletableFuture<U> b;
-            Object r, s, z; Throwable x;
-            if ((d = dep) == null
-                || (a = src) == null || (r = a.result) == null
-                || (b = snd) == null || (s = b.result) == null)
-                return null;
-            if (d.result == null) {
-                if ((r instanceof AltResult
-                     && (x = ((AltResult)(z = r)).ex) != null) ||
-                    (s instanceof AltResult
-                     && (x = ((AltResult)(z = s)).ex) != null))
-                    d.completeThrowable(x, z);
-                else
-                    d.completeNull();
-            }
-            src = null; snd = null; dep = null;
-            return d.postFire(a, b, mode);
-        }
-    }
-
-    /** Recursively constructs a tree of completions. */
-    static CompletableFuture<Void> andTree(CompletableFuture<?>[] cfs,
-                                           int lo, int hi) {
-        CompletableFuture<Void> d = new CompletableFuture<Void>();
-        if (lo > hi) // empty
-            d.result = NIL;
-        else {
-            CompletableFuture<?> a, b; Object r, s, z; Throwable x;
-            int mid = (lo + hi) >>> 1;
-            if ((a = (lo == mid ? cfs[lo] :
-                      andTree(cfs, lo, mid))) == null ||
-                (b = (lo == hi ? a : (hi == mid+1) ? cfs[hi] :
-                      andTree(cfs, mid+1, hi))) == null)
-                throw new NullPointerException();
-            if ((r = a.result) == null || (s = b.result) == null)
-                a.bipush(b, new BiRelay(d, a, b));
-            else if ((r instanceof AltResult
-                      && (x = ((AltResult)(z = r)).ex) != null) ||
-                     (s instanceof AltResult
-                      && (x = ((AltResult)(z = s)).ex) != null))
-                d.result = encodeThrowable(x, z);
-            else
-                d.result = NIL;
-        }
-        return d;
-    }
-
     /* ------------- Projected (Ored) BiCompletions -------------- */
 
     /**
@@ -1670,6 +1906,125 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
         }
     }
 
+    /**
+     * The state shared by the AllOf completions of allOf or
+     * allResults: the sources and the number of sources that have not
+     * completed yet.
+     */
+    static final class Countdown {
+        final CompletableFuture<Object> dep;
+        final CompletableFuture<?>[] srcs;
+        final boolean collect;   // whether to complete with the results
+        volatile int pending;
+        Countdown(CompletableFuture<Object> dep, CompletableFuture<?>[] srcs,
+                  boolean collect, int pending) {
+            this.dep = dep; this.srcs = srcs; this.collect = collect;
+            this.pending = pending;
+        }
+
+        /**
+         * Subtracts the given count from pending, returning true if it
+         * dropped to zero.
+         */
+        final boolean arrive(int count) {
+            for (int c;;) {
+                if (U.compareAndSwapInt(this, PENDING, c = pending, c - count))
+                    return c == count;
+            }
+        }
+
+        /**
+         * Completes dep, unless already completed, with the exception
+         * of the first source that completed exceptionally, or else
+         * with null or the list of the results.  Call only when all
+         * sources are complete.
+         */
+        final boolean complete() {
+            CompletableFuture<?>[] as = srcs;
+            Object[] values = collect ? new Object[as.length] : null;
+            for (int i = 0; i < as.length; ++i) {
+                Object r = as[i].result; Throwable x;
+                if (r instanceof AltResult) {
+                    if ((x = ((AltResult)r).ex) != null)
+                        return dep.completeThrowable(x, r);
+                    r = null;
+                }
+                if (values != null)
+                    values[i] = r;
+            }
+            return (values == null) ? dep.completeNull()
+                : dep.completeValue(Arrays.asList(values));
+        }
+
+        private static final long PENDING;
+        static {
+            try {
+                PENDING = U.objectFieldOffset
+                    (Countdown.class.getDeclaredField("pending"));
+            } catch (Exception e) {
+                throw new Error(e);
+            }
+        }
+    }
+
+    /** Completion for an input future of allOf or allResults. */
+    @SuppressWarnings("serial")
+    static final class AllOf extends Completion {
+        Countdown countdown; CompletableFuture<?> src;
+        AllOf(Countdown countdown, CompletableFuture<?> src) {
+            this.countdown = countdown; this.src = src;
+        }
+        final CompletableFuture<Object> tryFire(int mode) {
+            // assert mode != ASYNC;
+            Countdown c; CompletableFuture<?> a; CompletableFuture<Object> d;
+            if ((c = countdown) == null
+                || (a = src) == null || a.result == null
+                // ensure that each source is counted only once
+                || !compareAndSetForkJoinTaskTag((short)0, (short)1))
+                return null;
+            countdown = null; src = null;
+            if (c.arrive(1) && c.complete()) {
+                d = c.dep;
+                if (mode < 0)
+                    return d;
+                else
+                    d.postComplete();
+            }
+            return null;
+        }
+        final boolean isLive() {
+            Countdown c;
+            return (c = countdown) != null && c.dep.result == null;
+        }
+    }
+
+    /**
+     * Returns a new CompletableFuture that is completed by a
+     * Countdown when all of the given futures are complete, given an
+     * array that is not shared with the caller.
+     */
+    static CompletableFuture<Object> countdown(
+        CompletableFuture<?>[] as, boolean collect) {
+        for (CompletableFuture<?> a : as)
+            if (a == null)
+                throw new NullPointerException();
+        CompletableFuture<Object> d = new CompletableFuture<Object>();
+        // Count one more than the sources, so that d cannot complete
+        // before all completions are pushed, then subtract the extra
+        // one and the sources that were found to be complete.
+        Countdown c = new Countdown(d, as, collect, as.length + 1);
+        int complete = 1;
+        for (CompletableFuture<?> a : as) {
+            if (a.result != null)
+                ++complete;
+            else
+                a.unipush(new AllOf(c, a));
+        }
+        if (c.arrive(complete))
+            c.complete();
+        return d;
+    }
+
     /* ------------- Zero-input Async forms -------------- */
 
     @SuppressWarnings("serial")
@@ -2324,8 +2679,10 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
      * @throws NullPointerException if the array or any of its elements are
      * {@code null}
      */
+    @SuppressWarnings("unchecked")
     public static CompletableFuture<Void> allOf(CompletableFuture<?>... cfs) {
-        return andTree(cfs, 0, cfs.length - 1);
+        return (CompletableFuture<Void>) (CompletableFuture<?>)
+            countdown(cfs.clone(), false);
     }
 
     /**
@@ -2344,6 +2701,14 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
      * {@code null}
      */
     public static CompletableFuture<Object> anyOf(CompletableFuture<?>... cfs) {
+        return orAll(cfs.clone());
+    }
+
+    /**
+     * Implements anyOf, given an array that is not shared with the
+     * caller.
+     */
+    static CompletableFuture<Object> orAll(CompletableFuture<?>[] cfs) {
         int n; Object r;
         if ((n = cfs.length) <= 1)
             return (n == 0)
@@ -2352,7 +2717,6 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
         for (CompletableFuture<?> cf : cfs)
             if ((r = cf.result) != null)
                 return new CompletableFuture<Object>(encodeRelay(r));
-        cfs = cfs.clone();
         CompletableFuture<Object> d = new CompletableFuture<Object>();
         for (CompletableFuture<?> cf : cfs)
             cf.unipush(new AnyOf(d, cf, cfs));
@@ -2368,6 +2732,90 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
         return d;
     }
 
+    /**
+     * Returns a new CompletableFuture that is completed when all of
+     * the given CompletableFutures complete.  If any of the given
+     * CompletableFutures complete exceptionally, then the returned
+     * CompletableFuture also does so, with a CompletionException
+     * holding the exception of the first such CompletableFuture in
+     * the iteration order of the collection as its cause.  Otherwise,
+     * the results, if any, of the given CompletableFutures are not
+     * reflected in the returned CompletableFuture, but may be obtained
+     * by inspecting them individually. If no CompletableFutures are
+     * provided, returns a CompletableFuture completed with the value
+     * {@code null}.
+     *
+     * <p>Like {@link #allOf(CompletableFuture...)}, this method
+     * registers a single completion with each incomplete future and
+     * counts down the incomplete futures, which is considerably
+     * cheaper for large numbers of futures than a tree of pairwise
+     * completions.
+     *
+     * @param cfs the CompletableFutures
+     * @return a new CompletableFuture that is completed when all of the
+     * given CompletableFutures complete
+     * @throws NullPointerException if the collection or any of its
+     * elements are {@code null}
+     * @since 1.5.7
+     */
+    @SuppressWarnings("unchecked")
+    public static CompletableFuture<Void> allOf(
+        Collection<? extends CompletableFuture<?>> cfs) {
+        return (CompletableFuture<Void>) (CompletableFuture<?>)
+            countdown(cfs.toArray(new CompletableFuture<?>[0]), false);
+    }
+
+    /**
+     * Returns a new CompletableFuture that is completed when all of
+     * the given CompletableFutures complete, with the list of their
+     * results in the iteration order of the collection.  If any of
+     * the given CompletableFutures complete exceptionally, then the
+     * returned CompletableFuture also does so, with a
+     * CompletionException holding the exception of the first such
+     * CompletableFuture as its cause.  If no CompletableFutures are
+     * provided, returns a CompletableFuture completed with an empty
+     * list.  The returned lists are fixed-size.
+     *
+     * <p>Like {@link #allOf(Collection)}, this method registers a
+     * single completion with each incomplete future.
+     *
+     * @param cfs the CompletableFutures
+     * @param <T> the common supertype of the results
+     * @return a new CompletableFuture that is completed with the
+     * results of the given CompletableFutures when all of them
+     * complete
+     * @throws NullPointerException if the collection or any of its
+     * elements are {@code null}
+     * @since 1.5.7
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> CompletableFuture<List<T>> allResults(
+        Collection<? extends CompletableFuture<? extends T>> cfs) {
+        return (CompletableFuture<List<T>>) (CompletableFuture<?>)
+            countdown(cfs.toArray(new CompletableFuture<?>[0]), true);
+    }
+
+    /**
+     * Returns a new CompletableFuture that is completed when any of
+     * the given CompletableFutures complete, with the same result.
+     * Otherwise, if it completed exceptionally, the returned
+     * CompletableFuture also does so, with a CompletionException
+     * holding this exception as its cause.  If no CompletableFutures
+     * are provided, returns an incomplete CompletableFuture.
+     *
+     * @param cfs the CompletableFutures
+     * @return a new CompletableFuture that is completed with the
+     * result or exception of any of the given CompletableFutures when
+     * one completes
+     * @throws NullPointerException if the collection or any of its
+     * elements are {@code null}
+     * @since 1.5.7
+     */
+    public static CompletableFuture<Object> anyOf(
+        Collection<? extends CompletableFuture<?>> cfs) {
+        return orAll(cfs.toArray(new CompletableFuture<?>[0]));
+    }
+
     /* ------------- Control and status methods -------------- */
 
     /**
@@ -2720,8 +3168,8 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
      * cancelling tasks.
      */
     static final class Delayer {
-        static ScheduledFuture<?> delay(Runnable command, long delay,
-                                        TimeUnit unit) {
+        static Future<?> delay(Runnable command, long delay,
+                               TimeUnit unit) {
             return delayer.schedule(command, delay, unit);
         }
 
@@ -2734,11 +3182,21 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
             }
         }
 
-        static final ScheduledThreadPoolExecutor delayer;
+        static final DelayScheduler delayer;
         static {
-            /*(*/delayer = new ScheduledThreadPoolExecutor(
-                1, new DaemonThreadFactory())/*.
-                setRemoveOnCancelPolicy(true)*/;
+            DelayScheduler scheduler = null;
+            try {  // ignore exceptions in accessing/instantiating the class
+                String className = System.getProperty
+                    ("java8.util.concurrent.CompletableFuture.delayScheduler");
+                if (className != null)
+                    scheduler = (DelayScheduler) ClassLoader
+                        .getSystemClassLoader().loadClass(className)
+                        .getConstructor().newInstance();
+            } catch (Exception ignore) {
+            }
+            delayer = (scheduler != null) ? scheduler
+                : new HashedWheelTimer(new DaemonThreadFactory(),
+                                       1L, TimeUnit.MILLISECONDS, 1024);
         }
     }
 
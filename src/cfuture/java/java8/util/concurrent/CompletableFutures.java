@@ -0,0 +1,368 @@
+/*
+ * Written by Stefan Zobel and released to the
+ * public domain, as explained at
+ * http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package java8.util.concurrent;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+
+import java8.util.Objects;
+import java8.util.function.Function;
+import java8.util.stream.Stream;
+
+/**
+ * Static utility methods that combine many {@link CompletionStage}s
+ * into a single {@link CompletableFuture}.
+ *
+ * <p>The {@code mapAsync} methods apply an asynchronous function to the
+ * elements of a source while limiting the number of calls whose stages
+ * are not yet complete (the calls "in flight"). The source is consumed
+ * lazily: the next element is only taken, and the function only called
+ * for it, when one of the in-flight stages completes. No thread ever
+ * blocks waiting for a permit; the next call is issued by the thread that
+ * completes a stage, or by the caller of {@code mapAsync} for the calls
+ * that can be issued right away. Stages that are already complete when
+ * they are returned by the function are processed in a loop rather than
+ * recursively, so that a function that mostly completes synchronously
+ * does not risk a {@code StackOverflowError}.
+ *
+ * <p>The returned future completes with the list of all results once the
+ * source is exhausted and all stages have completed. If the source or the
+ * function throws an exception, if the function returns {@code null}, or
+ * if one of the stages completes exceptionally, the returned future is
+ * completed exceptionally with that exception and no further elements are
+ * taken from the source. The same applies when the returned future is
+ * completed or cancelled by other means. In both cases the stages that
+ * are already in flight are not cancelled.
+ *
+ * @since 1.5.7
+ */
+public final class CompletableFutures {
+
+    /**
+     * Returns a new CompletableFuture that is completed with the results
+     * of applying the given asynchronous function to the elements of the
+     * given source, in the encounter order of the source, with at most
+     * {@code maxInFlight} stages returned by the function incomplete at
+     * any time.
+     *
+     * @param source the elements to map
+     * @param maxInFlight the maximum number of incomplete stages
+     * @param fn the function returning the stage of the result of an
+     * element
+     * @param <T> the type of the elements
+     * @param <R> the type of the results
+     * @return a new CompletableFuture of the list of the results
+     * @throws NullPointerException if the source or the function is null
+     * @throws IllegalArgumentException if {@code maxInFlight} is not
+     * positive
+     */
+    public static <T, R> CompletableFuture<List<R>> mapAsync(
+        Iterable<? extends T> source, int maxInFlight,
+        Function<? super T, ? extends CompletionStage<? extends R>> fn) {
+        checkArguments(maxInFlight, fn);
+        return map(source.iterator(), maxInFlight, fn, true,
+                   sizeHint(source));
+    }
+
+    /**
+     * Returns a new CompletableFuture that is completed with the results
+     * of applying the given asynchronous function to the elements of the
+     * given stream, in the encounter order of the stream, with at most
+     * {@code maxInFlight} stages returned by the function incomplete at
+     * any time. The stream is consumed through its
+     * {@link Stream#iterator() iterator}.
+     *
+     * @param source the elements to map
+     * @param maxInFlight the maximum number of incomplete stages
+     * @param fn the function returning the stage of the result of an
+     * element
+     * @param <T> the type of the elements
+     * @param <R> the type of the results
+     * @return a new CompletableFuture of the list of the results
+     * @throws NullPointerException if the stream or the function is null
+     * @throws IllegalArgumentException if {@code maxInFlight} is not
+     * positive
+     */
+    public static <T, R> CompletableFuture<List<R>> mapAsync(
+        Stream<? extends T> source, int maxInFlight,
+        Function<? super T, ? extends CompletionStage<? extends R>> fn) {
+        checkArguments(maxInFlight, fn);
+        return map(source.iterator(), maxInFlight, fn, true, 16);
+    }
+
+    /**
+     * Returns a new CompletableFuture that is completed with the results
+     * of applying the given asynchronous function to the elements of the
+     * given source, in the order in which the stages returned by the
+     * function complete, with at most {@code maxInFlight} of these stages
+     * incomplete at any time.
+     *
+     * @param source the elements to map
+     * @param maxInFlight the maximum number of incomplete stages
+     * @param fn the function returning the stage of the result of an
+     * element
+     * @param <T> the type of the elements
+     * @param <R> the type of the results
+     * @return a new CompletableFuture of the list of the results
+     * @throws NullPointerException if the source or the function is null
+     * @throws IllegalArgumentException if {@code maxInFlight} is not
+     * positive
+     */
+    public static <T, R> CompletableFuture<List<R>> mapAsyncUnordered(
+        Iterable<? extends T> source, int maxInFlight,
+        Function<? super T, ? extends CompletionStage<? extends R>> fn) {
+        checkArguments(maxInFlight, fn);
+        return map(source.iterator(), maxInFlight, fn, false,
+                   sizeHint(source));
+    }
+
+    /**
+     * Returns a new CompletableFuture that is completed with the results
+     * of applying the given asynchronous function to the elements of the
+     * given stream, in the order in which the stages returned by the
+     * function complete, with at most {@code maxInFlight} of these stages
+     * incomplete at any time. The stream is consumed through its
+     * {@link Stream#iterator() iterator}.
+     *
+     * @param source the elements to map
+     * @param maxInFlight the maximum number of incomplete stages
+     * @param fn the function returning the stage of the result of an
+     * element
+     * @param <T> the type of the elements
+     * @param <R> the type of the results
+     * @return a new CompletableFuture of the list of the results
+     * @throws NullPointerException if the stream or the function is null
+     * @throws IllegalArgumentException if {@code maxInFlight} is not
+     * positive
+     */
+    public static <T, R> CompletableFuture<List<R>> mapAsyncUnordered(
+        Stream<? extends T> source, int maxInFlight,
+        Function<? super T, ? extends CompletionStage<? extends R>> fn) {
+        checkArguments(maxInFlight, fn);
+        return map(source.iterator(), maxInFlight, fn, false, 16);
+    }
+
+    private static <T, R> CompletableFuture<List<R>> map(
+        Iterator<? extends T> it, int maxInFlight,
+        Function<? super T, ? extends CompletionStage<? extends R>> fn,
+        boolean ordered, int capacity) {
+        Mapper<T, R> m = new Mapper<T, R>(it, fn, maxInFlight, ordered,
+                                          capacity);
+        m.drain();
+        return m.dst;
+    }
+
+    private static void checkArguments(int maxInFlight, Object fn) {
+        Objects.requireNonNull(fn);
+        if (maxInFlight <= 0)
+            throw new IllegalArgumentException();
+    }
+
+    private static int sizeHint(Iterable<?> source) {
+        return (source instanceof Collection<?>)
+            ? ((Collection<?>) source).size() : 16;
+    }
+
+    /*
+     * A Mapper issues the calls of the function in its drain loop, which
+     * is run by at most one thread at a time: a thread that completes a
+     * call increments wip and only enters the loop if it was zero, else
+     * the thread already in the loop takes another turn.  The results are
+     * collected into an array that is only accessed in the drain loop.
+     * A stage that is already complete when the function returns it is
+     * recorded right away, without pushing a completion onto it or any
+     * CAS.  The other calls push themselves onto a Treiber stack when
+     * their stage completes.  Its nodes also record the depth of the
+     * stack, so that a single CAS both publishes a result and counts the
+     * completed calls, and the drain loop harvests the nodes pushed since
+     * its last turn by walking down from the top until the previously
+     * seen depth, cutting off the older nodes.
+     */
+
+    /** The state of a mapAsync or mapAsyncUnordered call. */
+    static final class Mapper<T, R> {
+        final Iterator<? extends T> source;
+        final Function<? super T, ? extends CompletionStage<? extends R>> fn;
+        final int maxInFlight;
+        final boolean ordered;  // whether to list the results in source order
+        final CompletableFuture<List<R>> dst = new CompletableFuture<List<R>>();
+        volatile int wip;       // requests to run the drain loop
+        volatile Call done;     // stack of the completed calls
+        // the following are only accessed in the drain loop
+        Object[] values;        // the results
+        int launched;           // the number of calls issued
+        int completed;          // the number of results in values
+        int harvested;          // the depth of done at the last harvest
+        boolean exhausted;      // whether the source is exhausted
+
+        Mapper(Iterator<? extends T> source,
+               Function<? super T, ? extends CompletionStage<? extends R>> fn,
+               int maxInFlight, boolean ordered, int capacity) {
+            this.source = source; this.fn = fn;
+            this.maxInFlight = maxInFlight; this.ordered = ordered;
+            this.values = new Object[capacity];
+        }
+
+        /** Publishes the result of a call and runs the drain loop. */
+        final void arrive(Call c, Object r) {
+            if (r instanceof CompletableFuture.AltResult) {
+                Throwable x = ((CompletableFuture.AltResult) r).ex;
+                if (x != null) {
+                    dst.completeExceptionally(x);
+                    return;
+                }
+                r = null;
+            }
+            c.value = r;
+            for (Call h;;) {
+                c.link = h = done;
+                c.depth = (h == null) ? 1 : h.depth + 1;
+                if (U.compareAndSwapObject(this, DONE, h, c))
+                    break;
+            }
+            drain();
+        }
+
+        /**
+         * Issues calls while fewer than maxInFlight are incomplete, and
+         * completes dst when the source is exhausted and all calls have
+         * completed.
+         */
+        final void drain() {
+            if (getAndAddWip(1) != 0)
+                return;
+            for (int missed = 1;;) {
+                while (!dst.isDone()) {
+                    Call h = done;
+                    if (h != null && h.depth != harvested)
+                        harvest(h);
+                    if (exhausted) {
+                        if (completed == launched)
+                            complete();
+                        break;
+                    }
+                    if (launched - completed >= maxInFlight)
+                        break;
+                    launch();
+                }
+                int w = getAndAddWip(-missed);
+                if ((missed = w - missed) == 0)
+                    break;
+            }
+        }
+
+        /** Takes the next element and calls the function for it. */
+        private void launch() {
+            CompletableFuture<? extends R> a;
+            try {
+                if (!source.hasNext()) {
+                    exhausted = true;
+                    return;
+                }
+                a = fn.apply(source.next()).toCompletableFuture();
+            } catch (Throwable ex) {
+                dst.completeExceptionally(ex);
+                return;
+            }
+            if (launched == values.length)
+                values = Arrays.copyOf(values, Math.max(16, launched << 1));
+            int i = launched++;
+            Object r = a.result;
+            if (r == null) {
+                // fires immediately if a has completed in the meantime, in
+                // which case the nested drain() only increments wip
+                a.unipush(new Call(this, a, i));
+                return;
+            }
+            if (r instanceof CompletableFuture.AltResult) {
+                Throwable x = ((CompletableFuture.AltResult) r).ex;
+                if (x != null) {
+                    dst.completeExceptionally(x);
+                    return;
+                }
+                r = null;
+            }
+            values[ordered ? i : completed] = r;
+            ++completed;
+        }
+
+        /** Moves the results of the calls pushed since the last harvest. */
+        private void harvest(Call h) {
+            int n = h.depth - harvested;
+            harvested = h.depth;
+            Object[] vs = values;
+            int pos = completed += n; // the stack is in reverse order
+            for (Call c = h;; c = c.link) {
+                vs[ordered ? c.index : --pos] = c.value;
+                c.value = null;
+                if (--n == 0) {
+                    c.link = null; // nodes below are no longer needed
+                    break;
+                }
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void complete() {
+            Object[] vs = values;
+            values = null;
+            if (vs.length != launched)
+                vs = Arrays.copyOf(vs, launched);
+            dst.complete((List<R>) Arrays.asList(vs));
+        }
+
+        private int getAndAddWip(int delta) {
+            for (int w;;) {
+                if (U.compareAndSwapInt(this, WIP, w = wip, w + delta))
+                    return w;
+            }
+        }
+
+        private static final sun.misc.Unsafe U = UnsafeAccess.unsafe;
+        private static final long WIP;
+        private static final long DONE;
+        static {
+            try {
+                WIP = U.objectFieldOffset
+                    (Mapper.class.getDeclaredField("wip"));
+                DONE = U.objectFieldOffset
+                    (Mapper.class.getDeclaredField("done"));
+            } catch (Exception e) {
+                throw new Error(e);
+            }
+        }
+    }
+
+    /** Completion for the stage returned by a call of the function. */
+    @SuppressWarnings("serial")
+    static final class Call extends CompletableFuture.Completion {
+        Mapper<?, ?> mapper; CompletableFuture<?> src;
+        final int index;  // the position of the element in the source
+        Object value;     // the result, set before pushing onto done
+        Call link;        // the next call in the stack of completed calls
+        int depth;        // the number of calls in that stack, including this
+        Call(Mapper<?, ?> mapper, CompletableFuture<?> src, int index) {
+            this.mapper = mapper; this.src = src; this.index = index;
+        }
+        final CompletableFuture<?> tryFire(int mode) {
+            Mapper<?, ?> m; CompletableFuture<?> a; Object r;
+            if ((m = mapper) == null
+                || (a = src) == null || (r = a.result) == null
+                // ensure that each call is counted only once
+                || !compareAndSetForkJoinTaskTag((short)0, (short)1))
+                return null;
+            mapper = null; src = null;
+            m.arrive(this, r);
+            return null;
+        }
+        final boolean isLive() { return mapper != null; }
+    }
+
+    private CompletableFutures() {
+    }
+}
@@ -0,0 +1,245 @@
+/*
+ * Written by Stefan Zobel and released to the
+ * public domain, as explained at
+ * http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package java8.util.concurrent;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A {@link CompletableFuture.DelayScheduler} based on a hashed timing
+ * wheel, the default scheduler of the delayed actions of
+ * {@link CompletableFuture}.
+ *
+ * <p>The wheel is an array of buckets, each holding a doubly-linked list
+ * of the tasks that expire in a tick whose number maps to the bucket,
+ * either in the current or in a later round of the wheel. A single
+ * daemon thread advances the wheel once per tick and runs the expired
+ * tasks of the current bucket. Scheduling and cancelling a task are
+ * constant-time operations: both only enqueue the task into a lock-free
+ * queue that the wheel thread drains at the start of each tick, linking
+ * newly scheduled tasks into their buckets and unlinking cancelled ones.
+ * Hence, a cancelled task is released within a tick instead of occupying
+ * a delay queue until its deadline, which is what makes the wheel suited
+ * for timeouts that almost never expire.
+ *
+ * <p>A task never runs before its deadline, but may run up to a tick
+ * after it. The wheel thread parks without a timeout while there are no
+ * scheduled tasks.
+ *
+ * @since 1.5.7
+ */
+final class HashedWheelTimer implements CompletableFuture.DelayScheduler {
+    // the maximum number of tasks that are linked into the wheel per tick
+    private static final int MAX_TRANSFERS_PER_TICK = 1 << 16;
+
+    private final ThreadFactory threadFactory;
+    private final long tickNanos;
+    private final ScheduledTask[] wheel;
+    private final int mask;
+    private final long startTime;
+    private final ConcurrentLinkedQueue<ScheduledTask> additions =
+        new ConcurrentLinkedQueue<ScheduledTask>();
+    private final ConcurrentLinkedQueue<ScheduledTask> cancellations =
+        new ConcurrentLinkedQueue<ScheduledTask>();
+
+    private volatile Thread worker;
+    // whether the worker is parked without a timeout
+    private volatile boolean idle;
+
+    // the tick that is processed next, accessed by the worker only
+    private long tick;
+    // the number of tasks linked into the wheel, accessed by the worker only
+    private int linked;
+
+    /**
+     * Creates a timer whose wheel thread is created by the given factory
+     * when the first task is scheduled.
+     *
+     * @param threadFactory the factory for the wheel thread
+     * @param tickDuration the duration of a tick
+     * @param unit the unit of {@code tickDuration}
+     * @param wheelSize the number of buckets, rounded up to a power of 2
+     * @throws IllegalArgumentException if {@code tickDuration} or
+     *         {@code wheelSize} is not positive
+     */
+    HashedWheelTimer(ThreadFactory threadFactory, long tickDuration,
+                     TimeUnit unit, int wheelSize) {
+        if (tickDuration <= 0L || wheelSize <= 0 || wheelSize > (1 << 30))
+            throw new IllegalArgumentException();
+        int n = 1;
+        while (n < wheelSize)
+            n <<= 1;
+        this.threadFactory = threadFactory;
+        this.tickNanos = unit.toNanos(tickDuration);
+        this.wheel = new ScheduledTask[n];
+        this.mask = n - 1;
+        this.startTime = System.nanoTime();
+    }
+
+    public Future<?> schedule(Runnable command, long delay, TimeUnit unit) {
+        if (command == null || unit == null)
+            throw new NullPointerException();
+        long now = System.nanoTime() - startTime;
+        long d = Math.max(unit.toNanos(delay), 0L);
+        long deadline = (now + d < 0L) ? Long.MAX_VALUE : now + d;
+        ScheduledTask task = new ScheduledTask(this, command, deadline);
+        additions.add(task);
+        Thread w = worker;
+        if (w == null)
+            startWorker();
+        else if (idle)
+            LockSupport.unpark(w);
+        return task;
+    }
+
+    /**
+     * Returns the number of tasks that are linked into the wheel, including
+     * cancelled tasks that have not been unlinked yet.  Only accurate when
+     * called by the wheel thread or while the wheel is idle.
+     */
+    int linkedTaskCount() {
+        return linked;
+    }
+
+    private synchronized void startWorker() {
+        if (worker == null) {
+            Thread w = threadFactory.newThread(new Runnable() {
+                public void run() {
+                    runWorker();
+                }
+            });
+            worker = w;
+            w.start();
+        }
+    }
+
+    private void runWorker() {
+        for (;;) {
+            long now = awaitTick();
+            processCancellations();
+            transferAdditions();
+            expireTasks(now);
+            ++tick;
+        }
+    }
+
+    /**
+     * Waits until the current tick has passed and returns the elapsed time
+     * since the start of the timer. While there are no scheduled tasks, the
+     * ticks are skipped by parking until a task is scheduled.
+     */
+    private long awaitTick() {
+        for (;;) {
+            if (linked == 0 && additions.isEmpty()) {
+                idle = true;
+                if (additions.isEmpty())
+                    LockSupport.park(this);
+                idle = false;
+                long elapsedTicks = (System.nanoTime() - startTime) / tickNanos;
+                if (elapsedTicks > tick)
+                    tick = elapsedTicks;
+                continue;
+            }
+            long now = System.nanoTime() - startTime;
+            long target = tickNanos * (tick + 1L);
+            if (now >= target)
+                return now;
+            LockSupport.parkNanos(this, target - now);
+        }
+    }
+
+    private void processCancellations() {
+        ScheduledTask task;
+        while ((task = cancellations.poll()) != null) {
+            if (task.bucket >= 0)
+                unlink(task);
+        }
+    }
+
+    private void transferAdditions() {
+        ScheduledTask task;
+        for (int i = 0; i < MAX_TRANSFERS_PER_TICK
+                 && (task = additions.poll()) != null; ++i) {
+            if (task.isDone())
+                continue; // cancelled before it was linked
+            // the task expires while processing the tick that includes its
+            // deadline, that is, after the deadline has passed
+            long expiry = task.deadline / tickNanos;
+            task.remainingRounds = Math.max(expiry - tick, 0L) / wheel.length;
+            link(task, (int) (Math.max(expiry, tick) & mask));
+        }
+    }
+
+    private void expireTasks(long now) {
+        ScheduledTask task = wheel[(int) (tick & mask)];
+        while (task != null) {
+            ScheduledTask next = task.next;
+            if (task.isDone()) {
+                unlink(task);
+            } else if (task.remainingRounds <= 0L) {
+                unlink(task);
+                // FutureTask.run() catches all exceptions of the command
+                task.run();
+            } else {
+                --task.remainingRounds;
+            }
+            task = next;
+        }
+    }
+
+    private void link(ScheduledTask task, int bucket) {
+        ScheduledTask head = wheel[bucket];
+        task.bucket = bucket;
+        task.next = head;
+        if (head != null)
+            head.prev = task;
+        wheel[bucket] = task;
+        ++linked;
+    }
+
+    private void unlink(ScheduledTask task) {
+        ScheduledTask prev = task.prev, next = task.next;
+        if (prev == null)
+            wheel[task.bucket] = next;
+        else
+            prev.next = next;
+        if (next != null)
+            next.prev = prev;
+        task.prev = task.next = null;
+        task.bucket = -1;
+        --linked;
+    }
+
+    /**
+     * A task of the wheel. The links are only accessed by the wheel thread.
+     */
+    static final class ScheduledTask extends FutureTask<Void> {
+        final HashedWheelTimer timer;
+        // the deadline, relative to the start time of the timer
+        final long deadline;
+        long remainingRounds;
+        // the index of the bucket the task is linked into, or -1
+        int bucket = -1;
+        ScheduledTask prev;
+        ScheduledTask next;
+
+        ScheduledTask(HashedWheelTimer timer, Runnable command, long deadline) {
+            super(command, null);
+            this.timer = timer;
+            this.deadline = deadline;
+        }
+
+        @Override
+        protected void done() {
+            if (isCancelled())
+                timer.cancellations.add(this);
+        }
+    }
+}
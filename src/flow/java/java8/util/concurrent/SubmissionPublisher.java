@@ -7,6 +7,8 @@
 package java8.util.concurrent;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
@@ -56,6 +58,13 @@ import java8.util.function.Consumer;
  * immediately or with bounded timeout), but provide an opportunity to
  * interpose a handler and then retry.
  *
+ * <p>Method {@link #submitAll(Object[]) submitAll} publishes a batch
+ * of items with a single reservation of buffer space per subscriber,
+ * and subscribers implementing {@link BatchSubscriber} receive the
+ * items that are available in batches rather than one at a time.
+ * Both reduce the per-item overhead of publishers that produce many
+ * small items.
+ *
  * <p>If any Subscriber method throws an exception, its subscription
  * is cancelled.  If a handler is supplied as a constructor argument,
  * it is invoked before cancellation upon an exception in method
@@ -397,6 +406,108 @@ public class SubmissionPublisher<T> implements Flow.Publisher<T> {
             return lag;
     }
 
+    /**
+     * Publishes the given items, in order, to each current subscriber
+     * as if by {@link #submit(Object) submitting} each of them, blocking
+     * uninterruptibly while resources for any subscriber are
+     * unavailable. Rather than adding the items one by one, the free
+     * space of each subscriber's buffer is reserved at once for as many
+     * items as it can hold, and the subscriber's consumer task is
+     * started at most once per reservation. This method returns an
+     * estimate of the maximum lag (number of items submitted but not yet
+     * consumed) among all current subscribers, which is zero if there
+     * are no subscribers or no items.
+     *
+     * <p>If the Executor for this publisher throws a
+     * RejectedExecutionException (or any other RuntimeException or
+     * Error) when attempting to asynchronously notify subscribers,
+     * then this exception is rethrown, in which case not all
+     * subscribers will have been issued all items.
+     *
+     * @param items the (non-null) items to publish
+     * @return the estimated maximum lag among subscribers
+     * @throws IllegalStateException if closed
+     * @throws NullPointerException if items is null or contains a
+     * null element, in which case no item is published
+     * @throws RejectedExecutionException if thrown by Executor
+     * @since 1.5.7
+     */
+    public int submitAll(T[] items) {
+        return doSubmitAll(items);
+    }
+
+    /**
+     * Publishes the items of the given collection, in the order returned
+     * by its iterator, to each current subscriber as if by {@link
+     * #submitAll(Object[]) submitAll} of the array of the items.
+     *
+     * @param items the (non-null) items to publish
+     * @return the estimated maximum lag among subscribers
+     * @throws IllegalStateException if closed
+     * @throws NullPointerException if items is null or contains a
+     * null element, in which case no item is published
+     * @throws RejectedExecutionException if thrown by Executor
+     * @since 1.5.7
+     */
+    public int submitAll(Collection<? extends T> items) {
+        return doSubmitAll(items.toArray());
+    }
+
+    /** Common implementation for both forms of submitAll */
+    final int doSubmitAll(Object[] items) {
+        int n = items.length;
+        for (int i = 0; i < n; ++i)
+            Objects.requireNonNull(items[i]);
+        int lag = 0;
+        boolean complete;
+        synchronized (this) {
+            complete = closed;
+            BufferedSubscription<T> b = clients;
+            if (!complete && n > 0) {
+                BufferedSubscription<T> pred = null, r = null, rtail = null;
+                while (b != null) {
+                    BufferedSubscription<T> next = b.next;
+                    int stat = b.offerAll(items, 0, n);
+                    if (stat < 0) {           // disabled
+                        b.next = null;
+                        if (pred == null)
+                            clients = next;
+                        else
+                            pred.next = next;
+                    }
+                    else {
+                        if (stat > lag)
+                            lag = stat;
+                        else if (stat == 0) { // place on retry list
+                            b.nextRetry = null;
+                            if (rtail == null)
+                                r = b;
+                            else
+                                rtail.nextRetry = b;
+                            rtail = b;
+                        }
+                        pred = b;
+                    }
+                    b = next;
+                }
+                while (r != null) {
+                    BufferedSubscription<T> nextRetry = r.nextRetry;
+                    r.nextRetry = null;
+                    int stat = r.submitAll(items, n);
+                    if (stat > lag)
+                        lag = stat;
+                    else if (stat < 0 && clients == r)
+                        clients = r.next; // postpone internal unsubscribes
+                    r = nextRetry;
+                }
+            }
+        }
+        if (complete)
+            throw new IllegalStateException("Closed");
+        else
+            return lag;
+    }
+
     /**
      * Publishes the given item, if possible, to each current subscriber
      * by asynchronously invoking its {@link
@@ -879,6 +990,36 @@ public class SubmissionPublisher<T> implements Flow.Publisher<T> {
         }
     }
 
+    /**
+     * A {@link Flow.Subscriber} to which a SubmissionPublisher issues
+     * items in batches. Each time its consumer task runs, a
+     * BatchSubscriber receives the items that are buffered and requested
+     * in a single call of {@link #onNextBatch onNextBatch}, instead of
+     * one call of {@link Flow.Subscriber#onNext onNext} per item, which
+     * saves most of the per-item synchronization of the subscription's
+     * buffer.
+     *
+     * <p>A SubmissionPublisher issues all items to a BatchSubscriber via
+     * {@code onNextBatch}, never via {@code onNext}, which is only
+     * invoked by other publishers. A batch counts against the demand of
+     * the subscription like the same number of {@code onNext} calls. An
+     * exception thrown by {@code onNextBatch} is handled like one thrown
+     * by {@code onNext}.
+     *
+     * @param <T> the subscribed item type
+     * @since 1.5.7
+     */
+    public static interface BatchSubscriber<T> extends Flow.Subscriber<T> {
+        /**
+         * Method invoked with the next items of the Subscription, in the
+         * order in which they were published.
+         *
+         * @param items the items, at least one and at most the current
+         * demand; the list may be retained but not modified
+         */
+        public void onNextBatch(List<? extends T> items);
+    }
+
     /**
      * A task for consuming buffer items and signals, created and
      * executed whenever they become available. A task consumes as
@@ -975,6 +1116,7 @@ public class SubmissionPublisher<T> implements Flow.Publisher<T> {
         T putItem;                         // for offer within ManagedBlocker
         BufferedSubscription<T> next;      // used only by publisher
         BufferedSubscription<T> nextRetry; // used only by publisher
+        int batchIndex;                    // used only by publisher
 
         // ctl values
         static final int ACTIVE    = 0x01; // consumer task active
@@ -1110,6 +1252,57 @@ public class SubmissionPublisher<T> implements Flow.Publisher<T> {
             return stat;
         }
 
+        /**
+         * Tries to add the items in the given range, reserving all free
+         * slots at once, growing the buffer if necessary, and starts the
+         * consumer task if necessary. Sets batchIndex to the index of
+         * the first item not added.
+         * @return -1 if disabled, 0 if not all items were added, else
+         * estimated lag
+         */
+        final int offerAll(Object[] items, int from, int to) {
+            int i = from, stat = 0;
+            while (i < to) {
+                int h = head, t = tail, cap, free;
+                Object[] a = array;
+                if (a != null && (cap = a.length) > 0 &&
+                    (free = cap - (t - h)) > 0) {
+                    int k = Math.min(free, to - i), mask = cap - 1;
+                    for (int j = 0; j < k; ++j)
+                        a[mask & (t + j)] = items[i + j]; // relaxed writes OK
+                    tail = t + k;
+                    i += k;
+                    stat = t + k - h;
+                }
+                else {
+                    @SuppressWarnings("unchecked") T x = (T) items[i];
+                    if ((stat = growAndAdd(a, x)) <= 0)
+                        break;
+                    ++i;
+                }
+            }
+            batchIndex = i;
+            return (i > from && stat >= 0 &&
+                    (ctl & (ACTIVE | CONSUME)) != (ACTIVE | CONSUME)) ?
+                startOnOffer(stat) : stat;
+        }
+
+        /**
+         * Adds the remaining items of a batch, blocking as in submit
+         * whenever none can be added.  Called only if initial offerAll
+         * returns 0.
+         */
+        final int submitAll(Object[] items, int to) {
+            int stat = 0;
+            for (int i = batchIndex; i < to; i = batchIndex) {
+                @SuppressWarnings("unchecked") T x = (T) items[i++];
+                if ((stat = submit(x)) < 0 || i == to ||
+                    (stat = offerAll(items, i, to)) < 0)
+                    break;
+            }
+            return stat;
+        }
+
         /**
          * Spins/helps/blocks while offer returns 0.  Called only if
          * initial offer return 0.
@@ -1404,6 +1597,7 @@ public class SubmissionPublisher<T> implements Flow.Publisher<T> {
             Flow.Subscriber<? super T> s;
             int h = head;
             if ((s = subscriber) != null) {           // else disabled
+                boolean batched = s instanceof BatchSubscriber<?>;
                 for (;;) {
                     long d = demand;
                     int c; Object[] a; int n; long i; Object x; Thread w;
@@ -1426,21 +1620,64 @@ public class SubmissionPublisher<T> implements Flow.Publisher<T> {
                     else if (((c & CONSUME) != 0 ||
                               U.compareAndSwapInt(this, CTL, c, c | CONSUME)) &&
                              U.compareAndSwapObject(a, i, x, null)) {
-                        U.putOrderedInt(this, HEAD, ++h);
-                        ForkJoinPool.getAndAddLong(this, DEMAND, -1L);
-                        if ((w = waiter) != null)
-                            signalWaiter(w);
-                        try {
-                            @SuppressWarnings("unchecked") T y = (T) x;
-                            s.onNext(y);
-                        } catch (Throwable ex) {
-                            handleOnNext(s, ex);
+                        if (batched)
+                            h = consumeBatch(s, a, h, x, d);
+                        else {
+                            U.putOrderedInt(this, HEAD, ++h);
+                            ForkJoinPool.getAndAddLong(this, DEMAND, -1L);
+                            if ((w = waiter) != null)
+                                signalWaiter(w);
+                            try {
+                                @SuppressWarnings("unchecked") T y = (T) x;
+                                s.onNext(y);
+                            } catch (Throwable ex) {
+                                handleOnNext(s, ex);
+                            }
                         }
                     }
                 }
             }
         }
 
+        /**
+         * Takes the items following the already taken item x at index h
+         * of array a, up to the demand d, and issues them together with
+         * x in a single call of onNextBatch.  Items are still taken one
+         * by one, as the producer may concurrently move them to a
+         * larger array, but head, demand and the waiter are updated
+         * once per batch.
+         * @return the new head
+         */
+        private int consumeBatch(Flow.Subscriber<? super T> s, Object[] a,
+                                  int h, Object x, long d) {
+            int max = (int) Math.min(d, (long) Math.max(tail - h, 1));
+            Object[] items = new Object[max];
+            items[0] = x;
+            int k = 1, mask = a.length - 1;
+            while (k < max) {
+                long i = ((long) (mask & (h + k)) << ASHIFT) + ABASE;
+                Object y = U.getObjectVolatile(a, i);
+                if (y == null || !U.compareAndSwapObject(a, i, y, null))
+                    break;
+                items[k++] = y;
+            }
+            Thread w;
+            U.putOrderedInt(this, HEAD, h + k);
+            ForkJoinPool.getAndAddLong(this, DEMAND, -k);
+            if ((w = waiter) != null)
+                signalWaiter(w);
+            if (k < max)
+                items = Arrays.copyOf(items, k);
+            try {
+                @SuppressWarnings("unchecked") List<T> batch =
+                    (List<T>) Arrays.asList(items);
+                ((BatchSubscriber<? super T>) s).onNextBatch(batch);
+            } catch (Throwable ex) {
+                handleOnNext(s, ex);
+            }
+            return h + k;
+        }
+
         /**
          * Responds to control events in consume().
          */
@@ -0,0 +1,119 @@
+/*
+ * Written by Stefan Zobel and released to the
+ * public domain, as explained at
+ * http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package org.openjdk.bench.java.util;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import java8.util.J8Arrays;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@code parallelSort} of random {@code int[]} and {@code long[]} arrays
+ * around and above the radix sort threshold, J8Arrays ({@code ss_}, radix
+ * sort from 8192 elements on) versus java.util.Arrays ({@code jdk_},
+ * parallel merge of dual-pivot quicksorted runs). The {@code narrow}
+ * variants draw from 2^16 distinct values only, the {@code sorted} variants
+ * are in order already. All benchmarks include the cost of copying the
+ * unsorted input.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(3)
+@State(Scope.Benchmark)
+public class ParallelSort {
+
+    @Param({"1000", "10000", "1000000", "10000000"})
+    private int size;
+
+    private int[] ints, intsNarrow, intsSorted;
+    private long[] longs;
+
+    @Setup
+    public void setup() {
+        Random rnd = new Random(42L);
+        ints = new int[size];
+        intsNarrow = new int[size];
+        intsSorted = new int[size];
+        longs = new long[size];
+        for (int i = 0; i < size; i++) {
+            ints[i] = rnd.nextInt();
+            intsNarrow[i] = rnd.nextInt(1 << 16);
+            longs[i] = rnd.nextLong();
+            intsSorted[i] = i;
+        }
+    }
+
+    @Benchmark
+    public int[] ss_int() {
+        int[] a = ints.clone();
+        J8Arrays.parallelSort(a);
+        return a;
+    }
+
+    @Benchmark
+    public int[] jdk_int() {
+        int[] a = ints.clone();
+        Arrays.parallelSort(a);
+        return a;
+    }
+
+    @Benchmark
+    public int[] ss_int_narrow() {
+        int[] a = intsNarrow.clone();
+        J8Arrays.parallelSort(a);
+        return a;
+    }
+
+    @Benchmark
+    public int[] jdk_int_narrow() {
+        int[] a = intsNarrow.clone();
+        Arrays.parallelSort(a);
+        return a;
+    }
+
+    @Benchmark
+    public int[] ss_int_sorted() {
+        int[] a = intsSorted.clone();
+        J8Arrays.parallelSort(a);
+        return a;
+    }
+
+    @Benchmark
+    public int[] jdk_int_sorted() {
+        int[] a = intsSorted.clone();
+        Arrays.parallelSort(a);
+        return a;
+    }
+
+    @Benchmark
+    public long[] ss_long() {
+        long[] a = longs.clone();
+        J8Arrays.parallelSort(a);
+        return a;
+    }
+
+    @Benchmark
+    public long[] jdk_long() {
+        long[] a = longs.clone();
+        Arrays.parallelSort(a);
+        return a;
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Written by Stefan Zobel and released to the
+ * public domain, as explained at
+ * http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package org.openjdk.bench.java.util.concurrent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import java8.util.concurrent.CompletableFuture;
+import java8.util.concurrent.CompletableFutures;
+import java8.util.concurrent.ForkJoinPool;
+import java8.util.function.Function;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Maps {@code size} inputs through an asynchronous function with at most
+ * {@code maxInFlight} incomplete calls, {@code CompletableFutures.mapAsync}
+ * ({@code ss_}) versus the hand-rolled alternatives: a semaphore that the
+ * submitting thread blocks on ({@code semaphore}) and {@code maxInFlight}
+ * chains of {@code thenCompose} over every {@code maxInFlight}-th input
+ * ({@code compose_chains}). The {@code async} variants complete the calls
+ * in the common ForkJoinPool, the others return completed futures, which
+ * shows the per-element overhead of the combinators alone.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(3)
+@State(Scope.Benchmark)
+public class MapAsync {
+
+    @Param({"1000", "100000"})
+    private int size;
+
+    @Param({"1", "16", "256"})
+    private int maxInFlight;
+
+    @Param({"false", "true"})
+    private boolean async;
+
+    private List<Integer> inputs;
+    private Function<Integer, CompletableFuture<Integer>> fn;
+
+    @Setup
+    public void setup() {
+        inputs = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            inputs.add(i);
+        }
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        fn = async
+            ? x -> CompletableFuture.supplyAsync(() -> x + 1, pool)
+            : x -> CompletableFuture.completedFuture(x + 1);
+    }
+
+    @Benchmark
+    public List<Integer> ss_ordered() {
+        return CompletableFutures.mapAsync(inputs, maxInFlight, fn).join();
+    }
+
+    @Benchmark
+    public List<Integer> ss_unordered() {
+        return CompletableFutures.mapAsyncUnordered(inputs, maxInFlight, fn).join();
+    }
+
+    @Benchmark
+    public List<Integer> semaphore() throws InterruptedException {
+        Semaphore permits = new Semaphore(maxInFlight);
+        List<CompletableFuture<Integer>> cfs = new ArrayList<>(size);
+        for (Integer x : inputs) {
+            permits.acquire();
+            cfs.add(fn.apply(x).whenComplete((r, ex) -> permits.release()));
+        }
+        return CompletableFuture.allResults(cfs).join();
+    }
+
+    @Benchmark
+    public Integer[] compose_chains() {
+        Integer[] results = new Integer[size];
+        List<CompletableFuture<Void>> chains = new ArrayList<>(maxInFlight);
+        for (int k = 0; k < maxInFlight && k < size; k++) {
+            CompletableFuture<Void> chain = CompletableFuture.completedFuture(null);
+            for (int i = k; i < size; i += maxInFlight) {
+                Integer x = inputs.get(i);
+                int index = i;
+                chain = chain.thenCompose(v -> fn.apply(x)).thenAccept(r -> results[index] = r);
+            }
+            chains.add(chain);
+        }
+        CompletableFuture.allOf(chains).join();
+        return results;
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Written by Stefan Zobel and released to the
+ * public domain, as explained at
+ * http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package org.openjdk.bench.java.util.stream;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import java8.util.J8Arrays;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@code distinct().count()} (DistinctOps) over input in which every value
+ * occurs about eight times. The parallel variants are measured both ordered
+ * and unordered as these take different code paths.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(3)
+@State(Scope.Benchmark)
+public class Distinct {
+
+    @Param({"1000", "1000000"})
+    private int size;
+
+    private Integer[] refs;
+    private int[] ints;
+    private long[] longs;
+
+    @Setup
+    public void setup() {
+        Random rnd = new Random(42L);
+        int range = Math.max(1, size >>> 3);
+        refs = new Integer[size];
+        ints = new int[size];
+        longs = new long[size];
+        for (int i = 0; i < size; i++) {
+            ints[i] = rnd.nextInt(range);
+            refs[i] = ints[i];
+            longs[i] = ints[i] * 0x9E3779B97F4A7C15L;
+        }
+    }
+
+    @Benchmark
+    public long ss_ref_seq() {
+        return J8Arrays.stream(refs).distinct().count();
+    }
+
+    @Benchmark
+    public long ss_ref_par() {
+        return J8Arrays.stream(refs).parallel().distinct().count();
+    }
+
+    @Benchmark
+    public long ss_ref_par_unordered() {
+        return J8Arrays.stream(refs).parallel().unordered().distinct().count();
+    }
+
+    @Benchmark
+    public long jdk_ref_seq() {
+        return Arrays.stream(refs).distinct().count();
+    }
+
+    @Benchmark
+    public long jdk_ref_par() {
+        return Arrays.stream(refs).parallel().distinct().count();
+    }
+
+    @Benchmark
+    public long jdk_ref_par_unordered() {
+        return Arrays.stream(refs).parallel().unordered().distinct().count();
+    }
+
+    @Benchmark
+    public long ss_int_seq() {
+        return J8Arrays.stream(ints).distinct().count();
+    }
+
+    @Benchmark
+    public long ss_int_par() {
+        return J8Arrays.stream(ints).parallel().distinct().count();
+    }
+
+    @Benchmark
+    public long ss_int_par_unordered() {
+        return J8Arrays.stream(ints).parallel().unordered().distinct().count();
+    }
+
+    @Benchmark
+    public long jdk_int_seq() {
+        return Arrays.stream(ints).distinct().count();
+    }
+
+    @Benchmark
+    public long jdk_int_par() {
+        return Arrays.stream(ints).parallel().distinct().count();
+    }
+
+    @Benchmark
+    public long jdk_int_par_unordered() {
+        return Arrays.stream(ints).parallel().unordered().distinct().count();
+    }
+
+    @Benchmark
+    public long ss_long_seq() {
+        return J8Arrays.stream(longs).distinct().count();
+    }
+
+    @Benchmark
+    public long ss_long_par() {
+        return J8Arrays.stream(longs).parallel().distinct().count();
+    }
+
+    @Benchmark
+    public long ss_long_par_unordered() {
+        return J8Arrays.stream(longs).parallel().unordered().distinct().count();
+    }
+
+    @Benchmark
+    public long jdk_long_seq() {
+        return Arrays.stream(longs).distinct().count();
+    }
+
+    @Benchmark
+    public long jdk_long_par() {
+        return Arrays.stream(longs).parallel().distinct().count();
+    }
+
+    @Benchmark
+    public long jdk_long_par_unordered() {
+        return Arrays.stream(longs).parallel().unordered().distinct().count();
+    }
+}
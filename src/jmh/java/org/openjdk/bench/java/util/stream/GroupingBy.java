@@ -0,0 +1,92 @@
+/*
+ * Written by Stefan Zobel and released to the
+ * public domain, as explained at
+ * http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package org.openjdk.bench.java.util.stream;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import java8.util.J8Arrays;
+import java8.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@code Collectors.groupingBy} / {@code groupingByConcurrent} with a
+ * counting downstream collector, keyed by a small and a large number of
+ * distinct keys.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(3)
+@State(Scope.Benchmark)
+public class GroupingBy {
+
+    @Param({"1000", "1000000"})
+    private int size;
+
+    @Param({"16", "65536"})
+    private int keys;
+
+    private Integer[] refs;
+
+    @Setup
+    public void setup() {
+        Random rnd = new Random(42L);
+        refs = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            refs[i] = rnd.nextInt(keys);
+        }
+    }
+
+    @Benchmark
+    public Map<Integer, Long> ss_seq() {
+        return J8Arrays.stream(refs).collect(Collectors.groupingBy(x -> x, Collectors.counting()));
+    }
+
+    @Benchmark
+    public Map<Integer, Long> ss_par() {
+        return J8Arrays.stream(refs).parallel().collect(Collectors.groupingBy(x -> x, Collectors.counting()));
+    }
+
+    @Benchmark
+    public Map<Integer, Long> ss_par_concurrent() {
+        return J8Arrays.stream(refs).parallel()
+                .collect(Collectors.groupingByConcurrent(x -> x, Collectors.counting()));
+    }
+
+    @Benchmark
+    public Map<Integer, Long> jdk_seq() {
+        return Arrays.stream(refs)
+                .collect(java.util.stream.Collectors.groupingBy(x -> x, java.util.stream.Collectors.counting()));
+    }
+
+    @Benchmark
+    public Map<Integer, Long> jdk_par() {
+        return Arrays.stream(refs).parallel()
+                .collect(java.util.stream.Collectors.groupingBy(x -> x, java.util.stream.Collectors.counting()));
+    }
+
+    @Benchmark
+    public Map<Integer, Long> jdk_par_concurrent() {
+        return Arrays.stream(refs).parallel()
+                .collect(java.util.stream.Collectors.groupingByConcurrent(x -> x,
+                        java.util.stream.Collectors.counting()));
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Written by Stefan Zobel and released to the
+ * public domain, as explained at
+ * http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package org.openjdk.bench.java.util.stream;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import java8.util.J8Arrays;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Stateless map-filter-reduce chains through the Reference, Int, Long and
+ * Double pipelines, sequential and parallel. The {@code ss_} benchmarks run
+ * against java8.util.stream, the {@code jdk_} benchmarks run the identical
+ * pipeline against java.util.stream on the same JVM.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(3)
+@State(Scope.Benchmark)
+public class MapFilterReduce {
+
+    @Param({"1000", "1000000"})
+    private int size;
+
+    private Integer[] refs;
+    private int[] ints;
+    private long[] longs;
+    private double[] doubles;
+
+    @Setup
+    public void setup() {
+        refs = new Integer[size];
+        ints = new int[size];
+        longs = new long[size];
+        doubles = new double[size];
+        for (int i = 0; i < size; i++) {
+            refs[i] = i;
+            ints[i] = i;
+            longs[i] = i;
+            doubles[i] = i;
+        }
+    }
+
+    @Benchmark
+    public int ss_ref_seq() {
+        return J8Arrays.stream(refs).map(x -> x + 1).filter(x -> (x & 1) == 0)
+                .map(x -> x * 3).reduce(0, Integer::sum);
+    }
+
+    @Benchmark
+    public int ss_ref_par() {
+        return J8Arrays.stream(refs).parallel().map(x -> x + 1).filter(x -> (x & 1) == 0)
+                .map(x -> x * 3).reduce(0, Integer::sum);
+    }
+
+    @Benchmark
+    public int jdk_ref_seq() {
+        return Arrays.stream(refs).map(x -> x + 1).filter(x -> (x & 1) == 0)
+                .map(x -> x * 3).reduce(0, Integer::sum);
+    }
+
+    @Benchmark
+    public int jdk_ref_par() {
+        return Arrays.stream(refs).parallel().map(x -> x + 1).filter(x -> (x & 1) == 0)
+                .map(x -> x * 3).reduce(0, Integer::sum);
+    }
+
+    @Benchmark
+    public int ss_int_seq() {
+        return J8Arrays.stream(ints).map(x -> x + 1).filter(x -> (x & 1) == 0)
+                .map(x -> x * 3).sum();
+    }
+
+    @Benchmark
+    public int ss_int_par() {
+        return J8Arrays.stream(ints).parallel().map(x -> x + 1).filter(x -> (x & 1) == 0)
+                .map(x -> x * 3).sum();
+    }
+
+    @Benchmark
+    public int jdk_int_seq() {
+        return Arrays.stream(ints).map(x -> x + 1).filter(x -> (x & 1) == 0)
+                .map(x -> x * 3).sum();
+    }
+
+    @Benchmark
+    public int jdk_int_par() {
+        return Arrays.stream(ints).parallel().map(x -> x + 1).filter(x -> (x & 1) == 0)
+                .map(x -> x * 3).sum();
+    }
+
+    @Benchmark
+    public long ss_long_seq() {
+        return J8Arrays.stream(longs).map(x -> x + 1L).filter(x -> (x & 1L) == 0L)
+                .map(x -> x * 3L).sum();
+    }
+
+    @Benchmark
+    public long ss_long_par() {
+        return J8Arrays.stream(longs).parallel().map(x -> x + 1L).filter(x -> (x & 1L) == 0L)
+                .map(x -> x * 3L).sum();
+    }
+
+    @Benchmark
+    public long jdk_long_seq() {
+        return Arrays.stream(longs).map(x -> x + 1L).filter(x -> (x & 1L) == 0L)
+                .map(x -> x * 3L).sum();
+    }
+
+    @Benchmark
+    public long jdk_long_par() {
+        return Arrays.stream(longs).parallel().map(x -> x + 1L).filter(x -> (x & 1L) == 0L)
+                .map(x -> x * 3L).sum();
+    }
+
+    @Benchmark
+    public double ss_double_seq() {
+        return J8Arrays.stream(doubles).map(x -> x + 1.0).filter(x -> x > 42.0)
+                .map(x -> x * 3.0).max().getAsDouble();
+    }
+
+    @Benchmark
+    public double ss_double_par() {
+        return J8Arrays.stream(doubles).parallel().map(x -> x + 1.0).filter(x -> x > 42.0)
+                .map(x -> x * 3.0).max().getAsDouble();
+    }
+
+    @Benchmark
+    public double jdk_double_seq() {
+        return Arrays.stream(doubles).map(x -> x + 1.0).filter(x -> x > 42.0)
+                .map(x -> x * 3.0).max().getAsDouble();
+    }
+
+    @Benchmark
+    public double jdk_double_par() {
+        return Arrays.stream(doubles).parallel().map(x -> x + 1.0).filter(x -> x > 42.0)
+                .map(x -> x * 3.0).max().getAsDouble();
+    }
+}
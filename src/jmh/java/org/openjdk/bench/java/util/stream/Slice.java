@@ -0,0 +1,107 @@
+/*
+ * Written by Stefan Zobel and released to the
+ * public domain, as explained at
+ * http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package org.openjdk.bench.java.util.stream;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import java8.util.J8Arrays;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@code skip(n).limit(m)} (SliceOps) after a filter, so that the upstream is
+ * not SIZED and the slice cannot be pushed into the source spliterator.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(3)
+@State(Scope.Benchmark)
+public class Slice {
+
+    @Param({"1000", "1000000"})
+    private int size;
+
+    private Integer[] refs;
+    private int[] ints;
+
+    private long skip;
+    private long limit;
+
+    @Setup
+    public void setup() {
+        refs = new Integer[size];
+        ints = new int[size];
+        for (int i = 0; i < size; i++) {
+            refs[i] = i;
+            ints[i] = i;
+        }
+        skip = size >>> 4;
+        limit = size >>> 2;
+    }
+
+    @Benchmark
+    public long ss_ref_seq() {
+        return J8Arrays.stream(refs).filter(x -> (x & 3) != 0).skip(skip).limit(limit).count();
+    }
+
+    @Benchmark
+    public long ss_ref_par() {
+        return J8Arrays.stream(refs).parallel().filter(x -> (x & 3) != 0).skip(skip).limit(limit).count();
+    }
+
+    @Benchmark
+    public long ss_ref_par_unordered() {
+        return J8Arrays.stream(refs).parallel().unordered().filter(x -> (x & 3) != 0).skip(skip).limit(limit).count();
+    }
+
+    @Benchmark
+    public long jdk_ref_seq() {
+        return Arrays.stream(refs).filter(x -> (x & 3) != 0).skip(skip).limit(limit).count();
+    }
+
+    @Benchmark
+    public long jdk_ref_par() {
+        return Arrays.stream(refs).parallel().filter(x -> (x & 3) != 0).skip(skip).limit(limit).count();
+    }
+
+    @Benchmark
+    public long jdk_ref_par_unordered() {
+        return Arrays.stream(refs).parallel().unordered().filter(x -> (x & 3) != 0).skip(skip).limit(limit).count();
+    }
+
+    @Benchmark
+    public int ss_int_seq() {
+        return J8Arrays.stream(ints).filter(x -> (x & 3) != 0).skip(skip).limit(limit).sum();
+    }
+
+    @Benchmark
+    public int ss_int_par() {
+        return J8Arrays.stream(ints).parallel().filter(x -> (x & 3) != 0).skip(skip).limit(limit).sum();
+    }
+
+    @Benchmark
+    public int jdk_int_seq() {
+        return Arrays.stream(ints).filter(x -> (x & 3) != 0).skip(skip).limit(limit).sum();
+    }
+
+    @Benchmark
+    public int jdk_int_par() {
+        return Arrays.stream(ints).parallel().filter(x -> (x & 3) != 0).skip(skip).limit(limit).sum();
+    }
+}
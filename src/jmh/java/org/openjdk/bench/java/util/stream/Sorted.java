@@ -0,0 +1,182 @@
+/*
+ * Written by Stefan Zobel and released to the
+ * public domain, as explained at
+ * http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package org.openjdk.bench.java.util.stream;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import java8.util.J8Arrays;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@code sorted().toArray()} on randomly ordered input for all four stream
+ * shapes (SortedOps), sequential and parallel, java8.util.stream
+ * ({@code ss_}) versus java.util.stream ({@code jdk_}). The {@code top10}
+ * benchmarks run {@code sorted().limit(10)} instead.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(3)
+@State(Scope.Benchmark)
+public class Sorted {
+
+    @Param({"1000", "1000000"})
+    private int size;
+
+    private Integer[] refs;
+    private int[] ints;
+    private long[] longs;
+    private double[] doubles;
+
+    @Setup
+    public void setup() {
+        Random rnd = new Random(42L);
+        refs = new Integer[size];
+        ints = new int[size];
+        longs = new long[size];
+        doubles = new double[size];
+        for (int i = 0; i < size; i++) {
+            ints[i] = rnd.nextInt();
+            refs[i] = ints[i];
+            longs[i] = rnd.nextLong();
+            doubles[i] = rnd.nextDouble();
+        }
+    }
+
+    @Benchmark
+    public Object[] ss_ref_seq() {
+        return J8Arrays.stream(refs).sorted().toArray();
+    }
+
+    @Benchmark
+    public Object[] ss_ref_par() {
+        return J8Arrays.stream(refs).parallel().sorted().toArray();
+    }
+
+    @Benchmark
+    public Object[] jdk_ref_seq() {
+        return Arrays.stream(refs).sorted().toArray();
+    }
+
+    @Benchmark
+    public Object[] jdk_ref_par() {
+        return Arrays.stream(refs).parallel().sorted().toArray();
+    }
+
+    @Benchmark
+    public int[] ss_int_seq() {
+        return J8Arrays.stream(ints).sorted().toArray();
+    }
+
+    @Benchmark
+    public int[] ss_int_par() {
+        return J8Arrays.stream(ints).parallel().sorted().toArray();
+    }
+
+    @Benchmark
+    public int[] jdk_int_seq() {
+        return Arrays.stream(ints).sorted().toArray();
+    }
+
+    @Benchmark
+    public int[] jdk_int_par() {
+        return Arrays.stream(ints).parallel().sorted().toArray();
+    }
+
+    @Benchmark
+    public long[] ss_long_seq() {
+        return J8Arrays.stream(longs).sorted().toArray();
+    }
+
+    @Benchmark
+    public long[] ss_long_par() {
+        return J8Arrays.stream(longs).parallel().sorted().toArray();
+    }
+
+    @Benchmark
+    public long[] jdk_long_seq() {
+        return Arrays.stream(longs).sorted().toArray();
+    }
+
+    @Benchmark
+    public long[] jdk_long_par() {
+        return Arrays.stream(longs).parallel().sorted().toArray();
+    }
+
+    @Benchmark
+    public double[] ss_double_seq() {
+        return J8Arrays.stream(doubles).sorted().toArray();
+    }
+
+    @Benchmark
+    public double[] ss_double_par() {
+        return J8Arrays.stream(doubles).parallel().sorted().toArray();
+    }
+
+    @Benchmark
+    public double[] jdk_double_seq() {
+        return Arrays.stream(doubles).sorted().toArray();
+    }
+
+    @Benchmark
+    public double[] jdk_double_par() {
+        return Arrays.stream(doubles).parallel().sorted().toArray();
+    }
+
+    @Benchmark
+    public Object[] ss_ref_top10_seq() {
+        return J8Arrays.stream(refs).sorted().limit(10).toArray();
+    }
+
+    @Benchmark
+    public Object[] ss_ref_top10_par() {
+        return J8Arrays.stream(refs).parallel().sorted().limit(10).toArray();
+    }
+
+    @Benchmark
+    public Object[] jdk_ref_top10_seq() {
+        return Arrays.stream(refs).sorted().limit(10).toArray();
+    }
+
+    @Benchmark
+    public Object[] jdk_ref_top10_par() {
+        return Arrays.stream(refs).parallel().sorted().limit(10).toArray();
+    }
+
+    @Benchmark
+    public int[] ss_int_top10_seq() {
+        return J8Arrays.stream(ints).sorted().limit(10).toArray();
+    }
+
+    @Benchmark
+    public int[] ss_int_top10_par() {
+        return J8Arrays.stream(ints).parallel().sorted().limit(10).toArray();
+    }
+
+    @Benchmark
+    public int[] jdk_int_top10_seq() {
+        return Arrays.stream(ints).sorted().limit(10).toArray();
+    }
+
+    @Benchmark
+    public int[] jdk_int_top10_par() {
+        return Arrays.stream(ints).parallel().sorted().limit(10).toArray();
+    }
+}
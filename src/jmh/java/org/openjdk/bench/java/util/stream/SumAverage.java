@@ -0,0 +1,112 @@
+/*
+ * Written by Stefan Zobel and released to the
+ * public domain, as explained at
+ * http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package org.openjdk.bench.java.util.stream;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import java8.util.J8Arrays;
+import java8.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The {@code average()} / {@code sum()} terminal operations of the
+ * primitive streams and the averaging / summing collectors, streamsupport
+ * ({@code ss_}, scalar accumulators) versus java.util.stream ({@code jdk_},
+ * {@code long[]} / {@code double[]} containers). Run with {@code -prof gc}
+ * to compare the allocation rate per operation; the small sizes are where
+ * the per-container allocation shows.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(3)
+@State(Scope.Benchmark)
+public class SumAverage {
+
+    @Param({"10", "1000", "100000"})
+    private int size;
+
+    private int[] ints;
+    private double[] doubles;
+    private Integer[] refs;
+
+    @Setup
+    public void setup() {
+        Random rnd = new Random(42L);
+        ints = new int[size];
+        doubles = new double[size];
+        refs = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            ints[i] = rnd.nextInt();
+            doubles[i] = rnd.nextGaussian();
+            refs[i] = ints[i];
+        }
+    }
+
+    @Benchmark
+    public double ss_int_average() {
+        return J8Arrays.stream(ints).average().getAsDouble();
+    }
+
+    @Benchmark
+    public double jdk_int_average() {
+        return Arrays.stream(ints).average().getAsDouble();
+    }
+
+    @Benchmark
+    public double ss_double_sum() {
+        return J8Arrays.stream(doubles).sum();
+    }
+
+    @Benchmark
+    public double jdk_double_sum() {
+        return Arrays.stream(doubles).sum();
+    }
+
+    @Benchmark
+    public double ss_double_average() {
+        return J8Arrays.stream(doubles).average().getAsDouble();
+    }
+
+    @Benchmark
+    public double jdk_double_average() {
+        return Arrays.stream(doubles).average().getAsDouble();
+    }
+
+    @Benchmark
+    public Double ss_averagingInt() {
+        return J8Arrays.stream(refs).collect(Collectors.averagingInt(x -> x));
+    }
+
+    @Benchmark
+    public Double jdk_averagingInt() {
+        return Arrays.stream(refs).collect(java.util.stream.Collectors.averagingInt(x -> x));
+    }
+
+    @Benchmark
+    public Double ss_summingDouble() {
+        return J8Arrays.stream(refs).collect(Collectors.summingDouble(x -> x));
+    }
+
+    @Benchmark
+    public Double jdk_summingDouble() {
+        return Arrays.stream(refs).collect(java.util.stream.Collectors.summingDouble(x -> x));
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Written by Stefan Zobel and released to the
+ * public domain, as explained at
+ * http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package org.openjdk.bench.java.util.stream;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import java8.util.J8Arrays;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@code toArray()} for all four stream shapes, once for a SIZED pipeline
+ * ({@code map}) and once for a pipeline whose size is unknown
+ * ({@code filter}), sequential and parallel.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(3)
+@State(Scope.Benchmark)
+public class ToArray {
+
+    @Param({"1000", "1000000"})
+    private int size;
+
+    private Integer[] refs;
+    private int[] ints;
+    private long[] longs;
+    private double[] doubles;
+
+    @Setup
+    public void setup() {
+        refs = new Integer[size];
+        ints = new int[size];
+        longs = new long[size];
+        doubles = new double[size];
+        for (int i = 0; i < size; i++) {
+            refs[i] = i;
+            ints[i] = i;
+            longs[i] = i;
+            doubles[i] = i;
+        }
+    }
+
+    @Benchmark
+    public Object[] ss_ref_sized_seq() {
+        return J8Arrays.stream(refs).map(x -> x + 1).toArray();
+    }
+
+    @Benchmark
+    public Object[] ss_ref_sized_par() {
+        return J8Arrays.stream(refs).parallel().map(x -> x + 1).toArray();
+    }
+
+    @Benchmark
+    public Object[] ss_ref_unsized_seq() {
+        return J8Arrays.stream(refs).filter(x -> (x & 3) != 0).toArray();
+    }
+
+    @Benchmark
+    public Object[] ss_ref_unsized_par() {
+        return J8Arrays.stream(refs).parallel().filter(x -> (x & 3) != 0).toArray();
+    }
+
+    @Benchmark
+    public Object[] jdk_ref_sized_seq() {
+        return Arrays.stream(refs).map(x -> x + 1).toArray();
+    }
+
+    @Benchmark
+    public Object[] jdk_ref_sized_par() {
+        return Arrays.stream(refs).parallel().map(x -> x + 1).toArray();
+    }
+
+    @Benchmark
+    public Object[] jdk_ref_unsized_seq() {
+        return Arrays.stream(refs).filter(x -> (x & 3) != 0).toArray();
+    }
+
+    @Benchmark
+    public Object[] jdk_ref_unsized_par() {
+        return Arrays.stream(refs).parallel().filter(x -> (x & 3) != 0).toArray();
+    }
+
+    @Benchmark
+    public int[] ss_int_sized_par() {
+        return J8Arrays.stream(ints).parallel().map(x -> x + 1).toArray();
+    }
+
+    @Benchmark
+    public int[] ss_int_unsized_par() {
+        return J8Arrays.stream(ints).parallel().filter(x -> (x & 3) != 0).toArray();
+    }
+
+    @Benchmark
+    public int[] jdk_int_sized_par() {
+        return Arrays.stream(ints).parallel().map(x -> x + 1).toArray();
+    }
+
+    @Benchmark
+    public int[] jdk_int_unsized_par() {
+        return Arrays.stream(ints).parallel().filter(x -> (x & 3) != 0).toArray();
+    }
+
+    @Benchmark
+    public long[] ss_long_sized_par() {
+        return J8Arrays.stream(longs).parallel().map(x -> x + 1L).toArray();
+    }
+
+    @Benchmark
+    public long[] jdk_long_sized_par() {
+        return Arrays.stream(longs).parallel().map(x -> x + 1L).toArray();
+    }
+
+    @Benchmark
+    public double[] ss_double_sized_par() {
+        return J8Arrays.stream(doubles).parallel().map(x -> x + 1.0).toArray();
+    }
+
+    @Benchmark
+    public double[] jdk_double_sized_par() {
+        return Arrays.stream(doubles).parallel().map(x -> x + 1.0).toArray();
+    }
+}
@@ -0,0 +1,288 @@
+/*
+ * Written by Stefan Zobel and released to the
+ * public domain, as explained at
+ * http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package java8.nio;
+
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.Comparator;
+
+import java8.util.Objects;
+import java8.util.Spliterator;
+import java8.util.Spliterators;
+import java8.util.function.Consumer;
+import java8.util.function.DoubleConsumer;
+import java8.util.function.IntConsumer;
+import java8.util.function.LongConsumer;
+
+/**
+ * Spliterators over the elements of primitive NIO buffers that don't have
+ * an accessible backing array, such as direct and mapped buffers (see
+ * {@link BufferStreams}). The elements are read with absolute gets, so the
+ * position and limit of the buffer are not changed. Like the array
+ * spliterators these spliterators split in halves and report {@code SIZED}
+ * and {@code SUBSIZED}.
+ *
+ * @since 1.5.7
+ */
+/*package*/ final class BufferSpliterator {
+
+    // No instances
+    private BufferSpliterator() {
+    }
+
+    static final class OfInt implements Spliterator.OfInt {
+        private final IntBuffer buffer;
+        private int index;        // current index, modified on advance/split
+        private final int fence;  // one past last index
+        private final int characteristics;
+
+        /**
+         * Creates a spliterator covering the given range of the buffer.
+         * @param buffer the buffer, assumed to be unmodified during use
+         * @param origin the least index (inclusive) to cover
+         * @param fence one past the greatest index to cover
+         * @param additionalCharacteristics Additional spliterator characteristics
+         *        of this spliterator's source or elements beyond {@code SIZED} and
+         *        {@code SUBSIZED} which are are always reported
+         */
+        OfInt(IntBuffer buffer, int origin, int fence, int additionalCharacteristics) {
+            this.buffer = buffer;
+            this.index = origin;
+            this.fence = fence;
+            this.characteristics = additionalCharacteristics | Spliterator.SIZED | Spliterator.SUBSIZED;
+        }
+
+        @Override
+        public Spliterator.OfInt trySplit() {
+            int lo = index, mid = (lo + fence) >>> 1;
+            return (lo >= mid)
+                   ? null
+                   : new BufferSpliterator.OfInt(buffer, lo, index = mid, characteristics);
+        }
+
+        @Override
+        public void forEachRemaining(IntConsumer action) {
+            IntBuffer b; int i, hi; // hoist accesses and checks from loop
+            Objects.requireNonNull(action);
+            if ((b = buffer).capacity() >= (hi = fence) &&
+                (i = index) >= 0 && i < (index = hi)) {
+                do { action.accept(b.get(i)); } while (++i < hi);
+            }
+        }
+
+        @Override
+        public boolean tryAdvance(IntConsumer action) {
+            Objects.requireNonNull(action);
+            if (index >= 0 && index < fence) {
+                action.accept(buffer.get(index++));
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Integer> action) {
+            return Spliterators.OfInt.tryAdvance(this, action);
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super Integer> action) {
+            Spliterators.OfInt.forEachRemaining(this, action);
+        }
+
+        @Override
+        public long estimateSize() { return (long)(fence - index); }
+
+        @Override
+        public int characteristics() {
+            return characteristics;
+        }
+
+        @Override
+        public long getExactSizeIfKnown() {
+            return Spliterators.getExactSizeIfKnown(this);
+        }
+
+        @Override
+        public boolean hasCharacteristics(int characteristics) {
+            return Spliterators.hasCharacteristics(this, characteristics);
+        }
+
+        @Override
+        public Comparator<? super Integer> getComparator() {
+            return Spliterators.getComparator(this);
+        }
+    }
+
+    static final class OfLong implements Spliterator.OfLong {
+        private final LongBuffer buffer;
+        private int index;        // current index, modified on advance/split
+        private final int fence;  // one past last index
+        private final int characteristics;
+
+        /**
+         * Creates a spliterator covering the given range of the buffer.
+         * @param buffer the buffer, assumed to be unmodified during use
+         * @param origin the least index (inclusive) to cover
+         * @param fence one past the greatest index to cover
+         * @param additionalCharacteristics Additional spliterator characteristics
+         *        of this spliterator's source or elements beyond {@code SIZED} and
+         *        {@code SUBSIZED} which are are always reported
+         */
+        OfLong(LongBuffer buffer, int origin, int fence, int additionalCharacteristics) {
+            this.buffer = buffer;
+            this.index = origin;
+            this.fence = fence;
+            this.characteristics = additionalCharacteristics | Spliterator.SIZED | Spliterator.SUBSIZED;
+        }
+
+        @Override
+        public Spliterator.OfLong trySplit() {
+            int lo = index, mid = (lo + fence) >>> 1;
+            return (lo >= mid)
+                   ? null
+                   : new BufferSpliterator.OfLong(buffer, lo, index = mid, characteristics);
+        }
+
+        @Override
+        public void forEachRemaining(LongConsumer action) {
+            LongBuffer b; int i, hi; // hoist accesses and checks from loop
+            Objects.requireNonNull(action);
+            if ((b = buffer).capacity() >= (hi = fence) &&
+                (i = index) >= 0 && i < (index = hi)) {
+                do { action.accept(b.get(i)); } while (++i < hi);
+            }
+        }
+
+        @Override
+        public boolean tryAdvance(LongConsumer action) {
+            Objects.requireNonNull(action);
+            if (index >= 0 && index < fence) {
+                action.accept(buffer.get(index++));
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Long> action) {
+            return Spliterators.OfLong.tryAdvance(this, action);
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super Long> action) {
+            Spliterators.OfLong.forEachRemaining(this, action);
+        }
+
+        @Override
+        public long estimateSize() { return (long)(fence - index); }
+
+        @Override
+        public int characteristics() {
+            return characteristics;
+        }
+
+        @Override
+        public long getExactSizeIfKnown() {
+            return Spliterators.getExactSizeIfKnown(this);
+        }
+
+        @Override
+        public boolean hasCharacteristics(int characteristics) {
+            return Spliterators.hasCharacteristics(this, characteristics);
+        }
+
+        @Override
+        public Comparator<? super Long> getComparator() {
+            return Spliterators.getComparator(this);
+        }
+    }
+
+    static final class OfDouble implements Spliterator.OfDouble {
+        private final DoubleBuffer buffer;
+        private int index;        // current index, modified on advance/split
+        private final int fence;  // one past last index
+        private final int characteristics;
+
+        /**
+         * Creates a spliterator covering the given range of the buffer.
+         * @param buffer the buffer, assumed to be unmodified during use
+         * @param origin the least index (inclusive) to cover
+         * @param fence one past the greatest index to cover
+         * @param additionalCharacteristics Additional spliterator characteristics
+         *        of this spliterator's source or elements beyond {@code SIZED} and
+         *        {@code SUBSIZED} which are are always reported
+         */
+        OfDouble(DoubleBuffer buffer, int origin, int fence, int additionalCharacteristics) {
+            this.buffer = buffer;
+            this.index = origin;
+            this.fence = fence;
+            this.characteristics = additionalCharacteristics | Spliterator.SIZED | Spliterator.SUBSIZED;
+        }
+
+        @Override
+        public Spliterator.OfDouble trySplit() {
+            int lo = index, mid = (lo + fence) >>> 1;
+            return (lo >= mid)
+                   ? null
+                   : new BufferSpliterator.OfDouble(buffer, lo, index = mid, characteristics);
+        }
+
+        @Override
+        public void forEachRemaining(DoubleConsumer action) {
+            DoubleBuffer b; int i, hi; // hoist accesses and checks from loop
+            Objects.requireNonNull(action);
+            if ((b = buffer).capacity() >= (hi = fence) &&
+                (i = index) >= 0 && i < (index = hi)) {
+                do { action.accept(b.get(i)); } while (++i < hi);
+            }
+        }
+
+        @Override
+        public boolean tryAdvance(DoubleConsumer action) {
+            Objects.requireNonNull(action);
+            if (index >= 0 && index < fence) {
+                action.accept(buffer.get(index++));
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Double> action) {
+            return Spliterators.OfDouble.tryAdvance(this, action);
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super Double> action) {
+            Spliterators.OfDouble.forEachRemaining(this, action);
+        }
+
+        @Override
+        public long estimateSize() { return (long)(fence - index); }
+
+        @Override
+        public int characteristics() {
+            return characteristics;
+        }
+
+        @Override
+        public long getExactSizeIfKnown() {
+            return Spliterators.getExactSizeIfKnown(this);
+        }
+
+        @Override
+        public boolean hasCharacteristics(int characteristics) {
+            return Spliterators.hasCharacteristics(this, characteristics);
+        }
+
+        @Override
+        public Comparator<? super Double> getComparator() {
+            return Spliterators.getComparator(this);
+        }
+    }
+}
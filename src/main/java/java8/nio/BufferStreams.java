@@ -0,0 +1,132 @@
+/*
+ * Written by Stefan Zobel and released to the
+ * public domain, as explained at
+ * http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package java8.nio;
+
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+
+import java8.util.Spliterator;
+import java8.util.Spliterators;
+import java8.util.stream.DoubleStream;
+import java8.util.stream.IntStream;
+import java8.util.stream.LongStream;
+import java8.util.stream.StreamSupport;
+
+/**
+ * Static factory methods for primitive streams and spliterators over the
+ * elements of primitive NIO buffers, without copying the elements into an
+ * array first.
+ *
+ * <p>The elements are those between the position and the limit of the
+ * buffer at the time the stream or spliterator is created, later changes of
+ * the position or the limit have no effect on them. Heap buffers are
+ * traversed through their backing array, all other buffers (direct buffers
+ * and views of direct or mapped {@code ByteBuffer}s, for example
+ * {@code channel.map(READ_ONLY, 0, size).order(ByteOrder.LITTLE_ENDIAN).asLongBuffer()})
+ * with absolute {@code get}s. Either way the spliterators split in halves
+ * and report {@code ORDERED}, {@code SIZED} and {@code SUBSIZED}, so the
+ * streams parallelize as well as those over arrays. The behaviour is
+ * undefined if the contents of the buffer are modified while the stream is
+ * traversed.
+ *
+ * @since 1.5.7
+ */
+public final class BufferStreams {
+
+    /**
+     * Returns a sequential {@link IntStream} with the remaining elements of
+     * the given buffer as its source.
+     *
+     * @param buffer the buffer, assumed to be unmodified during use
+     * @return an {@code IntStream} for the remaining elements of the buffer
+     * @throws NullPointerException if the buffer is null
+     */
+    public static IntStream stream(IntBuffer buffer) {
+        return StreamSupport.intStream(spliterator(buffer), false);
+    }
+
+    /**
+     * Returns a sequential {@link LongStream} with the remaining elements of
+     * the given buffer as its source.
+     *
+     * @param buffer the buffer, assumed to be unmodified during use
+     * @return a {@code LongStream} for the remaining elements of the buffer
+     * @throws NullPointerException if the buffer is null
+     */
+    public static LongStream stream(LongBuffer buffer) {
+        return StreamSupport.longStream(spliterator(buffer), false);
+    }
+
+    /**
+     * Returns a sequential {@link DoubleStream} with the remaining elements of
+     * the given buffer as its source.
+     *
+     * @param buffer the buffer, assumed to be unmodified during use
+     * @return a {@code DoubleStream} for the remaining elements of the buffer
+     * @throws NullPointerException if the buffer is null
+     */
+    public static DoubleStream stream(DoubleBuffer buffer) {
+        return StreamSupport.doubleStream(spliterator(buffer), false);
+    }
+
+    /**
+     * Returns a {@link Spliterator.OfInt} covering the remaining elements of
+     * the given buffer.
+     *
+     * @param buffer the buffer, assumed to be unmodified during use
+     * @return a spliterator for the remaining elements of the buffer
+     * @throws NullPointerException if the buffer is null
+     */
+    public static Spliterator.OfInt spliterator(IntBuffer buffer) {
+        int pos = buffer.position(), limit = buffer.limit();
+        if (buffer.hasArray()) {
+            int offset = buffer.arrayOffset();
+            return Spliterators.spliterator(buffer.array(), offset + pos, offset + limit,
+                    Spliterator.ORDERED);
+        }
+        return new BufferSpliterator.OfInt(buffer.duplicate(), pos, limit, Spliterator.ORDERED);
+    }
+
+    /**
+     * Returns a {@link Spliterator.OfLong} covering the remaining elements of
+     * the given buffer.
+     *
+     * @param buffer the buffer, assumed to be unmodified during use
+     * @return a spliterator for the remaining elements of the buffer
+     * @throws NullPointerException if the buffer is null
+     */
+    public static Spliterator.OfLong spliterator(LongBuffer buffer) {
+        int pos = buffer.position(), limit = buffer.limit();
+        if (buffer.hasArray()) {
+            int offset = buffer.arrayOffset();
+            return Spliterators.spliterator(buffer.array(), offset + pos, offset + limit,
+                    Spliterator.ORDERED);
+        }
+        return new BufferSpliterator.OfLong(buffer.duplicate(), pos, limit, Spliterator.ORDERED);
+    }
+
+    /**
+     * Returns a {@link Spliterator.OfDouble} covering the remaining elements
+     * of the given buffer.
+     *
+     * @param buffer the buffer, assumed to be unmodified during use
+     * @return a spliterator for the remaining elements of the buffer
+     * @throws NullPointerException if the buffer is null
+     */
+    public static Spliterator.OfDouble spliterator(DoubleBuffer buffer) {
+        int pos = buffer.position(), limit = buffer.limit();
+        if (buffer.hasArray()) {
+            int offset = buffer.arrayOffset();
+            return Spliterators.spliterator(buffer.array(), offset + pos, offset + limit,
+                    Spliterator.ORDERED);
+        }
+        return new BufferSpliterator.OfDouble(buffer.duplicate(), pos, limit, Spliterator.ORDERED);
+    }
+
+    private BufferStreams() {
+    }
+}
@@ -0,0 +1,326 @@
+/*
+ * Written by Stefan Zobel and released to the
+ * public domain, as explained at
+ * http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package java8.nio;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Comparator;
+
+import java8.util.Objects;
+import java8.util.Spliterator;
+import java8.util.Spliterators;
+import java8.util.function.Consumer;
+
+/**
+ * A Spliterator over the records of a byte range of a file, read through
+ * memory mappings of the file (see {@link MappedStreams}).
+ *
+ * <p>The file is mapped in windows of at most {@link #WINDOW} bytes, so
+ * files larger than 2 GB are supported and each split-off part maps only
+ * the region it traverses. {@link #trySplit()} cuts the byte range in the
+ * middle and moves the cut forward to the start of the next record, which
+ * the subclasses locate by looking at the bytes around the cut.
+ *
+ * @param <T> the type of the records
+ * @since 1.5.7
+ */
+/*package*/ abstract class MappedSpliterator<T> implements Spliterator<T> {
+
+    /** The maximum size of a single mapping */
+    static final int WINDOW = 1 << 26;
+
+    final FileChannel channel;
+    // the start of the next record
+    long index;
+    // one past the last byte of the range
+    final long fence;
+
+    private MappedByteBuffer window;
+    private long windowStart;
+
+    MappedSpliterator(FileChannel channel, long index, long fence) {
+        this.channel = channel;
+        this.index = index;
+        this.fence = fence;
+    }
+
+    /**
+     * Returns the first record start in {@code [pos, fence)}, or
+     * {@code fence} if there is none. {@code pos} is greater than
+     * {@code index}.
+     */
+    abstract long recordStart(long pos);
+
+    /**
+     * Returns the record starting at {@code index} and advances
+     * {@code index} to the start of the next record. Only called if
+     * {@code index < fence}.
+     */
+    abstract T nextRecord();
+
+    /**
+     * Creates a spliterator over the range {@code [from, to)}, which
+     * starts at a record boundary.
+     */
+    abstract MappedSpliterator<T> slice(long from, long to);
+
+    /**
+     * Makes sure the current window covers {@code pos}.
+     */
+    private void cover(long pos) {
+        MappedByteBuffer w = window;
+        if (w == null || pos < windowStart || pos >= windowStart + w.limit()) {
+            try {
+                window = channel.map(FileChannel.MapMode.READ_ONLY, pos, Math.min(WINDOW, fence - pos));
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            windowStart = pos;
+        }
+    }
+
+    final byte byteAt(long pos) {
+        cover(pos);
+        return window.get((int) (pos - windowStart));
+    }
+
+    /**
+     * Returns a copy of the bytes {@code [from, to)}.
+     */
+    final byte[] bytes(long from, long to) {
+        long size = to - from;
+        if (size > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("Record too large: " + size + " bytes at " + from);
+        }
+        byte[] b = new byte[(int) size];
+        int off = 0;
+        for (long pos = from; pos < to; ) {
+            cover(pos);
+            ByteBuffer w = window.duplicate();
+            int i = (int) (pos - windowStart);
+            int n = (int) Math.min(to - pos, w.limit() - i);
+            // the cast keeps the byte code compatible with pre-Java 9
+            ((Buffer) w).position(i);
+            w.get(b, off, n);
+            off += n;
+            pos += n;
+        }
+        return b;
+    }
+
+    /**
+     * Returns the bytes {@code [from, to)} as a read-only buffer, a slice of
+     * the mapping if they lie within the current window, otherwise a copy.
+     */
+    final ByteBuffer buffer(long from, long to) {
+        cover(from);
+        long windowEnd = windowStart + window.limit();
+        if (to <= windowEnd) {
+            ByteBuffer w = window.duplicate();
+            // the casts keep the byte code compatible with pre-Java 9
+            ((Buffer) w).position((int) (from - windowStart));
+            ((Buffer) w).limit((int) (to - windowStart));
+            return w.slice().asReadOnlyBuffer();
+        }
+        return ByteBuffer.wrap(bytes(from, to)).asReadOnlyBuffer();
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        long lo = index, mid = (lo + fence) >>> 1;
+        if (mid <= lo) {
+            return null;
+        }
+        long cut = recordStart(mid);
+        if (cut >= fence) {
+            return null;
+        }
+        index = cut;
+        return slice(lo, cut);
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        Objects.requireNonNull(action);
+        if (index < fence) {
+            action.accept(nextRecord());
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super T> action) {
+        Objects.requireNonNull(action);
+        while (index < fence) {
+            action.accept(nextRecord());
+        }
+    }
+
+    /**
+     * Returns the number of remaining bytes, an upper bound of the number of
+     * remaining records.
+     */
+    @Override
+    public long estimateSize() {
+        return fence - index;
+    }
+
+    @Override
+    public int characteristics() {
+        return Spliterator.ORDERED | Spliterator.NONNULL;
+    }
+
+    @Override
+    public long getExactSizeIfKnown() {
+        return Spliterators.getExactSizeIfKnown(this);
+    }
+
+    @Override
+    public boolean hasCharacteristics(int characteristics) {
+        return Spliterators.hasCharacteristics(this, characteristics);
+    }
+
+    @Override
+    public Comparator<? super T> getComparator() {
+        return Spliterators.getComparator(this);
+    }
+
+    /**
+     * The lines of a file in an ASCII-compatible encoding, terminated by a
+     * line feed ('\n'), a carriage return ('\r'), or a carriage return
+     * followed immediately by a line feed.
+     */
+    static final class Lines extends MappedSpliterator<String> {
+        private final Charset cs;
+
+        Lines(FileChannel channel, long index, long fence, Charset cs) {
+            super(channel, index, fence);
+            this.cs = cs;
+        }
+
+        @Override
+        long recordStart(long pos) {
+            for (long q = pos; q < fence; q++) {
+                byte b = byteAt(q - 1);
+                if (b == '\n' || (b == '\r' && byteAt(q) != '\n')) {
+                    return q;
+                }
+            }
+            return fence;
+        }
+
+        @Override
+        String nextRecord() {
+            long from = index, end = from, hi = fence;
+            byte b = 0;
+            while (end < hi && (b = byteAt(end)) != '\n' && b != '\r') {
+                end++;
+            }
+            long next = end + 1;
+            if (b == '\r' && next < hi && byteAt(next) == '\n') {
+                next++;
+            }
+            index = Math.min(next, hi);
+            return new String(bytes(from, end), cs);
+        }
+
+        @Override
+        MappedSpliterator<String> slice(long from, long to) {
+            return new Lines(channel, from, to, cs);
+        }
+    }
+
+    /**
+     * Records terminated by a delimiter byte, without the delimiter. The
+     * last record need not be terminated.
+     */
+    static final class Delimited extends MappedSpliterator<ByteBuffer> {
+        private final byte delimiter;
+
+        Delimited(FileChannel channel, long index, long fence, byte delimiter) {
+            super(channel, index, fence);
+            this.delimiter = delimiter;
+        }
+
+        @Override
+        long recordStart(long pos) {
+            byte d = delimiter;
+            for (long q = pos; q < fence; q++) {
+                if (byteAt(q - 1) == d) {
+                    return q;
+                }
+            }
+            return fence;
+        }
+
+        @Override
+        ByteBuffer nextRecord() {
+            long from = index, end = from, hi = fence;
+            byte d = delimiter;
+            while (end < hi && byteAt(end) != d) {
+                end++;
+            }
+            index = Math.min(end + 1, hi);
+            return buffer(from, end);
+        }
+
+        @Override
+        MappedSpliterator<ByteBuffer> slice(long from, long to) {
+            return new Delimited(channel, from, to, delimiter);
+        }
+    }
+
+    /**
+     * Records of a fixed length. The last record is shorter if the length
+     * of the file isn't a multiple of the record length.
+     */
+    static final class FixedLength extends MappedSpliterator<ByteBuffer> {
+        private final int length;
+
+        FixedLength(FileChannel channel, long index, long fence, int length) {
+            super(channel, index, fence);
+            this.length = length;
+        }
+
+        @Override
+        long recordStart(long pos) {
+            long len = length;
+            return Math.min(fence, (pos + len - 1) / len * len);
+        }
+
+        @Override
+        ByteBuffer nextRecord() {
+            long from = index;
+            index = Math.min(from + length, fence);
+            return buffer(from, index);
+        }
+
+        @Override
+        MappedSpliterator<ByteBuffer> slice(long from, long to) {
+            return new FixedLength(channel, from, to, length);
+        }
+
+        /**
+         * Returns the exact number of remaining records.
+         */
+        @Override
+        public long estimateSize() {
+            long len = length;
+            return (fence - index + len - 1) / len;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.NONNULL
+                    | Spliterator.SIZED | Spliterator.SUBSIZED;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Written by Stefan Zobel and released to the
+ * public domain, as explained at
+ * http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package java8.nio;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+import java8.util.Objects;
+import java8.util.stream.Stream;
+import java8.util.stream.StreamSupport;
+
+/**
+ * Static factory methods for streams over the lines and records of a file,
+ * read through memory mappings of the file.
+ *
+ * <p>Unlike a stream over a {@code BufferedReader}, whose spliterator can
+ * only split off batches read sequentially from the reader, the streams
+ * returned here split the file at byte offsets (moved forward to the next
+ * line or record boundary) and are therefore well suited for parallel
+ * processing of large files. Files larger than 2 GB are mapped piecewise.
+ *
+ * <p>The returned streams are sequential; call {@link Stream#parallel()} for
+ * parallel processing. They hold an open file and should be closed, for
+ * example in a {@code try}-with-resources statement on Java 7 or later. I/O
+ * errors which occur while the stream is traversed are thrown as
+ * {@code IllegalStateException}s with the {@code IOException} as their
+ * cause. The behaviour is undefined if the file is modified while the
+ * stream is traversed.
+ *
+ * @since 1.5.7
+ */
+public final class MappedStreams {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final Charset ISO_8859_1 = Charset.forName("ISO-8859-1");
+    private static final Charset US_ASCII = Charset.forName("US-ASCII");
+
+    /**
+     * Returns a stream over the lines of a file decoded as UTF-8, see
+     * {@link #lines(File, Charset)}.
+     *
+     * @param file the file
+     * @return the lines of the file
+     * @throws IOException if the file cannot be opened
+     */
+    public static Stream<String> lines(File file) throws IOException {
+        return lines(file, UTF_8);
+    }
+
+    /**
+     * Returns a stream over the lines of a file, decoded with the given
+     * charset. A line is considered to be terminated by a line feed
+     * ('\n'), a carriage return ('\r'), or a carriage return followed
+     * immediately by a line feed, the same as for
+     * {@code BufferedReader.readLine()}. The line terminators are not
+     * part of the returned lines.
+     *
+     * <p>The charset must be one in which these terminators are single bytes
+     * that cannot occur within a multi-byte character, so that the file can
+     * be split at line boundaries without decoding it: UTF-8, ISO-8859-1 and
+     * US-ASCII are supported.
+     *
+     * @param file the file
+     * @param cs the charset to decode the lines with
+     * @return the lines of the file
+     * @throws IOException if the file cannot be opened
+     * @throws IllegalArgumentException if the charset is not supported
+     * @throws NullPointerException if the file or the charset is null
+     */
+    public static Stream<String> lines(File file, Charset cs) throws IOException {
+        Objects.requireNonNull(file);
+        Objects.requireNonNull(cs);
+        if (!cs.equals(UTF_8) && !cs.equals(ISO_8859_1) && !cs.equals(US_ASCII)) {
+            throw new IllegalArgumentException("Unsupported charset: " + cs);
+        }
+        FileChannel channel = open(file);
+        return stream(new MappedSpliterator.Lines(channel, 0L, size(channel), cs), channel);
+    }
+
+    /**
+     * Returns a stream over the records of a file separated by the given
+     * delimiter byte, for example {@code '\0'} or the ASCII record separator
+     * {@code 0x1E}. The delimiters are not part of the returned records and a
+     * delimiter at the end of the file does not start another record.
+     *
+     * <p>The records are returned as read-only buffers which, if possible,
+     * share the content of the mapping of the file instead of copying it.
+     *
+     * @param file the file
+     * @param delimiter the byte terminating each record
+     * @return the records of the file
+     * @throws IOException if the file cannot be opened
+     * @throws NullPointerException if the file is null
+     */
+    public static Stream<ByteBuffer> delimitedRecords(File file, byte delimiter) throws IOException {
+        Objects.requireNonNull(file);
+        FileChannel channel = open(file);
+        return stream(new MappedSpliterator.Delimited(channel, 0L, size(channel), delimiter), channel);
+    }
+
+    /**
+     * Returns a stream over the consecutive records of the given length of
+     * a file. If the length of the file isn't a multiple of the record length
+     * the last record is shorter. The stream is {@code SIZED}.
+     *
+     * <p>The records are returned as read-only buffers which, if possible,
+     * share the content of the mapping of the file instead of copying it.
+     *
+     * @param file the file
+     * @param recordLength the length of each record in bytes
+     * @return the records of the file
+     * @throws IOException if the file cannot be opened
+     * @throws IllegalArgumentException if {@code recordLength} is not
+     *         positive or greater than the maximum size of a mapping window
+     *         (64 MB)
+     * @throws NullPointerException if the file is null
+     */
+    public static Stream<ByteBuffer> fixedLengthRecords(File file, int recordLength) throws IOException {
+        Objects.requireNonNull(file);
+        if (recordLength <= 0 || recordLength > MappedSpliterator.WINDOW) {
+            throw new IllegalArgumentException("Illegal record length: " + recordLength);
+        }
+        FileChannel channel = open(file);
+        return stream(new MappedSpliterator.FixedLength(channel, 0L, size(channel), recordLength), channel);
+    }
+
+    private static FileChannel open(File file) throws IOException {
+        return new RandomAccessFile(file, "r").getChannel();
+    }
+
+    private static long size(FileChannel channel) throws IOException {
+        try {
+            return channel.size();
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static <T> Stream<T> stream(MappedSpliterator<T> spliterator, final FileChannel channel) {
+        return StreamSupport.stream(spliterator, false).onClose(() -> {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    private MappedStreams() {
+    }
+}
@@ -0,0 +1,15 @@
+/*
+ * Written by Stefan Zobel and released to the
+ * public domain, as explained at
+ * http://creativecommons.org/publicdomain/zero/1.0/
+ */
+
+/**
+ * Provides stream sources over files, read through memory mappings so that
+ * the streams can be split at byte offsets for parallel processing (see
+ * {@link java8.nio.MappedStreams}), and primitive streams over the elements
+ * of NIO buffers (see {@link java8.nio.BufferStreams}).
+ *
+ * @since 1.5.7
+ */
+package java8.nio;
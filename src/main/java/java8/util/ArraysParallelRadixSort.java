@@ -0,0 +1,308 @@
+/*
+ * Written by Stefan Zobel and released to the
+ * public domain, as explained at
+ * http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package java8.util;
+
+import java.util.Arrays;
+
+import java8.util.concurrent.ForkJoinPool;
+import java8.util.concurrent.ForkJoinTask;
+import java8.util.concurrent.RecursiveAction;
+
+/**
+ * A least significant digit radix sort for large {@code int} and
+ * {@code long} arrays, used by {@link J8Arrays#parallelSort(int[])} and
+ * {@link J8Arrays#parallelSort(long[])} (and thereby by the parallel
+ * {@code sorted()} of {@code IntStream} and {@code LongStream}) above
+ * {@link #MIN_ARRAY_RADIX_SORT} elements.
+ *
+ * <p>The array is sorted one byte at a time, starting with the least
+ * significant one. Each pass builds per-block histograms of the current
+ * byte, turns them into scatter offsets and then moves the elements of
+ * every block to their place in the workspace array. Blocks are histogrammed
+ * and scattered in parallel, and since the offsets of a block come before
+ * those of the following blocks within each bucket the passes are stable.
+ * Passes in which all elements have the same byte value are skipped, and
+ * so is the whole sort if the range is already in order. The
+ * sign bit is flipped in the most significant byte so that negative values
+ * sort before positive ones.
+ *
+ * <p>The algorithm requires a working space of the size of the range to be
+ * sorted.
+ *
+ * @since 1.5.7
+ */
+/*package*/ final class ArraysParallelRadixSort {
+
+    /**
+     * The minimum array length from which on the radix sort is used. On
+     * random input the radix sort already beats the sequential quicksort
+     * from a few thousand elements on, this is the length from which
+     * J8Arrays used to start sorting in parallel.
+     */
+    static final int MIN_ARRAY_RADIX_SORT = 1 << 13;
+
+    /**
+     * The minimum number of elements a block must have to be histogrammed
+     * and scattered by a task of its own.
+     */
+    private static final int MIN_BLOCK_SIZE = 1 << 14;
+
+    private static final int RADIX_BITS = 8;
+    private static final int BUCKETS = 1 << RADIX_BITS;
+    private static final int MASK = BUCKETS - 1;
+
+    // No instances
+    private ArraysParallelRadixSort() {
+    }
+
+    /**
+     * Returns the parallelism of the pool a sort started by the current
+     * thread runs in: the pool of the current ForkJoin worker thread (for
+     * example that of a stream pipeline bound to a pool), or the common pool
+     * otherwise.
+     */
+    static int parallelism() {
+        ForkJoinPool pool = ForkJoinTask.getPool();
+        return pool != null ? pool.getParallelism() : ForkJoinPool.getCommonPoolParallelism();
+    }
+
+    /**
+     * Returns the number of blocks to use for sorting {@code n} elements
+     * with the given parallelism.
+     */
+    static int blocks(int n, int parallelism) {
+        if (parallelism <= 1) {
+            return 1;
+        }
+        return Math.max(1, Math.min(parallelism << 2, n / MIN_BLOCK_SIZE));
+    }
+
+    /**
+     * Sorts the range {@code [from, to)} of {@code a} into ascending
+     * numerical order.
+     *
+     * @param a the array to be sorted
+     * @param from the index of the first element, inclusive, to be sorted
+     * @param to the index of the last element, exclusive, to be sorted
+     * @param parallelism the target parallelism, {@code 1} to sort in the
+     *        calling thread only
+     */
+    static void sort(int[] a, int from, int to, int parallelism) {
+        if (isSorted(a, from, to)) {
+            return;
+        }
+        int n = to - from;
+        int blocks = blocks(n, parallelism);
+        int[] counts = new int[blocks * BUCKETS];
+        int[] src = a, dst = new int[n];
+        int srcBase = from, dstBase = 0;
+        for (int shift = 0; shift < Integer.SIZE; shift += RADIX_BITS) {
+            // flip the sign bit in the most significant byte
+            int flip = (shift == Integer.SIZE - RADIX_BITS) ? BUCKETS >>> 1 : 0;
+            new IntPass(src, srcBase, dst, dstBase, n, blocks, counts, shift, flip, true, 0, blocks).run();
+            if (toOffsets(counts, blocks, n)) {
+                new IntPass(src, srcBase, dst, dstBase, n, blocks, counts, shift, flip, false, 0, blocks).run();
+                int[] t = src; src = dst; dst = t;
+                int b = srcBase; srcBase = dstBase; dstBase = b;
+            }
+            Arrays.fill(counts, 0);
+        }
+        if (src != a) {
+            System.arraycopy(src, 0, a, from, n);
+        }
+    }
+
+    /**
+     * Sorts the range {@code [from, to)} of {@code a} into ascending
+     * numerical order.
+     *
+     * @param a the array to be sorted
+     * @param from the index of the first element, inclusive, to be sorted
+     * @param to the index of the last element, exclusive, to be sorted
+     * @param parallelism the target parallelism, {@code 1} to sort in the
+     *        calling thread only
+     */
+    static void sort(long[] a, int from, int to, int parallelism) {
+        if (isSorted(a, from, to)) {
+            return;
+        }
+        int n = to - from;
+        int blocks = blocks(n, parallelism);
+        int[] counts = new int[blocks * BUCKETS];
+        long[] src = a, dst = new long[n];
+        int srcBase = from, dstBase = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += RADIX_BITS) {
+            int flip = (shift == Long.SIZE - RADIX_BITS) ? BUCKETS >>> 1 : 0;
+            new LongPass(src, srcBase, dst, dstBase, n, blocks, counts, shift, flip, true, 0, blocks).run();
+            if (toOffsets(counts, blocks, n)) {
+                new LongPass(src, srcBase, dst, dstBase, n, blocks, counts, shift, flip, false, 0, blocks).run();
+                long[] t = src; src = dst; dst = t;
+                int b = srcBase; srcBase = dstBase; dstBase = b;
+            }
+            Arrays.fill(counts, 0);
+        }
+        if (src != a) {
+            System.arraycopy(src, 0, a, from, n);
+        }
+    }
+
+    private static boolean isSorted(int[] a, int from, int to) {
+        for (int i = from + 1; i < to; i++) {
+            if (a[i - 1] > a[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isSorted(long[] a, int from, int to) {
+        for (int i = from + 1; i < to; i++) {
+            if (a[i - 1] > a[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Turns the per-block histograms in {@code counts} into the index of the
+     * first element of each block and bucket in the destination array.
+     *
+     * @return {@code false} if all elements fall into the same bucket, in
+     *         which case the pass can be skipped
+     */
+    private static boolean toOffsets(int[] counts, int blocks, int n) {
+        int offset = 0;
+        for (int d = 0; d < BUCKETS; d++) {
+            int start = offset;
+            for (int b = d; b < counts.length; b += BUCKETS) {
+                int c = counts[b];
+                counts[b] = offset;
+                offset += c;
+            }
+            if (offset - start == n) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /*
+     * The start index of block b of n elements split into the given number
+     * of blocks.
+     */
+    private static int blockStart(int b, int n, int blocks) {
+        return (int) ((long) b * n / blocks);
+    }
+
+    /**
+     * Histograms (or scatters) the blocks {@code [lo, hi)} of one pass.
+     */
+    @SuppressWarnings("serial")
+    private static final class IntPass extends RecursiveAction {
+        private final int[] src, dst, counts;
+        private final int srcBase, dstBase, n, blocks, shift, flip, lo, hi;
+        private final boolean histogram;
+
+        IntPass(int[] src, int srcBase, int[] dst, int dstBase, int n, int blocks, int[] counts,
+                int shift, int flip, boolean histogram, int lo, int hi) {
+            this.src = src; this.srcBase = srcBase;
+            this.dst = dst; this.dstBase = dstBase;
+            this.n = n; this.blocks = blocks; this.counts = counts;
+            this.shift = shift; this.flip = flip; this.histogram = histogram;
+            this.lo = lo; this.hi = hi;
+        }
+
+        void run() {
+            if (hi - lo > 1) {
+                invoke();
+            } else {
+                compute();
+            }
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo > 1) {
+                int mid = (lo + hi) >>> 1;
+                ForkJoinTask.invokeAll(
+                        new IntPass(src, srcBase, dst, dstBase, n, blocks, counts, shift, flip, histogram, lo, mid),
+                        new IntPass(src, srcBase, dst, dstBase, n, blocks, counts, shift, flip, histogram, mid, hi));
+                return;
+            }
+            int[] a = src, c = counts;
+            int s = shift, f = flip, base = lo * BUCKETS;
+            int from = srcBase + blockStart(lo, n, blocks), to = srcBase + blockStart(lo + 1, n, blocks);
+            if (histogram) {
+                for (int i = from; i < to; i++) {
+                    c[base + (((a[i] >>> s) & MASK) ^ f)]++;
+                }
+            } else {
+                int[] w = dst;
+                int wb = dstBase;
+                for (int i = from; i < to; i++) {
+                    int v = a[i];
+                    w[wb + c[base + (((v >>> s) & MASK) ^ f)]++] = v;
+                }
+            }
+        }
+    }
+
+    /**
+     * Histograms (or scatters) the blocks {@code [lo, hi)} of one pass.
+     */
+    @SuppressWarnings("serial")
+    private static final class LongPass extends RecursiveAction {
+        private final long[] src, dst;
+        private final int[] counts;
+        private final int srcBase, dstBase, n, blocks, shift, flip, lo, hi;
+        private final boolean histogram;
+
+        LongPass(long[] src, int srcBase, long[] dst, int dstBase, int n, int blocks, int[] counts,
+                 int shift, int flip, boolean histogram, int lo, int hi) {
+            this.src = src; this.srcBase = srcBase;
+            this.dst = dst; this.dstBase = dstBase;
+            this.n = n; this.blocks = blocks; this.counts = counts;
+            this.shift = shift; this.flip = flip; this.histogram = histogram;
+            this.lo = lo; this.hi = hi;
+        }
+
+        void run() {
+            if (hi - lo > 1) {
+                invoke();
+            } else {
+                compute();
+            }
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo > 1) {
+                int mid = (lo + hi) >>> 1;
+                ForkJoinTask.invokeAll(
+                        new LongPass(src, srcBase, dst, dstBase, n, blocks, counts, shift, flip, histogram, lo, mid),
+                        new LongPass(src, srcBase, dst, dstBase, n, blocks, counts, shift, flip, histogram, mid, hi));
+                return;
+            }
+            long[] a = src;
+            int[] c = counts;
+            int s = shift, f = flip, base = lo * BUCKETS;
+            int from = srcBase + blockStart(lo, n, blocks), to = srcBase + blockStart(lo + 1, n, blocks);
+            if (histogram) {
+                for (int i = from; i < to; i++) {
+                    c[base + (((int) (a[i] >>> s) & MASK) ^ f)]++;
+                }
+            } else {
+                long[] w = dst;
+                int wb = dstBase;
+                for (int i = from; i < to; i++) {
+                    long v = a[i];
+                    w[wb + c[base + (((int) (v >>> s) & MASK) ^ f)]++] = v;
+                }
+            }
+        }
+    }
+}
@@ -583,13 +583,23 @@ public final class J8Arrays {
      * {@link ForkJoinPool#commonPool() ForkJoin common pool} is used to
      * execute any parallel tasks.
      *
+     * <p>Ranges of at least 8192 elements are sorted with a least significant
+     * digit radix sort instead, whose histogramming and scattering passes run
+     * in parallel on the {@link ForkJoinPool#commonPool() ForkJoin common pool},
+     * or on the pool of the calling thread if it is a ForkJoin worker thread.
+     * It requires a working space of the size of the range to be sorted. It
+     * isn't used if that pool has a parallelism of 1.
+     *
      * @param a the array to be sorted
      *
      * @since 1.8
      */
     public static void parallelSort(int[] a) {
         int n = a.length, p, g;
-        if (n <= MIN_ARRAY_SORT_GRAN ||
+        if (n >= ArraysParallelRadixSort.MIN_ARRAY_RADIX_SORT &&
+            (p = ArraysParallelRadixSort.parallelism()) > 1)
+            ArraysParallelRadixSort.sort(a, 0, n, p);
+        else if (n <= MIN_ARRAY_SORT_GRAN ||
             (p = ForkJoinPool.getCommonPoolParallelism()) == 1)
             DualPivotQuicksort.sort(a, 0, n - 1, null, 0, 0);
         else
@@ -616,6 +626,13 @@ public final class J8Arrays {
      * array. The {@link ForkJoinPool#commonPool() ForkJoin common pool} is
      * used to execute any parallel tasks.
      *
+     * <p>Ranges of at least 8192 elements are sorted with a least significant
+     * digit radix sort instead, whose histogramming and scattering passes run
+     * in parallel on the {@link ForkJoinPool#commonPool() ForkJoin common pool},
+     * or on the pool of the calling thread if it is a ForkJoin worker thread.
+     * It requires a working space of the size of the range to be sorted. It
+     * isn't used if that pool has a parallelism of 1.
+     *
      * @param a the array to be sorted
      * @param fromIndex the index of the first element, inclusive, to be sorted
      * @param toIndex the index of the last element, exclusive, to be sorted
@@ -629,7 +646,10 @@ public final class J8Arrays {
     public static void parallelSort(int[] a, int fromIndex, int toIndex) {
         rangeCheck(a.length, fromIndex, toIndex);
         int n = toIndex - fromIndex, p, g;
-        if (n <= MIN_ARRAY_SORT_GRAN ||
+        if (n >= ArraysParallelRadixSort.MIN_ARRAY_RADIX_SORT &&
+            (p = ArraysParallelRadixSort.parallelism()) > 1)
+            ArraysParallelRadixSort.sort(a, fromIndex, toIndex, p);
+        else if (n <= MIN_ARRAY_SORT_GRAN ||
             (p = ForkJoinPool.getCommonPoolParallelism()) == 1)
             DualPivotQuicksort.sort(a, fromIndex, toIndex - 1, null, 0, 0);
         else
@@ -653,13 +673,23 @@ public final class J8Arrays {
      * {@link ForkJoinPool#commonPool() ForkJoin common pool} is used to
      * execute any parallel tasks.
      *
+     * <p>Ranges of at least 8192 elements are sorted with a least significant
+     * digit radix sort instead, whose histogramming and scattering passes run
+     * in parallel on the {@link ForkJoinPool#commonPool() ForkJoin common pool},
+     * or on the pool of the calling thread if it is a ForkJoin worker thread.
+     * It requires a working space of the size of the range to be sorted. It
+     * isn't used if that pool has a parallelism of 1.
+     *
      * @param a the array to be sorted
      *
      * @since 1.8
      */
     public static void parallelSort(long[] a) {
         int n = a.length, p, g;
-        if (n <= MIN_ARRAY_SORT_GRAN ||
+        if (n >= ArraysParallelRadixSort.MIN_ARRAY_RADIX_SORT &&
+            (p = ArraysParallelRadixSort.parallelism()) > 1)
+            ArraysParallelRadixSort.sort(a, 0, n, p);
+        else if (n <= MIN_ARRAY_SORT_GRAN ||
             (p = ForkJoinPool.getCommonPoolParallelism()) == 1)
             DualPivotQuicksort.sort(a, 0, n - 1, null, 0, 0);
         else
@@ -686,6 +716,13 @@ public final class J8Arrays {
      * array. The {@link ForkJoinPool#commonPool() ForkJoin common pool} is
      * used to execute any parallel tasks.
      *
+     * <p>Ranges of at least 8192 elements are sorted with a least significant
+     * digit radix sort instead, whose histogramming and scattering passes run
+     * in parallel on the {@link ForkJoinPool#commonPool() ForkJoin common pool},
+     * or on the pool of the calling thread if it is a ForkJoin worker thread.
+     * It requires a working space of the size of the range to be sorted. It
+     * isn't used if that pool has a parallelism of 1.
+     *
      * @param a the array to be sorted
      * @param fromIndex the index of the first element, inclusive, to be sorted
      * @param toIndex the index of the last element, exclusive, to be sorted
@@ -699,7 +736,10 @@ public final class J8Arrays {
     public static void parallelSort(long[] a, int fromIndex, int toIndex) {
         rangeCheck(a.length, fromIndex, toIndex);
         int n = toIndex - fromIndex, p, g;
-        if (n <= MIN_ARRAY_SORT_GRAN ||
+        if (n >= ArraysParallelRadixSort.MIN_ARRAY_RADIX_SORT &&
+            (p = ArraysParallelRadixSort.parallelism()) > 1)
+            ArraysParallelRadixSort.sort(a, fromIndex, toIndex, p);
+        else if (n <= MIN_ARRAY_SORT_GRAN ||
             (p = ForkJoinPool.getCommonPoolParallelism()) == 1)
             DualPivotQuicksort.sort(a, fromIndex, toIndex - 1, null, 0, 0);
         else
@@ -0,0 +1,345 @@
+/*
+ * Written by Stefan Zobel and released to the
+ * public domain, as explained at
+ * http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package java8.util;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import java8.util.concurrent.ForkJoinPool;
+import java8.util.function.Consumer;
+
+/**
+ * A Spliterator over an Iterator whose elements are drained ahead of the
+ * consumers by a dedicated producer thread (see
+ * {@link Spliterators#prefetchingSpliteratorUnknownSize(Iterator, int, int)}).
+ *
+ * <p>The producer copies the elements into batches and puts them into a
+ * bounded ring of batches, from which {@link #trySplit()} hands out array
+ * spliterators and through which this spliterator itself traverses. Unlike
+ * {@code IteratorSpliterator} the splitting thread doesn't copy the
+ * elements itself, so reading from the iterator overlaps with processing
+ * the batches split off before. The batch size adapts to the consumers:
+ * it grows arithmetically while the ring is full (the consumers are the
+ * bottleneck, larger batches amortize their per-batch overhead) and halves
+ * whenever the consumers are found waiting for the producer (smaller
+ * batches get the next elements to them sooner).
+ *
+ * <p>The producer terminates once the iterator is exhausted or throws, in
+ * which case the exception is rethrown to the consumer of this spliterator
+ * after the elements read before. Consumers that run in a
+ * {@code ForkJoinPool} wait for the producer as a
+ * {@link ForkJoinPool.ManagedBlocker}. If the traversal is abandoned early the producer terminates
+ * as soon as this spliterator has become unreachable.
+ *
+ * @since 1.5.7
+ */
+/*package*/ final class PrefetchingIteratorSpliterator<T> implements Spliterator<T> {
+
+    /** The smallest batch size, the size of the first batch */
+    static final int MIN_BATCH = 1 << 6;
+    static final int BATCH_UNIT = 1 << 10;  // batch size increment
+    static final int MAX_BATCH = 1 << 25;  // max batch size
+
+    private static final AtomicInteger threadNumber = new AtomicInteger();
+
+    // marks the end of the elements in the ring
+    private static final Object[] END = new Object[0];
+
+    private final BlockingQueue<Object> ring;
+    private final int characteristics;
+    private Iterator<? extends T> it; // null once the producer is started
+    private final int ringSize;
+    private Object[] batch;           // the batch being traversed, or null
+    private int index;                // current index into batch
+    private int fence;                // one past the last valid index of batch
+    private boolean exhausted;
+
+    /**
+     * Creates a spliterator prefetching from the given iterator.
+     *
+     * @param iterator the iterator for the source
+     * @param characteristics properties of this spliterator's source or
+     *        elements
+     * @param ringSize the maximum number of batches buffered ahead of the
+     *        consumers
+     */
+    PrefetchingIteratorSpliterator(Iterator<? extends T> iterator, int characteristics, int ringSize) {
+        this.it = iterator;
+        this.ringSize = ringSize;
+        this.ring = new ArrayBlockingQueue<Object>(ringSize);
+        this.characteristics = characteristics & ~(Spliterator.SIZED | Spliterator.SUBSIZED);
+    }
+
+    /**
+     * Returns the size of the next batch, given the current one and the
+     * state of the ring when the current batch was put into it.
+     *
+     * @param batch the current batch size
+     * @param ringFull whether the ring was full, i.e., the producer had to
+     *        wait for the consumers
+     * @param ringEmpty whether the ring was empty, i.e., the consumers were
+     *        possibly waiting for the producer
+     */
+    static int nextBatchSize(int batch, boolean ringFull, boolean ringEmpty) {
+        if (ringFull) {
+            return Math.min(MAX_BATCH, batch + BATCH_UNIT);
+        }
+        if (ringEmpty) {
+            return Math.max(MIN_BATCH, batch >>> 1);
+        }
+        return batch;
+    }
+
+    /**
+     * Returns the next batch from the ring, waiting for the producer if
+     * necessary, starting the producer on first use. Returns {@code null}
+     * once all batches have been consumed.
+     */
+    private Object[] nextBatch() {
+        if (exhausted) {
+            return null;
+        }
+        Iterator<? extends T> i = it;
+        if (i != null) {
+            it = null;
+            Thread producer = new Thread(new Producer(i, ring, this),
+                    "PrefetchingIteratorSpliterator-" + threadNumber.incrementAndGet());
+            producer.setDaemon(true);
+            producer.start();
+        }
+        // wait as a managed blocker so that a ForkJoin pool running the
+        // consumers can compensate for a blocked worker
+        Take take = new Take(ring);
+        boolean interrupted = false;
+        for (;;) {
+            try {
+                ForkJoinPool.managedBlock(take);
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        Object next = take.item;
+        if (next == END) {
+            exhausted = true;
+            return null;
+        }
+        if (next instanceof Failure) {
+            exhausted = true;
+            Throwable t = ((Failure) next).cause;
+            if (t instanceof RuntimeException) {
+                throw (RuntimeException) t;
+            } else if (t instanceof Error) {
+                throw (Error) t;
+            }
+            throw new IllegalStateException(t);
+        }
+        return (Object[]) next;
+    }
+
+    /**
+     * Makes sure there is a batch with remaining elements, returns
+     * {@code false} if there is none.
+     */
+    private boolean advanceBatch() {
+        while (batch == null || index >= fence) {
+            Object[] a = nextBatch();
+            if (a == null) {
+                batch = null;
+                return false;
+            }
+            batch = a;
+            index = 0;
+            fence = a.length;
+        }
+        return true;
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        if (!advanceBatch()) {
+            return null;
+        }
+        Object[] a = batch;
+        int lo = index;
+        batch = null;
+        return Spliterators.spliterator(a, lo, fence, characteristics);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean tryAdvance(Consumer<? super T> action) {
+        Objects.requireNonNull(action);
+        if (!advanceBatch()) {
+            return false;
+        }
+        action.accept((T) batch[index++]);
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEachRemaining(Consumer<? super T> action) {
+        Objects.requireNonNull(action);
+        while (advanceBatch()) {
+            Object[] a = batch;
+            int hi = fence;
+            int i = index;
+            index = hi;
+            for (; i < hi; i++) {
+                action.accept((T) a[i]);
+            }
+        }
+    }
+
+    @Override
+    public long estimateSize() {
+        return exhausted && batch == null ? 0L : Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return characteristics;
+    }
+
+    @Override
+    public long getExactSizeIfKnown() {
+        return Spliterators.getExactSizeIfKnown(this);
+    }
+
+    @Override
+    public boolean hasCharacteristics(int characteristics) {
+        return Spliterators.hasCharacteristics(this, characteristics);
+    }
+
+    @Override
+    public Comparator<? super T> getComparator() {
+        if (hasCharacteristics(Spliterator.SORTED)) {
+            return null;
+        }
+        throw new IllegalStateException();
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[ringSize=" + ringSize + "]";
+    }
+
+    /**
+     * Takes the next element from the ring.
+     */
+    private static final class Take implements ForkJoinPool.ManagedBlocker {
+        private final BlockingQueue<Object> ring;
+        Object item;
+
+        Take(BlockingQueue<Object> ring) {
+            this.ring = ring;
+        }
+
+        @Override
+        public boolean block() throws InterruptedException {
+            if (item == null) {
+                item = ring.take();
+            }
+            return true;
+        }
+
+        @Override
+        public boolean isReleasable() {
+            return item != null || (item = ring.poll()) != null;
+        }
+    }
+
+    /**
+     * An exception thrown by the iterator, passed on to the consumer.
+     */
+    private static final class Failure {
+        final Throwable cause;
+
+        Failure(Throwable cause) {
+            this.cause = cause;
+        }
+    }
+
+    /**
+     * Drains the iterator into the ring. Holds the spliterator only weakly
+     * so that an abandoned spliterator can be collected, which tells the
+     * producer to stop.
+     */
+    private static final class Producer implements Runnable {
+        // how long to wait for room in the ring between reachability checks
+        private static final long POLL_MILLIS = 100L;
+
+        private final Iterator<?> it;
+        private final BlockingQueue<Object> ring;
+        private final WeakReference<Object> owner;
+
+        Producer(Iterator<?> it, BlockingQueue<Object> ring, Object owner) {
+            this.it = it;
+            this.ring = ring;
+            this.owner = new WeakReference<Object>(owner);
+        }
+
+        @Override
+        public void run() {
+            int size = MIN_BATCH;
+            Object last = END;
+            // the batch being filled and the number of elements in it
+            Object[] a = null;
+            int j = 0;
+            try {
+                while (it.hasNext()) {
+                    a = new Object[size];
+                    j = 0;
+                    do {
+                        a[j] = it.next();
+                    } while (++j < size && it.hasNext());
+                    Object[] b = (j < size) ? Arrays.copyOf(a, j) : a;
+                    a = null;
+                    boolean empty = ring.isEmpty();
+                    boolean full = !ring.offer(b);
+                    if (full && !put(b)) {
+                        return;
+                    }
+                    size = nextBatchSize(size, full, empty);
+                }
+            } catch (Throwable t) {
+                last = new Failure(t);
+            }
+            // the elements read before the iterator threw come first
+            if (a != null && j > 0 && !put(Arrays.copyOf(a, j))) {
+                return;
+            }
+            put(last);
+        }
+
+        /**
+         * Puts the given element into the ring, waiting for room as long as
+         * the spliterator is reachable. Returns {@code false} if it is not.
+         */
+        private boolean put(Object element) {
+            try {
+                while (!ring.offer(element, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                    if (owner.get() == null) {
+                        return false;
+                    }
+                }
+                return true;
+            } catch (InterruptedException e) {
+                return false;
+            }
+        }
+    }
+}
@@ -1173,6 +1173,55 @@ public final class Spliterators {
         return new IteratorSpliterator<>(Objects.requireNonNull(iterator), characteristics);
     }
 
+    /**
+     * Creates a {@code Spliterator} using a given {@code Iterator} as the
+     * source of elements, with no initial size estimate, whose elements are
+     * read ahead of the consumers by a dedicated producer thread.
+     *
+     * <p>The producer copies the elements of the iterator into batches and
+     * buffers up to {@code maxBatches} of them, {@code trySplit} hands out
+     * the next buffered batch without waiting for the iterator. This is
+     * intended for parallel streams over iterators whose {@code next()} is
+     * slow compared to the per-element processing, for example iterators
+     * over database cursors or files, where splitting a spliterator from
+     * {@link #spliteratorUnknownSize(Iterator, int)} would read the iterator
+     * on the splitting thread only. The batch size adapts to the throughput
+     * of the consumers: batches grow while the buffer is full and shrink
+     * when the consumers have to wait for the producer.
+     *
+     * <p>The producer thread is a daemon thread which is started on the
+     * first traversal or split and which terminates when the iterator is
+     * exhausted, when it throws (the exception is rethrown on traversal or
+     * splitting of the spliterator) or, if the traversal is abandoned early,
+     * once the spliterator has been garbage collected. The iterator is
+     * operated on by the producer thread only.
+     *
+     * <p>Traversal of elements should be accomplished through the spliterator.
+     * The behaviour of splitting and traversal is undefined if the iterator is
+     * operated on after the spliterator is returned.
+     *
+     * @param <T> Type of elements
+     * @param iterator The iterator for the source
+     * @param characteristics Characteristics of this spliterator's source
+     *        or elements ({@code SIZED} and {@code SUBSIZED}, if supplied, are
+     *        ignored and are not reported.)
+     * @param maxBatches The maximum number of batches buffered ahead of the
+     *        consumers
+     * @return A prefetching spliterator from an iterator
+     * @throws NullPointerException if the given iterator is {@code null}
+     * @throws IllegalArgumentException if {@code maxBatches} is less than 1
+     * @since 1.5.7
+     */
+    public static <T> Spliterator<T> prefetchingSpliteratorUnknownSize(Iterator<? extends T> iterator,
+                                                                       int characteristics,
+                                                                       int maxBatches) {
+        Objects.requireNonNull(iterator);
+        if (maxBatches < 1) {
+            throw new IllegalArgumentException("maxBatches < 1: " + maxBatches);
+        }
+        return new PrefetchingIteratorSpliterator<>(iterator, characteristics, maxBatches);
+    }
+
     /**
      * Creates a {@code Spliterator.OfInt} using a given
      * {@code IntStream.IntIterator} as the source of elements, and with a given
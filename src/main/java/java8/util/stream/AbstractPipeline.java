@@ -25,6 +25,9 @@
 package java8.util.stream;
 
 import java8.util.Objects;
+import java8.util.concurrent.ForkJoinPool;
+import java8.util.concurrent.ForkJoinWorkerThread;
+import java8.util.concurrent.RecursiveTask;
 import java8.util.function.Consumer;
 import java8.util.function.IntFunction;
 import java8.util.function.Supplier;
@@ -149,6 +152,30 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>>
      */
     private boolean parallel;
 
+    /**
+     * The target leaf size of a parallel evaluation, or 0 if it should be
+     * chosen by the implementation; only valid for the source stage.
+     */
+    private long targetLeafSize;
+
+    /**
+     * The pool that parallel evaluations run in, or null for the common pool;
+     * only valid for the source stage.
+     */
+    private ForkJoinPool pool;
+
+    /**
+     * True if primitive intermediate results should be buffered off-heap;
+     * only valid for the source stage.
+     */
+    private boolean offHeap;
+
+    /**
+     * The receiver of the execution metrics of this pipeline, or null if
+     * the pipeline isn't instrumented; only valid for the source stage.
+     */
+    private PipelineInstrumentation instrumentation;
+
     /**
      * Constructor for the head of a stream pipeline.
      *
@@ -168,6 +195,7 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>>
         this.combinedFlags = (~(sourceOrOpFlags << 1)) & StreamOpFlag.INITIAL_OPS_VALUE;
         this.depth = 0;
         this.parallel = parallel;
+        this.instrumentation = PipelineInstrumentation.defaultInstrumentation;
     }
 
     /**
@@ -189,6 +217,7 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>>
         this.combinedFlags = (~(sourceOrOpFlags << 1)) & StreamOpFlag.INITIAL_OPS_VALUE;
         this.depth = 0;
         this.parallel = parallel;
+        this.instrumentation = PipelineInstrumentation.defaultInstrumentation;
     }
 
     /**
@@ -230,10 +259,38 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>>
         linkedOrConsumed = true;
 
         return isParallel()
-               ? terminalOp.evaluateParallel(this, sourceSpliterator(terminalOp.getOpFlags()))
+               ? evaluateInPool(() -> terminalOp.evaluateParallel(this, sourceSpliterator(terminalOp.getOpFlags())))
                : terminalOp.evaluateSequential(this, sourceSpliterator(terminalOp.getOpFlags()));
     }
 
+    /**
+     * Performs the given evaluation in the pool this pipeline is bound to, if
+     * any and if the pipeline is parallel, so that all tasks it forks are
+     * pushed to that pool rather than to the common pool. Otherwise, or if
+     * the current thread already is a worker of that pool, the evaluation is
+     * performed directly.
+     *
+     * @param <R> the type of result
+     * @param evaluation the evaluation
+     * @return the result of the evaluation
+     */
+    final <R> R evaluateInPool(Supplier<R> evaluation) {
+        ForkJoinPool p = sourceStage.pool;
+        Thread t;
+        if (p == null || !isParallel()
+                || ((t = Thread.currentThread()) instanceof ForkJoinWorkerThread
+                    && ((ForkJoinWorkerThread) t).getPool() == p)) {
+            return evaluation.get();
+        }
+        return p.invoke(new RecursiveTask<R>() {
+            private static final long serialVersionUID = 1L;
+            @Override
+            protected R compute() {
+                return evaluation.get();
+            }
+        });
+    }
+
     /**
      * Collect the elements output from the pipeline stage.
      *
@@ -255,10 +312,10 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>>
             // upstream slice and upstream operations will not be included
             // in this slice
             depth = 0;
-            return opEvaluateParallel(previousStage, previousStage.sourceSpliterator(0), generator);
+            return evaluateInPool(() -> opEvaluateParallel(previousStage, previousStage.sourceSpliterator(0), generator));
         }
         else {
-            return evaluate(sourceSpliterator(0), true, generator);
+            return evaluateInPool(() -> evaluate(sourceSpliterator(0), true, generator));
         }
     }
 
@@ -361,15 +418,94 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>>
             }
         }
         else {
-            return wrap(this, () -> sourceSpliterator(0), isParallel());
+            return wrap(this, () -> evaluateInPool(() -> sourceSpliterator(0)), isParallel());
         }
     }
 
+    /**
+     * Returns whether the given stream is a pipeline without intermediate
+     * operations, whose {@link #spliterator()} is the source spliterator
+     * itself rather than a wrapping spliterator.
+     *
+     * @param stream the stream
+     * @return {@code true} if the stream is a source stage
+     */
+    static boolean isSourceStage(BaseStream<?, ?> stream) {
+        return stream instanceof AbstractPipeline
+               && ((AbstractPipeline<?, ?, ?>) stream).sourceStage == stream;
+    }
+
     @Override
     public final boolean isParallel() {
         return sourceStage.parallel;
     }
 
+    /**
+     * Sets the target leaf size of a parallel evaluation of this pipeline.
+     *
+     * @param targetLeafSize the target leaf size, or {@code 0} to let the
+     *        implementation choose the leaf size
+     */
+    final void setTargetLeafSize(long targetLeafSize) {
+        sourceStage.targetLeafSize = targetLeafSize;
+    }
+
+    /**
+     * Sets whether primitive intermediate results of this pipeline are
+     * buffered off-heap (see {@link OffHeapNodes}).
+     *
+     * @param offHeap {@code true} to buffer off-heap
+     */
+    final void setOffHeap(boolean offHeap) {
+        sourceStage.offHeap = offHeap;
+    }
+
+    /**
+     * Returns {@code true} if primitive intermediate results of this
+     * pipeline should be buffered off-heap.
+     *
+     * @return {@code true} to buffer off-heap
+     */
+    final boolean isOffHeap() {
+        return sourceStage.offHeap;
+    }
+
+    /**
+     * Sets the receiver of the execution metrics of this pipeline.
+     *
+     * @param instrumentation the receiver of the metrics, or {@code null}
+     *        to disable the instrumentation
+     */
+    final void setInstrumentation(PipelineInstrumentation instrumentation) {
+        sourceStage.instrumentation = instrumentation;
+    }
+
+    /**
+     * Makes this pipeline parallel and binds its parallel evaluation to the
+     * given pool.
+     *
+     * @param pool the pool that parallel evaluations run in
+     */
+    final void setPool(ForkJoinPool pool) {
+        sourceStage.pool = pool;
+        sourceStage.parallel = true;
+    }
+
+    /**
+     * Binds the parallel evaluation of this pipeline like that of the given
+     * pipeline, that is, to the same pool, target leaf size, instrumentation
+     * and off-heap buffering.
+     *
+     * @param other the pipeline whose evaluation settings are taken over
+     */
+    final void inheritSettings(AbstractPipeline<?, ?, ?> other) {
+        AbstractPipeline<?, ?, ?> from = other.sourceStage;
+        sourceStage.pool = from.pool;
+        sourceStage.targetLeafSize = from.targetLeafSize;
+        sourceStage.instrumentation = from.instrumentation;
+        sourceStage.offHeap = from.offHeap;
+    }
+
 
     /**
      * Returns the composition of stream flags of the stream source and all
@@ -452,6 +588,22 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>>
 
     // PipelineHelper
 
+    @Override
+    final long getTargetLeafSize() {
+        return sourceStage.targetLeafSize;
+    }
+
+    @Override
+    final PipelineInstrumentation getInstrumentation() {
+        return sourceStage.instrumentation;
+    }
+
+    @Override
+    final int getParallelism() {
+        ForkJoinPool p = sourceStage.pool;
+        return p != null ? p.getParallelism() : ForkJoinPool.getCommonPoolParallelism();
+    }
+
     @Override
     final StreamShape getSourceShape() {
         @SuppressWarnings("rawtypes")
@@ -464,7 +616,26 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>>
 
     @Override
     final <P_IN> long exactOutputSizeIfKnown(Spliterator<P_IN> spliterator) {
-        return StreamOpFlag.SIZED.isKnown(getStreamAndOpFlags()) ? spliterator.getExactSizeIfKnown() : -1;
+        int flags = getStreamAndOpFlags();
+        long size = StreamOpFlag.SIZED.isKnown(flags) ? spliterator.getExactSizeIfKnown() : -1;
+        if (size != -1 && StreamOpFlag.SIZE_ADJUSTING.isKnown(flags)) {
+            size = adjustedOutputSize(size);
+        }
+        return size;
+    }
+
+    /**
+     * Applies the size adjustments of the stages from the stage at depth 0
+     * (exclusive) up to this stage (inclusive) to the given size.  A stage
+     * at depth 0 is either the source stage or, in a parallel pipeline, a
+     * stateful stage whose adjustment is already reflected in the size of
+     * the spliterator it produced.
+     *
+     * @param size the exact size of the input of the stages
+     * @return the exact size of the output of this stage
+     */
+    private long adjustedOutputSize(long size) {
+        return depth == 0 ? size : exactOutputSize(previousStage.adjustedOutputSize(size));
     }
 
     @Override
@@ -521,10 +692,7 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>>
     final <P_IN> Sink<P_IN> wrapSink(Sink<E_OUT> sink) {
         Objects.requireNonNull(sink);
 
-        for (@SuppressWarnings("rawtypes") AbstractPipeline p = AbstractPipeline.this; p.depth > 0; p = p.previousStage) {
-            sink = p.opWrapSink(p.previousStage.combinedFlags, sink);
-        }
-        return (Sink<P_IN>) sink;
+        return (Sink<P_IN>) wrapStages(sink);
     }
 
     @Override
@@ -560,10 +728,69 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>>
             }
         };
 
-        for (@SuppressWarnings("rawtypes") AbstractPipeline p = AbstractPipeline.this; p.depth > 0; p = p.previousStage) {
-            trampoline = p.opWrapSink(p.previousStage.combinedFlags, trampoline);
+        return (Sink<P_IN>) wrapStages(trampoline);
+    }
+
+    /**
+     * Wraps the sink with the operations of all stages from this stage back
+     * to (but not including) the stage at depth 0.  Runs of two or more
+     * adjacent fusible stages (see {@link #isFusible()}) are handed over
+     * to {@link FusedOps} which wraps them with fewer sinks than one per
+     * stage, unless the pipeline is instrumented.
+     */
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private Sink wrapStages(Sink sink) {
+        PipelineInstrumentation pi = sourceStage.instrumentation;
+        if (pi != null) {
+            return wrapMeteredStages(pi, sink);
+        }
+        for (AbstractPipeline p = AbstractPipeline.this; p.depth > 0; p = p.previousStage) {
+            if (FusedOps.ENABLED && p.isFusible()) {
+                int count = 1;
+                for (AbstractPipeline u = p.previousStage;
+                     u.depth > 0 && u.isFusible();
+                     u = u.previousStage) {
+                    count++;
+                }
+                if (count > 1) {
+                    int[] kinds = new int[count];
+                    Object[] fns = new Object[count];
+                    for (int i = count - 1; i >= 0; i--) {
+                        kinds[i] = p.opFusionKind();
+                        fns[i] = p.opFusionFunction();
+                        if (i > 0) {
+                            p = p.previousStage;
+                        }
+                    }
+                    sink = FusedOps.wrap(p.getOutputShape(), kinds, fns, sink);
+                    continue;
+                }
+            }
+            sink = p.opWrapSink(p.previousStage.combinedFlags, sink);
         }
-        return (Sink<P_IN>) trampoline;
+        return sink;
+    }
+
+    /**
+     * Wraps the sink with the operations of all stages from this stage back
+     * to (but not including) the stage at depth 0, and every stage's sink
+     * as well as the given sink with a {@link MeteredSink}.
+     */
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private Sink wrapMeteredStages(PipelineInstrumentation pi, Sink sink) {
+        // the depth of a stage may be relative to the last stateful stage,
+        // the reported depth is relative to the source
+        int index = 0;
+        for (AbstractPipeline p = previousStage; p != null; p = p.previousStage) {
+            index++;
+        }
+        MeteredSink next = MeteredSink.of(pi, index + 1, MeteredSink.operationName(sink.getClass()), sink, null);
+        sink = next;
+        for (AbstractPipeline p = AbstractPipeline.this; p.depth > 0; p = p.previousStage, index--) {
+            sink = next = MeteredSink.of(pi, index, MeteredSink.operationName(p.getClass()),
+                                         p.opWrapSink(p.previousStage.combinedFlags, sink), next);
+        }
+        return sink;
     }
 
     @Override
@@ -581,15 +808,22 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>>
     final <P_IN> Node<E_OUT> evaluate(Spliterator<P_IN> spliterator,
                                       boolean flatten,
                                       IntFunction<E_OUT[]> generator) {
+        Node<E_OUT> node;
         if (isParallel()) {
             // @@@ Optimize if op of this pipeline stage is a stateful op
-            return evaluateToNode(this, spliterator, flatten, generator);
+            node = evaluateToNode(this, spliterator, flatten, generator);
         }
         else {
             Node.Builder<E_OUT> nb = makeNodeBuilder(
                     exactOutputSizeIfKnown(spliterator), generator);
-            return wrapAndCopyInto(nb, spliterator).build();
+            node = wrapAndCopyInto(nb, spliterator).build();
+        }
+        PipelineInstrumentation pi = sourceStage.instrumentation;
+        if (pi != null) {
+            long count = node.count();
+            pi.nodeBuffered(count, MeteredSink.bytes(getOutputShape(), count));
         }
+        return node;
     }
 
 
@@ -673,6 +907,22 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>>
 
     // Op-specific abstract methods, implemented by the operation class
 
+    /**
+     * Returns the exact output size of this operation given the exact size
+     * of its input.  Only called for operations that inject
+     * {@link StreamOpFlag#SIZE_ADJUSTING}.
+     *
+     * <p><b>Implementation Requirements:</b><br>
+     * The default implementation returns the input size.
+     *
+     * @param previousSize the exact size of the input, {@code >= 0}
+     * @return the exact size of the output
+     * @since 1.5.7
+     */
+    long exactOutputSize(long previousSize) {
+        return previousSize;
+    }
+
     /**
      * Returns whether this operation is stateful or not.  If it is stateful,
      * then the method
@@ -704,6 +954,47 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>>
      */
     abstract Sink<E_IN> opWrapSink(int flags, Sink<E_OUT> sink);
 
+    /**
+     * Returns whether, and how, this operation can be fused with adjacent
+     * operations into a single {@code Sink} (see {@link FusedOps}).  Only
+     * stateless operations whose input and output shape are the same and
+     * which neither inspect the flags passed to
+     * {@link #opWrapSink(int, Sink)} nor emit more than one element per input
+     * element may return a kind other than {@link FusedOps#NONE}.
+     *
+     * <p><b>Implementation Requirements:</b><br> The default implementation
+     * returns {@link FusedOps#NONE}.
+     *
+     * @return one of {@link FusedOps#NONE}, {@link FusedOps#MAP},
+     *         {@link FusedOps#FILTER} or {@link FusedOps#PEEK}
+     */
+    int opFusionKind() {
+        return FusedOps.NONE;
+    }
+
+    /**
+     * Returns the mapping function (a unary operator for the primitive
+     * shapes), predicate or action of a fusible operation, or {@code null}
+     * if the operation can't be fused.
+     *
+     * <p><b>Implementation Requirements:</b><br> The default implementation
+     * returns {@code null}.
+     *
+     * @return the function of this fusible operation, or {@code null}
+     */
+    Object opFusionFunction() {
+        return null;
+    }
+
+    /**
+     * Returns whether this stage takes part in fusion, that is, whether it
+     * opted in by overriding both {@link #opFusionKind()} and
+     * {@link #opFusionFunction()}.
+     */
+    private boolean isFusible() {
+        return opFusionKind() != FusedOps.NONE && opFusionFunction() != null;
+    }
+
     /**
      * Performs a parallel evaluation of the operation using the specified
      * {@code PipelineHelper} which describes the upstream intermediate
@@ -94,26 +94,47 @@ abstract class AbstractShortCircuitTask<P_IN, P_OUT, R,
      */
     protected abstract R getEmptyResult();
 
+    /**
+     * Returns whether only a prefix of the encounter order contributes to
+     * the result of this computation, as in a find-first or an ordered
+     * limit operation.  If so, {@code compute()} always continues with the
+     * left child and forks the right child, so that the leftmost leaves
+     * (which are the most likely to produce the result that cancels all
+     * later tasks) are processed first.  The default returns {@code false},
+     * in which case forking alternates between the left and the right child.
+     *
+     * @return {@code true} if the computation prefers the leftmost tasks
+     * @since 1.5.7
+     */
+    protected boolean prefersLeftmost() {
+        return false;
+    }
+
     /**
      * Overrides AbstractTask version to include checks for early
-     * exits while splitting or computing.
+     * exits while splitting or computing.  A child task that has already
+     * been canceled when it is created is completed with the empty result
+     * instead of being forked.
      */
     @Override
     public void compute() {
         Spliterator<P_IN> rs = spliterator, ls;
         long sizeEstimate = rs.estimateSize();
-        long sizeThreshold = getTargetSize(sizeEstimate);
-        boolean forkRight = false;
+        LeafSizing sizing = getLeafSizing(sizeEstimate);
+        boolean leftmostFirst = prefersLeftmost();
+        boolean forkRight = leftmostFirst;
         @SuppressWarnings("unchecked") K task = (K) this;
         AtomicReference<R> sr = sharedResult;
         R result;
-        while ((result = sr.get()) == null) {
-            if (task.taskCanceled()) {
-                result = task.getEmptyResult();
+        for (;;) {
+            if ((result = sr.get()) != null || task.taskCanceled()) {
+                ShortCircuitStatistics.taskSkipped();
+                if (result == null)
+                    result = task.getEmptyResult();
                 break;
             }
-            if (sizeEstimate <= sizeThreshold || (ls = rs.trySplit()) == null) {
-                result = task.doLeaf();
+            if (sizeEstimate <= sizing.target() || (ls = rs.trySplit()) == null) {
+                result = task.doSampledLeaf(sizeEstimate);
                 break;
             }
             K leftChild, rightChild, taskToFork;
@@ -121,7 +142,7 @@ abstract class AbstractShortCircuitTask<P_IN, P_OUT, R,
             task.rightChild = rightChild = task.makeChild(rs);
             task.setPendingCount(1);
             if (forkRight) {
-                forkRight = false;
+                forkRight = leftmostFirst;
                 rs = ls;
                 task = leftChild;
                 taskToFork = rightChild;
@@ -131,13 +152,41 @@ abstract class AbstractShortCircuitTask<P_IN, P_OUT, R,
                 task = rightChild;
                 taskToFork = leftChild;
             }
-            taskToFork.fork();
+            if (sr.get() != null || taskToFork.taskCanceled()) {
+                ShortCircuitStatistics.forkAvoided();
+                taskToFork.setLocalResult(taskToFork.getEmptyResult());
+                taskToFork.tryComplete();
+            }
+            else
+                forkChild(taskToFork);
             sizeEstimate = rs.estimateSize();
         }
         task.setLocalResult(result);
         task.tryComplete();
     }
 
+    /**
+     * Traverses the spliterator of this leaf task and pushes the output of
+     * the pipeline into the given sink, stopping early if a result has been
+     * found in the meantime or this task has been canceled, in which case
+     * the output of this leaf won't be used.  The leaf checks for that every
+     * {@link CancellableSink#POLL_INTERVAL} elements.
+     *
+     * @param sink the sink receiving the output elements of the pipeline
+     * @return {@code true} if the output of this leaf is obsolete, either
+     *         because the traversal has been abandoned or because the
+     *         computation was canceled while this leaf was traversing
+     * @since 1.5.7
+     */
+    protected final boolean copyIntoWithCancel(Sink<P_OUT> sink) {
+        CancellableSink<P_OUT> cs = CancellableSink.of(this, sink);
+        helper.copyIntoWithCancel(helper.wrapSink(cs), spliterator);
+        if (cs.stopped || cs.stopRequested()) {
+            ShortCircuitStatistics.leafCanceled(cs.polls);
+            return true;
+        }
+        return false;
+    }
 
     /**
      * Declares that a globally valid result has been found.  If another task has
@@ -232,4 +281,116 @@ abstract class AbstractShortCircuitTask<P_IN, P_OUT, R,
             }
         }
     }
+
+    /**
+     * A sink in front of the terminal sink of a leaf task that reports
+     * cancellation once the leaf's output is no longer needed.
+     *
+     * @param <T> type of elements accepted by the sink
+     */
+    static class CancellableSink<T> implements Sink<T> {
+        /**
+         * The number of cancellation polls in between two checks of the
+         * task's state, must be a power of 2
+         */
+        static final int POLL_INTERVAL = 64;
+
+        final AbstractShortCircuitTask<?, ?, ?, ?> task;
+        final Sink<T> downstream;
+        // the number of calls to cancellationRequested(), i.e. (roughly)
+        // the number of source elements traversed
+        long polls;
+        boolean stopped;
+
+        CancellableSink(AbstractShortCircuitTask<?, ?, ?, ?> task, Sink<T> downstream) {
+            this.task = task;
+            this.downstream = downstream;
+        }
+
+        @SuppressWarnings("unchecked")
+        static <T> CancellableSink<T> of(AbstractShortCircuitTask<?, ?, ?, ?> task, Sink<T> sink) {
+            if (sink instanceof Sink.OfInt)
+                return (CancellableSink<T>) new OfInt(task, (Sink.OfInt) sink);
+            else if (sink instanceof Sink.OfLong)
+                return (CancellableSink<T>) new OfLong(task, (Sink.OfLong) sink);
+            else if (sink instanceof Sink.OfDouble)
+                return (CancellableSink<T>) new OfDouble(task, (Sink.OfDouble) sink);
+            else
+                return new CancellableSink<T>(task, sink);
+        }
+
+        final boolean stopRequested() {
+            return task.sharedResult.get() != null || task.taskCanceled();
+        }
+
+        @Override
+        public final void begin(long size) {
+            downstream.begin(size);
+        }
+
+        @Override
+        public final void end() {
+            downstream.end();
+        }
+
+        @Override
+        public final boolean cancellationRequested() {
+            if ((++polls & (POLL_INTERVAL - 1)) == 0 && !stopped && stopRequested())
+                stopped = true;
+            return stopped || downstream.cancellationRequested();
+        }
+
+        @Override
+        public void accept(T t) {
+            downstream.accept(t);
+        }
+
+        @Override
+        public void accept(int value) {
+            SinkDefaults.accept(this, value);
+        }
+
+        @Override
+        public void accept(long value) {
+            SinkDefaults.accept(this, value);
+        }
+
+        @Override
+        public void accept(double value) {
+            SinkDefaults.accept(this, value);
+        }
+
+        static final class OfInt extends CancellableSink<Integer> implements Sink.OfInt {
+            OfInt(AbstractShortCircuitTask<?, ?, ?, ?> task, Sink.OfInt downstream) {
+                super(task, downstream);
+            }
+
+            @Override
+            public void accept(int value) {
+                ((Sink.OfInt) downstream).accept(value);
+            }
+        }
+
+        static final class OfLong extends CancellableSink<Long> implements Sink.OfLong {
+            OfLong(AbstractShortCircuitTask<?, ?, ?, ?> task, Sink.OfLong downstream) {
+                super(task, downstream);
+            }
+
+            @Override
+            public void accept(long value) {
+                ((Sink.OfLong) downstream).accept(value);
+            }
+        }
+
+        static final class OfDouble extends CancellableSink<Double> implements Sink.OfDouble {
+            OfDouble(AbstractShortCircuitTask<?, ?, ?, ?> task, Sink.OfDouble downstream) {
+                super(task, downstream);
+            }
+
+            @Override
+            public void accept(double value) {
+                ((Sink.OfDouble) downstream).accept(value);
+            }
+        }
+    }
 }
@@ -106,8 +106,14 @@ abstract class AbstractTask<P_IN, P_OUT, R,
      */
     protected Spliterator<P_IN> spliterator;
 
-    /** Target leaf size, common to all tasks in a computation */
-    protected long targetSize; // may be lazily initialized
+    /** Leaf size policy, common to all tasks in a computation */
+    protected LeafSizing leafSizing; // may be lazily initialized
+
+    /**
+     * The receiver of the execution metrics, common to all tasks in a
+     * computation; null if the pipeline isn't instrumented
+     */
+    protected final PipelineInstrumentation instrumentation;
 
     /**
      * The left child.
@@ -139,7 +145,8 @@ abstract class AbstractTask<P_IN, P_OUT, R,
         super(null);
         this.helper = helper;
         this.spliterator = spliterator;
-        this.targetSize = 0L;
+        this.leafSizing = null;
+        this.instrumentation = helper.getInstrumentation();
     }
 
     /**
@@ -154,7 +161,8 @@ abstract class AbstractTask<P_IN, P_OUT, R,
         super(parent);
         this.spliterator = spliterator;
         this.helper = parent.helper;
-        this.targetSize = parent.targetSize;
+        this.leafSizing = parent.leafSizing;
+        this.instrumentation = parent.instrumentation;
     }
 
     /**
@@ -187,13 +195,62 @@ abstract class AbstractTask<P_IN, P_OUT, R,
     }
 
     /**
-     * Returns the targetSize, initializing it via the supplied
+     * Returns the leaf size policy, initializing it via the supplied
      * size estimate if not already initialized.
      */
+    protected final LeafSizing getLeafSizing(long sizeEstimate) {
+        LeafSizing s;
+        return ((s = leafSizing) != null ? s :
+                (leafSizing = LeafSizing.of(helper, sizeEstimate)));
+    }
+
+    /**
+     * Returns the current target leaf size, initializing the leaf size policy
+     * via the supplied size estimate if not already initialized. The target
+     * may change while the computation proceeds (see {@link LeafSizing}).
+     */
     protected final long getTargetSize(long sizeEstimate) {
-        long s;
-        return ((s = targetSize) != 0 ? s :
-                (targetSize = suggestTargetSize(sizeEstimate)));
+        return getLeafSizing(sizeEstimate).target();
+    }
+
+    /**
+     * Calls {@code doLeaf}, timing it if the leaf size policy is still
+     * sampling the cost of leaves or if the pipeline is instrumented.
+     *
+     * @param sizeEstimate the size estimate of this leaf's spliterator
+     * @return the computed result of this leaf node
+     */
+    protected final R doSampledLeaf(long sizeEstimate) {
+        LeafSizing s = leafSizing;
+        boolean sampling = s != null && s.isSampling();
+        PipelineInstrumentation pi = instrumentation;
+        if (!sampling && pi == null) {
+            return doLeaf();
+        }
+        long start = System.nanoTime();
+        R result = doLeaf();
+        long nanos = System.nanoTime() - start;
+        if (sampling) {
+            s.record(sizeEstimate, nanos);
+        }
+        if (pi != null) {
+            pi.leafCompleted(sizeEstimate, nanos);
+        }
+        return result;
+    }
+
+    /**
+     * Forks the given child task, reporting the fork if the pipeline is
+     * instrumented.
+     *
+     * @param task the child task to fork
+     */
+    protected final void forkChild(K task) {
+        task.fork();
+        PipelineInstrumentation pi = instrumentation;
+        if (pi != null) {
+            pi.taskForked();
+        }
     }
 
     /**
@@ -292,10 +349,10 @@ abstract class AbstractTask<P_IN, P_OUT, R,
     public void compute() {
         Spliterator<P_IN> rs = spliterator, ls; // right, left spliterators
         long sizeEstimate = rs.estimateSize();
-        long sizeThreshold = getTargetSize(sizeEstimate);
+        LeafSizing sizing = getLeafSizing(sizeEstimate);
         boolean forkRight = false;
         @SuppressWarnings("unchecked") K task = (K) this;
-        while (sizeEstimate > sizeThreshold && (ls = rs.trySplit()) != null) {
+        while (sizeEstimate > sizing.target() && (ls = rs.trySplit()) != null) {
             K leftChild, rightChild, taskToFork;
             task.leftChild  = leftChild = task.makeChild(ls);
             task.rightChild = rightChild = task.makeChild(rs);
@@ -311,10 +368,10 @@ abstract class AbstractTask<P_IN, P_OUT, R,
                 task = rightChild;
                 taskToFork = leftChild;
             }
-            taskToFork.fork();
+            forkChild(taskToFork);
             sizeEstimate = rs.estimateSize();
         }
-        task.setLocalResult(task.doLeaf());
+        task.setLocalResult(task.doSampledLeaf(sizeEstimate));
         task.tryComplete();
     }
 
@@ -0,0 +1,526 @@
+/*
+ * Written by Stefan Zobel and released to the
+ * public domain, as explained at
+ * http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package java8.util.stream;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+import java8.lang.Longs;
+import java8.util.function.IntFunction;
+
+/**
+ * Bounded max-heaps that retain the {@code k} smallest elements offered to
+ * them. These back the fused {@code sorted().limit(k)} of all four stream
+ * shapes (see {@link SortedOps}), which thereby needs {@code O(k)} instead of
+ * {@code O(n)} space and {@code O(n log k)} instead of {@code O(n log n)}
+ * time.
+ *
+ * <p>Each parallel leaf fills a heap of its own, the heaps are combined by
+ * merging their sorted contents. The reference heap breaks ties between
+ * equal elements by encounter order, so the result is the same as that of a
+ * stable sort followed by a limit.
+ *
+ * @since 1.5.7
+ */
+final class BoundedHeaps {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * The largest {@code k} for which {@code sorted().limit(k)} is fused.
+     */
+    static final long MAX_K = 1L << 20;
+
+    // No instances
+    private BoundedHeaps() { }
+
+    private static int initialCapacity(int k) {
+        return Math.max(1, Math.min(k, INITIAL_CAPACITY));
+    }
+
+    private static int grow(int capacity, int k) {
+        return (int) Math.min((long) capacity << 1, k);
+    }
+
+    /**
+     * A bounded heap of references, ordered by a comparator and, for equal
+     * elements, by encounter order.
+     */
+    static final class OfRef<T> {
+        private final int k;
+        private final Comparator<? super T> comparator;
+        private Object[] elements;
+        // the encounter index of each element
+        private long[] indices;
+        private int size;
+        private long count;
+        // whether elements holds the retained elements in ascending order
+        // instead of a heap
+        private boolean sorted;
+
+        OfRef(int k, Comparator<? super T> comparator) {
+            this.k = k;
+            this.comparator = comparator;
+            int capacity = initialCapacity(k);
+            elements = new Object[capacity];
+            indices = new long[capacity];
+        }
+
+        @SuppressWarnings("unchecked")
+        private int compare(int i, int j) {
+            int c = comparator.compare((T) elements[i], (T) elements[j]);
+            return c != 0 ? c : Longs.compare(indices[i], indices[j]);
+        }
+
+        /**
+         * Offers the next element in encounter order.
+         *
+         * @param t the element
+         */
+        @SuppressWarnings("unchecked")
+        void accept(T t) {
+            long index = count++;
+            if (size < k) {
+                if (size == elements.length) {
+                    int capacity = grow(size, k);
+                    elements = Arrays.copyOf(elements, capacity);
+                    indices = Arrays.copyOf(indices, capacity);
+                }
+                elements[size] = t;
+                indices[size] = index;
+                siftUp(size++);
+            } else if (k > 0 && comparator.compare(t, (T) elements[0]) < 0) {
+                // an equal element would come after the root
+                elements[0] = t;
+                indices[0] = index;
+                siftDown(0, size);
+            }
+        }
+
+        /**
+         * Merges the retained elements of {@code other}, which come after
+         * the elements of this heap in encounter order, into this heap.
+         *
+         * @param other the other heap
+         * @return this heap
+         */
+        @SuppressWarnings("unchecked")
+        OfRef<T> combine(OfRef<T> other) {
+            sort();
+            other.sort();
+            Object[] left = elements, right = other.elements;
+            int n = Math.min(k, size + other.size);
+            Object[] merged = new Object[n];
+            int i = 0, j = 0;
+            for (int m = 0; m < n; m++) {
+                // ties go to the left
+                merged[m] = (j == other.size
+                             || (i < size && comparator.compare((T) left[i], (T) right[j]) <= 0))
+                            ? left[i++]
+                            : right[j++];
+            }
+            elements = merged;
+            size = n;
+            return this;
+        }
+
+        /**
+         * Returns the retained elements in ascending order.
+         *
+         * @param generator a factory for the result array
+         * @return the retained elements
+         */
+        T[] toArray(IntFunction<T[]> generator) {
+            sort();
+            T[] array = generator.apply(size);
+            System.arraycopy(elements, 0, array, 0, size);
+            return array;
+        }
+
+        private void sort() {
+            if (!sorted) {
+                // heap sort, popping the maximum to the end
+                for (int n = size - 1; n > 0; n--) {
+                    swap(0, n);
+                    siftDown(0, n);
+                }
+                indices = null;
+                sorted = true;
+            }
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (compare(i, parent) <= 0) {
+                    break;
+                }
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i, int n) {
+            for (int child; (child = (i << 1) + 1) < n; i = child) {
+                if (child + 1 < n && compare(child + 1, child) > 0) {
+                    child++;
+                }
+                if (compare(child, i) <= 0) {
+                    break;
+                }
+                swap(i, child);
+            }
+        }
+
+        private void swap(int i, int j) {
+            Object e = elements[i];
+            elements[i] = elements[j];
+            elements[j] = e;
+            long x = indices[i];
+            indices[i] = indices[j];
+            indices[j] = x;
+        }
+    }
+
+    /** A bounded heap of {@code int} values, ordered numerically */
+    static final class OfInt {
+        private final int k;
+        private int[] elements;
+        private int size;
+        // whether elements holds the retained elements in ascending order
+        // instead of a heap
+        private boolean sorted;
+
+        OfInt(int k) {
+            this.k = k;
+            elements = new int[initialCapacity(k)];
+        }
+
+        /**
+         * Offers the next element.
+         *
+         * @param v the element
+         */
+        void accept(int v) {
+            if (size < k) {
+                if (size == elements.length) {
+                    elements = Arrays.copyOf(elements, grow(size, k));
+                }
+                elements[size] = v;
+                siftUp(size++);
+            } else if (k > 0 && v < elements[0]) {
+                elements[0] = v;
+                siftDown(0, size);
+            }
+        }
+
+        /**
+         * Merges the retained elements of {@code other} into this heap.
+         *
+         * @param other the other heap
+         * @return this heap
+         */
+        OfInt combine(OfInt other) {
+            sort();
+            other.sort();
+            int[] left = elements, right = other.elements;
+            int n = Math.min(k, size + other.size);
+            int[] merged = new int[n];
+            int i = 0, j = 0;
+            for (int m = 0; m < n; m++) {
+                merged[m] = (j == other.size || (i < size && left[i] <= right[j]))
+                            ? left[i++]
+                            : right[j++];
+            }
+            elements = merged;
+            size = n;
+            return this;
+        }
+
+        /**
+         * Returns the retained elements in ascending order.
+         *
+         * @return the retained elements
+         */
+        int[] toArray() {
+            sort();
+            return size == elements.length ? elements : Arrays.copyOf(elements, size);
+        }
+
+        private void sort() {
+            if (!sorted) {
+                for (int n = size - 1; n > 0; n--) {
+                    swap(0, n);
+                    siftDown(0, n);
+                }
+                sorted = true;
+            }
+        }
+
+        private void siftUp(int i) {
+            int[] a = elements;
+            int v = a[i];
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                int p = a[parent];
+                if (v <= p) {
+                    break;
+                }
+                a[i] = p;
+                i = parent;
+            }
+            a[i] = v;
+        }
+
+        private void siftDown(int i, int n) {
+            int[] a = elements;
+            int v = a[i];
+            for (int child; (child = (i << 1) + 1) < n; i = child) {
+                if (child + 1 < n && a[child + 1] > a[child]) {
+                    child++;
+                }
+                int c = a[child];
+                if (c <= v) {
+                    break;
+                }
+                a[i] = c;
+            }
+            a[i] = v;
+        }
+
+        private void swap(int i, int j) {
+            int e = elements[i];
+            elements[i] = elements[j];
+            elements[j] = e;
+        }
+    }
+
+    /** A bounded heap of {@code long} values, ordered numerically */
+    static final class OfLong {
+        private final int k;
+        private long[] elements;
+        private int size;
+        // whether elements holds the retained elements in ascending order
+        // instead of a heap
+        private boolean sorted;
+
+        OfLong(int k) {
+            this.k = k;
+            elements = new long[initialCapacity(k)];
+        }
+
+        /**
+         * Offers the next element.
+         *
+         * @param v the element
+         */
+        void accept(long v) {
+            if (size < k) {
+                if (size == elements.length) {
+                    elements = Arrays.copyOf(elements, grow(size, k));
+                }
+                elements[size] = v;
+                siftUp(size++);
+            } else if (k > 0 && v < elements[0]) {
+                elements[0] = v;
+                siftDown(0, size);
+            }
+        }
+
+        /**
+         * Merges the retained elements of {@code other} into this heap.
+         *
+         * @param other the other heap
+         * @return this heap
+         */
+        OfLong combine(OfLong other) {
+            sort();
+            other.sort();
+            long[] left = elements, right = other.elements;
+            int n = Math.min(k, size + other.size);
+            long[] merged = new long[n];
+            int i = 0, j = 0;
+            for (int m = 0; m < n; m++) {
+                merged[m] = (j == other.size || (i < size && left[i] <= right[j]))
+                            ? left[i++]
+                            : right[j++];
+            }
+            elements = merged;
+            size = n;
+            return this;
+        }
+
+        /**
+         * Returns the retained elements in ascending order.
+         *
+         * @return the retained elements
+         */
+        long[] toArray() {
+            sort();
+            return size == elements.length ? elements : Arrays.copyOf(elements, size);
+        }
+
+        private void sort() {
+            if (!sorted) {
+                for (int n = size - 1; n > 0; n--) {
+                    swap(0, n);
+                    siftDown(0, n);
+                }
+                sorted = true;
+            }
+        }
+
+        private void siftUp(int i) {
+            long[] a = elements;
+            long v = a[i];
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                long p = a[parent];
+                if (v <= p) {
+                    break;
+                }
+                a[i] = p;
+                i = parent;
+            }
+            a[i] = v;
+        }
+
+        private void siftDown(int i, int n) {
+            long[] a = elements;
+            long v = a[i];
+            for (int child; (child = (i << 1) + 1) < n; i = child) {
+                if (child + 1 < n && a[child + 1] > a[child]) {
+                    child++;
+                }
+                long c = a[child];
+                if (c <= v) {
+                    break;
+                }
+                a[i] = c;
+            }
+            a[i] = v;
+        }
+
+        private void swap(int i, int j) {
+            long e = elements[i];
+            elements[i] = elements[j];
+            elements[j] = e;
+        }
+    }
+
+    /** A bounded heap of {@code double} values, ordered as by {@link Double#compare(double, double)} */
+    static final class OfDouble {
+        private final int k;
+        private double[] elements;
+        private int size;
+        // whether elements holds the retained elements in ascending order
+        // instead of a heap
+        private boolean sorted;
+
+        OfDouble(int k) {
+            this.k = k;
+            elements = new double[initialCapacity(k)];
+        }
+
+        /**
+         * Offers the next element.
+         *
+         * @param v the element
+         */
+        void accept(double v) {
+            if (size < k) {
+                if (size == elements.length) {
+                    elements = Arrays.copyOf(elements, grow(size, k));
+                }
+                elements[size] = v;
+                siftUp(size++);
+            } else if (k > 0 && Double.compare(v, elements[0]) < 0) {
+                elements[0] = v;
+                siftDown(0, size);
+            }
+        }
+
+        /**
+         * Merges the retained elements of {@code other} into this heap.
+         *
+         * @param other the other heap
+         * @return this heap
+         */
+        OfDouble combine(OfDouble other) {
+            sort();
+            other.sort();
+            double[] left = elements, right = other.elements;
+            int n = Math.min(k, size + other.size);
+            double[] merged = new double[n];
+            int i = 0, j = 0;
+            for (int m = 0; m < n; m++) {
+                merged[m] = (j == other.size || (i < size && Double.compare(left[i], right[j]) <= 0))
+                            ? left[i++]
+                            : right[j++];
+            }
+            elements = merged;
+            size = n;
+            return this;
+        }
+
+        /**
+         * Returns the retained elements in ascending order.
+         *
+         * @return the retained elements
+         */
+        double[] toArray() {
+            sort();
+            return size == elements.length ? elements : Arrays.copyOf(elements, size);
+        }
+
+        private void sort() {
+            if (!sorted) {
+                for (int n = size - 1; n > 0; n--) {
+                    swap(0, n);
+                    siftDown(0, n);
+                }
+                sorted = true;
+            }
+        }
+
+        private void siftUp(int i) {
+            double[] a = elements;
+            double v = a[i];
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                double p = a[parent];
+                if (Double.compare(v, p) <= 0) {
+                    break;
+                }
+                a[i] = p;
+                i = parent;
+            }
+            a[i] = v;
+        }
+
+        private void siftDown(int i, int n) {
+            double[] a = elements;
+            double v = a[i];
+            for (int child; (child = (i << 1) + 1) < n; i = child) {
+                if (child + 1 < n && Double.compare(a[child + 1], a[child]) > 0) {
+                    child++;
+                }
+                double c = a[child];
+                if (Double.compare(c, v) <= 0) {
+                    break;
+                }
+                a[i] = c;
+            }
+            a[i] = v;
+        }
+
+        private void swap(int i, int j) {
+            double e = elements[i];
+            elements[i] = elements[j];
+            elements[j] = e;
+        }
+    }
+}
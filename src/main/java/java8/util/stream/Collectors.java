@@ -62,6 +62,8 @@ import java8.util.stream.Collector.Characteristics;
 import java8.util.Optional;
 import java8.util.StringJoiner;
 import java8.util.concurrent.ConcurrentMaps;
+import java8.util.concurrent.ForkJoinPool;
+import java8.util.concurrent.ForkJoinTask;
 
 /**
  * Implementations of {@link Collector} that implement various useful reduction
@@ -133,6 +135,19 @@ public final class Collectors {
         return ConcurrentHashMap::new;
     }
 
+    // the parallelism of the pool the current thread is a worker of (the
+    // pool a parallel stream bound to a pool is evaluated in), or of the
+    // common pool if the current thread isn't a ForkJoin worker thread
+    private static int poolParallelism() {
+        ForkJoinPool pool = ForkJoinTask.getPool();
+        return pool != null ? pool.getParallelism() : ForkJoinPool.getCommonPoolParallelism();
+    }
+
+    // the initial capacity of a hash map that is to hold size mappings
+    private static int mapCapacity(int size) {
+        return size < 3 ? size + 1 : (int) (size / 0.75f + 1.0f);
+    }
+
     /**
      * Returns a new {@code Collector} described by the given {@code supplier},
      * {@code accumulator}, and {@code combiner} functions.  The resulting
@@ -722,10 +737,10 @@ public final class Collectors {
     public static <T> Collector<T, ?, Integer>
     summingInt(ToIntFunction<? super T> mapper) {
         return new CollectorImpl<>(
-                () -> new int[1],
-                (a, t) -> { a[0] += mapper.applyAsInt(t); },
-                (a, b) -> { a[0] += b[0]; return a; },
-                a -> a[0], CH_NOID);
+                SumAccumulators.OfInt::new,
+                (a, t) -> { a.add(mapper.applyAsInt(t)); },
+                SumAccumulators.OfInt::merge,
+                a -> a.sum, CH_NOID);
     }
 
     /**
@@ -740,10 +755,10 @@ public final class Collectors {
     public static <T> Collector<T, ?, Long>
     summingLong(ToLongFunction<? super T> mapper) {
         return new CollectorImpl<>(
-                () -> new long[1],
-                (a, t) -> { a[0] += mapper.applyAsLong(t); },
-                (a, b) -> { a[0] += b[0]; return a; },
-                a -> a[0], CH_NOID);
+                SumAccumulators.OfLong::new,
+                (a, t) -> { a.add(mapper.applyAsLong(t)); },
+                SumAccumulators.OfLong::merge,
+                a -> a.sum, CH_NOID);
     }
 
     /**
@@ -764,62 +779,14 @@ public final class Collectors {
      */
     public static <T> Collector<T, ?, Double>
     summingDouble(ToDoubleFunction<? super T> mapper) {
-        /*
-         * In the arrays allocated for the collect operation, index 0
-         * holds the high-order bits of the running sum, index 1 holds
-         * the low-order bits of the sum computed via compensated
-         * summation, and index 2 holds the simple sum used to compute
-         * the proper result if the stream contains infinite values of
-         * the same sign.
-         */
         return new CollectorImpl<>(
-                () -> new double[3],
-                (a, t) -> { double val = mapper.applyAsDouble(t);
-                            sumWithCompensation(a, val);
-                            a[2] += val;},
-                (a, b) -> { sumWithCompensation(a, b[0]);
-                            a[2] += b[2];
-                            return sumWithCompensation(a, b[1]); },
-                a -> computeFinalSum(a),
+                SumAccumulators.OfDouble::new,
+                (a, t) -> { a.add(mapper.applyAsDouble(t)); },
+                SumAccumulators.OfDouble::merge,
+                SumAccumulators.OfDouble::sum,
                 CH_NOID);
     }
 
-    /**
-     * Incorporate a new double value using Kahan summation /
-     * compensation summation.
-     *
-     * High-order bits of the sum are in intermediateSum[0], low-order
-     * bits of the sum are in intermediateSum[1], any additional
-     * elements are application-specific.
-     *
-     * @param intermediateSum the high-order and low-order words of the intermediate sum
-     * @param value the name value to be included in the running sum
-     */
-    static double[] sumWithCompensation(double[] intermediateSum, double value) {
-        double tmp = value - intermediateSum[1];
-        double sum = intermediateSum[0];
-        double velvel = sum + tmp; // Little wolf of rounding error
-        intermediateSum[1] = (velvel - sum) - tmp;
-        intermediateSum[0] = velvel;
-        return intermediateSum;
-    }
-
-    /**
-     * If the compensated sum is spuriously NaN from accumulating one
-     * or more same-signed infinite values, return the
-     * correctly-signed infinity stored in the simple sum.
-     */
-    static double computeFinalSum(double[] summands) {
-        // Better error bounds to add both terms as the final sum
-        double tmp = summands[0] + summands[1];
-        double simpleSum = summands[summands.length - 1];
-        if (Double.isNaN(tmp) && Double.isInfinite(simpleSum)) {
-            return simpleSum;
-        } else {
-            return tmp;
-        }
-    }
-
     /**
      * Returns a {@code Collector} that produces the arithmetic mean of an integer-valued
      * function applied to the input elements.  If no elements are present,
@@ -833,10 +800,10 @@ public final class Collectors {
     public static <T> Collector<T, ?, Double>
     averagingInt(ToIntFunction<? super T> mapper) {
         return new CollectorImpl<>(
-                () -> new long[2],
-                (a, t) -> { a[0] += mapper.applyAsInt(t); a[1]++; },
-                (a, b) -> { a[0] += b[0]; a[1] += b[1]; return a; },
-                a -> (a[1] == 0) ? 0.0d : (double) a[0] / a[1], CH_NOID);
+                SumAccumulators.OfLong::new,
+                (a, t) -> { a.add(mapper.applyAsInt(t)); },
+                SumAccumulators.OfLong::merge,
+                SumAccumulators.OfLong::average, CH_NOID);
     }
 
     /**
@@ -852,10 +819,10 @@ public final class Collectors {
     public static <T> Collector<T, ?, Double>
     averagingLong(ToLongFunction<? super T> mapper) {
         return new CollectorImpl<>(
-                () -> new long[2],
-                (a, t) -> { a[0] += mapper.applyAsLong(t); a[1]++; },
-                (a, b) -> { a[0] += b[0]; a[1] += b[1]; return a; },
-                a -> (a[1] == 0) ? 0.0d : (double) a[0] / a[1], CH_NOID);
+                SumAccumulators.OfLong::new,
+                (a, t) -> { a.add(mapper.applyAsLong(t)); },
+                SumAccumulators.OfLong::merge,
+                SumAccumulators.OfLong::average, CH_NOID);
     }
 
     /**
@@ -883,17 +850,11 @@ public final class Collectors {
      */
     public static <T> Collector<T, ?, Double>
     averagingDouble(ToDoubleFunction<? super T> mapper) {
-        /*
-         * In the arrays allocated for the collect operation, index 0
-         * holds the high-order bits of the running sum, index 1 holds
-         * the low-order bits of the sum computed via compensated
-         * summation, and index 2 holds the number of values seen.
-         */
         return new CollectorImpl<>(
-                () -> new double[4],
-                (a, t) -> { double val = mapper.applyAsDouble(t); sumWithCompensation(a, val); a[2]++; a[3]+= val;},
-                (a, b) -> { sumWithCompensation(a, b[0]); sumWithCompensation(a, b[1]); a[2] += b[2]; a[3] += b[3]; return a; },
-                a -> (a[2] == 0) ? 0.0d : (computeFinalSum(a) / a[2]),
+                SumAccumulators.OfDouble::new,
+                (a, t) -> { a.add(mapper.applyAsDouble(t)); },
+                SumAccumulators.OfDouble::merge,
+                SumAccumulators.OfDouble::average,
                 CH_NOID);
     }
 
@@ -1358,6 +1319,406 @@ public final class Collectors {
         }
     }
 
+    /**
+     * Returns a {@code Collector} implementing a "group by" operation on
+     * input elements of type {@code T}, grouping elements according to an
+     * {@code int}-valued classification function, and returning the results
+     * in a {@code Map}.
+     *
+     * <p>The result is the same as that of
+     * {@code groupingBy(t -> classifier.applyAsInt(t))}.
+     *
+     * <p>There are no guarantees on the type, mutability,
+     * serializability, or thread-safety of the {@code Map} or {@code List}
+     * objects returned.
+     * <p><b>Implementation Requirements:</b><br>
+     * This produces a result similar to:
+     * <pre>{@code
+     *     groupingByInt(classifier, toList())
+     * }</pre>
+     *
+     * @param <T> the type of the input elements
+     * @param classifier the classifier function mapping input elements to keys
+     * @return a {@code Collector} implementing the group-by operation
+     *
+     * @see #groupingByInt(ToIntFunction, Collector)
+     * @see #groupingByIntConcurrent(ToIntFunction)
+     * @since 1.5.7
+     */
+    public static <T> Collector<T, ?, Map<Integer, List<T>>>
+    groupingByInt(ToIntFunction<? super T> classifier) {
+        return groupingByInt(classifier, toList());
+    }
+
+    /**
+     * Returns a {@code Collector} implementing a cascaded "group by" operation
+     * on input elements of type {@code T}, grouping elements according to an
+     * {@code int}-valued classification function, and then performing a
+     * reduction operation on the values associated with a given key using the
+     * specified downstream {@code Collector}.
+     *
+     * <p>The result is the same as that of
+     * {@code groupingBy(t -> classifier.applyAsInt(t), downstream)}.
+     *
+     * <p>There are no guarantees on the type, mutability,
+     * serializability, or thread-safety of the {@code Map} returned.
+     *
+     * <p><b>Implementation Note:</b><br>
+     * While the elements are grouped, the keys are kept unboxed in a
+     * primitive hash map; a key is boxed only once, when the resulting
+     * {@code Map} is built. The returned {@code Collector} is not concurrent,
+     * for parallel stream pipelines the {@code combiner} function merges the
+     * keys from one map into another. If preservation of the order in which
+     * elements are presented to the downstream collector is not required,
+     * using {@link #groupingByIntConcurrent(ToIntFunction, Collector)}
+     * avoids these merges.
+     *
+     * @param <T> the type of the input elements
+     * @param <A> the intermediate accumulation type of the downstream collector
+     * @param <D> the result type of the downstream reduction
+     * @param classifier a classifier function mapping input elements to keys
+     * @param downstream a {@code Collector} implementing the downstream reduction
+     * @return a {@code Collector} implementing the cascaded group-by operation
+     *
+     * @see #groupingByInt(ToIntFunction)
+     * @see #groupingByIntConcurrent(ToIntFunction, Collector)
+     * @since 1.5.7
+     */
+    public static <T, A, D>
+    Collector<T, ?, Map<Integer, D>> groupingByInt(final ToIntFunction<? super T> classifier,
+                                                 Collector<? super T, A, D> downstream) {
+        Objects.requireNonNull(classifier);
+        final Supplier<A> downstreamSupplier = downstream.supplier();
+        final BiConsumer<A, ? super T> downstreamAccumulator = downstream.accumulator();
+        final BinaryOperator<A> downstreamCombiner = downstream.combiner();
+        final Function<A, D> downstreamFinisher = downstream.finisher();
+        BiConsumer<PrimitiveHashMaps.OfInt<A>, T> accumulator = (m, t) ->
+            downstreamAccumulator.accept(m.computeIfAbsent(classifier.applyAsInt(t), downstreamSupplier), t);
+        BinaryOperator<PrimitiveHashMaps.OfInt<A>> merger = (m1, m2) -> m1.merge(m2, downstreamCombiner);
+        Function<PrimitiveHashMaps.OfInt<A>, Map<Integer, D>> finisher = m -> {
+            final Map<Integer, D> result = new HashMap<>(mapCapacity(m.size()));
+            m.forEach((A container, int key) -> result.put(key, downstreamFinisher.apply(container)));
+            return result;
+        };
+        return new CollectorImpl<>(PrimitiveHashMaps.OfInt::new, accumulator, merger, finisher, CH_NOID);
+    }
+
+    /**
+     * Returns a concurrent {@code Collector} implementing a "group by"
+     * operation on input elements of type {@code T}, grouping elements
+     * according to an {@code int}-valued classification function.
+     *
+     * <p>This is a {@link Collector.Characteristics#CONCURRENT concurrent} and
+     * {@link Collector.Characteristics#UNORDERED unordered} Collector.
+     *
+     * <p>The result is the same as that of
+     * {@code groupingByConcurrent(t -> classifier.applyAsInt(t))}.
+     *
+     * <p>There are no guarantees on the type, mutability, or serializability
+     * of the {@code ConcurrentMap} or {@code List} objects returned, or of the
+     * thread-safety of the {@code List} objects returned.
+     * <p><b>Implementation Requirements:</b><br>
+     * This produces a result similar to:
+     * <pre>{@code
+     *     groupingByIntConcurrent(classifier, toList())
+     * }</pre>
+     *
+     * @param <T> the type of the input elements
+     * @param classifier a classifier function mapping input elements to keys
+     * @return a concurrent, unordered {@code Collector} implementing the group-by operation
+     *
+     * @see #groupingByInt(ToIntFunction)
+     * @see #groupingByIntConcurrent(ToIntFunction, Collector)
+     * @since 1.5.7
+     */
+    public static <T>
+    Collector<T, ?, ConcurrentMap<Integer, List<T>>>
+    groupingByIntConcurrent(ToIntFunction<? super T> classifier) {
+        return groupingByIntConcurrent(classifier, toList());
+    }
+
+    /**
+     * Returns a concurrent {@code Collector} implementing a cascaded "group by"
+     * operation on input elements of type {@code T}, grouping elements
+     * according to an {@code int}-valued classification function, and then
+     * performing a reduction operation on the values associated with a given
+     * key using the specified downstream {@code Collector}.
+     *
+     * <p>This is a {@link Collector.Characteristics#CONCURRENT concurrent} and
+     * {@link Collector.Characteristics#UNORDERED unordered} Collector.
+     *
+     * <p>The result is the same as that of
+     * {@code groupingByConcurrent(t -> classifier.applyAsInt(t), downstream)}.
+     *
+     * <p>There are no guarantees on the type, mutability, or serializability
+     * of the {@code ConcurrentMap} returned.
+     *
+     * <p><b>Implementation Note:</b><br>
+     * All threads of a parallel evaluation accumulate into a single primitive
+     * hash map that is partitioned by key hash into independently locked
+     * segments, so there are no per-leaf maps that would have to be merged.
+     * A segment is only locked while the container of a key is looked up; a
+     * downstream collector that isn't concurrent accumulates under a lock on
+     * the container of the key. The number of segments is derived from the
+     * parallelism of the pool that runs the evaluation. A key is boxed only
+     * once, when the resulting {@code ConcurrentMap} is built.
+     *
+     * @param <T> the type of the input elements
+     * @param <A> the intermediate accumulation type of the downstream collector
+     * @param <D> the result type of the downstream reduction
+     * @param classifier a classifier function mapping input elements to keys
+     * @param downstream a {@code Collector} implementing the downstream reduction
+     * @return a concurrent, unordered {@code Collector} implementing the cascaded group-by operation
+     *
+     * @see #groupingByInt(ToIntFunction, Collector)
+     * @see #groupingByIntConcurrent(ToIntFunction)
+     * @since 1.5.7
+     */
+    public static <T, A, D>
+    Collector<T, ?, ConcurrentMap<Integer, D>> groupingByIntConcurrent(final ToIntFunction<? super T> classifier,
+                                                                     Collector<? super T, A, D> downstream) {
+        Objects.requireNonNull(classifier);
+        final Supplier<A> downstreamSupplier = downstream.supplier();
+        final BiConsumer<A, ? super T> downstreamAccumulator = downstream.accumulator();
+        final BinaryOperator<A> downstreamCombiner = downstream.combiner();
+        final Function<A, D> downstreamFinisher = downstream.finisher();
+        BiConsumer<PrimitiveHashMaps.ConcurrentOfInt<A>, T> accumulator;
+        if (downstream.characteristics().contains(Collector.Characteristics.CONCURRENT)) {
+            accumulator = (m, t) -> {
+                int key = classifier.applyAsInt(t);
+                PrimitiveHashMaps.OfInt<A> segment = m.segmentFor(key);
+                A resultContainer;
+                synchronized (segment) {
+                    resultContainer = segment.computeIfAbsent(key, downstreamSupplier);
+                }
+                downstreamAccumulator.accept(resultContainer, t);
+            };
+        }
+        else {
+            accumulator = (m, t) -> {
+                int key = classifier.applyAsInt(t);
+                PrimitiveHashMaps.OfInt<A> segment = m.segmentFor(key);
+                A resultContainer;
+                synchronized (segment) {
+                    resultContainer = segment.computeIfAbsent(key, downstreamSupplier);
+                }
+                // the segment lock only guards the lookup, the downstream
+                // accumulation is serialized per key
+                synchronized (resultContainer) {
+                    downstreamAccumulator.accept(resultContainer, t);
+                }
+            };
+        }
+        BinaryOperator<PrimitiveHashMaps.ConcurrentOfInt<A>> merger = (m1, m2) -> m1.merge(m2, downstreamCombiner);
+        Function<PrimitiveHashMaps.ConcurrentOfInt<A>, ConcurrentMap<Integer, D>> finisher = m -> {
+            final ConcurrentMap<Integer, D> result = new ConcurrentHashMap<>(mapCapacity(m.size()));
+            m.forEach((A container, int key) -> result.put(key, downstreamFinisher.apply(container)));
+            return result;
+        };
+        return new CollectorImpl<>(() -> new PrimitiveHashMaps.ConcurrentOfInt<A>(poolParallelism()),
+                                   accumulator, merger, finisher, CH_CONCURRENT_NOID);
+    }
+
+    /**
+     * Returns a {@code Collector} implementing a "group by" operation on
+     * input elements of type {@code T}, grouping elements according to an
+     * {@code long}-valued classification function, and returning the results
+     * in a {@code Map}.
+     *
+     * <p>The result is the same as that of
+     * {@code groupingBy(t -> classifier.applyAsLong(t))}.
+     *
+     * <p>There are no guarantees on the type, mutability,
+     * serializability, or thread-safety of the {@code Map} or {@code List}
+     * objects returned.
+     * <p><b>Implementation Requirements:</b><br>
+     * This produces a result similar to:
+     * <pre>{@code
+     *     groupingByLong(classifier, toList())
+     * }</pre>
+     *
+     * @param <T> the type of the input elements
+     * @param classifier the classifier function mapping input elements to keys
+     * @return a {@code Collector} implementing the group-by operation
+     *
+     * @see #groupingByLong(ToLongFunction, Collector)
+     * @see #groupingByLongConcurrent(ToLongFunction)
+     * @since 1.5.7
+     */
+    public static <T> Collector<T, ?, Map<Long, List<T>>>
+    groupingByLong(ToLongFunction<? super T> classifier) {
+        return groupingByLong(classifier, toList());
+    }
+
+    /**
+     * Returns a {@code Collector} implementing a cascaded "group by" operation
+     * on input elements of type {@code T}, grouping elements according to an
+     * {@code long}-valued classification function, and then performing a
+     * reduction operation on the values associated with a given key using the
+     * specified downstream {@code Collector}.
+     *
+     * <p>The result is the same as that of
+     * {@code groupingBy(t -> classifier.applyAsLong(t), downstream)}.
+     *
+     * <p>There are no guarantees on the type, mutability,
+     * serializability, or thread-safety of the {@code Map} returned.
+     *
+     * <p><b>Implementation Note:</b><br>
+     * While the elements are grouped, the keys are kept unboxed in a
+     * primitive hash map; a key is boxed only once, when the resulting
+     * {@code Map} is built. The returned {@code Collector} is not concurrent,
+     * for parallel stream pipelines the {@code combiner} function merges the
+     * keys from one map into another. If preservation of the order in which
+     * elements are presented to the downstream collector is not required,
+     * using {@link #groupingByLongConcurrent(ToLongFunction, Collector)}
+     * avoids these merges.
+     *
+     * @param <T> the type of the input elements
+     * @param <A> the intermediate accumulation type of the downstream collector
+     * @param <D> the result type of the downstream reduction
+     * @param classifier a classifier function mapping input elements to keys
+     * @param downstream a {@code Collector} implementing the downstream reduction
+     * @return a {@code Collector} implementing the cascaded group-by operation
+     *
+     * @see #groupingByLong(ToLongFunction)
+     * @see #groupingByLongConcurrent(ToLongFunction, Collector)
+     * @since 1.5.7
+     */
+    public static <T, A, D>
+    Collector<T, ?, Map<Long, D>> groupingByLong(final ToLongFunction<? super T> classifier,
+                                                 Collector<? super T, A, D> downstream) {
+        Objects.requireNonNull(classifier);
+        final Supplier<A> downstreamSupplier = downstream.supplier();
+        final BiConsumer<A, ? super T> downstreamAccumulator = downstream.accumulator();
+        final BinaryOperator<A> downstreamCombiner = downstream.combiner();
+        final Function<A, D> downstreamFinisher = downstream.finisher();
+        BiConsumer<PrimitiveHashMaps.OfLong<A>, T> accumulator = (m, t) ->
+            downstreamAccumulator.accept(m.computeIfAbsent(classifier.applyAsLong(t), downstreamSupplier), t);
+        BinaryOperator<PrimitiveHashMaps.OfLong<A>> merger = (m1, m2) -> m1.merge(m2, downstreamCombiner);
+        Function<PrimitiveHashMaps.OfLong<A>, Map<Long, D>> finisher = m -> {
+            final Map<Long, D> result = new HashMap<>(mapCapacity(m.size()));
+            m.forEach((A container, long key) -> result.put(key, downstreamFinisher.apply(container)));
+            return result;
+        };
+        return new CollectorImpl<>(PrimitiveHashMaps.OfLong::new, accumulator, merger, finisher, CH_NOID);
+    }
+
+    /**
+     * Returns a concurrent {@code Collector} implementing a "group by"
+     * operation on input elements of type {@code T}, grouping elements
+     * according to an {@code long}-valued classification function.
+     *
+     * <p>This is a {@link Collector.Characteristics#CONCURRENT concurrent} and
+     * {@link Collector.Characteristics#UNORDERED unordered} Collector.
+     *
+     * <p>The result is the same as that of
+     * {@code groupingByConcurrent(t -> classifier.applyAsLong(t))}.
+     *
+     * <p>There are no guarantees on the type, mutability, or serializability
+     * of the {@code ConcurrentMap} or {@code List} objects returned, or of the
+     * thread-safety of the {@code List} objects returned.
+     * <p><b>Implementation Requirements:</b><br>
+     * This produces a result similar to:
+     * <pre>{@code
+     *     groupingByLongConcurrent(classifier, toList())
+     * }</pre>
+     *
+     * @param <T> the type of the input elements
+     * @param classifier a classifier function mapping input elements to keys
+     * @return a concurrent, unordered {@code Collector} implementing the group-by operation
+     *
+     * @see #groupingByLong(ToLongFunction)
+     * @see #groupingByLongConcurrent(ToLongFunction, Collector)
+     * @since 1.5.7
+     */
+    public static <T>
+    Collector<T, ?, ConcurrentMap<Long, List<T>>>
+    groupingByLongConcurrent(ToLongFunction<? super T> classifier) {
+        return groupingByLongConcurrent(classifier, toList());
+    }
+
+    /**
+     * Returns a concurrent {@code Collector} implementing a cascaded "group by"
+     * operation on input elements of type {@code T}, grouping elements
+     * according to an {@code long}-valued classification function, and then
+     * performing a reduction operation on the values associated with a given
+     * key using the specified downstream {@code Collector}.
+     *
+     * <p>This is a {@link Collector.Characteristics#CONCURRENT concurrent} and
+     * {@link Collector.Characteristics#UNORDERED unordered} Collector.
+     *
+     * <p>The result is the same as that of
+     * {@code groupingByConcurrent(t -> classifier.applyAsLong(t), downstream)}.
+     *
+     * <p>There are no guarantees on the type, mutability, or serializability
+     * of the {@code ConcurrentMap} returned.
+     *
+     * <p><b>Implementation Note:</b><br>
+     * All threads of a parallel evaluation accumulate into a single primitive
+     * hash map that is partitioned by key hash into independently locked
+     * segments, so there are no per-leaf maps that would have to be merged.
+     * A segment is only locked while the container of a key is looked up; a
+     * downstream collector that isn't concurrent accumulates under a lock on
+     * the container of the key. The number of segments is derived from the
+     * parallelism of the pool that runs the evaluation. A key is boxed only
+     * once, when the resulting {@code ConcurrentMap} is built.
+     *
+     * @param <T> the type of the input elements
+     * @param <A> the intermediate accumulation type of the downstream collector
+     * @param <D> the result type of the downstream reduction
+     * @param classifier a classifier function mapping input elements to keys
+     * @param downstream a {@code Collector} implementing the downstream reduction
+     * @return a concurrent, unordered {@code Collector} implementing the cascaded group-by operation
+     *
+     * @see #groupingByLong(ToLongFunction, Collector)
+     * @see #groupingByLongConcurrent(ToLongFunction)
+     * @since 1.5.7
+     */
+    public static <T, A, D>
+    Collector<T, ?, ConcurrentMap<Long, D>> groupingByLongConcurrent(final ToLongFunction<? super T> classifier,
+                                                                     Collector<? super T, A, D> downstream) {
+        Objects.requireNonNull(classifier);
+        final Supplier<A> downstreamSupplier = downstream.supplier();
+        final BiConsumer<A, ? super T> downstreamAccumulator = downstream.accumulator();
+        final BinaryOperator<A> downstreamCombiner = downstream.combiner();
+        final Function<A, D> downstreamFinisher = downstream.finisher();
+        BiConsumer<PrimitiveHashMaps.ConcurrentOfLong<A>, T> accumulator;
+        if (downstream.characteristics().contains(Collector.Characteristics.CONCURRENT)) {
+            accumulator = (m, t) -> {
+                long key = classifier.applyAsLong(t);
+                PrimitiveHashMaps.OfLong<A> segment = m.segmentFor(key);
+                A resultContainer;
+                synchronized (segment) {
+                    resultContainer = segment.computeIfAbsent(key, downstreamSupplier);
+                }
+                downstreamAccumulator.accept(resultContainer, t);
+            };
+        }
+        else {
+            accumulator = (m, t) -> {
+                long key = classifier.applyAsLong(t);
+                PrimitiveHashMaps.OfLong<A> segment = m.segmentFor(key);
+                A resultContainer;
+                synchronized (segment) {
+                    resultContainer = segment.computeIfAbsent(key, downstreamSupplier);
+                }
+                // the segment lock only guards the lookup, the downstream
+                // accumulation is serialized per key
+                synchronized (resultContainer) {
+                    downstreamAccumulator.accept(resultContainer, t);
+                }
+            };
+        }
+        BinaryOperator<PrimitiveHashMaps.ConcurrentOfLong<A>> merger = (m1, m2) -> m1.merge(m2, downstreamCombiner);
+        Function<PrimitiveHashMaps.ConcurrentOfLong<A>, ConcurrentMap<Long, D>> finisher = m -> {
+            final ConcurrentMap<Long, D> result = new ConcurrentHashMap<>(mapCapacity(m.size()));
+            m.forEach((A container, long key) -> result.put(key, downstreamFinisher.apply(container)));
+            return result;
+        };
+        return new CollectorImpl<>(() -> new PrimitiveHashMaps.ConcurrentOfLong<A>(poolParallelism()),
+                                   accumulator, merger, finisher, CH_CONCURRENT_NOID);
+    }
+
     /**
      * Returns a {@code Collector} which partitions the input elements according
      * to a {@code Predicate}, and organizes them into a
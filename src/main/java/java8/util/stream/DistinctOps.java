@@ -40,7 +40,8 @@ import java8.util.Spliterator;
 
 /**
  * Factory methods for transforming streams into duplicate-free streams, using
- * {@link Object#equals(Object)} to determine equality.
+ * {@link Object#equals(Object)} (or {@code ==} for {@code int} and
+ * {@code long} values) to determine equality.
  *
  * @since 1.8
  */
@@ -196,6 +197,242 @@ final class DistinctOps {
         };
     }
 
+    /**
+     * Appends a "distinct" operation to the provided {@code IntStream}, and
+     * returns the new stream. Unlike the reference version the seen values
+     * are held unboxed in a {@link PrimitiveHashSets.OfInt}.
+     *
+     * @param upstream an {@code IntStream}
+     * @return the new stream
+     * @since 1.5.7
+     */
+    static IntStream makeInt(AbstractPipeline<?, Integer, ?> upstream) {
+        return new IntPipeline.StatefulOp<Integer>(upstream, StreamShape.INT_VALUE,
+                                                   StreamOpFlag.IS_DISTINCT | StreamOpFlag.NOT_SIZED) {
+
+            <P_IN> Node<Integer> reduce(PipelineHelper<Integer> helper, Spliterator<P_IN> spliterator) {
+                // Preserves the encounter order (and therefore also the sort order)
+                TerminalOp<Integer, PrimitiveHashSets.LinkedOfInt> reduceOp
+                        = ReduceOps.makeInt(PrimitiveHashSets.LinkedOfInt::new, PrimitiveHashSets.LinkedOfInt::add,
+                                            PrimitiveHashSets.LinkedOfInt::addAll);
+                return Nodes.node(reduceOp.evaluateParallel(helper, spliterator).toArray());
+            }
+
+            @Override
+            <P_IN> Node<Integer> opEvaluateParallel(PipelineHelper<Integer> helper,
+                                                    Spliterator<P_IN> spliterator,
+                                                    IntFunction<Integer[]> generator) {
+                if (StreamOpFlag.DISTINCT.isKnown(helper.getStreamAndOpFlags())) {
+                    // No-op
+                    return helper.evaluate(spliterator, false, generator);
+                }
+                else if (StreamOpFlag.ORDERED.isKnown(helper.getStreamAndOpFlags())) {
+                    return reduce(helper, spliterator);
+                }
+                else {
+                    PrimitiveHashSets.ConcurrentOfInt set
+                            = new PrimitiveHashSets.ConcurrentOfInt(helper.getParallelism() + 1);
+                    ForEachOps.makeInt(set::add, false).evaluateParallel(helper, spliterator);
+                    return Nodes.node(set.toArray());
+                }
+            }
+
+            @Override
+            <P_IN> Spliterator<Integer> opEvaluateParallelLazy(PipelineHelper<Integer> helper,
+                                                               Spliterator<P_IN> spliterator) {
+                if (StreamOpFlag.DISTINCT.isKnown(helper.getStreamAndOpFlags())) {
+                    // No-op
+                    return helper.wrapSpliterator(spliterator);
+                }
+                else if (StreamOpFlag.ORDERED.isKnown(helper.getStreamAndOpFlags())) {
+                    // Not lazy, barrier required to preserve order
+                    return reduce(helper, spliterator).spliterator();
+                }
+                else {
+                    // Lazy
+                    return new StreamSpliterators.DistinctSpliterator.OfInt(
+                            (Spliterator.OfInt) helper.wrapSpliterator(spliterator),
+                            new PrimitiveHashSets.ConcurrentOfInt(helper.getParallelism() + 1));
+                }
+            }
+
+            @Override
+            Sink<Integer> opWrapSink(int flags, Sink<Integer> sink) {
+                Objects.requireNonNull(sink);
+
+                if (StreamOpFlag.DISTINCT.isKnown(flags)) {
+                    return sink;
+                } else if (StreamOpFlag.SORTED.isKnown(flags)) {
+                    return new Sink.ChainedInt<Integer>(sink) {
+                        boolean seenAny;
+                        int lastSeen;
+
+                        @Override
+                        public void begin(long size) {
+                            seenAny = false;
+                            downstream.begin(-1);
+                        }
+
+                        @Override
+                        public void end() {
+                            seenAny = false;
+                            downstream.end();
+                        }
+
+                        @Override
+                        public void accept(int t) {
+                            if (!seenAny || t != lastSeen) {
+                                seenAny = true;
+                                downstream.accept(lastSeen = t);
+                            }
+                        }
+                    };
+                } else {
+                    return new Sink.ChainedInt<Integer>(sink) {
+                        PrimitiveHashSets.OfInt seen;
+
+                        @Override
+                        public void begin(long size) {
+                            seen = new PrimitiveHashSets.OfInt();
+                            downstream.begin(-1);
+                        }
+
+                        @Override
+                        public void end() {
+                            seen = null;
+                            downstream.end();
+                        }
+
+                        @Override
+                        public void accept(int t) {
+                            if (seen.add(t)) {
+                                downstream.accept(t);
+                            }
+                        }
+                    };
+                }
+            }
+        };
+    }
+
+    /**
+     * Appends a "distinct" operation to the provided {@code LongStream}, and
+     * returns the new stream. Unlike the reference version the seen values
+     * are held unboxed in a {@link PrimitiveHashSets.OfLong}.
+     *
+     * @param upstream a {@code LongStream}
+     * @return the new stream
+     * @since 1.5.7
+     */
+    static LongStream makeLong(AbstractPipeline<?, Long, ?> upstream) {
+        return new LongPipeline.StatefulOp<Long>(upstream, StreamShape.LONG_VALUE,
+                                                 StreamOpFlag.IS_DISTINCT | StreamOpFlag.NOT_SIZED) {
+
+            <P_IN> Node<Long> reduce(PipelineHelper<Long> helper, Spliterator<P_IN> spliterator) {
+                // Preserves the encounter order (and therefore also the sort order)
+                TerminalOp<Long, PrimitiveHashSets.LinkedOfLong> reduceOp
+                        = ReduceOps.makeLong(PrimitiveHashSets.LinkedOfLong::new, PrimitiveHashSets.LinkedOfLong::add,
+                                             PrimitiveHashSets.LinkedOfLong::addAll);
+                return Nodes.node(reduceOp.evaluateParallel(helper, spliterator).toArray());
+            }
+
+            @Override
+            <P_IN> Node<Long> opEvaluateParallel(PipelineHelper<Long> helper,
+                                                 Spliterator<P_IN> spliterator,
+                                                 IntFunction<Long[]> generator) {
+                if (StreamOpFlag.DISTINCT.isKnown(helper.getStreamAndOpFlags())) {
+                    // No-op
+                    return helper.evaluate(spliterator, false, generator);
+                }
+                else if (StreamOpFlag.ORDERED.isKnown(helper.getStreamAndOpFlags())) {
+                    return reduce(helper, spliterator);
+                }
+                else {
+                    PrimitiveHashSets.ConcurrentOfLong set
+                            = new PrimitiveHashSets.ConcurrentOfLong(helper.getParallelism() + 1);
+                    ForEachOps.makeLong(set::add, false).evaluateParallel(helper, spliterator);
+                    return Nodes.node(set.toArray());
+                }
+            }
+
+            @Override
+            <P_IN> Spliterator<Long> opEvaluateParallelLazy(PipelineHelper<Long> helper,
+                                                            Spliterator<P_IN> spliterator) {
+                if (StreamOpFlag.DISTINCT.isKnown(helper.getStreamAndOpFlags())) {
+                    // No-op
+                    return helper.wrapSpliterator(spliterator);
+                }
+                else if (StreamOpFlag.ORDERED.isKnown(helper.getStreamAndOpFlags())) {
+                    // Not lazy, barrier required to preserve order
+                    return reduce(helper, spliterator).spliterator();
+                }
+                else {
+                    // Lazy
+                    return new StreamSpliterators.DistinctSpliterator.OfLong(
+                            (Spliterator.OfLong) helper.wrapSpliterator(spliterator),
+                            new PrimitiveHashSets.ConcurrentOfLong(helper.getParallelism() + 1));
+                }
+            }
+
+            @Override
+            Sink<Long> opWrapSink(int flags, Sink<Long> sink) {
+                Objects.requireNonNull(sink);
+
+                if (StreamOpFlag.DISTINCT.isKnown(flags)) {
+                    return sink;
+                } else if (StreamOpFlag.SORTED.isKnown(flags)) {
+                    return new Sink.ChainedLong<Long>(sink) {
+                        boolean seenAny;
+                        long lastSeen;
+
+                        @Override
+                        public void begin(long size) {
+                            seenAny = false;
+                            downstream.begin(-1);
+                        }
+
+                        @Override
+                        public void end() {
+                            seenAny = false;
+                            downstream.end();
+                        }
+
+                        @Override
+                        public void accept(long t) {
+                            if (!seenAny || t != lastSeen) {
+                                seenAny = true;
+                                downstream.accept(lastSeen = t);
+                            }
+                        }
+                    };
+                } else {
+                    return new Sink.ChainedLong<Long>(sink) {
+                        PrimitiveHashSets.OfLong seen;
+
+                        @Override
+                        public void begin(long size) {
+                            seen = new PrimitiveHashSets.OfLong();
+                            downstream.begin(-1);
+                        }
+
+                        @Override
+                        public void end() {
+                            seen = null;
+                            downstream.end();
+                        }
+
+                        @Override
+                        public void accept(long t) {
+                            if (seen.add(t)) {
+                                downstream.accept(t);
+                            }
+                        }
+                    };
+                }
+            }
+        };
+    }
+
     static final class KeysAndNullSet<E> extends AbstractSet<E> {
 
         final Set<E> keys;
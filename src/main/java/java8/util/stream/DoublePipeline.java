@@ -24,6 +24,8 @@
  */
 package java8.util.stream;
 
+import java.util.concurrent.TimeUnit;
+
 import java8.util.DoubleSummaryStatistics;
 import java8.util.Objects;
 import java8.util.PrimitiveIterator;
@@ -157,7 +159,9 @@ abstract class DoublePipeline<E_IN>
 
     @Override
     final  Node.Builder<Double> makeNodeBuilder(long exactSizeIfKnown, IntFunction<Double[]> generator) {
-        return Nodes.doubleBuilder(exactSizeIfKnown);
+        return isOffHeap()
+               ? OffHeapNodes.doubleBuilder(exactSizeIfKnown)
+               : Nodes.doubleBuilder(exactSizeIfKnown);
     }
 
     private <U> Stream<U> mapToObj(DoubleFunction<? extends U> mapper, int opFlags) {
@@ -207,6 +211,16 @@ abstract class DoublePipeline<E_IN>
                     }
                 };
             }
+
+            @Override
+            int opFusionKind() {
+                return FusedOps.MAP;
+            }
+
+            @Override
+            Object opFusionFunction() {
+                return mapper;
+            }
         };
     }
 
@@ -258,6 +272,10 @@ abstract class DoublePipeline<E_IN>
             @Override
             Sink<Double> opWrapSink(int flags, Sink<Double> sink) {
                 return new Sink.ChainedDouble<Double>(sink) {
+                    DoubleConsumer downstreamAsDouble = downstream::accept;
+                    // true if cancellationRequested() has been called
+                    boolean cancellationRequestedCalled;
+
                     @Override
                     public void begin(long size) {
                         downstream.begin(-1);
@@ -268,9 +286,19 @@ abstract class DoublePipeline<E_IN>
                         DoubleStream result = null;
                         try {
                             result = mapper.apply(t);
-                            // We can do better than this too; optimize for depth=0 case and just grab spliterator and forEach it
                             if (result != null) {
-                                result.sequential().forEach(i -> downstream.accept(i));
+                                if (!cancellationRequestedCalled && !AbstractPipeline.isSourceStage(result)) {
+                                    result.sequential().forEach(downstreamAsDouble);
+                                } else {
+                                    // A source stage is traversed by its spliterator; pull
+                                    // elements one by one if downstream may short-circuit
+                                    Spliterator.OfDouble s = result.sequential().spliterator();
+                                    if (!cancellationRequestedCalled) {
+                                        s.forEachRemaining(downstreamAsDouble);
+                                    } else {
+                                        do { } while (!downstream.cancellationRequested() && s.tryAdvance(downstreamAsDouble));
+                                    }
+                                }
                             }
                         } finally {
                             if (result != null) {
@@ -278,6 +306,40 @@ abstract class DoublePipeline<E_IN>
                             }
                         }
                     }
+
+                    @Override
+                    public boolean cancellationRequested() {
+                        // If this method is called then an operation within the stream
+                        // pipeline is short-circuiting (see AbstractPipeline.copyInto).
+                        // Note that we cannot differentiate between an upstream or
+                        // downstream operation
+                        cancellationRequestedCalled = true;
+                        return downstream.cancellationRequested();
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public final DoubleStream mapMulti(final DoubleStream.DoubleMapMultiConsumer mapper) {
+        Objects.requireNonNull(mapper);
+        return new StatelessOp<Double>(this, StreamShape.DOUBLE_VALUE,
+                                        StreamOpFlag.NOT_SORTED | StreamOpFlag.NOT_DISTINCT | StreamOpFlag.NOT_SIZED) {
+            @Override
+            Sink<Double> opWrapSink(int flags, Sink<Double> sink) {
+                return new Sink.ChainedDouble<Double>(sink) {
+                    final DoubleConsumer downstreamAsDouble = adapt(sink);
+
+                    @Override
+                    public void begin(long size) {
+                        downstream.begin(-1);
+                    }
+
+                    @Override
+                    public void accept(double t) {
+                        mapper.accept(t, downstreamAsDouble);
+                    }
                 };
             }
         };
@@ -315,6 +377,16 @@ abstract class DoublePipeline<E_IN>
                     }
                 };
             }
+
+            @Override
+            int opFusionKind() {
+                return FusedOps.FILTER;
+            }
+
+            @Override
+            Object opFusionFunction() {
+                return predicate;
+            }
         };
     }
 
@@ -333,6 +405,16 @@ abstract class DoublePipeline<E_IN>
                     }
                 };
             }
+
+            @Override
+            int opFusionKind() {
+                return FusedOps.PEEK;
+            }
+
+            @Override
+            Object opFusionFunction() {
+                return action;
+            }
         };
     }
 
@@ -357,6 +439,22 @@ abstract class DoublePipeline<E_IN>
         }
     }
 
+    @Override
+    public final Stream<double[]> chunked(int size) {
+        return WindowOps.<Double, double[]>makeChunks(this, StreamShape.DOUBLE_VALUE, size);
+    }
+
+    @Override
+    public final Stream<double[]> windowed(int size, int step) {
+        return WindowOps.<Double, double[]>makeWindows(this, StreamShape.DOUBLE_VALUE, size, step);
+    }
+
+    @Override
+    public final Stream<double[]> batched(int maxSize, long timeout, TimeUnit unit) {
+        Objects.requireNonNull(unit);
+        return WindowOps.<Double, double[]>makeBatches(this, StreamShape.DOUBLE_VALUE, maxSize, timeout, unit);
+    }
+
     @Override
     public final DoubleStream takeWhile(DoublePredicate predicate) {
         return WhileOps.makeTakeWhileDouble(this, predicate);
@@ -393,26 +491,7 @@ abstract class DoublePipeline<E_IN>
 
     @Override
     public final double sum() {
-        /*
-         * In the arrays allocated for the collect operation, index 0
-         * holds the high-order bits of the running sum, index 1 holds
-         * the low-order bits of the sum computed via compensated
-         * summation, and index 2 holds the simple sum used to compute
-         * the proper result if the stream contains infinite values of
-         * the same sign.
-         */
-        double[] summation = collect(() -> new double[3],
-                               (ll, d) -> {
-                                   Collectors.sumWithCompensation(ll, d);
-                                   ll[2] += d;
-                               },
-                               (ll, rr) -> {
-                                   Collectors.sumWithCompensation(ll, rr[0]);
-                                   Collectors.sumWithCompensation(ll, rr[1]);
-                                   ll[2] += rr[2];
-                               });
-
-        return Collectors.computeFinalSum(summation);
+        return evaluate(ReduceOps.makeDoubleSumming());
     }
 
     @Override
@@ -436,28 +515,7 @@ abstract class DoublePipeline<E_IN>
      */
     @Override
     public final OptionalDouble average() {
-        /*
-         * In the arrays allocated for the collect operation, index 0
-         * holds the high-order bits of the running sum, index 1 holds
-         * the low-order bits of the sum computed via compensated
-         * summation, index 2 holds the number of values seen, index 3
-         * holds the simple sum.
-         */
-        double[] avg = collect(() -> new double[4],
-                               (ll, d) -> {
-                                   ll[2]++;
-                                   Collectors.sumWithCompensation(ll, d);
-                                   ll[3] += d;
-                               },
-                               (ll, rr) -> {
-                                   Collectors.sumWithCompensation(ll, rr[0]);
-                                   Collectors.sumWithCompensation(ll, rr[1]);
-                                   ll[2] += rr[2];
-                                   ll[3] += rr[3];
-                               });
-        return avg[2] > 0
-            ? OptionalDouble.of(Collectors.computeFinalSum(avg) / avg[2])
-            : OptionalDouble.empty();
+        return evaluate(ReduceOps.makeDoubleAveraging());
     }
 
     @Override
@@ -335,9 +335,17 @@ final class FindOps {
                 cancelLaterNodes();
         }
 
+        @Override
+        protected boolean prefersLeftmost() {
+            return mustFindFirst;
+        }
+
         @Override
         protected O doLeaf() {
-            O result = helper.wrapAndCopyInto(op.sinkSupplier.get(), spliterator).get();
+            TerminalSink<P_OUT, O> sink = op.sinkSupplier.get();
+            if (copyIntoWithCancel(sink))
+                return null;
+            O result = sink.get();
             if (!mustFindFirst) {
                 if (result != null)
                     shortCircuit(result);
@@ -30,7 +30,6 @@ import java.util.concurrent.ConcurrentMap;
 import java8.util.Objects;
 import java8.util.Spliterator;
 import java8.util.concurrent.CountedCompleter;
-import java8.util.concurrent.ForkJoinPool;
 import java8.util.function.Consumer;
 import java8.util.function.DoubleConsumer;
 import java8.util.function.IntConsumer;
@@ -192,7 +191,7 @@ final class ForEachOps {
             if (ordered) {
                 new ForEachOrderedTask<>(helper, spliterator, this).invoke();
             } else {
-                new ForEachTask<>(helper, spliterator, helper.wrapSink(this)).invoke();
+                new ForEachTask<>(helper, spliterator, this).invoke();
             }
             return null;
         }
@@ -305,42 +304,62 @@ final class ForEachOps {
     static final class ForEachTask<S, T> extends CountedCompleter<Void> {
         private Spliterator<S> spliterator;
         private final Sink<S> sink;
+        // the unwrapped sink, wrapped once per leaf if the pipeline is
+        // instrumented since the metered sinks aren't thread-safe
+        private final Sink<T> action;
         private final PipelineHelper<T> helper;
-        private long targetSize;
+        private LeafSizing leafSizing;
 
         ForEachTask(PipelineHelper<T> helper,
                     Spliterator<S> spliterator,
-                    Sink<S> sink) {
+                    Sink<T> action) {
             super(null);
-            this.sink = sink;
+            this.action = action;
+            this.sink = helper.wrapSink(action);
             this.helper = helper;
             this.spliterator = spliterator;
-            this.targetSize = 0L;
+            this.leafSizing = null;
         }
 
         ForEachTask(ForEachTask<S, T> parent, Spliterator<S> spliterator) {
             super(parent);
             this.spliterator = spliterator;
             this.sink = parent.sink;
-            this.targetSize = parent.targetSize;
+            this.action = parent.action;
+            this.leafSizing = parent.leafSizing;
             this.helper = parent.helper;
         }
 
         // Similar to AbstractTask but doesn't need to track child tasks
         public void compute() {
             Spliterator<S> rightSplit = spliterator, leftSplit;
-            long sizeEstimate = rightSplit.estimateSize(), sizeThreshold;
-            if ((sizeThreshold = targetSize) == 0L) {
-                targetSize = sizeThreshold = AbstractTask.suggestTargetSize(sizeEstimate);
+            long sizeEstimate = rightSplit.estimateSize();
+            LeafSizing sizing;
+            if ((sizing = leafSizing) == null) {
+                leafSizing = sizing = LeafSizing.of(helper, sizeEstimate);
             }
             boolean isShortCircuit = StreamOpFlag.SHORT_CIRCUIT.isKnown(helper.getStreamAndOpFlags());
+            PipelineInstrumentation pi = helper.getInstrumentation();
             boolean forkRight = false;
             Sink<S> taskSink = sink;
             ForEachTask<S, T> task = this;
             while (!isShortCircuit || !taskSink.cancellationRequested()) {
-                if (sizeEstimate <= sizeThreshold ||
+                if (sizeEstimate <= sizing.target() ||
                     (leftSplit = rightSplit.trySplit()) == null) {
-                    task.helper.copyInto(taskSink, rightSplit);
+                    boolean sampling = sizing.isSampling();
+                    if (sampling || pi != null) {
+                        long start = System.nanoTime();
+                        task.helper.copyInto(pi != null ? task.helper.<S>wrapSink(action) : taskSink,
+                                             rightSplit);
+                        long nanos = System.nanoTime() - start;
+                        if (sampling)
+                            sizing.record(sizeEstimate, nanos);
+                        if (pi != null)
+                            pi.leafCompleted(sizeEstimate, nanos);
+                    }
+                    else {
+                        task.helper.copyInto(taskSink, rightSplit);
+                    }
                     break;
                 }
                 ForEachTask<S, T> leftTask = new ForEachTask<>(task, leftSplit);
@@ -357,6 +376,8 @@ final class ForEachOps {
                     taskToFork = leftTask;
                 }
                 taskToFork.fork();
+                if (pi != null)
+                    pi.taskForked();
                 sizeEstimate = rightSplit.estimateSize();
             }
             task.spliterator = null;
@@ -428,10 +449,10 @@ final class ForEachOps {
             super(null);
             this.helper = helper;
             this.spliterator = spliterator;
-            this.targetSize = AbstractTask.suggestTargetSize(spliterator.estimateSize());
+            this.targetSize = LeafSizing.suggestTargetSize(helper, spliterator.estimateSize());
             // Size map to avoid concurrent re-sizes
             this.completionMap = new ConcurrentHashMap<>(Math.max(16, AbstractTask.LEAF_TARGET << 1),
-                    0.75f, ForkJoinPool.getCommonPoolParallelism() + 1);
+                    0.75f, helper.getParallelism() + 1);
             this.action = action;
             this.leftPredecessor = null;
         }
@@ -456,6 +477,7 @@ final class ForEachOps {
         private static <S, T> void doCompute(ForEachOrderedTask<S, T> task) {
             Spliterator<S> rightSplit = task.spliterator, leftSplit;
             long sizeThreshold = task.targetSize;
+            PipelineInstrumentation pi = task.helper.getInstrumentation();
             boolean forkRight = false;
             while (rightSplit.estimateSize() > sizeThreshold &&
                    (leftSplit = rightSplit.trySplit()) != null) {
@@ -512,6 +534,8 @@ final class ForEachOps {
                     taskToFork = leftChild;
                 }
                 taskToFork.fork();
+                if (pi != null)
+                    pi.taskForked();
             }
 
             /*
@@ -0,0 +1,481 @@
+/*
+ * Written by Stefan Zobel and released to the
+ * public domain, as explained at
+ * http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package java8.util.stream;
+
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+
+import java8.util.function.Consumer;
+import java8.util.function.Consumers;
+import java8.util.function.DoubleConsumer;
+import java8.util.function.DoubleConsumers;
+import java8.util.function.DoublePredicate;
+import java8.util.function.DoublePredicates;
+import java8.util.function.DoubleUnaryOperator;
+import java8.util.function.DoubleUnaryOperators;
+import java8.util.function.Function;
+import java8.util.function.Functions;
+import java8.util.function.IntConsumer;
+import java8.util.function.IntConsumers;
+import java8.util.function.IntPredicate;
+import java8.util.function.IntPredicates;
+import java8.util.function.IntUnaryOperator;
+import java8.util.function.IntUnaryOperators;
+import java8.util.function.LongConsumer;
+import java8.util.function.LongConsumers;
+import java8.util.function.LongPredicate;
+import java8.util.function.LongPredicates;
+import java8.util.function.LongUnaryOperator;
+import java8.util.function.LongUnaryOperators;
+import java8.util.function.Predicate;
+import java8.util.function.Predicates;
+
+/**
+ * Support for fusing a run of adjacent stateless intermediate operations
+ * that neither change the stream shape nor produce more than one output
+ * element per input element ({@code map}, {@code filter} and {@code peek})
+ * into fewer {@code Sink}s.
+ *
+ * <p>Without fusion every such stage wraps its own chained sink around the
+ * downstream sink, so an element traverses a call chain as deep as the
+ * number of stages. Fusion merges adjacent stages of the same kind into one
+ * stage (a {@code map} followed by a {@code map} becomes a single
+ * {@code map} with the composed function, a {@code filter} followed by a
+ * {@code filter} a single {@code filter} with the conjunction of both
+ * predicates and a {@code peek} followed by a {@code peek} a single
+ * {@code peek}) and wraps a {@code map} that is immediately followed by a
+ * {@code filter} into a single sink.
+ *
+ * <p>Fusion is an implementation detail of
+ * {@link AbstractPipeline#wrapSink(Sink)} and is not visible otherwise. It
+ * can be disabled by setting the system property
+ * {@code java8.util.stream.FusedOps.enabled} to {@code false}.
+ *
+ * @since 1.5.7
+ */
+final class FusedOps {
+
+    private static final String FUSION_ENABLED_P = FusedOps.class.getName() + ".enabled";
+
+    // defaults to true
+    static final boolean ENABLED = getBooleanPropVal(FUSION_ENABLED_P, true);
+
+    /** Fusion kind of a stage that can't be fused */
+    static final int NONE = 0;
+    /** Fusion kind of a shape-preserving {@code map} stage */
+    static final int MAP = 1;
+    /** Fusion kind of a {@code filter} stage */
+    static final int FILTER = 2;
+    /** Fusion kind of a {@code peek} stage */
+    static final int PEEK = 3;
+
+    // No instances
+    private FusedOps() { }
+
+    /**
+     * Returns a sink that performs the operations of a run of fusible stages,
+     * passing the results to {@code sink}.
+     *
+     * @param shape the (input and output) shape of all stages of the run
+     * @param kinds the fusion kinds of the stages, in upstream to downstream
+     *        order (gets overwritten)
+     * @param fns the functions, predicates and actions of the stages, in
+     *        upstream to downstream order (gets overwritten)
+     * @param sink the sink that receives the output of the run
+     * @return a sink accepting the input of the run
+     */
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    static Sink wrap(StreamShape shape, int[] kinds, Object[] fns, Sink sink) {
+        // merge adjacent stages of the same kind
+        int n = 0;
+        for (int i = 0; i < kinds.length; i++) {
+            if (n > 0 && kinds[n - 1] == kinds[i]) {
+                fns[n - 1] = merge(shape, kinds[i], fns[n - 1], fns[i]);
+            } else {
+                kinds[n] = kinds[i];
+                fns[n++] = fns[i];
+            }
+        }
+        // wrap from downstream to upstream, fusing map-then-filter pairs
+        for (int i = n - 1; i >= 0; i--) {
+            if (kinds[i] == FILTER && i > 0 && kinds[i - 1] == MAP) {
+                sink = mapFilter(shape, fns[i - 1], fns[i], sink);
+                i--;
+            } else {
+                sink = stage(shape, kinds[i], fns[i], sink);
+            }
+        }
+        return sink;
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private static Object merge(StreamShape shape, int kind, Object first, Object second) {
+        switch (shape) {
+            case REFERENCE:
+                return kind == MAP ? Functions.andThen((Function) first, (Function) second)
+                        : kind == FILTER ? Predicates.and((Predicate) first, (Predicate) second)
+                        : Consumers.andThen((Consumer) first, (Consumer) second);
+            case INT_VALUE:
+                return kind == MAP ? IntUnaryOperators.andThen((IntUnaryOperator) first, (IntUnaryOperator) second)
+                        : kind == FILTER ? IntPredicates.and((IntPredicate) first, (IntPredicate) second)
+                        : IntConsumers.andThen((IntConsumer) first, (IntConsumer) second);
+            case LONG_VALUE:
+                return kind == MAP ? LongUnaryOperators.andThen((LongUnaryOperator) first, (LongUnaryOperator) second)
+                        : kind == FILTER ? LongPredicates.and((LongPredicate) first, (LongPredicate) second)
+                        : LongConsumers.andThen((LongConsumer) first, (LongConsumer) second);
+            case DOUBLE_VALUE:
+                return kind == MAP ? DoubleUnaryOperators.andThen((DoubleUnaryOperator) first, (DoubleUnaryOperator) second)
+                        : kind == FILTER ? DoublePredicates.and((DoublePredicate) first, (DoublePredicate) second)
+                        : DoubleConsumers.andThen((DoubleConsumer) first, (DoubleConsumer) second);
+            default:
+                throw new IllegalStateException("Unknown shape " + shape);
+        }
+    }
+
+    // All stages of a run have the same shape, so fn is the function type
+    // of that shape and sink accepts that shape's elements: the unchecked
+    // conversions below can't fail
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private static Sink stage(StreamShape shape, int kind, Object fn, Sink sink) {
+        switch (shape) {
+            case REFERENCE:
+                return kind == MAP ? new RefMap(fn, sink) : kind == FILTER ? new RefFilter(fn, sink) : new RefPeek(fn, sink);
+            case INT_VALUE:
+                return kind == MAP ? new IntMap(fn, sink) : kind == FILTER ? new IntFilter(fn, sink) : new IntPeek(fn, sink);
+            case LONG_VALUE:
+                return kind == MAP ? new LongMap(fn, sink) : kind == FILTER ? new LongFilter(fn, sink) : new LongPeek(fn, sink);
+            case DOUBLE_VALUE:
+                return kind == MAP ? new DoubleMap(fn, sink) : kind == FILTER ? new DoubleFilter(fn, sink) : new DoublePeek(fn, sink);
+            default:
+                throw new IllegalStateException("Unknown shape " + shape);
+        }
+    }
+
+    // see stage()
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private static Sink mapFilter(StreamShape shape, Object mapper, Object predicate, Sink sink) {
+        switch (shape) {
+            case REFERENCE:
+                return new RefMapFilter(mapper, predicate, sink);
+            case INT_VALUE:
+                return new IntMapFilter(mapper, predicate, sink);
+            case LONG_VALUE:
+                return new LongMapFilter(mapper, predicate, sink);
+            case DOUBLE_VALUE:
+                return new DoubleMapFilter(mapper, predicate, sink);
+            default:
+                throw new IllegalStateException("Unknown shape " + shape);
+        }
+    }
+
+    static final class RefMap extends Sink.ChainedReference<Object, Object> {
+        private final Function<Object, Object> mapper;
+
+        @SuppressWarnings("unchecked")
+        RefMap(Object mapper, Sink<Object> downstream) {
+            super(downstream);
+            this.mapper = (Function<Object, Object>) mapper;
+        }
+
+        @Override
+        public void accept(Object t) {
+            downstream.accept(mapper.apply(t));
+        }
+    }
+
+    static final class RefFilter extends Sink.ChainedReference<Object, Object> {
+        private final Predicate<Object> predicate;
+
+        @SuppressWarnings("unchecked")
+        RefFilter(Object predicate, Sink<Object> downstream) {
+            super(downstream);
+            this.predicate = (Predicate<Object>) predicate;
+        }
+
+        @Override
+        public void begin(long size) {
+            downstream.begin(-1);
+        }
+
+        @Override
+        public void accept(Object t) {
+            if (predicate.test(t))
+                downstream.accept(t);
+        }
+    }
+
+    static final class RefPeek extends Sink.ChainedReference<Object, Object> {
+        private final Consumer<Object> action;
+
+        @SuppressWarnings("unchecked")
+        RefPeek(Object action, Sink<Object> downstream) {
+            super(downstream);
+            this.action = (Consumer<Object>) action;
+        }
+
+        @Override
+        public void accept(Object t) {
+            action.accept(t);
+            downstream.accept(t);
+        }
+    }
+
+    static final class RefMapFilter extends Sink.ChainedReference<Object, Object> {
+        private final Function<Object, Object> mapper;
+        private final Predicate<Object> predicate;
+
+        @SuppressWarnings("unchecked")
+        RefMapFilter(Object mapper, Object predicate, Sink<Object> downstream) {
+            super(downstream);
+            this.mapper = (Function<Object, Object>) mapper;
+            this.predicate = (Predicate<Object>) predicate;
+        }
+
+        @Override
+        public void begin(long size) {
+            downstream.begin(-1);
+        }
+
+        @Override
+        public void accept(Object t) {
+            Object u = mapper.apply(t);
+            if (predicate.test(u))
+                downstream.accept(u);
+        }
+    }
+
+    static final class IntMap extends Sink.ChainedInt<Integer> {
+        private final IntUnaryOperator mapper;
+
+        IntMap(Object mapper, Sink<Integer> downstream) {
+            super(downstream);
+            this.mapper = (IntUnaryOperator) mapper;
+        }
+
+        @Override
+        public void accept(int t) {
+            downstream.accept(mapper.applyAsInt(t));
+        }
+    }
+
+    static final class IntFilter extends Sink.ChainedInt<Integer> {
+        private final IntPredicate predicate;
+
+        IntFilter(Object predicate, Sink<Integer> downstream) {
+            super(downstream);
+            this.predicate = (IntPredicate) predicate;
+        }
+
+        @Override
+        public void begin(long size) {
+            downstream.begin(-1);
+        }
+
+        @Override
+        public void accept(int t) {
+            if (predicate.test(t))
+                downstream.accept(t);
+        }
+    }
+
+    static final class IntPeek extends Sink.ChainedInt<Integer> {
+        private final IntConsumer action;
+
+        IntPeek(Object action, Sink<Integer> downstream) {
+            super(downstream);
+            this.action = (IntConsumer) action;
+        }
+
+        @Override
+        public void accept(int t) {
+            action.accept(t);
+            downstream.accept(t);
+        }
+    }
+
+    static final class IntMapFilter extends Sink.ChainedInt<Integer> {
+        private final IntUnaryOperator mapper;
+        private final IntPredicate predicate;
+
+        IntMapFilter(Object mapper, Object predicate, Sink<Integer> downstream) {
+            super(downstream);
+            this.mapper = (IntUnaryOperator) mapper;
+            this.predicate = (IntPredicate) predicate;
+        }
+
+        @Override
+        public void begin(long size) {
+            downstream.begin(-1);
+        }
+
+        @Override
+        public void accept(int t) {
+            int u = mapper.applyAsInt(t);
+            if (predicate.test(u))
+                downstream.accept(u);
+        }
+    }
+
+    static final class LongMap extends Sink.ChainedLong<Long> {
+        private final LongUnaryOperator mapper;
+
+        LongMap(Object mapper, Sink<Long> downstream) {
+            super(downstream);
+            this.mapper = (LongUnaryOperator) mapper;
+        }
+
+        @Override
+        public void accept(long t) {
+            downstream.accept(mapper.applyAsLong(t));
+        }
+    }
+
+    static final class LongFilter extends Sink.ChainedLong<Long> {
+        private final LongPredicate predicate;
+
+        LongFilter(Object predicate, Sink<Long> downstream) {
+            super(downstream);
+            this.predicate = (LongPredicate) predicate;
+        }
+
+        @Override
+        public void begin(long size) {
+            downstream.begin(-1);
+        }
+
+        @Override
+        public void accept(long t) {
+            if (predicate.test(t))
+                downstream.accept(t);
+        }
+    }
+
+    static final class LongPeek extends Sink.ChainedLong<Long> {
+        private final LongConsumer action;
+
+        LongPeek(Object action, Sink<Long> downstream) {
+            super(downstream);
+            this.action = (LongConsumer) action;
+        }
+
+        @Override
+        public void accept(long t) {
+            action.accept(t);
+            downstream.accept(t);
+        }
+    }
+
+    static final class LongMapFilter extends Sink.ChainedLong<Long> {
+        private final LongUnaryOperator mapper;
+        private final LongPredicate predicate;
+
+        LongMapFilter(Object mapper, Object predicate, Sink<Long> downstream) {
+            super(downstream);
+            this.mapper = (LongUnaryOperator) mapper;
+            this.predicate = (LongPredicate) predicate;
+        }
+
+        @Override
+        public void begin(long size) {
+            downstream.begin(-1);
+        }
+
+        @Override
+        public void accept(long t) {
+            long u = mapper.applyAsLong(t);
+            if (predicate.test(u))
+                downstream.accept(u);
+        }
+    }
+
+    static final class DoubleMap extends Sink.ChainedDouble<Double> {
+        private final DoubleUnaryOperator mapper;
+
+        DoubleMap(Object mapper, Sink<Double> downstream) {
+            super(downstream);
+            this.mapper = (DoubleUnaryOperator) mapper;
+        }
+
+        @Override
+        public void accept(double t) {
+            downstream.accept(mapper.applyAsDouble(t));
+        }
+    }
+
+    static final class DoubleFilter extends Sink.ChainedDouble<Double> {
+        private final DoublePredicate predicate;
+
+        DoubleFilter(Object predicate, Sink<Double> downstream) {
+            super(downstream);
+            this.predicate = (DoublePredicate) predicate;
+        }
+
+        @Override
+        public void begin(long size) {
+            downstream.begin(-1);
+        }
+
+        @Override
+        public void accept(double t) {
+            if (predicate.test(t))
+                downstream.accept(t);
+        }
+    }
+
+    static final class DoublePeek extends Sink.ChainedDouble<Double> {
+        private final DoubleConsumer action;
+
+        DoublePeek(Object action, Sink<Double> downstream) {
+            super(downstream);
+            this.action = (DoubleConsumer) action;
+        }
+
+        @Override
+        public void accept(double t) {
+            action.accept(t);
+            downstream.accept(t);
+        }
+    }
+
+    static final class DoubleMapFilter extends Sink.ChainedDouble<Double> {
+        private final DoubleUnaryOperator mapper;
+        private final DoublePredicate predicate;
+
+        DoubleMapFilter(Object mapper, Object predicate, Sink<Double> downstream) {
+            super(downstream);
+            this.mapper = (DoubleUnaryOperator) mapper;
+            this.predicate = (DoublePredicate) predicate;
+        }
+
+        @Override
+        public void begin(long size) {
+            downstream.begin(-1);
+        }
+
+        @Override
+        public void accept(double t) {
+            double u = mapper.applyAsDouble(t);
+            if (predicate.test(u))
+                downstream.accept(u);
+        }
+    }
+
+    private static boolean getBooleanPropVal(final String prop, final boolean defVal) {
+        return AccessController.doPrivileged(new PrivilegedAction<Boolean>() {
+            @Override
+            public Boolean run() {
+                boolean val = defVal;
+                try {
+                    String s = System.getProperty(prop, Boolean.toString(defVal));
+                    val = Boolean.parseBoolean(s.trim());
+                } catch (IllegalArgumentException ignore) {
+                } catch (NullPointerException ignore) {
+                }
+                return val;
+            }
+        });
+    }
+}
@@ -24,6 +24,8 @@
  */
 package java8.util.stream;
 
+import java.util.concurrent.TimeUnit;
+
 import java8.lang.Integers;
 import java8.util.IntSummaryStatistics;
 import java8.util.Objects;
@@ -162,7 +164,9 @@ abstract class IntPipeline<E_IN>
     @Override
     final Node.Builder<Integer> makeNodeBuilder(long exactSizeIfKnown,
                                                 IntFunction<Integer[]> generator) {
-        return Nodes.intBuilder(exactSizeIfKnown);
+        return isOffHeap()
+               ? OffHeapNodes.intBuilder(exactSizeIfKnown)
+               : Nodes.intBuilder(exactSizeIfKnown);
     }
 
     private <U> Stream<U> mapToObj(IntFunction<? extends U> mapper, int opFlags) {
@@ -242,6 +246,16 @@ abstract class IntPipeline<E_IN>
                     }
                 };
             }
+
+            @Override
+            int opFusionKind() {
+                return FusedOps.MAP;
+            }
+
+            @Override
+            Object opFusionFunction() {
+                return mapper;
+            }
         };
     }
 
@@ -293,6 +307,10 @@ abstract class IntPipeline<E_IN>
             @Override
             Sink<Integer> opWrapSink(int flags, Sink<Integer> sink) {
                 return new Sink.ChainedInt<Integer>(sink) {
+                    IntConsumer downstreamAsInt = downstream::accept;
+                    // true if cancellationRequested() has been called
+                    boolean cancellationRequestedCalled;
+
                     @Override
                     public void begin(long size) {
                         downstream.begin(-1);
@@ -303,9 +321,19 @@ abstract class IntPipeline<E_IN>
                         IntStream result = null;
                         try {
                             result = mapper.apply(t);
-                            // We can do better than this too; optimize for depth=0 case and just grab spliterator and forEach it
                             if (result != null) {
-                                result.sequential().forEach(i -> downstream.accept(i));
+                                if (!cancellationRequestedCalled && !AbstractPipeline.isSourceStage(result)) {
+                                    result.sequential().forEach(downstreamAsInt);
+                                } else {
+                                    // A source stage is traversed by its spliterator; pull
+                                    // elements one by one if downstream may short-circuit
+                                    Spliterator.OfInt s = result.sequential().spliterator();
+                                    if (!cancellationRequestedCalled) {
+                                        s.forEachRemaining(downstreamAsInt);
+                                    } else {
+                                        do { } while (!downstream.cancellationRequested() && s.tryAdvance(downstreamAsInt));
+                                    }
+                                }
                             }
                         } finally {
                             if (result != null) {
@@ -313,6 +341,40 @@ abstract class IntPipeline<E_IN>
                             }
                         }
                     }
+
+                    @Override
+                    public boolean cancellationRequested() {
+                        // If this method is called then an operation within the stream
+                        // pipeline is short-circuiting (see AbstractPipeline.copyInto).
+                        // Note that we cannot differentiate between an upstream or
+                        // downstream operation
+                        cancellationRequestedCalled = true;
+                        return downstream.cancellationRequested();
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public final IntStream mapMulti(final IntStream.IntMapMultiConsumer mapper) {
+        Objects.requireNonNull(mapper);
+        return new StatelessOp<Integer>(this, StreamShape.INT_VALUE,
+                                        StreamOpFlag.NOT_SORTED | StreamOpFlag.NOT_DISTINCT | StreamOpFlag.NOT_SIZED) {
+            @Override
+            Sink<Integer> opWrapSink(int flags, Sink<Integer> sink) {
+                return new Sink.ChainedInt<Integer>(sink) {
+                    final IntConsumer downstreamAsInt = adapt(sink);
+
+                    @Override
+                    public void begin(long size) {
+                        downstream.begin(-1);
+                    }
+
+                    @Override
+                    public void accept(int t) {
+                        mapper.accept(t, downstreamAsInt);
+                    }
                 };
             }
         };
@@ -350,6 +412,16 @@ abstract class IntPipeline<E_IN>
                     }
                 };
             }
+
+            @Override
+            int opFusionKind() {
+                return FusedOps.FILTER;
+            }
+
+            @Override
+            Object opFusionFunction() {
+                return predicate;
+            }
         };
     }
 
@@ -368,6 +440,16 @@ abstract class IntPipeline<E_IN>
                     }
                 };
             }
+
+            @Override
+            int opFusionKind() {
+                return FusedOps.PEEK;
+            }
+
+            @Override
+            Object opFusionFunction() {
+                return action;
+            }
         };
     }
 
@@ -390,6 +472,22 @@ abstract class IntPipeline<E_IN>
             return SliceOps.makeInt(this, n, -1);
     }
 
+    @Override
+    public final Stream<int[]> chunked(int size) {
+        return WindowOps.<Integer, int[]>makeChunks(this, StreamShape.INT_VALUE, size);
+    }
+
+    @Override
+    public final Stream<int[]> windowed(int size, int step) {
+        return WindowOps.<Integer, int[]>makeWindows(this, StreamShape.INT_VALUE, size, step);
+    }
+
+    @Override
+    public final Stream<int[]> batched(int maxSize, long timeout, TimeUnit unit) {
+        Objects.requireNonNull(unit);
+        return WindowOps.<Integer, int[]>makeBatches(this, StreamShape.INT_VALUE, maxSize, timeout, unit);
+    }
+
     @Override
     public final IntStream takeWhile(IntPredicate predicate) {
         return WhileOps.makeTakeWhileInt(this, predicate);
@@ -407,9 +505,7 @@ abstract class IntPipeline<E_IN>
 
     @Override
     public final IntStream distinct() {
-        // While functional and quick to implement, this approach is not very efficient.
-        // An efficient version requires an int-specific map/set implementation.
-        return boxed().distinct().mapToInt(i -> i);
+        return DistinctOps.makeInt(this);
     }
 
     // Terminal ops from IntStream
@@ -446,18 +542,7 @@ abstract class IntPipeline<E_IN>
 
     @Override
     public final OptionalDouble average() {
-        long[] avg = collect(() -> new long[2],
-                             (ll, i) -> {
-                                 ll[0]++;
-                                 ll[1] += i;
-                             },
-                             (ll, rr) -> {
-                                 ll[0] += rr[0];
-                                 ll[1] += rr[1];
-                             });
-        return avg[0] > 0
-               ? OptionalDouble.of((double) avg[1] / avg[0])
-               : OptionalDouble.empty();
+        return evaluate(ReduceOps.makeIntAveraging());
     }
 
     @Override
@@ -0,0 +1,180 @@
+/*
+ * Written by Stefan Zobel and released to the
+ * public domain, as explained at
+ * http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package java8.util.stream;
+
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+
+/**
+ * The leaf size policy that is shared by all tasks of a single parallel
+ * evaluation.
+ *
+ * <p>The initial target leaf size is the size estimate of the source divided
+ * by four times the parallelism of the pool the evaluation runs in (see
+ * {@link AbstractTask#LEAF_TARGET}), unless a target leaf size has been set
+ * explicitly for the pipeline (see
+ * {@link StreamSupport#targetLeafSize(BaseStream, long)}), in which case that
+ * size is used for the whole evaluation.
+ *
+ * <p>Otherwise the time spent in the first {@link #SAMPLES} leaves of the
+ * evaluation is measured and the target for all subsequent splits adapted
+ * to the observed cost per element: leaves that are so cheap that the
+ * fork-join overhead dominates ({@link #MIN_LEAF_NANOS}) are made coarser
+ * (but never so coarse that a worker of the pool would end up without
+ * a leaf), leaves that are so expensive that a single straggler
+ * would delay the whole evaluation ({@link #MAX_LEAF_NANOS}) are made finer.
+ *
+ * <p>The adaptation can be disabled by setting the system property
+ * {@code java8.util.stream.LeafSizing.adaptive} to {@code false}.
+ *
+ * @since 1.5.7
+ */
+final class LeafSizing {
+
+    private static final String ADAPTIVE_ENABLED_P = LeafSizing.class.getName() + ".adaptive";
+
+    // defaults to true
+    static final boolean ADAPTIVE = getBooleanPropVal(ADAPTIVE_ENABLED_P, true);
+
+    /** The number of leaves that are timed before the target gets adapted */
+    static final int SAMPLES = 4;
+
+    /** Leaves cheaper than this (in nanoseconds) are made coarser */
+    static final long MIN_LEAF_NANOS = 100000L; // 0.1 ms
+
+    /** Leaves more expensive than this (in nanoseconds) are made finer */
+    static final long MAX_LEAF_NANOS = 10000000L; // 10 ms
+
+    /** The largest target that still leaves every worker with a leaf */
+    private final long maxTarget;
+
+    /** The current target leaf size */
+    private volatile long target;
+
+    /** Whether leaves should still be timed */
+    private volatile boolean sampling;
+
+    // guarded by this
+    private int samples;
+    private long sampledElements;
+    private long sampledNanos;
+
+    private LeafSizing(long target, long maxTarget, boolean sampling) {
+        this.target = target;
+        this.maxTarget = maxTarget;
+        this.sampling = sampling;
+    }
+
+    /**
+     * Creates the leaf size policy for a parallel evaluation of the given
+     * pipeline.
+     *
+     * @param helper the pipeline that gets evaluated
+     * @param sizeEstimate the size estimate of the root spliterator
+     * @return the leaf size policy
+     */
+    static LeafSizing of(PipelineHelper<?> helper, long sizeEstimate) {
+        long leafSize = helper.getTargetLeafSize();
+        if (leafSize > 0L) {
+            return new LeafSizing(leafSize, leafSize, false);
+        }
+        int parallelism = helper.getParallelism();
+        long target = suggestTargetSize(sizeEstimate, parallelism);
+        long maxTarget = Math.max(target, sizeEstimate / parallelism);
+        return new LeafSizing(target, maxTarget, ADAPTIVE && sizeEstimate != Long.MAX_VALUE);
+    }
+
+    /**
+     * Returns the target leaf size for a parallel evaluation of the given
+     * pipeline that doesn't adapt its leaf size, i.e., the target leaf size
+     * set for the pipeline, if any, or the default target leaf size otherwise.
+     *
+     * @param helper the pipeline that gets evaluated
+     * @param sizeEstimate the size estimate of the root spliterator
+     * @return the target leaf size, always {@code >= 1}
+     */
+    static long suggestTargetSize(PipelineHelper<?> helper, long sizeEstimate) {
+        long leafSize = helper.getTargetLeafSize();
+        return leafSize > 0L ? leafSize : suggestTargetSize(sizeEstimate, helper.getParallelism());
+    }
+
+    private static long suggestTargetSize(long sizeEstimate, int parallelism) {
+        long est = sizeEstimate / (parallelism << 2);
+        return est > 0L ? est : 1L;
+    }
+
+    /**
+     * Returns the current target leaf size.
+     *
+     * @return the target leaf size, always {@code >= 1}
+     */
+    long target() {
+        return target;
+    }
+
+    /**
+     * Returns {@code true} if the next leaf should be timed and its cost
+     * passed to {@link #record(long, long)}.
+     *
+     * @return {@code true} if leaves are still being sampled
+     */
+    boolean isSampling() {
+        return sampling;
+    }
+
+    /**
+     * Records the cost of a leaf and adapts the target leaf size once enough
+     * leaves have been sampled.
+     *
+     * @param elements the (estimated) number of elements of the leaf
+     * @param nanos the time spent in the leaf
+     */
+    void record(long elements, long nanos) {
+        if (elements <= 0L || elements == Long.MAX_VALUE) {
+            return;
+        }
+        synchronized (this) {
+            if (!sampling) {
+                return;
+            }
+            sampledElements += elements;
+            sampledNanos += nanos;
+            if (++samples < SAMPLES) {
+                return;
+            }
+            sampling = false;
+            target = adapt(target, maxTarget, (double) sampledNanos / sampledElements);
+        }
+    }
+
+    static long adapt(long target, long maxTarget, double nanosPerElement) {
+        double leafNanos = target * nanosPerElement;
+        if (leafNanos < MIN_LEAF_NANOS) {
+            double coarser = nanosPerElement > 0.0 ? MIN_LEAF_NANOS / nanosPerElement : maxTarget;
+            return Math.max(target, (long) Math.min(coarser, maxTarget));
+        }
+        if (leafNanos > MAX_LEAF_NANOS) {
+            return Math.max(1L, (long) (MAX_LEAF_NANOS / nanosPerElement));
+        }
+        return target;
+    }
+
+    private static boolean getBooleanPropVal(final String prop, final boolean defVal) {
+        return AccessController.doPrivileged(new PrivilegedAction<Boolean>() {
+            @Override
+            public Boolean run() {
+                boolean val = defVal;
+                try {
+                    String s = System.getProperty(prop, Boolean.toString(defVal));
+                    val = Boolean.parseBoolean(s.trim());
+                } catch (IllegalArgumentException ignore) {
+                } catch (NullPointerException ignore) {
+                }
+                return val;
+            }
+        });
+    }
+}
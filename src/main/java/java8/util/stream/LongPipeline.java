@@ -24,6 +24,8 @@
  */
 package java8.util.stream;
 
+import java.util.concurrent.TimeUnit;
+
 import java8.lang.Longs;
 import java8.util.LongSummaryStatistics;
 import java8.util.Objects;
@@ -159,7 +161,9 @@ abstract class LongPipeline<E_IN>
 
     @Override
     final Node.Builder<Long> makeNodeBuilder(long exactSizeIfKnown, IntFunction<Long[]> generator) {
-        return Nodes.longBuilder(exactSizeIfKnown);
+        return isOffHeap()
+               ? OffHeapNodes.longBuilder(exactSizeIfKnown)
+               : Nodes.longBuilder(exactSizeIfKnown);
     }
 
     private <U> Stream<U> mapToObj(LongFunction<? extends U> mapper, int opFlags) {
@@ -224,6 +228,16 @@ abstract class LongPipeline<E_IN>
                     }
                 };
             }
+
+            @Override
+            int opFusionKind() {
+                return FusedOps.MAP;
+            }
+
+            @Override
+            Object opFusionFunction() {
+                return mapper;
+            }
         };
     }
 
@@ -275,6 +289,10 @@ abstract class LongPipeline<E_IN>
             @Override
             Sink<Long> opWrapSink(int flags, Sink<Long> sink) {
                 return new Sink.ChainedLong<Long>(sink) {
+                    LongConsumer downstreamAsLong = downstream::accept;
+                    // true if cancellationRequested() has been called
+                    boolean cancellationRequestedCalled;
+
                     @Override
                     public void begin(long size) {
                         downstream.begin(-1);
@@ -285,9 +303,19 @@ abstract class LongPipeline<E_IN>
                         LongStream result = null;
                         try {
                             result = mapper.apply(t);
-                            // We can do better than this too; optimize for depth=0 case and just grab spliterator and forEach it
                             if (result != null) {
-                                result.sequential().forEach(i -> downstream.accept(i));
+                                if (!cancellationRequestedCalled && !AbstractPipeline.isSourceStage(result)) {
+                                    result.sequential().forEach(downstreamAsLong);
+                                } else {
+                                    // A source stage is traversed by its spliterator; pull
+                                    // elements one by one if downstream may short-circuit
+                                    Spliterator.OfLong s = result.sequential().spliterator();
+                                    if (!cancellationRequestedCalled) {
+                                        s.forEachRemaining(downstreamAsLong);
+                                    } else {
+                                        do { } while (!downstream.cancellationRequested() && s.tryAdvance(downstreamAsLong));
+                                    }
+                                }
                             }
                         } finally {
                             if (result != null) {
@@ -295,6 +323,40 @@ abstract class LongPipeline<E_IN>
                             }
                         }
                     }
+
+                    @Override
+                    public boolean cancellationRequested() {
+                        // If this method is called then an operation within the stream
+                        // pipeline is short-circuiting (see AbstractPipeline.copyInto).
+                        // Note that we cannot differentiate between an upstream or
+                        // downstream operation
+                        cancellationRequestedCalled = true;
+                        return downstream.cancellationRequested();
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public final LongStream mapMulti(final LongStream.LongMapMultiConsumer mapper) {
+        Objects.requireNonNull(mapper);
+        return new StatelessOp<Long>(this, StreamShape.LONG_VALUE,
+                                        StreamOpFlag.NOT_SORTED | StreamOpFlag.NOT_DISTINCT | StreamOpFlag.NOT_SIZED) {
+            @Override
+            Sink<Long> opWrapSink(int flags, Sink<Long> sink) {
+                return new Sink.ChainedLong<Long>(sink) {
+                    final LongConsumer downstreamAsLong = adapt(sink);
+
+                    @Override
+                    public void begin(long size) {
+                        downstream.begin(-1);
+                    }
+
+                    @Override
+                    public void accept(long t) {
+                        mapper.accept(t, downstreamAsLong);
+                    }
                 };
             }
         };
@@ -333,6 +395,16 @@ abstract class LongPipeline<E_IN>
                     }
                 };
             }
+
+            @Override
+            int opFusionKind() {
+                return FusedOps.FILTER;
+            }
+
+            @Override
+            Object opFusionFunction() {
+                return predicate;
+            }
         };
     }
 
@@ -351,6 +423,16 @@ abstract class LongPipeline<E_IN>
                     }
                 };
             }
+
+            @Override
+            int opFusionKind() {
+                return FusedOps.PEEK;
+            }
+
+            @Override
+            Object opFusionFunction() {
+                return action;
+            }
         };
     }
 
@@ -373,6 +455,22 @@ abstract class LongPipeline<E_IN>
             return SliceOps.makeLong(this, n, -1);
     }
 
+    @Override
+    public final Stream<long[]> chunked(int size) {
+        return WindowOps.<Long, long[]>makeChunks(this, StreamShape.LONG_VALUE, size);
+    }
+
+    @Override
+    public final Stream<long[]> windowed(int size, int step) {
+        return WindowOps.<Long, long[]>makeWindows(this, StreamShape.LONG_VALUE, size, step);
+    }
+
+    @Override
+    public final Stream<long[]> batched(int maxSize, long timeout, TimeUnit unit) {
+        Objects.requireNonNull(unit);
+        return WindowOps.<Long, long[]>makeBatches(this, StreamShape.LONG_VALUE, maxSize, timeout, unit);
+    }
+
     @Override
     public final LongStream takeWhile(LongPredicate predicate) {
         return WhileOps.makeTakeWhileLong(this, predicate);
@@ -390,9 +488,7 @@ abstract class LongPipeline<E_IN>
 
     @Override
     public final LongStream distinct() {
-        // While functional and quick to implement, this approach is not very efficient.
-        // An efficient version requires a long-specific map/set implementation.
-        return boxed().distinct().mapToLong(i -> (long) i);
+        return DistinctOps.makeLong(this);
     }
 
     // Terminal ops from LongStream
@@ -425,18 +521,7 @@ abstract class LongPipeline<E_IN>
 
     @Override
     public final OptionalDouble average() {
-        long[] avg = collect(() -> new long[2],
-                             (ll, i) -> {
-                                 ll[0]++;
-                                 ll[1] += i;
-                             },
-                             (ll, rr) -> {
-                                 ll[0] += rr[0];
-                                 ll[1] += rr[1];
-                             });
-        return avg[0] > 0
-               ? OptionalDouble.of((double) avg[1] / avg[0])
-               : OptionalDouble.empty();
+        return evaluate(ReduceOps.makeLongAveraging());
     }
 
     @Override
@@ -24,6 +24,8 @@
  */
 package java8.util.stream;
 
+import java.util.concurrent.TimeUnit;
+
 import java8.util.LongSummaryStatistics;
 import java8.util.PrimitiveIterator;
 import java8.util.function.BiConsumer;
@@ -161,6 +163,29 @@ public interface LongStream extends BaseStream<Long, LongStream> {
      */
     LongStream flatMap(LongFunction<? extends LongStream> mapper);
 
+    /**
+     * Returns a stream consisting of the results of replacing each element of
+     * this stream with multiple elements, specifically zero or more elements.
+     * Replacement is performed by applying the provided mapping function to each
+     * element in conjunction with a {@linkplain LongConsumer consumer} argument
+     * that accepts replacement elements. The mapping function calls the consumer
+     * zero or more times to provide the replacement elements.
+     *
+     * <p>This is an <a href="package-summary.html#StreamOps">intermediate
+     * operation</a>.
+     *
+     * <p>If the {@linkplain LongConsumer consumer} argument is used outside the scope of
+     * its application to the mapping function, the results are undefined.
+     *
+     * @param mapper a <a href="package-summary.html#NonInterference">non-interfering</a>,
+     *               <a href="package-summary.html#Statelessness">stateless</a>
+     *               function that generates replacement elements
+     * @return the new stream
+     * @see Stream#mapMulti Stream.mapMulti
+     * @since 1.5.7
+     */
+    LongStream mapMulti(LongMapMultiConsumer mapper);
+
     /**
      * Returns a stream consisting of the distinct elements of this stream.
      *
@@ -274,6 +299,64 @@ public interface LongStream extends BaseStream<Long, LongStream> {
      */
     LongStream skip(long n);
 
+    /**
+     * Returns a stream consisting of the elements of this stream grouped
+     * into consecutive chunks of {@code size} elements in encounter order,
+     * each as a new {@code long} array. The last chunk holds the remaining
+     * elements and may be smaller.
+     *
+     * <p>This is a <a href="package-summary.html#StreamOps">stateful
+     * intermediate operation</a>.
+     *
+     * @param size the number of elements in a chunk
+     * @return the new stream
+     * @throws IllegalArgumentException if {@code size} is not positive
+     * @see Stream#chunked(int) Stream.chunked
+     * @since 1.5.7
+     */
+    Stream<long[]> chunked(int size);
+
+    /**
+     * Returns a stream consisting of the sliding windows of {@code size}
+     * consecutive elements of this stream that start at every
+     * {@code step}-th element in encounter order, each as a new {@code long}
+     * array. Incomplete windows at the end of this stream are not included.
+     *
+     * <p>This is a <a href="package-summary.html#StreamOps">stateful
+     * intermediate operation</a>.
+     *
+     * @param size the number of elements in a window
+     * @param step the distance between the first elements of two
+     *        consecutive windows
+     * @return the new stream
+     * @throws IllegalArgumentException if {@code size} or {@code step} is
+     *         not positive
+     * @see Stream#windowed(int, int) Stream.windowed
+     * @since 1.5.7
+     */
+    Stream<long[]> windowed(int size, int step);
+
+    /**
+     * Returns a stream consisting of the elements of this stream grouped
+     * into batches of at most {@code maxSize} consecutive elements, each as
+     * a new {@code long} array. A batch is also closed by the first element
+     * that arrives after the batch has been open for at least the given
+     * timeout.
+     *
+     * <p>This is a <a href="package-summary.html#StreamOps">stateful
+     * intermediate operation</a>.
+     *
+     * @param maxSize the maximum number of elements in a batch
+     * @param timeout the time after which a batch is closed early
+     * @param unit the time unit of the {@code timeout} argument
+     * @return the new stream
+     * @throws IllegalArgumentException if {@code maxSize} is not positive
+     *         or {@code timeout} is negative
+     * @see Stream#batched(int, long, TimeUnit) Stream.batched
+     * @since 1.5.7
+     */
+    Stream<long[]> batched(int maxSize, long timeout, TimeUnit unit);
+
     /**
      * Returns, if this stream is ordered, a stream consisting of the longest
      * prefix of elements taken from this stream that match the given predicate.
@@ -815,6 +898,30 @@ public interface LongStream extends BaseStream<Long, LongStream> {
     Spliterator.OfLong spliterator();
 
 
+    /**
+     * Represents an operation that accepts a {@code long}-valued argument
+     * and a LongConsumer, and returns no result. This functional interface is
+     * used by {@link LongStream#mapMulti(LongMapMultiConsumer) LongStream.mapMulti}
+     * to replace a {@code long} value with zero or more {@code long} values.
+     *
+     * <p>This is a functional interface whose functional method is
+     * {@link #accept(long, LongConsumer)}.
+     *
+     * @see LongStream#mapMulti(LongMapMultiConsumer)
+     * @since 1.5.7
+     */
+    public interface LongMapMultiConsumer {
+
+        /**
+         * Replaces the given {@code value} with zero or more values by feeding
+         * the mapped values to the {@code ic} consumer.
+         *
+         * @param value the {@code long} value coming from upstream
+         * @param ic a {@code LongConsumer} accepting the mapped values
+         */
+        void accept(long value, LongConsumer ic);
+    }
+
     /**
      * A mutable builder for a {@code LongStream}.
      *
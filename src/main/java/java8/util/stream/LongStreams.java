@@ -24,6 +24,10 @@
  */
 package java8.util.stream;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
 import java8.lang.Longs;
 import java8.util.Objects;
 import java8.util.Spliterator;
@@ -37,7 +41,7 @@ import java8.util.stream.LongStream.Builder;
 /**
  * A place for static default implementations of the new Java 8/9 static
  * interface methods and default interface methods ({@code takeWhile()},
- * {@code dropWhile()}) in the {@link LongStream} interface. 
+ * {@code dropWhile()}, {@code mapMulti()}) in the {@link LongStream} interface. 
  */
 public final class LongStreams {
     /**
@@ -94,6 +98,134 @@ public final class LongStreams {
                 stream.isParallel()).onClose(StreamSupport.closeHandler(stream));
     }
 
+    /**
+     * Returns a stream consisting of the results of replacing each element of
+     * the passed stream with multiple elements, specifically zero or more elements.
+     * Replacement is performed by applying the provided mapping function to each
+     * element in conjunction with a {@linkplain LongConsumer consumer} argument
+     * that accepts replacement elements. The mapping function calls the consumer
+     * zero or more times to provide the replacement elements.
+     *
+     * <p>This is an <a href="package-summary.html#StreamOps">intermediate
+     * operation</a>.
+     *
+     * <p>If the {@linkplain LongConsumer consumer} argument is used outside the scope of
+     * its application to the mapping function, the results are undefined.
+     *
+     * <p><b>Implementation Requirements:</b><br>
+     * The default implementation obtains the {@link LongStream#spliterator() spliterator}
+     * of the passed stream, creates a new stream over that spliterator and applies
+     * {@link LongStream#mapMulti(LongStream.LongMapMultiConsumer) mapMulti} to it.  The returned
+     * stream preserves the execution characteristics of the passed stream (namely
+     * parallel or sequential execution as per {@link LongStream#isParallel() isParallel()}).
+     * When the returned stream is closed, the close handlers for both
+     * the returned and the passed stream are invoked.
+     *
+     * @param stream the stream to wrap for the {@code mapMulti()} operation
+     * @param mapper a <a href="package-summary.html#NonInterference">non-interfering</a>,
+     *               <a href="package-summary.html#Statelessness">stateless</a>
+     *               function that generates replacement elements
+     * @return the new stream
+     * @see LongStream#mapMulti(LongStream.LongMapMultiConsumer)
+     * @since 1.5.7
+     */
+    public static LongStream mapMulti(LongStream stream, LongStream.LongMapMultiConsumer mapper) {
+        Objects.requireNonNull(stream);
+        Objects.requireNonNull(mapper);
+        return StreamSupport.longStream(stream.spliterator(), stream.isParallel())
+                .onClose(StreamSupport.closeHandler(stream)).mapMulti(mapper);
+    }
+
+    /**
+     * Returns a stream consisting of the elements of the passed stream grouped
+     * into consecutive chunks of {@code size} elements in encounter order,
+     * see {@link LongStream#chunked(int) chunked}.
+     *
+     * <p>This is a <a href="package-summary.html#StreamOps">stateful
+     * intermediate operation</a>.
+     *
+     * <p><b>Implementation Requirements:</b><br>
+     * The default implementation obtains the {@link LongStream#spliterator() spliterator}
+     * of the passed stream and chunks a new stream over that spliterator, which
+     * preserves the execution characteristics of the passed stream (namely
+     * parallel or sequential execution as per {@link LongStream#isParallel() isParallel()}).
+     * When the returned stream is closed, the close handlers for both
+     * the returned and the passed stream are invoked.
+     *
+     * @param stream the stream to wrap for the {@code chunked()} operation
+     * @param size the number of elements in a chunk
+     * @return the new stream
+     * @throws IllegalArgumentException if {@code size} is not positive
+     * @see LongStream#chunked(int)
+     * @since 1.5.7
+     */
+    public static Stream<long[]> chunked(LongStream stream, int size) {
+        Objects.requireNonNull(stream);
+        return WindowOps.<Long, long[]>makeChunks(wrap(stream), StreamShape.LONG_VALUE, size);
+    }
+
+    /**
+     * Returns a stream consisting of the sliding windows of {@code size}
+     * consecutive elements of the passed stream that start at every
+     * {@code step}-th element in encounter order, see
+     * {@link LongStream#windowed(int, int) windowed}.
+     *
+     * <p>This is a <a href="package-summary.html#StreamOps">stateful
+     * intermediate operation</a>.
+     *
+     * <p><b>Implementation Requirements:</b><br>
+     * The default implementation wraps the passed stream as described for
+     * {@code chunked}.
+     *
+     * @param stream the stream to wrap for the {@code windowed()} operation
+     * @param size the number of elements in a window
+     * @param step the distance between the first elements of two
+     *        consecutive windows
+     * @return the new stream
+     * @throws IllegalArgumentException if {@code size} or {@code step} is
+     *         not positive
+     * @see LongStream#windowed(int, int)
+     * @since 1.5.7
+     */
+    public static Stream<long[]> windowed(LongStream stream, int size, int step) {
+        Objects.requireNonNull(stream);
+        return WindowOps.<Long, long[]>makeWindows(wrap(stream), StreamShape.LONG_VALUE, size, step);
+    }
+
+    /**
+     * Returns a stream consisting of the elements of the passed stream grouped
+     * into batches of at most {@code maxSize} consecutive elements, see
+     * {@link LongStream#batched(int, long, TimeUnit) batched}.
+     *
+     * <p>This is a <a href="package-summary.html#StreamOps">stateful
+     * intermediate operation</a>.
+     *
+     * <p><b>Implementation Requirements:</b><br>
+     * The default implementation wraps the passed stream as described for
+     * {@code chunked}.
+     *
+     * @param stream the stream to wrap for the {@code batched()} operation
+     * @param maxSize the maximum number of elements in a batch
+     * @param timeout the time after which a batch is closed early
+     * @param unit the time unit of the {@code timeout} argument
+     * @return the new stream
+     * @throws IllegalArgumentException if {@code maxSize} is not positive
+     *         or {@code timeout} is negative
+     * @see LongStream#batched(int, long, TimeUnit)
+     * @since 1.5.7
+     */
+    public static Stream<long[]> batched(LongStream stream, int maxSize, long timeout, TimeUnit unit) {
+        Objects.requireNonNull(stream);
+        Objects.requireNonNull(unit);
+        return WindowOps.<Long, long[]>makeBatches(wrap(stream), StreamShape.LONG_VALUE, maxSize, timeout, unit);
+    }
+
+    // a pipeline over the spliterator of the passed stream that also closes it
+    private static AbstractPipeline<?, Long, ?> wrap(LongStream stream) {
+        return (AbstractPipeline<?, Long, ?>) StreamSupport.longStream(stream.spliterator(), stream.isParallel())
+                .onClose(StreamSupport.closeHandler(stream));
+    }
+
     // Static factories
 
     /**
@@ -355,7 +487,8 @@ public final class LongStreams {
      * <p><b>Implementation Note:</b><br>
      * Use caution when constructing streams from repeated concatenation.
      * Accessing an element of a deeply concatenated stream can result in deep
-     * call chains, or even {@code StackOverflowError}.
+     * call chains, or even {@code StackOverflowError}. To concatenate more than
+     * two streams use {@link #concat(LongStream[])}.
      * <p>Subsequent changes to the sequential/parallel execution mode of the
      * returned stream are not guaranteed to be propagated to the input streams.
      *
@@ -373,6 +506,65 @@ public final class LongStreams {
         return stream.onClose(Streams.composedClose(a, b));
     }
 
+    /**
+     * Creates a lazily concatenated stream whose elements are all the
+     * elements of the given streams, one stream after the other.  The
+     * resulting stream is ordered if all of the input streams are ordered,
+     * and parallel if any of the input streams is parallel.  When the
+     * resulting stream is closed, the close handlers of all input streams
+     * are invoked.
+     *
+     * <p><b>Implementation Note:</b><br>
+     * Unlike repeated {@link #concat(LongStream, LongStream) two-way concatenation} the input
+     * streams are concatenated flat: accessing an element doesn't go through
+     * a chain of concatenations, and a parallel evaluation divides the input
+     * streams into two runs of about the same estimated size at each split.
+     * <p>Subsequent changes to the sequential/parallel execution mode of the
+     * returned stream are not guaranteed to be propagated to the input streams.
+     *
+     * @param streams the streams to concatenate
+     * @return the concatenation of the input streams
+     * @throws NullPointerException if {@code streams} or any of its elements
+     *         is null
+     * @since 1.5.7
+     */
+    public static LongStream concat(LongStream... streams) {
+        Objects.requireNonNull(streams);
+        LongStream[] inputs = streams.clone();
+        for (LongStream stream : inputs) {
+            Objects.requireNonNull(stream);
+        }
+        Spliterator.OfLong[] spliterators = new Spliterator.OfLong[streams.length];
+        boolean parallel = false;
+        for (int i = 0; i < inputs.length; i++) {
+            spliterators[i] = inputs[i].spliterator();
+            parallel |= inputs[i].isParallel();
+        }
+        LongStream stream = StreamSupport.longStream(new Streams.MultiConcatSpliterator.OfLong(
+                spliterators, 0, spliterators.length), parallel);
+        return stream.onClose(Streams.composedClose(inputs));
+    }
+
+    /**
+     * Creates a lazily concatenated stream whose elements are all the
+     * elements of the streams returned by the given {@code Iterable}, one
+     * stream after the other.  See {@link #concat(LongStream[])} for the details.
+     *
+     * @param streams the streams to concatenate
+     * @return the concatenation of the input streams
+     * @throws NullPointerException if {@code streams} or any of its elements
+     *         is null
+     * @since 1.5.7
+     */
+    public static LongStream concat(Iterable<? extends LongStream> streams) {
+        Objects.requireNonNull(streams);
+        List<LongStream> list = new ArrayList<>();
+        for (LongStream stream : streams) {
+            list.add(stream);
+        }
+        return concat(list.toArray(new LongStream[list.size()]));
+    }
+
     private LongStreams() {
     }
 }
@@ -341,7 +341,10 @@ final class MatchOps {
 
         @Override
         protected Boolean doLeaf() {
-            boolean b = helper.wrapAndCopyInto(op.sinkSupplier.get(), spliterator).getAndClearState();
+            BooleanTerminalSink<P_OUT> sink = op.sinkSupplier.get();
+            if (copyIntoWithCancel(sink))
+                return null;
+            boolean b = sink.getAndClearState();
             if (b == op.matchKind.shortCircuitResult)
                 shortCircuit(b);
             return null;
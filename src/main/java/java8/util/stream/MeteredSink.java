@@ -0,0 +1,203 @@
+/*
+ * Written by Stefan Zobel and released to the
+ * public domain, as explained at
+ * http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package java8.util.stream;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A sink in front of the sink of a stage of an instrumented pipeline that
+ * counts the elements entering the stage and measures the time spent in
+ * the stage. The metrics are reported to the pipeline's
+ * {@link PipelineInstrumentation} when the sink is ended.
+ *
+ * <p>The time measured by a metered sink includes the time spent in the
+ * downstream stages, which is subtracted from it by means of the metered
+ * sink of the next stage.
+ *
+ * @param <T> type of elements accepted by the sink
+ * @since 1.5.7
+ */
+class MeteredSink<T> implements Sink<T> {
+    // operation names by sink or stage class
+    private static final ConcurrentMap<Class<?>, String> NAMES = new ConcurrentHashMap<Class<?>, String>();
+
+    private final PipelineInstrumentation instrumentation;
+    private final int depth;
+    private final String name;
+    private final MeteredSink<?> next;
+    final Sink<T> downstream;
+    long elements;
+    long nanos;
+
+    MeteredSink(PipelineInstrumentation instrumentation, int depth, String name,
+                Sink<T> downstream, MeteredSink<?> next) {
+        this.instrumentation = instrumentation;
+        this.depth = depth;
+        this.name = name;
+        this.downstream = downstream;
+        this.next = next;
+    }
+
+    /**
+     * Creates a metered sink of the shape of the given sink.
+     *
+     * @param instrumentation the receiver of the metrics
+     * @param depth the depth of the metered stage
+     * @param name the name of the metered stage
+     * @param sink the sink of the metered stage
+     * @param next the metered sink of the next stage, or {@code null} if
+     *        the metered stage is the terminal operation
+     * @return the metered sink
+     */
+    @SuppressWarnings("unchecked")
+    static <T> MeteredSink<T> of(PipelineInstrumentation instrumentation, int depth, String name,
+                                 Sink<T> sink, MeteredSink<?> next) {
+        if (sink instanceof Sink.OfInt)
+            return (MeteredSink<T>) new OfInt(instrumentation, depth, name, (Sink.OfInt) sink, next);
+        else if (sink instanceof Sink.OfLong)
+            return (MeteredSink<T>) new OfLong(instrumentation, depth, name, (Sink.OfLong) sink, next);
+        else if (sink instanceof Sink.OfDouble)
+            return (MeteredSink<T>) new OfDouble(instrumentation, depth, name, (Sink.OfDouble) sink, next);
+        else
+            return new MeteredSink<T>(instrumentation, depth, name, sink, next);
+    }
+
+    @Override
+    public final void begin(long size) {
+        long start = System.nanoTime();
+        downstream.begin(size);
+        nanos += System.nanoTime() - start;
+    }
+
+    @Override
+    public final void end() {
+        long start = System.nanoTime();
+        downstream.end();
+        nanos += System.nanoTime() - start;
+        long exclusive = next != null ? nanos - next.nanos : nanos;
+        instrumentation.stageCompleted(depth, name, elements, exclusive);
+    }
+
+    @Override
+    public final boolean cancellationRequested() {
+        return downstream.cancellationRequested();
+    }
+
+    @Override
+    public void accept(T t) {
+        elements++;
+        long start = System.nanoTime();
+        downstream.accept(t);
+        nanos += System.nanoTime() - start;
+    }
+
+    @Override
+    public void accept(int value) {
+        SinkDefaults.accept(this, value);
+    }
+
+    @Override
+    public void accept(long value) {
+        SinkDefaults.accept(this, value);
+    }
+
+    @Override
+    public void accept(double value) {
+        SinkDefaults.accept(this, value);
+    }
+
+    static final class OfInt extends MeteredSink<Integer> implements Sink.OfInt {
+        OfInt(PipelineInstrumentation instrumentation, int depth, String name,
+              Sink.OfInt downstream, MeteredSink<?> next) {
+            super(instrumentation, depth, name, downstream, next);
+        }
+
+        @Override
+        public void accept(int value) {
+            elements++;
+            long start = System.nanoTime();
+            ((Sink.OfInt) downstream).accept(value);
+            nanos += System.nanoTime() - start;
+        }
+    }
+
+    static final class OfLong extends MeteredSink<Long> implements Sink.OfLong {
+        OfLong(PipelineInstrumentation instrumentation, int depth, String name,
+               Sink.OfLong downstream, MeteredSink<?> next) {
+            super(instrumentation, depth, name, downstream, next);
+        }
+
+        @Override
+        public void accept(long value) {
+            elements++;
+            long start = System.nanoTime();
+            ((Sink.OfLong) downstream).accept(value);
+            nanos += System.nanoTime() - start;
+        }
+    }
+
+    static final class OfDouble extends MeteredSink<Double> implements Sink.OfDouble {
+        OfDouble(PipelineInstrumentation instrumentation, int depth, String name,
+                 Sink.OfDouble downstream, MeteredSink<?> next) {
+            super(instrumentation, depth, name, downstream, next);
+        }
+
+        @Override
+        public void accept(double value) {
+            elements++;
+            long start = System.nanoTime();
+            ((Sink.OfDouble) downstream).accept(value);
+            nanos += System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * Returns a descriptive name for the operation implemented by the given
+     * sink or pipeline stage class: the name of the method that created
+     * the anonymous class, qualified with its class name unless it is one
+     * of the pipeline classes, or the simple names of a nested class and
+     * its enclosing class.
+     *
+     * @param c the class of a sink or of a pipeline stage
+     * @return the name of the operation
+     */
+    static String operationName(Class<?> c) {
+        String name = NAMES.get(c);
+        if (name == null) {
+            Method m = c.getEnclosingMethod();
+            if (m != null) {
+                Class<?> d = m.getDeclaringClass();
+                name = (d == ReferencePipeline.class || d == IntPipeline.class
+                        || d == LongPipeline.class || d == DoublePipeline.class)
+                       ? m.getName() : d.getSimpleName() + "." + m.getName();
+            }
+            else {
+                Class<?> e = c.getEnclosingClass();
+                name = e != null ? e.getSimpleName() + "." + c.getSimpleName() : c.getSimpleName();
+            }
+            NAMES.putIfAbsent(c, name);
+        }
+        return name;
+    }
+
+    /**
+     * Returns the estimated size of the given number of elements of the
+     * given shape when stored in an array, in bytes.
+     */
+    static long bytes(StreamShape shape, long count) {
+        switch (shape) {
+            case INT_VALUE:
+                return count * 4L;
+            case LONG_VALUE:
+            case DOUBLE_VALUE:
+                return count * 8L;
+            default:
+                return count * PipelineInstrumentation.REFERENCE_BYTES;
+        }
+    }
+}
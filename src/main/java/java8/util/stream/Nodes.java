@@ -1463,6 +1463,11 @@ final class Nodes {
         // null if no partial traversal has occurred
         Deque<N> tryAdvanceStack;
 
+        // whether the spliterators of all leaf nodes covered by this
+        // spliterator are SUBSIZED: 0 if not yet determined, 1 if they
+        // are, -1 otherwise
+        private int leavesSubsized;
+
         InternalNodeSpliterator(N curNode) {
             this.curNode = curNode;
         }
@@ -1567,7 +1572,42 @@ final class Nodes {
 
         @Override
         public final int characteristics() {
-            return Spliterator.SIZED;
+            if (curNode == null)
+                return Spliterator.SIZED | Spliterator.SUBSIZED;
+            else if (lastNodeSpliterator != null)
+                return Spliterator.SIZED
+                       | (lastNodeSpliterator.characteristics() & Spliterator.SUBSIZED);
+
+            // Splitting only hands out the spliterators of child nodes,
+            // hence the sizes of all splits are exact if the sizes of all
+            // splits of the leaf node spliterators are exact. This enables
+            // a downstream toArray() to write directly into the final array
+            if (leavesSubsized == 0)
+                leavesSubsized = leavesSubsized() ? 1 : -1;
+            return leavesSubsized > 0
+                   ? Spliterator.SIZED | Spliterator.SUBSIZED
+                   : Spliterator.SIZED;
+        }
+
+        /**
+         * Depth first search of the node tree covered by this spliterator,
+         * using an explicit stack, for a leaf node whose spliterator is not
+         * {@code SUBSIZED}.
+         */
+        @SuppressWarnings("unchecked")
+        private boolean leavesSubsized() {
+            Deque<N> stack = initStack();
+            N n;
+            while ((n = stack.pollFirst()) != null) {
+                if (n.getChildCount() == 0) {
+                    if (!n.spliterator().hasCharacteristics(Spliterator.SUBSIZED))
+                        return false;
+                } else {
+                    for (int i = n.getChildCount() - 1; i >= 0; i--)
+                        stack.addFirst((N) n.getChild(i));
+                }
+            }
+            return true;
         }
 
         private static final class OfRef<T>
@@ -2757,7 +2797,7 @@ final class Nodes {
 
             this.spliterator = spliterator;
             this.helper = helper;
-            this.targetSize = AbstractTask.suggestTargetSize(spliterator.estimateSize());
+            this.targetSize = LeafSizing.suggestTargetSize(helper, spliterator.estimateSize());
             this.offset = 0;
             this.length = arrayLength;
         }
@@ -3153,21 +3193,27 @@ final class Nodes {
         private static final class OfInt<P_IN>
                 extends CollectorTask<P_IN, Integer, Node.OfInt, Node.Builder.OfInt> {
             OfInt(PipelineHelper<Integer> helper, Spliterator<P_IN> spliterator) {
-                super(helper, spliterator, Nodes::intBuilder, ConcNode.OfInt::new);
+                // the pipeline's builders, which may keep the leaves off-heap
+                super(helper, spliterator, s -> (Node.Builder.OfInt) helper.makeNodeBuilder(s, null),
+                      ConcNode.OfInt::new);
             }
         }
 
         private static final class OfLong<P_IN>
                 extends CollectorTask<P_IN, Long, Node.OfLong, Node.Builder.OfLong> {
             OfLong(PipelineHelper<Long> helper, Spliterator<P_IN> spliterator) {
-                super(helper, spliterator, Nodes::longBuilder, ConcNode.OfLong::new);
+                // the pipeline's builders, which may keep the leaves off-heap
+                super(helper, spliterator, s -> (Node.Builder.OfLong) helper.makeNodeBuilder(s, null),
+                      ConcNode.OfLong::new);
             }
         }
 
         private static final class OfDouble<P_IN>
                 extends CollectorTask<P_IN, Double, Node.OfDouble, Node.Builder.OfDouble> {
             OfDouble(PipelineHelper<Double> helper, Spliterator<P_IN> spliterator) {
-                super(helper, spliterator, Nodes::doubleBuilder, ConcNode.OfDouble::new);
+                // the pipeline's builders, which may keep the leaves off-heap
+                super(helper, spliterator, s -> (Node.Builder.OfDouble) helper.makeNodeBuilder(s, null),
+                      ConcNode.OfDouble::new);
             }
         }
     }
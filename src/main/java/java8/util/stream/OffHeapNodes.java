@@ -0,0 +1,1562 @@
+/*
+ * Written by Stefan Zobel and released to the
+ * public domain, as explained at
+ * http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package java8.util.stream;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import java8.util.Objects;
+import java8.util.Spliterator;
+import java8.util.Spliterators;
+import java8.util.concurrent.ForkJoinTask;
+import java8.util.function.Consumer;
+import java8.util.function.DoubleConsumer;
+import java8.util.function.IntConsumer;
+import java8.util.function.IntFunction;
+import java8.util.function.LongConsumer;
+
+/**
+ * Primitive {@code Node}s and {@code Node.Builder}s that keep their elements
+ * off the Java heap, in a sequence of direct {@code ByteBuffer} chunks. They
+ * replace the heap-based spined buffers and array nodes for the intermediate
+ * results of primitive pipelines that opted in via
+ * {@link StreamSupport#offHeapBuffers(BaseStream, boolean)}, so that huge
+ * intermediate results don't end up as huge arrays in the old generation.
+ *
+ * <p>The first chunk is sized by the size estimate passed to
+ * {@code begin()}, if any, otherwise chunks grow geometrically from
+ * {@code 4K} up to {@code 64M} elements. A node is filled by a single thread
+ * and may be read concurrently once it has been built.
+ *
+ * @since 1.5.7
+ */
+final class OffHeapNodes {
+
+    private static final int MIN_CHUNK_SIZE = 1 << 12;
+    private static final int MAX_CHUNK_SIZE = 1 << 26;
+
+    // No instances
+    private OffHeapNodes() { }
+
+    /**
+     * Produces a variable size off-heap {@link Node.Builder.OfInt}.
+     *
+     * @param sizeHint the expected number of elements, or {@code -1} if
+     *        unknown
+     * @return a {@code Node.Builder.OfInt}
+     */
+    static Node.Builder.OfInt intBuilder(long sizeHint) {
+        return new IntNodeBuilder(sizeHint);
+    }
+
+    /**
+     * Produces a variable size off-heap {@link Node.Builder.OfLong}.
+     *
+     * @param sizeHint the expected number of elements, or {@code -1} if
+     *        unknown
+     * @return a {@code Node.Builder.OfLong}
+     */
+    static Node.Builder.OfLong longBuilder(long sizeHint) {
+        return new LongNodeBuilder(sizeHint);
+    }
+
+    /**
+     * Produces a variable size off-heap {@link Node.Builder.OfDouble}.
+     *
+     * @param sizeHint the expected number of elements, or {@code -1} if
+     *        unknown
+     * @return a {@code Node.Builder.OfDouble}
+     */
+    static Node.Builder.OfDouble doubleBuilder(long sizeHint) {
+        return new DoubleNodeBuilder(sizeHint);
+    }
+
+    static int nextChunkSize(int previous, long remaining) {
+        if (remaining > 0L) {
+            // sized by the hint, but don't waste a tiny chunk on an
+            // underestimated size
+            return (int) Math.min(Math.max(remaining, previous < 0 ? 1L : previous), MAX_CHUNK_SIZE);
+        }
+        return previous < 0 ? MIN_CHUNK_SIZE : Math.min(previous << 1, MAX_CHUNK_SIZE);
+    }
+
+    static ByteBuffer allocate(int size, int shift) {
+        return ByteBuffer.allocateDirect(size << shift).order(ByteOrder.nativeOrder());
+    }
+
+    // Sorting
+
+    // collects the leaves of a (conc-)node, returns false if a non-empty
+    // leaf isn't of the given type
+    private static <B> boolean collectLeaves(Node<?> node, Class<B> type, List<B> leaves) {
+        int n = node.getChildCount();
+        if (n == 0) {
+            if (type.isInstance(node)) {
+                leaves.add(type.cast(node));
+                return true;
+            }
+            return node.count() == 0L;
+        }
+        for (int i = 0; i < n; i++) {
+            if (!collectLeaves(node.getChild(i), type, leaves)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final int INSERTION_SORT_THRESHOLD = 32;
+
+    // twice the binary logarithm of n, the recursion depth from which on the
+    // quicksort falls back to heapsort
+    static int depthLimit(int n) {
+        return (32 - Integer.numberOfLeadingZeros(n)) << 1;
+    }
+
+    /**
+     * Sorts the elements of a node built by {@link #intBuilder(long)} into
+     * ascending order without copying them to the heap, and passes them to
+     * {@code sink}. Every chunk is sorted in place, and the sorted chunks are
+     * merged on the fly while they are being pushed to {@code sink}.
+     *
+     * @param node the node
+     * @param sink the sink that receives the sorted elements
+     * @param cancellable whether to stop as soon as {@code sink} requests
+     *        cancellation
+     */
+    static void sortInto(Node.OfInt node, Sink<? super Integer> sink, boolean cancellable) {
+        IntNodeBuilder b = (IntNodeBuilder) node;
+        int k = b.chunks.size();
+        IntBuffer[] chunks = b.chunks.toArray(new IntBuffer[k]);
+        int[] fence = new int[k];
+        for (int c = 0; c < k; c++) {
+            fence[c] = b.chunkSize(c);
+            sort(chunks[c], 0, fence[c] - 1, depthLimit(fence[c]));
+        }
+        merge(chunks, fence, sink, cancellable);
+    }
+
+    /**
+     * Sorts the elements of a node whose leaves were all built by
+     * {@link #intBuilder(long)}, such as the conc-node of a parallel
+     * evaluation, into a new off-heap node without copying them to the heap.
+     * The chunks of all leaves are sorted in place in parallel, and the
+     * sorted chunks are then merged into the new node.
+     *
+     * @param node the node, whose leaves are sorted in place
+     * @return the sorted node, or {@code null} if a non-empty leaf of
+     *         {@code node} isn't an off-heap node
+     */
+    static Node.OfInt sort(Node.OfInt node) {
+        List<IntNodeBuilder> leaves = new ArrayList<>();
+        if (!collectLeaves(node, IntNodeBuilder.class, leaves)) {
+            return null;
+        }
+        int k = 0;
+        long count = 0L;
+        for (IntNodeBuilder b : leaves) {
+            k += b.chunks.size();
+            count += b.count;
+        }
+        IntBuffer[] chunks = new IntBuffer[k];
+        int[] fence = new int[k];
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(k);
+        int c = 0;
+        for (IntNodeBuilder b : leaves) {
+            for (int i = 0, n = b.chunks.size(); i < n; i++, c++) {
+                IntBuffer chunk = chunks[c] = b.chunks.get(i);
+                int size = fence[c] = b.chunkSize(i);
+                tasks.add(ForkJoinTask.adapt(() -> sort(chunk, 0, size - 1, depthLimit(size))));
+            }
+        }
+        ForkJoinTask.invokeAll(tasks);
+        IntNodeBuilder sorted = new IntNodeBuilder(count);
+        sorted.begin(count);
+        merge(chunks, fence, sorted, false);
+        sorted.end();
+        return sorted;
+    }
+
+    // merges the sorted chunks into sink
+    private static void merge(IntBuffer[] chunks, int[] fence, Sink<? super Integer> sink, boolean cancellable) {
+        int k = chunks.length;
+        int[] pos = new int[k];
+        // a min-heap of the chunks, keyed by their next element; every
+        // chunk has at least one element
+        int[] heap = new int[k];
+        for (int c = 0; c < k; c++) {
+            heap[c] = c;
+        }
+        for (int i = (k >>> 1) - 1; i >= 0; i--) {
+            siftDown(heap, i, k, chunks, pos);
+        }
+        for (int n = k; n > 0 && !(cancellable && sink.cancellationRequested()); ) {
+            int c = heap[0];
+            sink.accept(chunks[c].get(pos[c]++));
+            if (pos[c] == fence[c]) {
+                heap[0] = heap[--n];
+            }
+            siftDown(heap, 0, n, chunks, pos);
+        }
+    }
+
+    private static void siftDown(int[] heap, int i, int n, IntBuffer[] chunks, int[] pos) {
+        if (i < n) {
+            int c = heap[i];
+            int key = chunks[c].get(pos[c]);
+            for (int child; (child = (i << 1) + 1) < n; i = child) {
+                int h = heap[child];
+                if (child + 1 < n && less(chunks[heap[child + 1]].get(pos[heap[child + 1]]),
+                                          chunks[h].get(pos[h]))) {
+                    h = heap[++child];
+                }
+                if (!less(chunks[h].get(pos[h]), key)) {
+                    break;
+                }
+                heap[i] = h;
+            }
+            heap[i] = c;
+        }
+    }
+
+    /**
+     * Sorts the range {@code [lo, hi]} of {@code a} in place with an
+     * introspective quicksort that falls back to heapsort when the
+     * recursion gets too deep.
+     */
+    private static void sort(IntBuffer a, int lo, int hi, int depth) {
+        while (hi - lo >= INSERTION_SORT_THRESHOLD) {
+            if (--depth < 0) {
+                heapSort(a, lo, hi);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            if (less(a.get(mid), a.get(lo))) swap(a, lo, mid);
+            if (less(a.get(hi), a.get(lo))) swap(a, lo, hi);
+            if (less(a.get(hi), a.get(mid))) swap(a, mid, hi);
+            int pivot = a.get(mid);
+            int i = lo, j = hi;
+            while (i <= j) {
+                while (less(a.get(i), pivot)) i++;
+                while (less(pivot, a.get(j))) j--;
+                if (i <= j) {
+                    swap(a, i++, j--);
+                }
+            }
+            // recurse into the smaller part, loop over the larger one
+            if (j - lo < hi - i) {
+                sort(a, lo, j, depth);
+                lo = i;
+            } else {
+                sort(a, i, hi, depth);
+                hi = j;
+            }
+        }
+        for (int i = lo + 1; i <= hi; i++) {
+            int x = a.get(i);
+            int j = i - 1;
+            for (; j >= lo && less(x, a.get(j)); j--) {
+                a.put(j + 1, a.get(j));
+            }
+            a.put(j + 1, x);
+        }
+    }
+
+    private static void heapSort(IntBuffer a, int lo, int hi) {
+        int n = hi - lo + 1;
+        for (int i = (n >>> 1) - 1; i >= 0; i--) {
+            siftDown(a, lo, i, n);
+        }
+        for (int m = n - 1; m > 0; m--) {
+            swap(a, lo, lo + m);
+            siftDown(a, lo, 0, m);
+        }
+    }
+
+    private static void siftDown(IntBuffer a, int lo, int i, int n) {
+        int x = a.get(lo + i);
+        for (int child; (child = (i << 1) + 1) < n; i = child) {
+            if (child + 1 < n && less(a.get(lo + child), a.get(lo + child + 1))) {
+                child++;
+            }
+            if (!less(x, a.get(lo + child))) {
+                break;
+            }
+            a.put(lo + i, a.get(lo + child));
+        }
+        a.put(lo + i, x);
+    }
+
+    private static void swap(IntBuffer a, int i, int j) {
+        int t = a.get(i);
+        a.put(i, a.get(j));
+        a.put(j, t);
+    }
+
+    // the order of Arrays.sort(int[])
+    private static boolean less(int x, int y) {
+        return x < y;
+    }
+
+    /**
+     * Sorts the elements of a node built by {@link #longBuilder(long)} into
+     * ascending order without copying them to the heap, and passes them to
+     * {@code sink}. Every chunk is sorted in place, and the sorted chunks are
+     * merged on the fly while they are being pushed to {@code sink}.
+     *
+     * @param node the node
+     * @param sink the sink that receives the sorted elements
+     * @param cancellable whether to stop as soon as {@code sink} requests
+     *        cancellation
+     */
+    static void sortInto(Node.OfLong node, Sink<? super Long> sink, boolean cancellable) {
+        LongNodeBuilder b = (LongNodeBuilder) node;
+        int k = b.chunks.size();
+        LongBuffer[] chunks = b.chunks.toArray(new LongBuffer[k]);
+        int[] fence = new int[k];
+        for (int c = 0; c < k; c++) {
+            fence[c] = b.chunkSize(c);
+            sort(chunks[c], 0, fence[c] - 1, depthLimit(fence[c]));
+        }
+        merge(chunks, fence, sink, cancellable);
+    }
+
+    /**
+     * Sorts the elements of a node whose leaves were all built by
+     * {@link #longBuilder(long)}, such as the conc-node of a parallel
+     * evaluation, into a new off-heap node without copying them to the heap.
+     * The chunks of all leaves are sorted in place in parallel, and the
+     * sorted chunks are then merged into the new node.
+     *
+     * @param node the node, whose leaves are sorted in place
+     * @return the sorted node, or {@code null} if a non-empty leaf of
+     *         {@code node} isn't an off-heap node
+     */
+    static Node.OfLong sort(Node.OfLong node) {
+        List<LongNodeBuilder> leaves = new ArrayList<>();
+        if (!collectLeaves(node, LongNodeBuilder.class, leaves)) {
+            return null;
+        }
+        int k = 0;
+        long count = 0L;
+        for (LongNodeBuilder b : leaves) {
+            k += b.chunks.size();
+            count += b.count;
+        }
+        LongBuffer[] chunks = new LongBuffer[k];
+        int[] fence = new int[k];
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(k);
+        int c = 0;
+        for (LongNodeBuilder b : leaves) {
+            for (int i = 0, n = b.chunks.size(); i < n; i++, c++) {
+                LongBuffer chunk = chunks[c] = b.chunks.get(i);
+                int size = fence[c] = b.chunkSize(i);
+                tasks.add(ForkJoinTask.adapt(() -> sort(chunk, 0, size - 1, depthLimit(size))));
+            }
+        }
+        ForkJoinTask.invokeAll(tasks);
+        LongNodeBuilder sorted = new LongNodeBuilder(count);
+        sorted.begin(count);
+        merge(chunks, fence, sorted, false);
+        sorted.end();
+        return sorted;
+    }
+
+    // merges the sorted chunks into sink
+    private static void merge(LongBuffer[] chunks, int[] fence, Sink<? super Long> sink, boolean cancellable) {
+        int k = chunks.length;
+        int[] pos = new int[k];
+        // a min-heap of the chunks, keyed by their next element; every
+        // chunk has at least one element
+        int[] heap = new int[k];
+        for (int c = 0; c < k; c++) {
+            heap[c] = c;
+        }
+        for (int i = (k >>> 1) - 1; i >= 0; i--) {
+            siftDown(heap, i, k, chunks, pos);
+        }
+        for (int n = k; n > 0 && !(cancellable && sink.cancellationRequested()); ) {
+            int c = heap[0];
+            sink.accept(chunks[c].get(pos[c]++));
+            if (pos[c] == fence[c]) {
+                heap[0] = heap[--n];
+            }
+            siftDown(heap, 0, n, chunks, pos);
+        }
+    }
+
+    private static void siftDown(int[] heap, int i, int n, LongBuffer[] chunks, int[] pos) {
+        if (i < n) {
+            int c = heap[i];
+            long key = chunks[c].get(pos[c]);
+            for (int child; (child = (i << 1) + 1) < n; i = child) {
+                int h = heap[child];
+                if (child + 1 < n && less(chunks[heap[child + 1]].get(pos[heap[child + 1]]),
+                                          chunks[h].get(pos[h]))) {
+                    h = heap[++child];
+                }
+                if (!less(chunks[h].get(pos[h]), key)) {
+                    break;
+                }
+                heap[i] = h;
+            }
+            heap[i] = c;
+        }
+    }
+
+    /**
+     * Sorts the range {@code [lo, hi]} of {@code a} in place with an
+     * introspective quicksort that falls back to heapsort when the
+     * recursion gets too deep.
+     */
+    private static void sort(LongBuffer a, int lo, int hi, int depth) {
+        while (hi - lo >= INSERTION_SORT_THRESHOLD) {
+            if (--depth < 0) {
+                heapSort(a, lo, hi);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            if (less(a.get(mid), a.get(lo))) swap(a, lo, mid);
+            if (less(a.get(hi), a.get(lo))) swap(a, lo, hi);
+            if (less(a.get(hi), a.get(mid))) swap(a, mid, hi);
+            long pivot = a.get(mid);
+            int i = lo, j = hi;
+            while (i <= j) {
+                while (less(a.get(i), pivot)) i++;
+                while (less(pivot, a.get(j))) j--;
+                if (i <= j) {
+                    swap(a, i++, j--);
+                }
+            }
+            // recurse into the smaller part, loop over the larger one
+            if (j - lo < hi - i) {
+                sort(a, lo, j, depth);
+                lo = i;
+            } else {
+                sort(a, i, hi, depth);
+                hi = j;
+            }
+        }
+        for (int i = lo + 1; i <= hi; i++) {
+            long x = a.get(i);
+            int j = i - 1;
+            for (; j >= lo && less(x, a.get(j)); j--) {
+                a.put(j + 1, a.get(j));
+            }
+            a.put(j + 1, x);
+        }
+    }
+
+    private static void heapSort(LongBuffer a, int lo, int hi) {
+        int n = hi - lo + 1;
+        for (int i = (n >>> 1) - 1; i >= 0; i--) {
+            siftDown(a, lo, i, n);
+        }
+        for (int m = n - 1; m > 0; m--) {
+            swap(a, lo, lo + m);
+            siftDown(a, lo, 0, m);
+        }
+    }
+
+    private static void siftDown(LongBuffer a, int lo, int i, int n) {
+        long x = a.get(lo + i);
+        for (int child; (child = (i << 1) + 1) < n; i = child) {
+            if (child + 1 < n && less(a.get(lo + child), a.get(lo + child + 1))) {
+                child++;
+            }
+            if (!less(x, a.get(lo + child))) {
+                break;
+            }
+            a.put(lo + i, a.get(lo + child));
+        }
+        a.put(lo + i, x);
+    }
+
+    private static void swap(LongBuffer a, int i, int j) {
+        long t = a.get(i);
+        a.put(i, a.get(j));
+        a.put(j, t);
+    }
+
+    // the order of Arrays.sort(long[])
+    private static boolean less(long x, long y) {
+        return x < y;
+    }
+
+    /**
+     * Sorts the elements of a node built by {@link #doubleBuilder(long)} into
+     * ascending order without copying them to the heap, and passes them to
+     * {@code sink}. Every chunk is sorted in place, and the sorted chunks are
+     * merged on the fly while they are being pushed to {@code sink}.
+     *
+     * @param node the node
+     * @param sink the sink that receives the sorted elements
+     * @param cancellable whether to stop as soon as {@code sink} requests
+     *        cancellation
+     */
+    static void sortInto(Node.OfDouble node, Sink<? super Double> sink, boolean cancellable) {
+        DoubleNodeBuilder b = (DoubleNodeBuilder) node;
+        int k = b.chunks.size();
+        DoubleBuffer[] chunks = b.chunks.toArray(new DoubleBuffer[k]);
+        int[] fence = new int[k];
+        for (int c = 0; c < k; c++) {
+            fence[c] = b.chunkSize(c);
+            sort(chunks[c], 0, fence[c] - 1, depthLimit(fence[c]));
+        }
+        merge(chunks, fence, sink, cancellable);
+    }
+
+    /**
+     * Sorts the elements of a node whose leaves were all built by
+     * {@link #doubleBuilder(long)}, such as the conc-node of a parallel
+     * evaluation, into a new off-heap node without copying them to the heap.
+     * The chunks of all leaves are sorted in place in parallel, and the
+     * sorted chunks are then merged into the new node.
+     *
+     * @param node the node, whose leaves are sorted in place
+     * @return the sorted node, or {@code null} if a non-empty leaf of
+     *         {@code node} isn't an off-heap node
+     */
+    static Node.OfDouble sort(Node.OfDouble node) {
+        List<DoubleNodeBuilder> leaves = new ArrayList<>();
+        if (!collectLeaves(node, DoubleNodeBuilder.class, leaves)) {
+            return null;
+        }
+        int k = 0;
+        long count = 0L;
+        for (DoubleNodeBuilder b : leaves) {
+            k += b.chunks.size();
+            count += b.count;
+        }
+        DoubleBuffer[] chunks = new DoubleBuffer[k];
+        int[] fence = new int[k];
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(k);
+        int c = 0;
+        for (DoubleNodeBuilder b : leaves) {
+            for (int i = 0, n = b.chunks.size(); i < n; i++, c++) {
+                DoubleBuffer chunk = chunks[c] = b.chunks.get(i);
+                int size = fence[c] = b.chunkSize(i);
+                tasks.add(ForkJoinTask.adapt(() -> sort(chunk, 0, size - 1, depthLimit(size))));
+            }
+        }
+        ForkJoinTask.invokeAll(tasks);
+        DoubleNodeBuilder sorted = new DoubleNodeBuilder(count);
+        sorted.begin(count);
+        merge(chunks, fence, sorted, false);
+        sorted.end();
+        return sorted;
+    }
+
+    // merges the sorted chunks into sink
+    private static void merge(DoubleBuffer[] chunks, int[] fence, Sink<? super Double> sink, boolean cancellable) {
+        int k = chunks.length;
+        int[] pos = new int[k];
+        // a min-heap of the chunks, keyed by their next element; every
+        // chunk has at least one element
+        int[] heap = new int[k];
+        for (int c = 0; c < k; c++) {
+            heap[c] = c;
+        }
+        for (int i = (k >>> 1) - 1; i >= 0; i--) {
+            siftDown(heap, i, k, chunks, pos);
+        }
+        for (int n = k; n > 0 && !(cancellable && sink.cancellationRequested()); ) {
+            int c = heap[0];
+            sink.accept(chunks[c].get(pos[c]++));
+            if (pos[c] == fence[c]) {
+                heap[0] = heap[--n];
+            }
+            siftDown(heap, 0, n, chunks, pos);
+        }
+    }
+
+    private static void siftDown(int[] heap, int i, int n, DoubleBuffer[] chunks, int[] pos) {
+        if (i < n) {
+            int c = heap[i];
+            double key = chunks[c].get(pos[c]);
+            for (int child; (child = (i << 1) + 1) < n; i = child) {
+                int h = heap[child];
+                if (child + 1 < n && less(chunks[heap[child + 1]].get(pos[heap[child + 1]]),
+                                          chunks[h].get(pos[h]))) {
+                    h = heap[++child];
+                }
+                if (!less(chunks[h].get(pos[h]), key)) {
+                    break;
+                }
+                heap[i] = h;
+            }
+            heap[i] = c;
+        }
+    }
+
+    /**
+     * Sorts the range {@code [lo, hi]} of {@code a} in place with an
+     * introspective quicksort that falls back to heapsort when the
+     * recursion gets too deep.
+     */
+    private static void sort(DoubleBuffer a, int lo, int hi, int depth) {
+        while (hi - lo >= INSERTION_SORT_THRESHOLD) {
+            if (--depth < 0) {
+                heapSort(a, lo, hi);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            if (less(a.get(mid), a.get(lo))) swap(a, lo, mid);
+            if (less(a.get(hi), a.get(lo))) swap(a, lo, hi);
+            if (less(a.get(hi), a.get(mid))) swap(a, mid, hi);
+            double pivot = a.get(mid);
+            int i = lo, j = hi;
+            while (i <= j) {
+                while (less(a.get(i), pivot)) i++;
+                while (less(pivot, a.get(j))) j--;
+                if (i <= j) {
+                    swap(a, i++, j--);
+                }
+            }
+            // recurse into the smaller part, loop over the larger one
+            if (j - lo < hi - i) {
+                sort(a, lo, j, depth);
+                lo = i;
+            } else {
+                sort(a, i, hi, depth);
+                hi = j;
+            }
+        }
+        for (int i = lo + 1; i <= hi; i++) {
+            double x = a.get(i);
+            int j = i - 1;
+            for (; j >= lo && less(x, a.get(j)); j--) {
+                a.put(j + 1, a.get(j));
+            }
+            a.put(j + 1, x);
+        }
+    }
+
+    private static void heapSort(DoubleBuffer a, int lo, int hi) {
+        int n = hi - lo + 1;
+        for (int i = (n >>> 1) - 1; i >= 0; i--) {
+            siftDown(a, lo, i, n);
+        }
+        for (int m = n - 1; m > 0; m--) {
+            swap(a, lo, lo + m);
+            siftDown(a, lo, 0, m);
+        }
+    }
+
+    private static void siftDown(DoubleBuffer a, int lo, int i, int n) {
+        double x = a.get(lo + i);
+        for (int child; (child = (i << 1) + 1) < n; i = child) {
+            if (child + 1 < n && less(a.get(lo + child), a.get(lo + child + 1))) {
+                child++;
+            }
+            if (!less(x, a.get(lo + child))) {
+                break;
+            }
+            a.put(lo + i, a.get(lo + child));
+        }
+        a.put(lo + i, x);
+    }
+
+    private static void swap(DoubleBuffer a, int i, int j) {
+        double t = a.get(i);
+        a.put(i, a.get(j));
+        a.put(j, t);
+    }
+
+    // the order of Arrays.sort(double[])
+    private static boolean less(double x, double y) {
+        return Double.compare(x, y) < 0;
+    }
+
+    private static final class IntNodeBuilder implements Node.OfInt, Node.Builder.OfInt {
+        private final List<IntBuffer> chunks = new ArrayList<>();
+        // the chunk that is currently filled, always the last one
+        private IntBuffer current;
+        private long count;
+        private long sizeHint;
+
+        IntNodeBuilder(long sizeHint) {
+            this.sizeHint = sizeHint;
+        }
+
+        private IntBuffer grow() {
+            int size = nextChunkSize(current == null ? -1 : current.capacity(), sizeHint - count);
+            IntBuffer chunk = allocate(size, 2).asIntBuffer();
+            chunks.add(chunk);
+            return current = chunk;
+        }
+
+        private int chunkSize(int i) {
+            IntBuffer chunk = chunks.get(i);
+            return chunk == current ? chunk.position() : chunk.capacity();
+        }
+
+        // Node.Builder
+
+        @Override
+        public void begin(long size) {
+            chunks.clear();
+            current = null;
+            count = 0L;
+            if (size >= 0L) {
+                sizeHint = size;
+            }
+        }
+
+        @Override
+        public void accept(int value) {
+            IntBuffer chunk;
+            if ((chunk = current) == null || !chunk.hasRemaining()) {
+                chunk = grow();
+            }
+            chunk.put(value);
+            count++;
+        }
+
+        @Override
+        public void accept(Integer t) {
+            SinkDefaults.OfInt.accept(this, t);
+        }
+
+        @Override
+        public void accept(long value) {
+            SinkDefaults.accept(this, value);
+        }
+
+        @Override
+        public void accept(double value) {
+            SinkDefaults.accept(this, value);
+        }
+
+        @Override
+        public void end() {
+        }
+
+        @Override
+        public boolean cancellationRequested() {
+            return false;
+        }
+
+        @Override
+        public Node.OfInt build() {
+            return this;
+        }
+
+        // Node
+
+        @Override
+        public long count() {
+            return count;
+        }
+
+        @Override
+        public Spliterator.OfInt spliterator() {
+            int n = chunks.size();
+            if (n == 0) {
+                return Spliterators.emptyIntSpliterator();
+            }
+            return new IntChunkSpliterator(chunks.toArray(new IntBuffer[n]), 0, n - 1, 0, chunkSize(n - 1));
+        }
+
+        @Override
+        public void forEach(IntConsumer consumer) {
+            for (int i = 0, n = chunks.size(); i < n; i++) {
+                IntBuffer chunk = chunks.get(i);
+                for (int j = 0, size = chunkSize(i); j < size; j++) {
+                    consumer.accept(chunk.get(j));
+                }
+            }
+        }
+
+        @Override
+        public void forEach(Consumer<? super Integer> consumer) {
+            Nodes.OfInt.forEach(this, consumer);
+        }
+
+        @Override
+        public void copyInto(int[] array, int offset) {
+            if (offset < 0 || offset + count > array.length) {
+                throw new IndexOutOfBoundsException("does not fit");
+            }
+            for (int i = 0, n = chunks.size(); i < n; i++) {
+                IntBuffer chunk = chunks.get(i).duplicate();
+                int size = chunkSize(i);
+                // the cast keeps the byte code compatible with pre-Java 9
+                ((Buffer) chunk).position(0);
+                chunk.get(array, offset, size);
+                offset += size;
+            }
+        }
+
+        @Override
+        public void copyInto(Integer[] boxed, int offset) {
+            Nodes.OfInt.copyInto(this, boxed, offset);
+        }
+
+        @Override
+        public int[] asPrimitiveArray() {
+            if (count >= Nodes.MAX_ARRAY_SIZE) {
+                throw new IllegalArgumentException(Nodes.BAD_SIZE);
+            }
+            int[] array = new int[(int) count];
+            copyInto(array, 0);
+            return array;
+        }
+
+        @Override
+        public Integer[] asArray(IntFunction<Integer[]> generator) {
+            return Nodes.OfPrimitive.asArray(this, generator);
+        }
+
+        @Override
+        public int[] newArray(int count) {
+            return Nodes.OfInt.newArray(this, count);
+        }
+
+        @Override
+        public Node.OfInt truncate(long from, long to, IntFunction<Integer[]> generator) {
+            if (from == 0 && to == count) {
+                return this;
+            }
+            long size = to - from;
+            Spliterator.OfInt spliterator = spliterator();
+            IntNodeBuilder nodeBuilder = new IntNodeBuilder(size);
+            nodeBuilder.begin(size);
+            for (long i = 0; i < from && spliterator.tryAdvance((IntConsumer) e -> { }); i++) { }
+            for (long i = 0; i < size && spliterator.tryAdvance((IntConsumer) nodeBuilder); i++) { }
+            nodeBuilder.end();
+            return nodeBuilder;
+        }
+
+        @Override
+        public int getChildCount() {
+            return Nodes.getChildCount();
+        }
+
+        @Override
+        public Node.OfInt getChild(int i) {
+            return Nodes.OfPrimitive.getChild();
+        }
+
+        @Override
+        public StreamShape getShape() {
+            return Nodes.OfInt.getShape();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("IntOffHeapNode[%d][%d chunks]", count, chunks.size());
+        }
+    }
+
+    /**
+     * A spliterator over a range of a sequence of {@code IntBuffer} chunks,
+     * using absolute gets. All chunks but the last one are full.
+     */
+    private static final class IntChunkSpliterator implements Spliterator.OfInt {
+        private final IntBuffer[] chunks;
+        // the current chunk and the index into it, modified on advance/split
+        private int chunkIndex;
+        private int index;
+        private final int lastChunkIndex;
+        // one past the last index into the last chunk
+        private final int lastFence;
+
+        IntChunkSpliterator(IntBuffer[] chunks, int firstChunkIndex, int lastChunkIndex,
+                              int origin, int lastFence) {
+            this.chunks = chunks;
+            this.chunkIndex = firstChunkIndex;
+            this.lastChunkIndex = lastChunkIndex;
+            this.index = origin;
+            this.lastFence = lastFence;
+        }
+
+        @Override
+        public Spliterator.OfInt trySplit() {
+            long half = estimateSize() >>> 1;
+            if (half == 0L) {
+                return null;
+            }
+            // find the chunk and index of the midpoint
+            int c = chunkIndex;
+            long i = index + half;
+            while (c < lastChunkIndex && i >= chunks[c].capacity()) {
+                i -= chunks[c].capacity();
+                c++;
+            }
+            Spliterator.OfInt prefix = (i == 0L)
+                    ? new IntChunkSpliterator(chunks, chunkIndex, c - 1, index, chunks[c - 1].capacity())
+                    : new IntChunkSpliterator(chunks, chunkIndex, c, index, (int) i);
+            chunkIndex = c;
+            index = (int) i;
+            return prefix;
+        }
+
+        @Override
+        public void forEachRemaining(IntConsumer action) {
+            Objects.requireNonNull(action);
+            int i = index;
+            for (int c = chunkIndex; c <= lastChunkIndex; c++) {
+                IntBuffer b = chunks[c];
+                for (int hi = c == lastChunkIndex ? lastFence : b.capacity(); i < hi; i++) {
+                    action.accept(b.get(i));
+                }
+                i = 0;
+            }
+            chunkIndex = lastChunkIndex;
+            index = lastFence;
+        }
+
+        @Override
+        public boolean tryAdvance(IntConsumer action) {
+            Objects.requireNonNull(action);
+            if (chunkIndex < lastChunkIndex || index < lastFence) {
+                IntBuffer b = chunks[chunkIndex];
+                action.accept(b.get(index++));
+                if (index == b.capacity() && chunkIndex < lastChunkIndex) {
+                    chunkIndex++;
+                    index = 0;
+                }
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Integer> action) {
+            return Spliterators.OfInt.tryAdvance(this, action);
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super Integer> action) {
+            Spliterators.OfInt.forEachRemaining(this, action);
+        }
+
+        @Override
+        public long estimateSize() {
+            long size = (long) lastFence - index;
+            for (int c = chunkIndex; c < lastChunkIndex; c++) {
+                size += chunks[c].capacity();
+            }
+            return size;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.IMMUTABLE | Spliterator.SIZED | Spliterator.SUBSIZED;
+        }
+
+        @Override
+        public long getExactSizeIfKnown() {
+            return Spliterators.getExactSizeIfKnown(this);
+        }
+
+        @Override
+        public boolean hasCharacteristics(int characteristics) {
+            return Spliterators.hasCharacteristics(this, characteristics);
+        }
+
+        @Override
+        public Comparator<? super Integer> getComparator() {
+            throw new IllegalStateException();
+        }
+    }
+
+    private static final class LongNodeBuilder implements Node.OfLong, Node.Builder.OfLong {
+        private final List<LongBuffer> chunks = new ArrayList<>();
+        // the chunk that is currently filled, always the last one
+        private LongBuffer current;
+        private long count;
+        private long sizeHint;
+
+        LongNodeBuilder(long sizeHint) {
+            this.sizeHint = sizeHint;
+        }
+
+        private LongBuffer grow() {
+            int size = nextChunkSize(current == null ? -1 : current.capacity(), sizeHint - count);
+            LongBuffer chunk = allocate(size, 3).asLongBuffer();
+            chunks.add(chunk);
+            return current = chunk;
+        }
+
+        private int chunkSize(int i) {
+            LongBuffer chunk = chunks.get(i);
+            return chunk == current ? chunk.position() : chunk.capacity();
+        }
+
+        // Node.Builder
+
+        @Override
+        public void begin(long size) {
+            chunks.clear();
+            current = null;
+            count = 0L;
+            if (size >= 0L) {
+                sizeHint = size;
+            }
+        }
+
+        @Override
+        public void accept(long value) {
+            LongBuffer chunk;
+            if ((chunk = current) == null || !chunk.hasRemaining()) {
+                chunk = grow();
+            }
+            chunk.put(value);
+            count++;
+        }
+
+        @Override
+        public void accept(Long t) {
+            SinkDefaults.OfLong.accept(this, t);
+        }
+
+        @Override
+        public void accept(int value) {
+            SinkDefaults.accept(this, value);
+        }
+
+        @Override
+        public void accept(double value) {
+            SinkDefaults.accept(this, value);
+        }
+
+        @Override
+        public void end() {
+        }
+
+        @Override
+        public boolean cancellationRequested() {
+            return false;
+        }
+
+        @Override
+        public Node.OfLong build() {
+            return this;
+        }
+
+        // Node
+
+        @Override
+        public long count() {
+            return count;
+        }
+
+        @Override
+        public Spliterator.OfLong spliterator() {
+            int n = chunks.size();
+            if (n == 0) {
+                return Spliterators.emptyLongSpliterator();
+            }
+            return new LongChunkSpliterator(chunks.toArray(new LongBuffer[n]), 0, n - 1, 0, chunkSize(n - 1));
+        }
+
+        @Override
+        public void forEach(LongConsumer consumer) {
+            for (int i = 0, n = chunks.size(); i < n; i++) {
+                LongBuffer chunk = chunks.get(i);
+                for (int j = 0, size = chunkSize(i); j < size; j++) {
+                    consumer.accept(chunk.get(j));
+                }
+            }
+        }
+
+        @Override
+        public void forEach(Consumer<? super Long> consumer) {
+            Nodes.OfLong.forEach(this, consumer);
+        }
+
+        @Override
+        public void copyInto(long[] array, int offset) {
+            if (offset < 0 || offset + count > array.length) {
+                throw new IndexOutOfBoundsException("does not fit");
+            }
+            for (int i = 0, n = chunks.size(); i < n; i++) {
+                LongBuffer chunk = chunks.get(i).duplicate();
+                int size = chunkSize(i);
+                // the cast keeps the byte code compatible with pre-Java 9
+                ((Buffer) chunk).position(0);
+                chunk.get(array, offset, size);
+                offset += size;
+            }
+        }
+
+        @Override
+        public void copyInto(Long[] boxed, int offset) {
+            Nodes.OfLong.copyInto(this, boxed, offset);
+        }
+
+        @Override
+        public long[] asPrimitiveArray() {
+            if (count >= Nodes.MAX_ARRAY_SIZE) {
+                throw new IllegalArgumentException(Nodes.BAD_SIZE);
+            }
+            long[] array = new long[(int) count];
+            copyInto(array, 0);
+            return array;
+        }
+
+        @Override
+        public Long[] asArray(IntFunction<Long[]> generator) {
+            return Nodes.OfPrimitive.asArray(this, generator);
+        }
+
+        @Override
+        public long[] newArray(int count) {
+            return Nodes.OfLong.newArray(this, count);
+        }
+
+        @Override
+        public Node.OfLong truncate(long from, long to, IntFunction<Long[]> generator) {
+            if (from == 0 && to == count) {
+                return this;
+            }
+            long size = to - from;
+            Spliterator.OfLong spliterator = spliterator();
+            LongNodeBuilder nodeBuilder = new LongNodeBuilder(size);
+            nodeBuilder.begin(size);
+            for (long i = 0; i < from && spliterator.tryAdvance((LongConsumer) e -> { }); i++) { }
+            for (long i = 0; i < size && spliterator.tryAdvance((LongConsumer) nodeBuilder); i++) { }
+            nodeBuilder.end();
+            return nodeBuilder;
+        }
+
+        @Override
+        public int getChildCount() {
+            return Nodes.getChildCount();
+        }
+
+        @Override
+        public Node.OfLong getChild(int i) {
+            return Nodes.OfPrimitive.getChild();
+        }
+
+        @Override
+        public StreamShape getShape() {
+            return Nodes.OfLong.getShape();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("LongOffHeapNode[%d][%d chunks]", count, chunks.size());
+        }
+    }
+
+    /**
+     * A spliterator over a range of a sequence of {@code LongBuffer} chunks,
+     * using absolute gets. All chunks but the last one are full.
+     */
+    private static final class LongChunkSpliterator implements Spliterator.OfLong {
+        private final LongBuffer[] chunks;
+        // the current chunk and the index into it, modified on advance/split
+        private int chunkIndex;
+        private int index;
+        private final int lastChunkIndex;
+        // one past the last index into the last chunk
+        private final int lastFence;
+
+        LongChunkSpliterator(LongBuffer[] chunks, int firstChunkIndex, int lastChunkIndex,
+                              int origin, int lastFence) {
+            this.chunks = chunks;
+            this.chunkIndex = firstChunkIndex;
+            this.lastChunkIndex = lastChunkIndex;
+            this.index = origin;
+            this.lastFence = lastFence;
+        }
+
+        @Override
+        public Spliterator.OfLong trySplit() {
+            long half = estimateSize() >>> 1;
+            if (half == 0L) {
+                return null;
+            }
+            // find the chunk and index of the midpoint
+            int c = chunkIndex;
+            long i = index + half;
+            while (c < lastChunkIndex && i >= chunks[c].capacity()) {
+                i -= chunks[c].capacity();
+                c++;
+            }
+            Spliterator.OfLong prefix = (i == 0L)
+                    ? new LongChunkSpliterator(chunks, chunkIndex, c - 1, index, chunks[c - 1].capacity())
+                    : new LongChunkSpliterator(chunks, chunkIndex, c, index, (int) i);
+            chunkIndex = c;
+            index = (int) i;
+            return prefix;
+        }
+
+        @Override
+        public void forEachRemaining(LongConsumer action) {
+            Objects.requireNonNull(action);
+            int i = index;
+            for (int c = chunkIndex; c <= lastChunkIndex; c++) {
+                LongBuffer b = chunks[c];
+                for (int hi = c == lastChunkIndex ? lastFence : b.capacity(); i < hi; i++) {
+                    action.accept(b.get(i));
+                }
+                i = 0;
+            }
+            chunkIndex = lastChunkIndex;
+            index = lastFence;
+        }
+
+        @Override
+        public boolean tryAdvance(LongConsumer action) {
+            Objects.requireNonNull(action);
+            if (chunkIndex < lastChunkIndex || index < lastFence) {
+                LongBuffer b = chunks[chunkIndex];
+                action.accept(b.get(index++));
+                if (index == b.capacity() && chunkIndex < lastChunkIndex) {
+                    chunkIndex++;
+                    index = 0;
+                }
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Long> action) {
+            return Spliterators.OfLong.tryAdvance(this, action);
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super Long> action) {
+            Spliterators.OfLong.forEachRemaining(this, action);
+        }
+
+        @Override
+        public long estimateSize() {
+            long size = (long) lastFence - index;
+            for (int c = chunkIndex; c < lastChunkIndex; c++) {
+                size += chunks[c].capacity();
+            }
+            return size;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.IMMUTABLE | Spliterator.SIZED | Spliterator.SUBSIZED;
+        }
+
+        @Override
+        public long getExactSizeIfKnown() {
+            return Spliterators.getExactSizeIfKnown(this);
+        }
+
+        @Override
+        public boolean hasCharacteristics(int characteristics) {
+            return Spliterators.hasCharacteristics(this, characteristics);
+        }
+
+        @Override
+        public Comparator<? super Long> getComparator() {
+            throw new IllegalStateException();
+        }
+    }
+
+    private static final class DoubleNodeBuilder implements Node.OfDouble, Node.Builder.OfDouble {
+        private final List<DoubleBuffer> chunks = new ArrayList<>();
+        // the chunk that is currently filled, always the last one
+        private DoubleBuffer current;
+        private long count;
+        private long sizeHint;
+
+        DoubleNodeBuilder(long sizeHint) {
+            this.sizeHint = sizeHint;
+        }
+
+        private DoubleBuffer grow() {
+            int size = nextChunkSize(current == null ? -1 : current.capacity(), sizeHint - count);
+            DoubleBuffer chunk = allocate(size, 3).asDoubleBuffer();
+            chunks.add(chunk);
+            return current = chunk;
+        }
+
+        private int chunkSize(int i) {
+            DoubleBuffer chunk = chunks.get(i);
+            return chunk == current ? chunk.position() : chunk.capacity();
+        }
+
+        // Node.Builder
+
+        @Override
+        public void begin(long size) {
+            chunks.clear();
+            current = null;
+            count = 0L;
+            if (size >= 0L) {
+                sizeHint = size;
+            }
+        }
+
+        @Override
+        public void accept(double value) {
+            DoubleBuffer chunk;
+            if ((chunk = current) == null || !chunk.hasRemaining()) {
+                chunk = grow();
+            }
+            chunk.put(value);
+            count++;
+        }
+
+        @Override
+        public void accept(Double t) {
+            SinkDefaults.OfDouble.accept(this, t);
+        }
+
+        @Override
+        public void accept(int value) {
+            SinkDefaults.accept(this, value);
+        }
+
+        @Override
+        public void accept(long value) {
+            SinkDefaults.accept(this, value);
+        }
+
+        @Override
+        public void end() {
+        }
+
+        @Override
+        public boolean cancellationRequested() {
+            return false;
+        }
+
+        @Override
+        public Node.OfDouble build() {
+            return this;
+        }
+
+        // Node
+
+        @Override
+        public long count() {
+            return count;
+        }
+
+        @Override
+        public Spliterator.OfDouble spliterator() {
+            int n = chunks.size();
+            if (n == 0) {
+                return Spliterators.emptyDoubleSpliterator();
+            }
+            return new DoubleChunkSpliterator(chunks.toArray(new DoubleBuffer[n]), 0, n - 1, 0, chunkSize(n - 1));
+        }
+
+        @Override
+        public void forEach(DoubleConsumer consumer) {
+            for (int i = 0, n = chunks.size(); i < n; i++) {
+                DoubleBuffer chunk = chunks.get(i);
+                for (int j = 0, size = chunkSize(i); j < size; j++) {
+                    consumer.accept(chunk.get(j));
+                }
+            }
+        }
+
+        @Override
+        public void forEach(Consumer<? super Double> consumer) {
+            Nodes.OfDouble.forEach(this, consumer);
+        }
+
+        @Override
+        public void copyInto(double[] array, int offset) {
+            if (offset < 0 || offset + count > array.length) {
+                throw new IndexOutOfBoundsException("does not fit");
+            }
+            for (int i = 0, n = chunks.size(); i < n; i++) {
+                DoubleBuffer chunk = chunks.get(i).duplicate();
+                int size = chunkSize(i);
+                // the cast keeps the byte code compatible with pre-Java 9
+                ((Buffer) chunk).position(0);
+                chunk.get(array, offset, size);
+                offset += size;
+            }
+        }
+
+        @Override
+        public void copyInto(Double[] boxed, int offset) {
+            Nodes.OfDouble.copyInto(this, boxed, offset);
+        }
+
+        @Override
+        public double[] asPrimitiveArray() {
+            if (count >= Nodes.MAX_ARRAY_SIZE) {
+                throw new IllegalArgumentException(Nodes.BAD_SIZE);
+            }
+            double[] array = new double[(int) count];
+            copyInto(array, 0);
+            return array;
+        }
+
+        @Override
+        public Double[] asArray(IntFunction<Double[]> generator) {
+            return Nodes.OfPrimitive.asArray(this, generator);
+        }
+
+        @Override
+        public double[] newArray(int count) {
+            return Nodes.OfDouble.newArray(this, count);
+        }
+
+        @Override
+        public Node.OfDouble truncate(long from, long to, IntFunction<Double[]> generator) {
+            if (from == 0 && to == count) {
+                return this;
+            }
+            long size = to - from;
+            Spliterator.OfDouble spliterator = spliterator();
+            DoubleNodeBuilder nodeBuilder = new DoubleNodeBuilder(size);
+            nodeBuilder.begin(size);
+            for (long i = 0; i < from && spliterator.tryAdvance((DoubleConsumer) e -> { }); i++) { }
+            for (long i = 0; i < size && spliterator.tryAdvance((DoubleConsumer) nodeBuilder); i++) { }
+            nodeBuilder.end();
+            return nodeBuilder;
+        }
+
+        @Override
+        public int getChildCount() {
+            return Nodes.getChildCount();
+        }
+
+        @Override
+        public Node.OfDouble getChild(int i) {
+            return Nodes.OfPrimitive.getChild();
+        }
+
+        @Override
+        public StreamShape getShape() {
+            return Nodes.OfDouble.getShape();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("DoubleOffHeapNode[%d][%d chunks]", count, chunks.size());
+        }
+    }
+
+    /**
+     * A spliterator over a range of a sequence of {@code DoubleBuffer} chunks,
+     * using absolute gets. All chunks but the last one are full.
+     */
+    private static final class DoubleChunkSpliterator implements Spliterator.OfDouble {
+        private final DoubleBuffer[] chunks;
+        // the current chunk and the index into it, modified on advance/split
+        private int chunkIndex;
+        private int index;
+        private final int lastChunkIndex;
+        // one past the last index into the last chunk
+        private final int lastFence;
+
+        DoubleChunkSpliterator(DoubleBuffer[] chunks, int firstChunkIndex, int lastChunkIndex,
+                              int origin, int lastFence) {
+            this.chunks = chunks;
+            this.chunkIndex = firstChunkIndex;
+            this.lastChunkIndex = lastChunkIndex;
+            this.index = origin;
+            this.lastFence = lastFence;
+        }
+
+        @Override
+        public Spliterator.OfDouble trySplit() {
+            long half = estimateSize() >>> 1;
+            if (half == 0L) {
+                return null;
+            }
+            // find the chunk and index of the midpoint
+            int c = chunkIndex;
+            long i = index + half;
+            while (c < lastChunkIndex && i >= chunks[c].capacity()) {
+                i -= chunks[c].capacity();
+                c++;
+            }
+            Spliterator.OfDouble prefix = (i == 0L)
+                    ? new DoubleChunkSpliterator(chunks, chunkIndex, c - 1, index, chunks[c - 1].capacity())
+                    : new DoubleChunkSpliterator(chunks, chunkIndex, c, index, (int) i);
+            chunkIndex = c;
+            index = (int) i;
+            return prefix;
+        }
+
+        @Override
+        public void forEachRemaining(DoubleConsumer action) {
+            Objects.requireNonNull(action);
+            int i = index;
+            for (int c = chunkIndex; c <= lastChunkIndex; c++) {
+                DoubleBuffer b = chunks[c];
+                for (int hi = c == lastChunkIndex ? lastFence : b.capacity(); i < hi; i++) {
+                    action.accept(b.get(i));
+                }
+                i = 0;
+            }
+            chunkIndex = lastChunkIndex;
+            index = lastFence;
+        }
+
+        @Override
+        public boolean tryAdvance(DoubleConsumer action) {
+            Objects.requireNonNull(action);
+            if (chunkIndex < lastChunkIndex || index < lastFence) {
+                DoubleBuffer b = chunks[chunkIndex];
+                action.accept(b.get(index++));
+                if (index == b.capacity() && chunkIndex < lastChunkIndex) {
+                    chunkIndex++;
+                    index = 0;
+                }
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Double> action) {
+            return Spliterators.OfDouble.tryAdvance(this, action);
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super Double> action) {
+            Spliterators.OfDouble.forEachRemaining(this, action);
+        }
+
+        @Override
+        public long estimateSize() {
+            long size = (long) lastFence - index;
+            for (int c = chunkIndex; c < lastChunkIndex; c++) {
+                size += chunks[c].capacity();
+            }
+            return size;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.IMMUTABLE | Spliterator.SIZED | Spliterator.SUBSIZED;
+        }
+
+        @Override
+        public long getExactSizeIfKnown() {
+            return Spliterators.getExactSizeIfKnown(this);
+        }
+
+        @Override
+        public boolean hasCharacteristics(int characteristics) {
+            return Spliterators.hasCharacteristics(this, characteristics);
+        }
+
+        @Override
+        public Comparator<? super Double> getComparator() {
+            throw new IllegalStateException();
+        }
+    }
+}
@@ -72,6 +72,38 @@ abstract class PipelineHelper<P_OUT> {
      */
     abstract int getStreamAndOpFlags();
 
+    /**
+     * Gets the target size of the leaf tasks of a parallel evaluation of the
+     * pipeline, as set by
+     * {@link StreamSupport#targetLeafSize(BaseStream, long)}.
+     *
+     * @return the target leaf size, or {@code 0} if the leaf size should be
+     *         chosen by the implementation
+     * @since 1.5.7
+     */
+    abstract long getTargetLeafSize();
+
+    /**
+     * Gets the receiver of the execution metrics of the pipeline, as set by
+     * {@link StreamSupport#instrument(BaseStream, PipelineInstrumentation)}.
+     *
+     * @return the receiver of the metrics, or {@code null} if the pipeline
+     *         isn't instrumented
+     * @since 1.5.7
+     */
+    abstract PipelineInstrumentation getInstrumentation();
+
+    /**
+     * Gets the parallelism of the pool that parallel evaluations of the
+     * pipeline run in, as set by
+     * {@link StreamSupport#parallel(BaseStream, java8.util.concurrent.ForkJoinPool)},
+     * or of the common pool if the pipeline isn't bound to a pool.
+     *
+     * @return the targeted parallelism level
+     * @since 1.5.7
+     */
+    abstract int getParallelism();
+
     /**
      * Returns the exact output size of the portion of the output resulting from
      * applying the pipeline stages described by this {@code PipelineHelper} to
@@ -83,7 +115,9 @@ abstract class PipelineHelper<P_OUT> {
      * The exact output size is known if the {@code Spliterator} has the
      * {@code SIZED} characteristic, and the operation flags
      * {@link StreamOpFlag#SIZED} is known on the combined stream and operation
-     * flags.
+     * flags.  If {@link StreamOpFlag#SIZE_ADJUSTING} is known as well, the
+     * size of the {@code Spliterator} is adjusted by the operations that
+     * change the number of elements in a predictable way.
      *
      * @param spliterator the spliterator describing the relevant portion of the
      *        source data
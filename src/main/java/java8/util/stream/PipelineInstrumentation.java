@@ -0,0 +1,103 @@
+/*
+ * Written by Stefan Zobel and released to the
+ * public domain, as explained at
+ * http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package java8.util.stream;
+
+/**
+ * A receiver of execution metrics of stream pipelines, e.g. for exporting
+ * them to a monitoring system.
+ *
+ * <p>Instrumentation is opt-in: it is enabled for a single pipeline by
+ * {@link StreamSupport#instrument(BaseStream, PipelineInstrumentation)}, or
+ * for all pipelines that are created afterwards by
+ * {@link StreamSupport#setDefaultInstrumentation(PipelineInstrumentation)}.
+ * A pipeline without instrumentation pays a single {@code null} check per
+ * sink chain and per task, its elements flow through the same sinks as
+ * before.
+ *
+ * <p>An instrumented pipeline reports
+ * <ul>
+ * <li>for every stage, the number of elements that entered the stage and
+ * the time spent in the stage's sink, excluding the time spent in the
+ * downstream stages ({@link #stageCompleted(int, String, long, long)}).
+ * The terminal operation is reported as the stage following the last
+ * intermediate stage. A sequential evaluation reports each stage once,
+ * a parallel evaluation reports each stage once per leaf task;</li>
+ * <li>the fork-join tasks forked by a parallel evaluation
+ * ({@link #taskForked()});</li>
+ * <li>the size and duration of the leaf tasks of a parallel evaluation
+ * ({@link #leafCompleted(long, long)});</li>
+ * <li>the intermediate results that are buffered in {@code Node}s, e.g.
+ * for {@code toArray()} or, in a parallel evaluation, ahead of a stateful
+ * operation ({@link #nodeBuffered(long, long)}).</li>
+ * </ul>
+ *
+ * <p>Measuring the time spent in a sink requires two calls of
+ * {@link System#nanoTime()} per element and stage, which is significant
+ * for cheap operations. Adjacent stages of an instrumented pipeline are
+ * never fused.
+ *
+ * <p>All methods of this class do nothing by default. They may be called
+ * concurrently from several threads and should return quickly; exceptions
+ * thrown by them propagate to the caller of the terminal operation.
+ *
+ * @since 1.5.7
+ */
+public abstract class PipelineInstrumentation {
+
+    /**
+     * The assumed size of a reference in an array of references, in bytes.
+     */
+    static final int REFERENCE_BYTES = 8;
+
+    // the instrumentation of new pipelines, may be null
+    static volatile PipelineInstrumentation defaultInstrumentation;
+
+    /**
+     * Constructor for subclasses.
+     */
+    protected PipelineInstrumentation() {
+    }
+
+    /**
+     * Reports the metrics of a stage of a pipeline for one traversal of
+     * (a part of) the pipeline's source.
+     *
+     * @param depth the position of the stage in the pipeline, {@code 1} for
+     *        the first intermediate operation
+     * @param name a descriptive name of the stage's operation, e.g.
+     *        {@code "map"} or {@code "SortedOps.OfInt"}
+     * @param elements the number of elements that entered the stage
+     * @param nanos the time spent in the stage, in nanoseconds, excluding
+     *        the time spent in the downstream stages
+     */
+    public void stageCompleted(int depth, String name, long elements, long nanos) {
+    }
+
+    /**
+     * Reports that a parallel evaluation forked a task.
+     */
+    public void taskForked() {
+    }
+
+    /**
+     * Reports that a leaf task of a parallel evaluation completed.
+     *
+     * @param sizeEstimate the size estimate of the leaf's part of the source
+     * @param nanos the time spent in the leaf, in nanoseconds
+     */
+    public void leafCompleted(long sizeEstimate, long nanos) {
+    }
+
+    /**
+     * Reports that elements were buffered in a {@code Node}.
+     *
+     * @param elements the number of elements buffered
+     * @param bytes the estimated size of the buffered elements (not
+     *        including the objects referenced by a reference node), in bytes
+     */
+    public void nodeBuffered(long elements, long bytes) {
+    }
+}
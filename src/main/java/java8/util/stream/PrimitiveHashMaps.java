@@ -0,0 +1,436 @@
+/*
+ * Written by Stefan Zobel and released to the
+ * public domain, as explained at
+ * http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package java8.util.stream;
+
+import java8.util.Objects;
+import java8.util.function.BinaryOperator;
+import java8.util.function.ObjIntConsumer;
+import java8.util.function.ObjLongConsumer;
+import java8.util.function.Supplier;
+
+/**
+ * Hash maps from {@code int} and {@code long} keys to (non-null) values that
+ * store their keys unboxed in an open-addressing table with linear probing.
+ * These back the primitive-keyed grouping collectors (see
+ * {@link Collectors#groupingByInt(java8.util.function.ToIntFunction, Collector)}).
+ *
+ * <p>A {@code null} value marks a free slot. The tables are kept at most half
+ * full. The concurrent variants are partitioned by key hash into
+ * independently locked segments; two concurrent maps created with the same
+ * concurrency level have their keys in the same segments and are merged
+ * segment by segment.
+ *
+ * @since 1.5.7
+ */
+final class PrimitiveHashMaps {
+
+    private static final int MIN_CAPACITY = 16;
+    private static final int MAX_CAPACITY = 1 << 30;
+    private static final int MAX_SEGMENTS = 1 << 16;
+
+    // No instances
+    private PrimitiveHashMaps() { }
+
+    private static int thresholdFor(int capacity) {
+        return capacity == MAX_CAPACITY ? capacity - 1 : capacity >>> 1;
+    }
+
+    static int segmentsFor(int concurrencyLevel) {
+        int n = 1;
+        while (n < MAX_SEGMENTS && n < (concurrencyLevel << 2)) {
+            n <<= 1;
+        }
+        return n;
+    }
+
+    /** A hash map with {@code int} keys */
+    static final class OfInt<V> {
+        private int[] keys;
+        private Object[] values;
+        private int threshold;
+        private int size;
+
+        OfInt() {
+            keys = new int[MIN_CAPACITY];
+            values = new Object[MIN_CAPACITY];
+            threshold = thresholdFor(MIN_CAPACITY);
+        }
+
+        /**
+         * Returns the value for the given key, adding the (non-null) value
+         * provided by {@code supplier} first if there is none.
+         *
+         * @param key the key
+         * @param supplier the supplier of the value for an absent key
+         * @return the value for {@code key}
+         */
+        @SuppressWarnings("unchecked")
+        V computeIfAbsent(int key, Supplier<? extends V> supplier) {
+            int[] ks = keys;
+            Object[] vs = values;
+            int mask = ks.length - 1;
+            int i = PrimitiveHashSets.mix(key) & mask;
+            for (Object v; (v = vs[i]) != null; i = (i + 1) & mask) {
+                if (ks[i] == key) {
+                    return (V) v;
+                }
+            }
+            if (size >= threshold) {
+                if (ks.length == MAX_CAPACITY) {
+                    throw new IllegalArgumentException(Nodes.BAD_SIZE);
+                }
+                rehash();
+                return computeIfAbsent(key, supplier);
+            }
+            V value = Objects.requireNonNull(supplier.get());
+            ks[i] = key;
+            vs[i] = value;
+            size++;
+            return value;
+        }
+
+        int size() {
+            return size;
+        }
+
+        /**
+         * Performs the given action for each value and its key.
+         *
+         * @param action the action
+         */
+        @SuppressWarnings("unchecked")
+        void forEach(ObjIntConsumer<? super V> action) {
+            int[] ks = keys;
+            Object[] vs = values;
+            for (int i = 0; i < vs.length; i++) {
+                Object v = vs[i];
+                if (v != null) {
+                    action.accept((V) v, ks[i]);
+                }
+            }
+        }
+
+        /**
+         * Adds the mappings of {@code other} to this map, combining the
+         * values of keys present in both maps with {@code combiner} (the
+         * value of this map first).
+         *
+         * @param other the other map
+         * @param combiner the function combining two values of the same key
+         * @return this map
+         */
+        OfInt<V> merge(OfInt<V> other, final BinaryOperator<V> combiner) {
+            other.forEach((V v, int key) -> {
+                V old = computeIfAbsent(key, () -> v);
+                if (old != v) {
+                    put(key, Objects.requireNonNull(combiner.apply(old, v)));
+                }
+            });
+            return this;
+        }
+
+        private void put(int key, V value) {
+            int[] ks = keys;
+            int mask = ks.length - 1;
+            int i = PrimitiveHashSets.mix(key) & mask;
+            while (ks[i] != key || values[i] == null) {
+                i = (i + 1) & mask;
+            }
+            values[i] = value;
+        }
+
+        private void rehash() {
+            int[] oldKeys = keys;
+            Object[] oldValues = values;
+            int capacity = oldKeys.length << 1;
+            int[] ks = new int[capacity];
+            Object[] vs = new Object[capacity];
+            int mask = capacity - 1;
+            for (int j = 0; j < oldValues.length; j++) {
+                Object v = oldValues[j];
+                if (v != null) {
+                    int i = PrimitiveHashSets.mix(oldKeys[j]) & mask;
+                    while (vs[i] != null) {
+                        i = (i + 1) & mask;
+                    }
+                    ks[i] = oldKeys[j];
+                    vs[i] = v;
+                }
+            }
+            keys = ks;
+            values = vs;
+            threshold = thresholdFor(capacity);
+        }
+    }
+
+    /**
+     * A thread-safe hash map with {@code int} keys that is partitioned by
+     * key hash into {@link OfInt} segments. Callers lock the segment of a
+     * key (see {@link #segmentFor(int)}) while they access it.
+     */
+    static final class ConcurrentOfInt<V> {
+        private final OfInt<V>[] segments;
+        private final int shift;
+
+        @SuppressWarnings("unchecked")
+        ConcurrentOfInt(int concurrencyLevel) {
+            int n = segmentsFor(concurrencyLevel);
+            segments = (OfInt<V>[]) new OfInt<?>[n];
+            for (int i = 0; i < n; i++) {
+                segments[i] = new OfInt<>();
+            }
+            // use the high bits of the hash for the segment, the low bits
+            // for the slot within the segment
+            shift = 32 - Integer.numberOfTrailingZeros(n);
+        }
+
+        /**
+         * Returns the segment the given key belongs to.
+         *
+         * @param key the key
+         * @return the segment of {@code key}
+         */
+        OfInt<V> segmentFor(int key) {
+            return segments.length == 1 ? segments[0] : segments[PrimitiveHashSets.mix(key) >>> shift];
+        }
+
+        /**
+         * Returns the number of mappings. Must not be called concurrently
+         * with modifications.
+         *
+         * @return the number of mappings
+         */
+        int size() {
+            int size = 0;
+            for (OfInt<V> segment : segments) {
+                size += segment.size();
+            }
+            return size;
+        }
+
+        /**
+         * Performs the given action for each value and its key. Must not be
+         * called concurrently with modifications.
+         *
+         * @param action the action
+         */
+        void forEach(ObjIntConsumer<? super V> action) {
+            for (OfInt<V> segment : segments) {
+                segment.forEach(action);
+            }
+        }
+
+        /**
+         * Merges {@code other}, which must have been created with the same
+         * concurrency level, into this map segment by segment. Must not be
+         * called concurrently with modifications.
+         *
+         * @param other the other map
+         * @param combiner the function combining two values of the same key
+         * @return this map
+         */
+        ConcurrentOfInt<V> merge(ConcurrentOfInt<V> other, BinaryOperator<V> combiner) {
+            for (int i = 0; i < segments.length; i++) {
+                segments[i].merge(other.segments[i], combiner);
+            }
+            return this;
+        }
+    }
+
+    /** A hash map with {@code long} keys */
+    static final class OfLong<V> {
+        private long[] keys;
+        private Object[] values;
+        private int threshold;
+        private int size;
+
+        OfLong() {
+            keys = new long[MIN_CAPACITY];
+            values = new Object[MIN_CAPACITY];
+            threshold = thresholdFor(MIN_CAPACITY);
+        }
+
+        /**
+         * Returns the value for the given key, adding the (non-null) value
+         * provided by {@code supplier} first if there is none.
+         *
+         * @param key the key
+         * @param supplier the supplier of the value for an absent key
+         * @return the value for {@code key}
+         */
+        @SuppressWarnings("unchecked")
+        V computeIfAbsent(long key, Supplier<? extends V> supplier) {
+            long[] ks = keys;
+            Object[] vs = values;
+            int mask = ks.length - 1;
+            int i = PrimitiveHashSets.mix(key) & mask;
+            for (Object v; (v = vs[i]) != null; i = (i + 1) & mask) {
+                if (ks[i] == key) {
+                    return (V) v;
+                }
+            }
+            if (size >= threshold) {
+                if (ks.length == MAX_CAPACITY) {
+                    throw new IllegalArgumentException(Nodes.BAD_SIZE);
+                }
+                rehash();
+                return computeIfAbsent(key, supplier);
+            }
+            V value = Objects.requireNonNull(supplier.get());
+            ks[i] = key;
+            vs[i] = value;
+            size++;
+            return value;
+        }
+
+        int size() {
+            return size;
+        }
+
+        /**
+         * Performs the given action for each value and its key.
+         *
+         * @param action the action
+         */
+        @SuppressWarnings("unchecked")
+        void forEach(ObjLongConsumer<? super V> action) {
+            long[] ks = keys;
+            Object[] vs = values;
+            for (int i = 0; i < vs.length; i++) {
+                Object v = vs[i];
+                if (v != null) {
+                    action.accept((V) v, ks[i]);
+                }
+            }
+        }
+
+        /**
+         * Adds the mappings of {@code other} to this map, combining the
+         * values of keys present in both maps with {@code combiner} (the
+         * value of this map first).
+         *
+         * @param other the other map
+         * @param combiner the function combining two values of the same key
+         * @return this map
+         */
+        OfLong<V> merge(OfLong<V> other, final BinaryOperator<V> combiner) {
+            other.forEach((V v, long key) -> {
+                V old = computeIfAbsent(key, () -> v);
+                if (old != v) {
+                    put(key, Objects.requireNonNull(combiner.apply(old, v)));
+                }
+            });
+            return this;
+        }
+
+        private void put(long key, V value) {
+            long[] ks = keys;
+            int mask = ks.length - 1;
+            int i = PrimitiveHashSets.mix(key) & mask;
+            while (ks[i] != key || values[i] == null) {
+                i = (i + 1) & mask;
+            }
+            values[i] = value;
+        }
+
+        private void rehash() {
+            long[] oldKeys = keys;
+            Object[] oldValues = values;
+            int capacity = oldKeys.length << 1;
+            long[] ks = new long[capacity];
+            Object[] vs = new Object[capacity];
+            int mask = capacity - 1;
+            for (int j = 0; j < oldValues.length; j++) {
+                Object v = oldValues[j];
+                if (v != null) {
+                    int i = PrimitiveHashSets.mix(oldKeys[j]) & mask;
+                    while (vs[i] != null) {
+                        i = (i + 1) & mask;
+                    }
+                    ks[i] = oldKeys[j];
+                    vs[i] = v;
+                }
+            }
+            keys = ks;
+            values = vs;
+            threshold = thresholdFor(capacity);
+        }
+    }
+
+    /**
+     * A thread-safe hash map with {@code long} keys that is partitioned by
+     * key hash into {@link OfLong} segments. Callers lock the segment of a
+     * key (see {@link #segmentFor(long)}) while they access it.
+     */
+    static final class ConcurrentOfLong<V> {
+        private final OfLong<V>[] segments;
+        private final int shift;
+
+        @SuppressWarnings("unchecked")
+        ConcurrentOfLong(int concurrencyLevel) {
+            int n = segmentsFor(concurrencyLevel);
+            segments = (OfLong<V>[]) new OfLong<?>[n];
+            for (int i = 0; i < n; i++) {
+                segments[i] = new OfLong<>();
+            }
+            // use the high bits of the hash for the segment, the low bits
+            // for the slot within the segment
+            shift = 32 - Integer.numberOfTrailingZeros(n);
+        }
+
+        /**
+         * Returns the segment the given key belongs to.
+         *
+         * @param key the key
+         * @return the segment of {@code key}
+         */
+        OfLong<V> segmentFor(long key) {
+            return segments.length == 1 ? segments[0] : segments[PrimitiveHashSets.mix(key) >>> shift];
+        }
+
+        /**
+         * Returns the number of mappings. Must not be called concurrently
+         * with modifications.
+         *
+         * @return the number of mappings
+         */
+        int size() {
+            int size = 0;
+            for (OfLong<V> segment : segments) {
+                size += segment.size();
+            }
+            return size;
+        }
+
+        /**
+         * Performs the given action for each value and its key. Must not be
+         * called concurrently with modifications.
+         *
+         * @param action the action
+         */
+        void forEach(ObjLongConsumer<? super V> action) {
+            for (OfLong<V> segment : segments) {
+                segment.forEach(action);
+            }
+        }
+
+        /**
+         * Merges {@code other}, which must have been created with the same
+         * concurrency level, into this map segment by segment. Must not be
+         * called concurrently with modifications.
+         *
+         * @param other the other map
+         * @param combiner the function combining two values of the same key
+         * @return this map
+         */
+        ConcurrentOfLong<V> merge(ConcurrentOfLong<V> other, BinaryOperator<V> combiner) {
+            for (int i = 0; i < segments.length; i++) {
+                segments[i].merge(other.segments[i], combiner);
+            }
+            return this;
+        }
+    }
+}
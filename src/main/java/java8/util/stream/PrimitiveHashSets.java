@@ -0,0 +1,429 @@
+/*
+ * Written by Stefan Zobel and released to the
+ * public domain, as explained at
+ * http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package java8.util.stream;
+
+/**
+ * Hash sets of {@code int} and {@code long} values that store their elements
+ * unboxed in an open-addressing table with linear probing. These back the
+ * primitive {@code distinct()} operations (see {@link DistinctOps}).
+ *
+ * <p>The value {@code 0} marks a free slot and is therefore tracked
+ * separately. The tables are kept at most half full.
+ *
+ * @since 1.5.7
+ */
+final class PrimitiveHashSets {
+
+    private static final int MIN_CAPACITY = 16;
+    private static final int MAX_CAPACITY = 1 << 30;
+    private static final int MAX_SEGMENTS = 1 << 16;
+
+    // No instances
+    private PrimitiveHashSets() { }
+
+    static int mix(int v) {
+        int h = v * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    static int mix(long v) {
+        long h = v * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        int cap = MIN_CAPACITY;
+        while (cap < MAX_CAPACITY && (cap >>> 1) <= expectedSize) {
+            cap <<= 1;
+        }
+        return cap;
+    }
+
+    private static int thresholdFor(int capacity) {
+        // at the maximum capacity the table is allowed to fill up (but one slot
+        // must always stay free for unsuccessful lookups to terminate)
+        return capacity == MAX_CAPACITY ? capacity - 1 : capacity >>> 1;
+    }
+
+    /** A hash set of {@code int} values */
+    static final class OfInt {
+        private int[] table;
+        private int threshold;
+        private int size; // excluding 0
+        private boolean hasZero;
+
+        OfInt() {
+            this(0);
+        }
+
+        OfInt(int expectedSize) {
+            table = new int[tableSizeFor(expectedSize)];
+            threshold = thresholdFor(table.length);
+        }
+
+        /**
+         * Adds the given value to this set if it is not already present.
+         *
+         * @param v the value
+         * @return {@code true} if this set did not already contain {@code v}
+         */
+        boolean add(int v) {
+            if (v == 0) {
+                if (hasZero) {
+                    return false;
+                }
+                return hasZero = true;
+            }
+            int[] tab = table;
+            int mask = tab.length - 1;
+            int i = mix(v) & mask;
+            for (int e; (e = tab[i]) != 0; i = (i + 1) & mask) {
+                if (e == v) {
+                    return false;
+                }
+            }
+            if (size >= threshold) {
+                if (tab.length == MAX_CAPACITY) {
+                    throw new IllegalArgumentException(Nodes.BAD_SIZE);
+                }
+                rehash();
+                return add(v);
+            }
+            tab[i] = v;
+            size++;
+            return true;
+        }
+
+        /**
+         * Returns {@code true} if this set contains the given value.
+         *
+         * @param v the value
+         * @return {@code true} if this set contains {@code v}
+         */
+        boolean contains(int v) {
+            if (v == 0) {
+                return hasZero;
+            }
+            int[] tab = table;
+            int mask = tab.length - 1;
+            for (int i = mix(v) & mask, e; (e = tab[i]) != 0; i = (i + 1) & mask) {
+                if (e == v) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        int size() {
+            return hasZero ? size + 1 : size;
+        }
+
+        /**
+         * Returns the elements of this set, in no particular order.
+         *
+         * @return the elements of this set
+         */
+        int[] toArray() {
+            int[] array = new int[size()];
+            copyInto(array, 0);
+            return array;
+        }
+
+        int copyInto(int[] array, int offset) {
+            if (hasZero) {
+                array[offset++] = 0;
+            }
+            for (int e : table) {
+                if (e != 0) {
+                    array[offset++] = e;
+                }
+            }
+            return offset;
+        }
+
+        private void rehash() {
+            int[] old = table;
+            int[] tab = new int[old.length << 1];
+            int mask = tab.length - 1;
+            for (int e : old) {
+                if (e != 0) {
+                    int i = mix(e) & mask;
+                    while (tab[i] != 0) {
+                        i = (i + 1) & mask;
+                    }
+                    tab[i] = e;
+                }
+            }
+            table = tab;
+            threshold = thresholdFor(tab.length);
+        }
+    }
+
+    /** A hash set of {@code long} values */
+    static final class OfLong {
+        private long[] table;
+        private int threshold;
+        private int size; // excluding 0
+        private boolean hasZero;
+
+        OfLong() {
+            this(0);
+        }
+
+        OfLong(int expectedSize) {
+            table = new long[tableSizeFor(expectedSize)];
+            threshold = thresholdFor(table.length);
+        }
+
+        /**
+         * Adds the given value to this set if it is not already present.
+         *
+         * @param v the value
+         * @return {@code true} if this set did not already contain {@code v}
+         */
+        boolean add(long v) {
+            if (v == 0L) {
+                if (hasZero) {
+                    return false;
+                }
+                return hasZero = true;
+            }
+            long[] tab = table;
+            int mask = tab.length - 1;
+            int i = mix(v) & mask;
+            for (long e; (e = tab[i]) != 0L; i = (i + 1) & mask) {
+                if (e == v) {
+                    return false;
+                }
+            }
+            if (size >= threshold) {
+                if (tab.length == MAX_CAPACITY) {
+                    throw new IllegalArgumentException(Nodes.BAD_SIZE);
+                }
+                rehash();
+                return add(v);
+            }
+            tab[i] = v;
+            size++;
+            return true;
+        }
+
+        /**
+         * Returns {@code true} if this set contains the given value.
+         *
+         * @param v the value
+         * @return {@code true} if this set contains {@code v}
+         */
+        boolean contains(long v) {
+            if (v == 0L) {
+                return hasZero;
+            }
+            long[] tab = table;
+            int mask = tab.length - 1;
+            int i = mix(v) & mask;
+            for (long e; (e = tab[i]) != 0L; i = (i + 1) & mask) {
+                if (e == v) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        int size() {
+            return hasZero ? size + 1 : size;
+        }
+
+        /**
+         * Returns the elements of this set, in no particular order.
+         *
+         * @return the elements of this set
+         */
+        long[] toArray() {
+            long[] array = new long[size()];
+            copyInto(array, 0);
+            return array;
+        }
+
+        int copyInto(long[] array, int offset) {
+            if (hasZero) {
+                array[offset++] = 0L;
+            }
+            for (long e : table) {
+                if (e != 0L) {
+                    array[offset++] = e;
+                }
+            }
+            return offset;
+        }
+
+        private void rehash() {
+            long[] old = table;
+            long[] tab = new long[old.length << 1];
+            int mask = tab.length - 1;
+            for (long e : old) {
+                if (e != 0L) {
+                    int i = mix(e) & mask;
+                    while (tab[i] != 0L) {
+                        i = (i + 1) & mask;
+                    }
+                    tab[i] = e;
+                }
+            }
+            table = tab;
+            threshold = thresholdFor(tab.length);
+        }
+    }
+
+    /**
+     * A hash set of {@code int} values that remembers the order in which its
+     * elements were first added.
+     */
+    static final class LinkedOfInt {
+        private final OfInt seen = new OfInt();
+        private final SpinedBuffer.OfInt elements = new SpinedBuffer.OfInt();
+
+        void add(int v) {
+            if (seen.add(v)) {
+                elements.accept(v);
+            }
+        }
+
+        LinkedOfInt addAll(LinkedOfInt other) {
+            other.elements.forEach((int v) -> add(v));
+            return this;
+        }
+
+        int[] toArray() {
+            return elements.asPrimitiveArray();
+        }
+    }
+
+    /**
+     * A hash set of {@code long} values that remembers the order in which its
+     * elements were first added.
+     */
+    static final class LinkedOfLong {
+        private final OfLong seen = new OfLong();
+        private final SpinedBuffer.OfLong elements = new SpinedBuffer.OfLong();
+
+        void add(long v) {
+            if (seen.add(v)) {
+                elements.accept(v);
+            }
+        }
+
+        LinkedOfLong addAll(LinkedOfLong other) {
+            other.elements.forEach((long v) -> add(v));
+            return this;
+        }
+
+        long[] toArray() {
+            return elements.asPrimitiveArray();
+        }
+    }
+
+    /**
+     * A thread-safe hash set of {@code int} values that is partitioned by
+     * hash into independently locked {@link OfInt} segments.
+     */
+    static final class ConcurrentOfInt {
+        private final OfInt[] segments;
+        private final int shift;
+
+        ConcurrentOfInt(int concurrencyLevel) {
+            int n = 1;
+            while (n < MAX_SEGMENTS && n < (concurrencyLevel << 2)) {
+                n <<= 1;
+            }
+            segments = new OfInt[n];
+            for (int i = 0; i < n; i++) {
+                segments[i] = new OfInt();
+            }
+            // use the high bits of the hash for the segment, the low bits
+            // for the slot within the segment
+            shift = 32 - Integer.numberOfTrailingZeros(n);
+        }
+
+        boolean add(int v) {
+            OfInt segment = segments.length == 1 ? segments[0] : segments[mix(v) >>> shift];
+            synchronized (segment) {
+                return segment.add(v);
+            }
+        }
+
+        /**
+         * Returns the elements of this set, in no particular order. Must not
+         * be called concurrently with {@link #add(int)}.
+         *
+         * @return the elements of this set
+         */
+        int[] toArray() {
+            long size = 0L;
+            for (OfInt segment : segments) {
+                size += segment.size();
+            }
+            if (size >= Nodes.MAX_ARRAY_SIZE) {
+                throw new IllegalArgumentException(Nodes.BAD_SIZE);
+            }
+            int[] array = new int[(int) size];
+            int offset = 0;
+            for (OfInt segment : segments) {
+                offset = segment.copyInto(array, offset);
+            }
+            return array;
+        }
+    }
+
+    /**
+     * A thread-safe hash set of {@code long} values that is partitioned by
+     * hash into independently locked {@link OfLong} segments.
+     */
+    static final class ConcurrentOfLong {
+        private final OfLong[] segments;
+        private final int shift;
+
+        ConcurrentOfLong(int concurrencyLevel) {
+            int n = 1;
+            while (n < MAX_SEGMENTS && n < (concurrencyLevel << 2)) {
+                n <<= 1;
+            }
+            segments = new OfLong[n];
+            for (int i = 0; i < n; i++) {
+                segments[i] = new OfLong();
+            }
+            shift = 32 - Integer.numberOfTrailingZeros(n);
+        }
+
+        boolean add(long v) {
+            OfLong segment = segments.length == 1 ? segments[0] : segments[mix(v) >>> shift];
+            synchronized (segment) {
+                return segment.add(v);
+            }
+        }
+
+        /**
+         * Returns the elements of this set, in no particular order. Must not
+         * be called concurrently with {@link #add(long)}.
+         *
+         * @return the elements of this set
+         */
+        long[] toArray() {
+            long size = 0L;
+            for (OfLong segment : segments) {
+                size += segment.size();
+            }
+            if (size >= Nodes.MAX_ARRAY_SIZE) {
+                throw new IllegalArgumentException(Nodes.BAD_SIZE);
+            }
+            long[] array = new long[(int) size];
+            int offset = 0;
+            for (OfLong segment : segments) {
+                offset = segment.copyInto(array, offset);
+            }
+            return array;
+        }
+    }
+}
@@ -348,16 +348,18 @@ final class ReduceOps {
             @Override
             public <P_IN> Long evaluateSequential(PipelineHelper<T> helper,
                                                   Spliterator<P_IN> spliterator) {
-                if (StreamOpFlag.SIZED.isKnown(helper.getStreamAndOpFlags()))
-                    return spliterator.getExactSizeIfKnown();
+                long size = helper.exactOutputSizeIfKnown(spliterator);
+                if (size != -1L)
+                    return size;
                 return super.evaluateSequential(helper, spliterator);
             }
 
             @Override
             public <P_IN> Long evaluateParallel(PipelineHelper<T> helper,
                                                 Spliterator<P_IN> spliterator) {
-                if (StreamOpFlag.SIZED.isKnown(helper.getStreamAndOpFlags()))
-                    return spliterator.getExactSizeIfKnown();
+                long size = helper.exactOutputSizeIfKnown(spliterator);
+                if (size != -1L)
+                    return size;
                 return super.evaluateParallel(helper, spliterator);
             }
 
@@ -594,16 +596,18 @@ final class ReduceOps {
             @Override
             public <P_IN> Long evaluateSequential(PipelineHelper<Integer> helper,
                                                   Spliterator<P_IN> spliterator) {
-                if (StreamOpFlag.SIZED.isKnown(helper.getStreamAndOpFlags()))
-                    return spliterator.getExactSizeIfKnown();
+                long size = helper.exactOutputSizeIfKnown(spliterator);
+                if (size != -1L)
+                    return size;
                 return super.evaluateSequential(helper, spliterator);
             }
 
             @Override
             public <P_IN> Long evaluateParallel(PipelineHelper<Integer> helper,
                                                 Spliterator<P_IN> spliterator) {
-                if (StreamOpFlag.SIZED.isKnown(helper.getStreamAndOpFlags()))
-                    return spliterator.getExactSizeIfKnown();
+                long size = helper.exactOutputSizeIfKnown(spliterator);
+                if (size != -1L)
+                    return size;
                 return super.evaluateParallel(helper, spliterator);
             }
 
@@ -614,6 +618,22 @@ final class ReduceOps {
         };
     }
 
+    /**
+     * Constructs a {@code TerminalOp} that computes the arithmetic mean of
+     * {@code int} values, accumulating the sum and the count in scalar
+     * fields of the sink.
+     *
+     * @return a {@code TerminalOp} implementing the average
+     * @since 1.5.7
+     */
+    public static TerminalOp<Integer, OptionalDouble>
+    makeIntAveraging() {
+        return new ReduceOp<Integer, OptionalDouble, AveragingSink<Integer>>(StreamShape.INT_VALUE) {
+            @Override
+            public AveragingSink<Integer> makeSink() { return new AveragingSink.OfInt(); }
+        };
+    }
+
     /**
      * Constructs a {@code TerminalOp} that implements a functional reduce on
      * {@code long} values.
@@ -840,16 +860,18 @@ final class ReduceOps {
             @Override
             public <P_IN> Long evaluateSequential(PipelineHelper<Long> helper,
                                                   Spliterator<P_IN> spliterator) {
-                if (StreamOpFlag.SIZED.isKnown(helper.getStreamAndOpFlags()))
-                    return spliterator.getExactSizeIfKnown();
+                long size = helper.exactOutputSizeIfKnown(spliterator);
+                if (size != -1L)
+                    return size;
                 return super.evaluateSequential(helper, spliterator);
             }
 
             @Override
             public <P_IN> Long evaluateParallel(PipelineHelper<Long> helper,
                                                 Spliterator<P_IN> spliterator) {
-                if (StreamOpFlag.SIZED.isKnown(helper.getStreamAndOpFlags()))
-                    return spliterator.getExactSizeIfKnown();
+                long size = helper.exactOutputSizeIfKnown(spliterator);
+                if (size != -1L)
+                    return size;
                 return super.evaluateParallel(helper, spliterator);
             }
 
@@ -860,6 +882,22 @@ final class ReduceOps {
         };
     }
 
+    /**
+     * Constructs a {@code TerminalOp} that computes the arithmetic mean of
+     * {@code long} values, accumulating the sum and the count in scalar
+     * fields of the sink.
+     *
+     * @return a {@code TerminalOp} implementing the average
+     * @since 1.5.7
+     */
+    public static TerminalOp<Long, OptionalDouble>
+    makeLongAveraging() {
+        return new ReduceOp<Long, OptionalDouble, AveragingSink<Long>>(StreamShape.LONG_VALUE) {
+            @Override
+            public AveragingSink<Long> makeSink() { return new AveragingSink.OfLong(); }
+        };
+    }
+
     /**
      * Constructs a {@code TerminalOp} that implements a functional reduce on
      * {@code double} values.
@@ -1086,16 +1124,18 @@ final class ReduceOps {
             @Override
             public <P_IN> Long evaluateSequential(PipelineHelper<Double> helper,
                                                   Spliterator<P_IN> spliterator) {
-                if (StreamOpFlag.SIZED.isKnown(helper.getStreamAndOpFlags()))
-                    return spliterator.getExactSizeIfKnown();
+                long size = helper.exactOutputSizeIfKnown(spliterator);
+                if (size != -1L)
+                    return size;
                 return super.evaluateSequential(helper, spliterator);
             }
 
             @Override
             public <P_IN> Long evaluateParallel(PipelineHelper<Double> helper,
                                                 Spliterator<P_IN> spliterator) {
-                if (StreamOpFlag.SIZED.isKnown(helper.getStreamAndOpFlags()))
-                    return spliterator.getExactSizeIfKnown();
+                long size = helper.exactOutputSizeIfKnown(spliterator);
+                if (size != -1L)
+                    return size;
                 return super.evaluateParallel(helper, spliterator);
             }
 
@@ -1106,6 +1146,37 @@ final class ReduceOps {
         };
     }
 
+    /**
+     * Constructs a {@code TerminalOp} that computes the compensated sum of
+     * {@code double} values, accumulating in scalar fields of the sink.
+     *
+     * @return a {@code TerminalOp} implementing the sum
+     * @since 1.5.7
+     */
+    public static TerminalOp<Double, Double>
+    makeDoubleSumming() {
+        return new ReduceOp<Double, Double, DoubleSummingSink<Double>>(StreamShape.DOUBLE_VALUE) {
+            @Override
+            public DoubleSummingSink<Double> makeSink() { return new DoubleSummingSink.Sum(); }
+        };
+    }
+
+    /**
+     * Constructs a {@code TerminalOp} that computes the arithmetic mean of
+     * {@code double} values, using a compensated sum accumulated in scalar
+     * fields of the sink.
+     *
+     * @return a {@code TerminalOp} implementing the average
+     * @since 1.5.7
+     */
+    public static TerminalOp<Double, OptionalDouble>
+    makeDoubleAveraging() {
+        return new ReduceOp<Double, OptionalDouble, DoubleSummingSink<OptionalDouble>>(StreamShape.DOUBLE_VALUE) {
+            @Override
+            public DoubleSummingSink<OptionalDouble> makeSink() { return new DoubleSummingSink.Average(); }
+        };
+    }
+
     /**
      * A sink that counts elements
      */
@@ -1197,6 +1268,143 @@ final class ReduceOps {
         }
     }
 
+    /**
+     * A sink that sums {@code int} or {@code long} elements and counts them
+     * in order to compute their average. The sink is its own accumulator.
+     */
+    abstract static class AveragingSink<T>
+            extends SumAccumulators.OfLong
+            implements AccumulatingSink<T, OptionalDouble, AveragingSink<T>> {
+
+        @Override
+        public void begin(long size) {
+            sum = 0L;
+            count = 0L;
+        }
+
+        @Override
+        public OptionalDouble get() {
+            return count > 0L ? OptionalDouble.of(average()) : OptionalDouble.empty();
+        }
+
+        @Override
+        public void combine(AveragingSink<T> other) {
+            merge(other);
+        }
+
+        @Override
+        public void end() {
+        }
+
+        @Override
+        public boolean cancellationRequested() {
+            return false;
+        }
+
+        @Override
+        public void accept(double value) {
+            SinkDefaults.accept(this, value);
+        }
+
+        static final class OfInt extends AveragingSink<Integer> implements Sink.OfInt {
+            @Override
+            public void accept(int t) {
+                add(t);
+            }
+
+            @Override
+            public void accept(long value) {
+                SinkDefaults.accept(this, value);
+            }
+
+            @Override
+            public void accept(Integer i) {
+                SinkDefaults.OfInt.accept(this, i);
+            }
+        }
+
+        static final class OfLong extends AveragingSink<Long> implements Sink.OfLong {
+            @Override
+            public void accept(long t) {
+                add(t);
+            }
+
+            @Override
+            public void accept(int value) {
+                SinkDefaults.accept(this, value);
+            }
+
+            @Override
+            public void accept(Long l) {
+                SinkDefaults.OfLong.accept(this, l);
+            }
+        }
+    }
+
+    /**
+     * A sink that computes the compensated sum of {@code double} elements,
+     * finished as their sum or their average. The sink is its own
+     * accumulator.
+     */
+    abstract static class DoubleSummingSink<R>
+            extends SumAccumulators.OfDouble
+            implements AccumulatingSink<Double, R, DoubleSummingSink<R>>, Sink.OfDouble {
+
+        @Override
+        public void begin(long size) {
+            sum = compensation = simpleSum = 0.0d;
+            count = 0L;
+        }
+
+        @Override
+        public void accept(double t) {
+            add(t);
+        }
+
+        @Override
+        public void accept(Double d) {
+            SinkDefaults.OfDouble.accept(this, d);
+        }
+
+        @Override
+        public void combine(DoubleSummingSink<R> other) {
+            merge(other);
+        }
+
+        @Override
+        public void end() {
+        }
+
+        @Override
+        public boolean cancellationRequested() {
+            return false;
+        }
+
+        @Override
+        public void accept(int value) {
+            SinkDefaults.accept(this, value);
+        }
+
+        @Override
+        public void accept(long value) {
+            SinkDefaults.accept(this, value);
+        }
+
+        static final class Sum extends DoubleSummingSink<Double> {
+            @Override
+            public Double get() {
+                return sum();
+            }
+        }
+
+        static final class Average extends DoubleSummingSink<OptionalDouble> {
+            @Override
+            public OptionalDouble get() {
+                return count > 0L ? OptionalDouble.of(average()) : OptionalDouble.empty();
+            }
+        }
+    }
+
     /**
      * A type of {@code TerminalSink} that implements an associative reducing
      * operation on elements of type {@code T} and producing a result of type
@@ -24,10 +24,18 @@
  */
 package java8.util.stream;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
 import java8.util.Objects;
 import java8.util.Spliterator;
 import java8.util.Spliterators;
+import java8.util.function.BiConsumer;
 import java8.util.function.Consumer;
+import java8.util.function.DoubleConsumer;
+import java8.util.function.IntConsumer;
+import java8.util.function.LongConsumer;
 import java8.util.function.Predicate;
 import java8.util.function.Supplier;
 import java8.util.function.UnaryOperator;
@@ -36,7 +44,9 @@ import java8.util.stream.Stream.Builder;
 /**
  * A place for static default implementations of the new Java 8/9 static
  * interface methods and default interface methods ({@code takeWhile()},
- * {@code dropWhile()}) in the {@link Stream} interface.
+ * {@code dropWhile()}, {@code mapMulti()}, {@code mapMultiToInt()},
+ * {@code mapMultiToLong()}, {@code mapMultiToDouble()}, {@code chunked()},
+ * {@code windowed()}, {@code batched()}) in the {@link Stream} interface.
  */
 public final class RefStreams {
 
@@ -201,6 +211,251 @@ public final class RefStreams {
                 s.isParallel()).onClose(StreamSupport.closeHandler(s));
     }
 
+    /**
+     * Returns a stream consisting of the results of replacing each element of
+     * the passed stream with multiple elements, specifically zero or more elements.
+     * Replacement is performed by applying the provided mapping function to each
+     * element in conjunction with a {@linkplain Consumer consumer} argument
+     * that accepts replacement elements. The mapping function calls the consumer
+     * zero or more times to provide the replacement elements.
+     *
+     * <p>This is an <a href="package-summary.html#StreamOps">intermediate
+     * operation</a>.
+     *
+     * <p>If the {@linkplain Consumer consumer} argument is used outside the scope of
+     * its application to the mapping function, the results are undefined.
+     *
+     * <p><b>Implementation Requirements:</b><br>
+     * The default implementation obtains the {@link Stream#spliterator() spliterator}
+     * of the passed stream, creates a new stream over that spliterator and applies
+     * {@link Stream#mapMulti(BiConsumer) mapMulti} to it.  The returned stream
+     * preserves the execution characteristics of the passed stream (namely parallel
+     * or sequential execution as per {@link Stream#isParallel() isParallel()}).
+     * When the returned stream is closed, the close handlers for both
+     * the returned and the passed stream are invoked.
+     *
+     * @param <T> the type of the stream elements
+     * @param <R> the element type of the new stream
+     * @param stream the stream to wrap for the {@code mapMulti()} operation
+     * @param mapper a <a href="package-summary.html#NonInterference">non-interfering</a>,
+     *               <a href="package-summary.html#Statelessness">stateless</a>
+     *               function that generates replacement elements
+     * @return the new stream
+     * @see Stream#mapMulti(BiConsumer)
+     * @since 1.5.7
+     */
+    public static <T, R> Stream<R> mapMulti(Stream<? extends T> stream,
+            BiConsumer<? super T, ? super Consumer<R>> mapper) {
+        Objects.requireNonNull(stream);
+        Objects.requireNonNull(mapper);
+
+        @SuppressWarnings("unchecked")
+        Stream<T> s = (Stream<T>) stream;
+
+        return StreamSupport.stream(s.spliterator(), s.isParallel())
+                .onClose(StreamSupport.closeHandler(s)).mapMulti(mapper);
+    }
+
+    /**
+     * Returns an {@code IntStream} consisting of the results of replacing each
+     * element of the passed stream with multiple elements, specifically zero or
+     * more elements, see {@link #mapMulti(Stream, BiConsumer) mapMulti}.
+     *
+     * <p>This is an <a href="package-summary.html#StreamOps">intermediate
+     * operation</a>.
+     *
+     * <p><b>Implementation Requirements:</b><br>
+     * The default implementation obtains the {@link Stream#spliterator() spliterator}
+     * of the passed stream, creates a new stream over that spliterator and applies
+     * {@link Stream#mapMultiToInt(BiConsumer) mapMultiToInt} to it, with the same
+     * execution characteristics and close handlers as {@code mapMulti}.
+     *
+     * @param <T> the type of the stream elements
+     * @param stream the stream to wrap for the {@code mapMultiToInt()} operation
+     * @param mapper a <a href="package-summary.html#NonInterference">non-interfering</a>,
+     *               <a href="package-summary.html#Statelessness">stateless</a>
+     *               function that generates replacement elements
+     * @return the new stream
+     * @see Stream#mapMultiToInt(BiConsumer)
+     * @since 1.5.7
+     */
+    public static <T> IntStream mapMultiToInt(Stream<? extends T> stream,
+            BiConsumer<? super T, ? super IntConsumer> mapper) {
+        Objects.requireNonNull(stream);
+        Objects.requireNonNull(mapper);
+
+        @SuppressWarnings("unchecked")
+        Stream<T> s = (Stream<T>) stream;
+
+        return StreamSupport.stream(s.spliterator(), s.isParallel())
+                .onClose(StreamSupport.closeHandler(s)).mapMultiToInt(mapper);
+    }
+
+    /**
+     * Returns a {@code LongStream} consisting of the results of replacing each
+     * element of the passed stream with multiple elements, specifically zero or
+     * more elements, see {@link #mapMulti(Stream, BiConsumer) mapMulti}.
+     *
+     * <p>This is an <a href="package-summary.html#StreamOps">intermediate
+     * operation</a>.
+     *
+     * <p><b>Implementation Requirements:</b><br>
+     * The default implementation obtains the {@link Stream#spliterator() spliterator}
+     * of the passed stream, creates a new stream over that spliterator and applies
+     * {@link Stream#mapMultiToLong(BiConsumer) mapMultiToLong} to it, with the same
+     * execution characteristics and close handlers as {@code mapMulti}.
+     *
+     * @param <T> the type of the stream elements
+     * @param stream the stream to wrap for the {@code mapMultiToLong()} operation
+     * @param mapper a <a href="package-summary.html#NonInterference">non-interfering</a>,
+     *               <a href="package-summary.html#Statelessness">stateless</a>
+     *               function that generates replacement elements
+     * @return the new stream
+     * @see Stream#mapMultiToLong(BiConsumer)
+     * @since 1.5.7
+     */
+    public static <T> LongStream mapMultiToLong(Stream<? extends T> stream,
+            BiConsumer<? super T, ? super LongConsumer> mapper) {
+        Objects.requireNonNull(stream);
+        Objects.requireNonNull(mapper);
+
+        @SuppressWarnings("unchecked")
+        Stream<T> s = (Stream<T>) stream;
+
+        return StreamSupport.stream(s.spliterator(), s.isParallel())
+                .onClose(StreamSupport.closeHandler(s)).mapMultiToLong(mapper);
+    }
+
+    /**
+     * Returns a {@code DoubleStream} consisting of the results of replacing each
+     * element of the passed stream with multiple elements, specifically zero or
+     * more elements, see {@link #mapMulti(Stream, BiConsumer) mapMulti}.
+     *
+     * <p>This is an <a href="package-summary.html#StreamOps">intermediate
+     * operation</a>.
+     *
+     * <p><b>Implementation Requirements:</b><br>
+     * The default implementation obtains the {@link Stream#spliterator() spliterator}
+     * of the passed stream, creates a new stream over that spliterator and applies
+     * {@link Stream#mapMultiToDouble(BiConsumer) mapMultiToDouble} to it, with the same
+     * execution characteristics and close handlers as {@code mapMulti}.
+     *
+     * @param <T> the type of the stream elements
+     * @param stream the stream to wrap for the {@code mapMultiToDouble()} operation
+     * @param mapper a <a href="package-summary.html#NonInterference">non-interfering</a>,
+     *               <a href="package-summary.html#Statelessness">stateless</a>
+     *               function that generates replacement elements
+     * @return the new stream
+     * @see Stream#mapMultiToDouble(BiConsumer)
+     * @since 1.5.7
+     */
+    public static <T> DoubleStream mapMultiToDouble(Stream<? extends T> stream,
+            BiConsumer<? super T, ? super DoubleConsumer> mapper) {
+        Objects.requireNonNull(stream);
+        Objects.requireNonNull(mapper);
+
+        @SuppressWarnings("unchecked")
+        Stream<T> s = (Stream<T>) stream;
+
+        return StreamSupport.stream(s.spliterator(), s.isParallel())
+                .onClose(StreamSupport.closeHandler(s)).mapMultiToDouble(mapper);
+    }
+
+    /**
+     * Returns a stream consisting of the elements of the passed stream grouped
+     * into consecutive chunks of {@code size} elements in encounter order,
+     * see {@link Stream#chunked(int) chunked}.
+     *
+     * <p>This is a <a href="package-summary.html#StreamOps">stateful
+     * intermediate operation</a>.
+     *
+     * <p><b>Implementation Requirements:</b><br>
+     * The default implementation obtains the {@link Stream#spliterator() spliterator}
+     * of the passed stream and chunks a new stream over that spliterator, which
+     * preserves the execution characteristics of the passed stream (namely
+     * parallel or sequential execution as per {@link Stream#isParallel() isParallel()}).
+     * When the returned stream is closed, the close handlers for both
+     * the returned and the passed stream are invoked.
+     *
+     * @param <T> the type of the stream elements
+     * @param stream the stream to wrap for the {@code chunked()} operation
+     * @param size the number of elements in a chunk
+     * @return the new stream
+     * @throws IllegalArgumentException if {@code size} is not positive
+     * @see Stream#chunked(int)
+     * @since 1.5.7
+     */
+    public static <T> Stream<List<T>> chunked(Stream<? extends T> stream, int size) {
+        Objects.requireNonNull(stream);
+        return WindowOps.<T, List<T>>makeChunks(wrap(stream), StreamShape.REFERENCE, size);
+    }
+
+    /**
+     * Returns a stream consisting of the sliding windows of {@code size}
+     * consecutive elements of the passed stream that start at every
+     * {@code step}-th element in encounter order, see
+     * {@link Stream#windowed(int, int) windowed}.
+     *
+     * <p>This is a <a href="package-summary.html#StreamOps">stateful
+     * intermediate operation</a>.
+     *
+     * <p><b>Implementation Requirements:</b><br>
+     * The default implementation wraps the passed stream as described for
+     * {@code chunked}.
+     *
+     * @param <T> the type of the stream elements
+     * @param stream the stream to wrap for the {@code windowed()} operation
+     * @param size the number of elements in a window
+     * @param step the distance between the first elements of two
+     *        consecutive windows
+     * @return the new stream
+     * @throws IllegalArgumentException if {@code size} or {@code step} is
+     *         not positive
+     * @see Stream#windowed(int, int)
+     * @since 1.5.7
+     */
+    public static <T> Stream<List<T>> windowed(Stream<? extends T> stream, int size, int step) {
+        Objects.requireNonNull(stream);
+        return WindowOps.<T, List<T>>makeWindows(wrap(stream), StreamShape.REFERENCE, size, step);
+    }
+
+    /**
+     * Returns a stream consisting of the elements of the passed stream grouped
+     * into batches of at most {@code maxSize} consecutive elements, see
+     * {@link Stream#batched(int, long, TimeUnit) batched}.
+     *
+     * <p>This is a <a href="package-summary.html#StreamOps">stateful
+     * intermediate operation</a>.
+     *
+     * <p><b>Implementation Requirements:</b><br>
+     * The default implementation wraps the passed stream as described for
+     * {@code chunked}.
+     *
+     * @param <T> the type of the stream elements
+     * @param stream the stream to wrap for the {@code batched()} operation
+     * @param maxSize the maximum number of elements in a batch
+     * @param timeout the time after which a batch is closed early
+     * @param unit the time unit of the {@code timeout} argument
+     * @return the new stream
+     * @throws IllegalArgumentException if {@code maxSize} is not positive
+     *         or {@code timeout} is negative
+     * @see Stream#batched(int, long, TimeUnit)
+     * @since 1.5.7
+     */
+    public static <T> Stream<List<T>> batched(Stream<? extends T> stream, int maxSize, long timeout, TimeUnit unit) {
+        Objects.requireNonNull(stream);
+        Objects.requireNonNull(unit);
+        return WindowOps.<T, List<T>>makeBatches(wrap(stream), StreamShape.REFERENCE, maxSize, timeout, unit);
+    }
+
+    // a pipeline over the spliterator of the passed stream that also closes it
+    private static <T> AbstractPipeline<?, T, ?> wrap(Stream<? extends T> stream) {
+        @SuppressWarnings("unchecked")
+        Stream<T> s = (Stream<T>) stream;
+        return (AbstractPipeline<?, T, ?>) StreamSupport.stream(s.spliterator(), s.isParallel())
+                .onClose(StreamSupport.closeHandler(s));
+    }
+
     /**
      * Returns a builder for a {@link Stream}.
      *
@@ -421,7 +676,8 @@ public final class RefStreams {
      * <p><b>Implementation Note:</b><br>
      * Use caution when constructing streams from repeated concatenation.
      * Accessing an element of a deeply concatenated stream can result in deep
-     * call chains, or even {@code StackOverflowError}.
+     * call chains, or even {@code StackOverflowError}. To concatenate more than
+     * two streams use {@link #concat(Stream[])}.
      * <p>Subsequent changes to the sequential/parallel execution mode of the
      * returned stream are not guaranteed to be propagated to the input streams.
      *
@@ -441,6 +697,72 @@ public final class RefStreams {
         return stream.onClose(Streams.composedClose(a, b));
     }
 
+    /**
+     * Creates a lazily concatenated {@link Stream} whose elements are all the
+     * elements of the given streams, one stream after the other.  The
+     * resulting stream is ordered if all of the input streams are ordered,
+     * and parallel if any of the input streams is parallel.  When the
+     * resulting stream is closed, the close handlers of all input streams
+     * are invoked.
+     *
+     * <p><b>Implementation Note:</b><br>
+     * Unlike repeated {@link #concat(Stream, Stream) two-way concatenation} the input
+     * streams are concatenated flat: accessing an element doesn't go through
+     * a chain of concatenations, and a parallel evaluation divides the input
+     * streams into two runs of about the same estimated size at each split.
+     * <p>Subsequent changes to the sequential/parallel execution mode of the
+     * returned stream are not guaranteed to be propagated to the input streams.
+     *
+     * @param <T> The type of stream elements
+     * @param streams the streams to concatenate
+     * @return the concatenation of the input streams
+     * @throws NullPointerException if {@code streams} or any of its elements
+     *         is null
+     * @since 1.5.7
+     */
+    // The streams are only read from, and each of them only produces
+    // elements of type T, so the generic array and the casts are safe
+    @SuppressWarnings("unchecked")
+    public static <T> Stream<T> concat(Stream<? extends T>... streams) {
+        Objects.requireNonNull(streams);
+        Stream<? extends T>[] inputs = streams.clone();
+        for (Stream<? extends T> stream : inputs) {
+            Objects.requireNonNull(stream);
+        }
+        Spliterator<T>[] spliterators = (Spliterator<T>[]) new Spliterator<?>[inputs.length];
+        boolean parallel = false;
+        for (int i = 0; i < inputs.length; i++) {
+            spliterators[i] = (Spliterator<T>) inputs[i].spliterator();
+            parallel |= inputs[i].isParallel();
+        }
+        Stream<T> stream = StreamSupport.stream(new Streams.MultiConcatSpliterator.OfRef<>(
+                spliterators, 0, spliterators.length), parallel);
+        return stream.onClose(Streams.composedClose(inputs));
+    }
+
+    /**
+     * Creates a lazily concatenated {@link Stream} whose elements are all the
+     * elements of the streams returned by the given {@code Iterable}, one
+     * stream after the other.  See {@link #concat(Stream[])} for the details.
+     *
+     * @param <T> The type of stream elements
+     * @param streams the streams to concatenate
+     * @return the concatenation of the input streams
+     * @throws NullPointerException if {@code streams} or any of its elements
+     *         is null
+     * @since 1.5.7
+     */
+    public static <T> Stream<T> concat(Iterable<? extends Stream<? extends T>> streams) {
+        Objects.requireNonNull(streams);
+        List<Stream<? extends T>> list = new ArrayList<>();
+        for (Stream<? extends T> stream : streams) {
+            list.add(stream);
+        }
+        @SuppressWarnings("unchecked")
+        Stream<? extends T>[] array = list.toArray((Stream<? extends T>[]) new Stream<?>[list.size()]);
+        return concat(array);
+    }
+
     private RefStreams() {
     }
 }
@@ -26,6 +26,8 @@ package java8.util.stream;
 
 import java.util.Comparator;
 import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import java8.util.Objects;
 import java8.util.function.BiConsumer;
@@ -180,6 +182,16 @@ abstract class ReferencePipeline<P_IN, P_OUT>
                     }
                 };
             }
+
+            @Override
+            int opFusionKind() {
+                return FusedOps.FILTER;
+            }
+
+            @Override
+            Object opFusionFunction() {
+                return predicate;
+            }
         };
     }
 
@@ -197,6 +209,16 @@ abstract class ReferencePipeline<P_IN, P_OUT>
                     }
                 };
             }
+
+            @Override
+            int opFusionKind() {
+                return FusedOps.MAP;
+            }
+
+            @Override
+            Object opFusionFunction() {
+                return mapper;
+            }
         };
     }
 
@@ -254,12 +276,14 @@ abstract class ReferencePipeline<P_IN, P_OUT>
     @Override
     public final <R> Stream<R> flatMap(final Function<? super P_OUT, ? extends Stream<? extends R>> mapper) {
         Objects.requireNonNull(mapper);
-        // We can do better than this, by polling cancellationRequested when stream is infinite
         return new StatelessOp<P_OUT, R>(this, StreamShape.REFERENCE,
                                      StreamOpFlag.NOT_SORTED | StreamOpFlag.NOT_DISTINCT | StreamOpFlag.NOT_SIZED) {
             @Override
             Sink<P_OUT> opWrapSink(int flags, Sink<R> sink) {
                 return new Sink.ChainedReference<P_OUT, R>(sink) {
+                    // true if cancellationRequested() has been called
+                    boolean cancellationRequestedCalled;
+
                     @Override
                     public void begin(long size) {
                         downstream.begin(-1);
@@ -270,9 +294,19 @@ abstract class ReferencePipeline<P_IN, P_OUT>
                         Stream<? extends R> result = null;
                         try {
                             result = mapper.apply(u);
-                            // We can do better than this too; optimize for depth=0 case and just grab spliterator and forEach it
                             if (result != null) {
-                                result.sequential().forEach(downstream);
+                                if (!cancellationRequestedCalled && !AbstractPipeline.isSourceStage(result)) {
+                                    result.sequential().forEach(downstream);
+                                } else {
+                                    // A source stage is traversed by its spliterator; pull
+                                    // elements one by one if downstream may short-circuit
+                                    Spliterator<? extends R> s = result.sequential().spliterator();
+                                    if (!cancellationRequestedCalled) {
+                                        s.forEachRemaining(downstream);
+                                    } else {
+                                        do { } while (!downstream.cancellationRequested() && s.tryAdvance(downstream));
+                                    }
+                                }
                             }
                         } finally {
                             if (result != null) {
@@ -280,6 +314,16 @@ abstract class ReferencePipeline<P_IN, P_OUT>
                             }
                         }
                     }
+
+                    @Override
+                    public boolean cancellationRequested() {
+                        // If this method is called then an operation within the stream
+                        // pipeline is short-circuiting (see AbstractPipeline.copyInto).
+                        // Note that we cannot differentiate between an upstream or
+                        // downstream operation
+                        cancellationRequestedCalled = true;
+                        return downstream.cancellationRequested();
+                    }
                 };
             }
         };
@@ -288,13 +332,15 @@ abstract class ReferencePipeline<P_IN, P_OUT>
     @Override
     public final IntStream flatMapToInt(final Function<? super P_OUT, ? extends IntStream> mapper) {
         Objects.requireNonNull(mapper);
-        // We can do better than this, by polling cancellationRequested when stream is infinite
         return new IntPipeline.StatelessOp<P_OUT>(this, StreamShape.REFERENCE,
                                               StreamOpFlag.NOT_SORTED | StreamOpFlag.NOT_DISTINCT | StreamOpFlag.NOT_SIZED) {
             @Override
             Sink<P_OUT> opWrapSink(int flags, Sink<Integer> sink) {
                 return new Sink.ChainedReference<P_OUT, Integer>(sink) {
                     IntConsumer downstreamAsInt = downstream::accept;
+                    // true if cancellationRequested() has been called
+                    boolean cancellationRequestedCalled;
+
                     @Override
                     public void begin(long size) {
                         downstream.begin(-1);
@@ -305,9 +351,19 @@ abstract class ReferencePipeline<P_IN, P_OUT>
                         IntStream result = null;
                         try {
                             result = mapper.apply(u);
-                            // We can do better than this too; optimize for depth=0 case and just grab spliterator and forEach it
                             if (result != null) {
-                                result.sequential().forEach(downstreamAsInt);
+                                if (!cancellationRequestedCalled && !AbstractPipeline.isSourceStage(result)) {
+                                    result.sequential().forEach(downstreamAsInt);
+                                } else {
+                                    // A source stage is traversed by its spliterator; pull
+                                    // elements one by one if downstream may short-circuit
+                                    Spliterator.OfInt s = result.sequential().spliterator();
+                                    if (!cancellationRequestedCalled) {
+                                        s.forEachRemaining(downstreamAsInt);
+                                    } else {
+                                        do { } while (!downstream.cancellationRequested() && s.tryAdvance(downstreamAsInt));
+                                    }
+                                }
                             }
                         } finally {
                             if (result != null) {
@@ -315,6 +371,16 @@ abstract class ReferencePipeline<P_IN, P_OUT>
                             }
                         }
                     }
+
+                    @Override
+                    public boolean cancellationRequested() {
+                        // If this method is called then an operation within the stream
+                        // pipeline is short-circuiting (see AbstractPipeline.copyInto).
+                        // Note that we cannot differentiate between an upstream or
+                        // downstream operation
+                        cancellationRequestedCalled = true;
+                        return downstream.cancellationRequested();
+                    }
                 };
             }
         };
@@ -323,13 +389,15 @@ abstract class ReferencePipeline<P_IN, P_OUT>
     @Override
     public final DoubleStream flatMapToDouble(final Function<? super P_OUT, ? extends DoubleStream> mapper) {
         Objects.requireNonNull(mapper);
-        // We can do better than this, by polling cancellationRequested when stream is infinite
         return new DoublePipeline.StatelessOp<P_OUT>(this, StreamShape.REFERENCE,
                                                      StreamOpFlag.NOT_SORTED | StreamOpFlag.NOT_DISTINCT | StreamOpFlag.NOT_SIZED) {
             @Override
             Sink<P_OUT> opWrapSink(int flags, Sink<Double> sink) {
                 return new Sink.ChainedReference<P_OUT, Double>(sink) {
                     DoubleConsumer downstreamAsDouble = downstream::accept;
+                    // true if cancellationRequested() has been called
+                    boolean cancellationRequestedCalled;
+
                     @Override
                     public void begin(long size) {
                         downstream.begin(-1);
@@ -340,9 +408,19 @@ abstract class ReferencePipeline<P_IN, P_OUT>
                         DoubleStream result = null;
                         try {
                             result = mapper.apply(u);
-                            // We can do better than this too; optimize for depth=0 case and just grab spliterator and forEach it
                             if (result != null) {
-                                result.sequential().forEach(downstreamAsDouble);
+                                if (!cancellationRequestedCalled && !AbstractPipeline.isSourceStage(result)) {
+                                    result.sequential().forEach(downstreamAsDouble);
+                                } else {
+                                    // A source stage is traversed by its spliterator; pull
+                                    // elements one by one if downstream may short-circuit
+                                    Spliterator.OfDouble s = result.sequential().spliterator();
+                                    if (!cancellationRequestedCalled) {
+                                        s.forEachRemaining(downstreamAsDouble);
+                                    } else {
+                                        do { } while (!downstream.cancellationRequested() && s.tryAdvance(downstreamAsDouble));
+                                    }
+                                }
                             }
                         } finally {
                             if (result != null) {
@@ -350,6 +428,16 @@ abstract class ReferencePipeline<P_IN, P_OUT>
                             }
                         }
                     }
+
+                    @Override
+                    public boolean cancellationRequested() {
+                        // If this method is called then an operation within the stream
+                        // pipeline is short-circuiting (see AbstractPipeline.copyInto).
+                        // Note that we cannot differentiate between an upstream or
+                        // downstream operation
+                        cancellationRequestedCalled = true;
+                        return downstream.cancellationRequested();
+                    }
                 };
             }
         };
@@ -358,13 +446,15 @@ abstract class ReferencePipeline<P_IN, P_OUT>
     @Override
     public final LongStream flatMapToLong(final Function<? super P_OUT, ? extends LongStream> mapper) {
         Objects.requireNonNull(mapper);
-        // We can do better than this, by polling cancellationRequested when stream is infinite
         return new LongPipeline.StatelessOp<P_OUT>(this, StreamShape.REFERENCE,
                                                    StreamOpFlag.NOT_SORTED | StreamOpFlag.NOT_DISTINCT | StreamOpFlag.NOT_SIZED) {
             @Override
             Sink<P_OUT> opWrapSink(int flags, Sink<Long> sink) {
                 return new Sink.ChainedReference<P_OUT, Long>(sink) {
                     LongConsumer downstreamAsLong = downstream::accept;
+                    // true if cancellationRequested() has been called
+                    boolean cancellationRequestedCalled;
+
                     @Override
                     public void begin(long size) {
                         downstream.begin(-1);
@@ -375,9 +465,19 @@ abstract class ReferencePipeline<P_IN, P_OUT>
                         LongStream result = null;
                         try {
                             result = mapper.apply(u);
-                            // We can do better than this too; optimize for depth=0 case and just grab spliterator and forEach it
                             if (result != null) {
-                                result.sequential().forEach(downstreamAsLong);
+                                if (!cancellationRequestedCalled && !AbstractPipeline.isSourceStage(result)) {
+                                    result.sequential().forEach(downstreamAsLong);
+                                } else {
+                                    // A source stage is traversed by its spliterator; pull
+                                    // elements one by one if downstream may short-circuit
+                                    Spliterator.OfLong s = result.sequential().spliterator();
+                                    if (!cancellationRequestedCalled) {
+                                        s.forEachRemaining(downstreamAsLong);
+                                    } else {
+                                        do { } while (!downstream.cancellationRequested() && s.tryAdvance(downstreamAsLong));
+                                    }
+                                }
                             }
                         } finally {
                             if (result != null) {
@@ -385,6 +485,121 @@ abstract class ReferencePipeline<P_IN, P_OUT>
                             }
                         }
                     }
+
+                    @Override
+                    public boolean cancellationRequested() {
+                        // If this method is called then an operation within the stream
+                        // pipeline is short-circuiting (see AbstractPipeline.copyInto).
+                        // Note that we cannot differentiate between an upstream or
+                        // downstream operation
+                        cancellationRequestedCalled = true;
+                        return downstream.cancellationRequested();
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public final <R> Stream<R> mapMulti(final BiConsumer<? super P_OUT, ? super Consumer<R>> mapper) {
+        Objects.requireNonNull(mapper);
+        return new StatelessOp<P_OUT, R>(this, StreamShape.REFERENCE,
+                                     StreamOpFlag.NOT_SORTED | StreamOpFlag.NOT_DISTINCT | StreamOpFlag.NOT_SIZED) {
+            @Override
+            Sink<P_OUT> opWrapSink(int flags, Sink<R> sink) {
+                return new Sink.ChainedReference<P_OUT, R>(sink) {
+                    // The downstream sink itself is handed to the mapper, so no
+                    // per-element stream or consumer is created
+                    @SuppressWarnings("unchecked")
+                    final Consumer<R> downstreamAsConsumer = (Consumer<R>) downstream;
+
+                    @Override
+                    public void begin(long size) {
+                        downstream.begin(-1);
+                    }
+
+                    @Override
+                    public void accept(P_OUT u) {
+                        mapper.accept(u, downstreamAsConsumer);
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public final IntStream mapMultiToInt(final BiConsumer<? super P_OUT, ? super IntConsumer> mapper) {
+        Objects.requireNonNull(mapper);
+        return new IntPipeline.StatelessOp<P_OUT>(this, StreamShape.REFERENCE,
+                                              StreamOpFlag.NOT_SORTED | StreamOpFlag.NOT_DISTINCT | StreamOpFlag.NOT_SIZED) {
+            @Override
+            Sink<P_OUT> opWrapSink(int flags, Sink<Integer> sink) {
+                return new Sink.ChainedReference<P_OUT, Integer>(sink) {
+                    // Avoids boxing when the downstream sink is already a Sink.OfInt
+                    final IntConsumer downstreamAsInt = sink instanceof IntConsumer
+                            ? (IntConsumer) sink : downstream::accept;
+
+                    @Override
+                    public void begin(long size) {
+                        downstream.begin(-1);
+                    }
+
+                    @Override
+                    public void accept(P_OUT u) {
+                        mapper.accept(u, downstreamAsInt);
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public final LongStream mapMultiToLong(final BiConsumer<? super P_OUT, ? super LongConsumer> mapper) {
+        Objects.requireNonNull(mapper);
+        return new LongPipeline.StatelessOp<P_OUT>(this, StreamShape.REFERENCE,
+                                                   StreamOpFlag.NOT_SORTED | StreamOpFlag.NOT_DISTINCT | StreamOpFlag.NOT_SIZED) {
+            @Override
+            Sink<P_OUT> opWrapSink(int flags, Sink<Long> sink) {
+                return new Sink.ChainedReference<P_OUT, Long>(sink) {
+                    // Avoids boxing when the downstream sink is already a Sink.OfLong
+                    final LongConsumer downstreamAsLong = sink instanceof LongConsumer
+                            ? (LongConsumer) sink : downstream::accept;
+
+                    @Override
+                    public void begin(long size) {
+                        downstream.begin(-1);
+                    }
+
+                    @Override
+                    public void accept(P_OUT u) {
+                        mapper.accept(u, downstreamAsLong);
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public final DoubleStream mapMultiToDouble(final BiConsumer<? super P_OUT, ? super DoubleConsumer> mapper) {
+        Objects.requireNonNull(mapper);
+        return new DoublePipeline.StatelessOp<P_OUT>(this, StreamShape.REFERENCE,
+                                                     StreamOpFlag.NOT_SORTED | StreamOpFlag.NOT_DISTINCT | StreamOpFlag.NOT_SIZED) {
+            @Override
+            Sink<P_OUT> opWrapSink(int flags, Sink<Double> sink) {
+                return new Sink.ChainedReference<P_OUT, Double>(sink) {
+                    // Avoids boxing when the downstream sink is already a Sink.OfDouble
+                    final DoubleConsumer downstreamAsDouble = sink instanceof DoubleConsumer
+                            ? (DoubleConsumer) sink : downstream::accept;
+
+                    @Override
+                    public void begin(long size) {
+                        downstream.begin(-1);
+                    }
+
+                    @Override
+                    public void accept(P_OUT u) {
+                        mapper.accept(u, downstreamAsDouble);
+                    }
                 };
             }
         };
@@ -405,6 +620,16 @@ abstract class ReferencePipeline<P_IN, P_OUT>
                     }
                 };
             }
+
+            @Override
+            int opFusionKind() {
+                return FusedOps.PEEK;
+            }
+
+            @Override
+            Object opFusionFunction() {
+                return action;
+            }
         };
     }
 
@@ -442,6 +667,22 @@ abstract class ReferencePipeline<P_IN, P_OUT>
             return SliceOps.makeRef(this, n, -1);
     }
 
+    @Override
+    public final Stream<List<P_OUT>> chunked(int size) {
+        return WindowOps.<P_OUT, List<P_OUT>>makeChunks(this, StreamShape.REFERENCE, size);
+    }
+
+    @Override
+    public final Stream<List<P_OUT>> windowed(int size, int step) {
+        return WindowOps.<P_OUT, List<P_OUT>>makeWindows(this, StreamShape.REFERENCE, size, step);
+    }
+
+    @Override
+    public final Stream<List<P_OUT>> batched(int maxSize, long timeout, TimeUnit unit) {
+        Objects.requireNonNull(unit);
+        return WindowOps.<P_OUT, List<P_OUT>>makeBatches(this, StreamShape.REFERENCE, maxSize, timeout, unit);
+    }
+
     @Override
     public final Stream<P_OUT> takeWhile(Predicate<? super P_OUT> predicate) {
         return WhileOps.makeTakeWhileRef(this, predicate);
@@ -532,9 +773,14 @@ abstract class ReferencePipeline<P_IN, P_OUT>
         if (isParallel()
                 && (collector.characteristics().contains(Collector.Characteristics.CONCURRENT))
                 && (!isOrdered() || collector.characteristics().contains(Collector.Characteristics.UNORDERED))) {
-            container = collector.supplier().get();
-            BiConsumer<A, ? super P_OUT> accumulator = collector.accumulator();
-            forEach(u -> accumulator.accept(container, u));
+            // create the container in the pool the pipeline is bound to, so
+            // that it can size itself for that pool
+            container = evaluateInPool(() -> {
+                A c = collector.supplier().get();
+                BiConsumer<A, ? super P_OUT> accumulator = collector.accumulator();
+                forEach(u -> accumulator.accept(c, u));
+                return c;
+            });
         }
         else {
             container = evaluate(ReduceOps.makeRef(collector));
@@ -0,0 +1,111 @@
+/*
+ * Written by Stefan Zobel and released to the
+ * public domain, as explained at
+ * http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package java8.util.stream;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters for the work that is done in vain by parallel short-circuiting
+ * terminal operations such as {@code findFirst()}, {@code findAny()},
+ * {@code anyMatch()} and intermediate operations such as {@code limit()}
+ * and {@code skip()}.
+ *
+ * <p>These operations split their source speculatively and process the
+ * parts concurrently, even though only a prefix of the encounter order (or
+ * a single element) is needed in the end. As soon as the result is known,
+ * all tasks whose output can no longer contribute to the result are
+ * canceled: tasks that have not started yet are not forked or return
+ * immediately, and leaves that are traversing their part of the source
+ * stop within a few elements. The counters record how often this happens
+ * and how many elements had been traversed by leaves whose output was
+ * discarded.
+ *
+ * <p>The counters are global to the JVM, cumulative over all parallel
+ * evaluations and are only updated once per task, hence they are cheap
+ * enough to be always on. They are meant for diagnostics and benchmarking
+ * and are not synchronized with each other, so a snapshot taken while
+ * evaluations are in progress may be inconsistent.
+ *
+ * @since 1.5.7
+ */
+public final class ShortCircuitStatistics {
+
+    private static final AtomicLong CANCELED_LEAVES = new AtomicLong();
+    private static final AtomicLong WASTED_ELEMENTS = new AtomicLong();
+    private static final AtomicLong SKIPPED_TASKS = new AtomicLong();
+    private static final AtomicLong AVOIDED_FORKS = new AtomicLong();
+
+    /**
+     * Returns the number of leaf tasks that traversed (a part of) their
+     * source but whose output was discarded because the result of the
+     * operation had been found elsewhere in the meantime.
+     *
+     * @return the number of canceled leaf tasks
+     */
+    public static long getCanceledLeafCount() {
+        return CANCELED_LEAVES.get();
+    }
+
+    /**
+     * Returns the number of source elements that were traversed by the
+     * canceled leaf tasks (see {@link #getCanceledLeafCount()}).
+     *
+     * @return the number of elements traversed in vain
+     */
+    public static long getWastedElementCount() {
+        return WASTED_ELEMENTS.get();
+    }
+
+    /**
+     * Returns the number of tasks that were canceled before they started
+     * to split or traverse their part of the source.
+     *
+     * @return the number of tasks that did no work
+     */
+    public static long getSkippedTaskCount() {
+        return SKIPPED_TASKS.get();
+    }
+
+    /**
+     * Returns the number of subtasks that were completed inline instead of
+     * being forked because the result of the operation was already known
+     * or they were canceled at the time they were created.
+     *
+     * @return the number of avoided forks
+     */
+    public static long getAvoidedForkCount() {
+        return AVOIDED_FORKS.get();
+    }
+
+    /**
+     * Resets all counters to zero.
+     */
+    public static void reset() {
+        CANCELED_LEAVES.set(0L);
+        WASTED_ELEMENTS.set(0L);
+        SKIPPED_TASKS.set(0L);
+        AVOIDED_FORKS.set(0L);
+    }
+
+    static void leafCanceled(long traversed) {
+        CANCELED_LEAVES.incrementAndGet();
+        if (traversed > 0L) {
+            WASTED_ELEMENTS.addAndGet(traversed);
+        }
+    }
+
+    static void taskSkipped() {
+        SKIPPED_TASKS.incrementAndGet();
+    }
+
+    static void forkAvoided() {
+        AVOIDED_FORKS.incrementAndGet();
+    }
+
+    private ShortCircuitStatistics() {
+        throw new AssertionError();
+    }
+}
@@ -51,7 +51,7 @@ final class SliceOps {
      * @return the sliced size
      */
     private static long calcSize(long size, long skip, long limit) {
-        return size >= 0 ? Math.max(-1, Math.min(size - skip, limit)) : -1;
+        return size >= 0 ? Math.max(0, Math.min(size - skip, limit)) : -1;
     }
 
     /**
@@ -111,6 +111,9 @@ final class SliceOps {
         if (skip < 0)
             throw new IllegalArgumentException("Skip must be non-negative: " + skip);
 
+        SortedOps.fuseLimit(upstream, skip, limit);
+        final long normalizedLimit = limit >= 0 ? limit : Long.MAX_VALUE;
+
         return new ReferencePipeline.StatefulOp<T, T>(upstream, StreamShape.REFERENCE,
                                                       flags(limit)) {
             Spliterator<T> unorderedSkipLimitSpliterator(Spliterator<T> s,
@@ -180,6 +183,11 @@ final class SliceOps {
                 }
             }
 
+            @Override
+            long exactOutputSize(long previousSize) {
+                return calcSize(previousSize, skip, normalizedLimit);
+            }
+
             @Override
             Sink<T> opWrapSink(int flags, Sink<T> sink) {
                 return new Sink.ChainedReference<T, T>(sink) {
@@ -227,6 +235,9 @@ final class SliceOps {
         if (skip < 0)
             throw new IllegalArgumentException("Skip must be non-negative: " + skip);
 
+        SortedOps.fuseLimit(upstream, skip, limit);
+        final long normalizedLimit = limit >= 0 ? limit : Long.MAX_VALUE;
+
         return new IntPipeline.StatefulOp<Integer>(upstream, StreamShape.INT_VALUE,
                                                    flags(limit)) {
             Spliterator.OfInt unorderedSkipLimitSpliterator(
@@ -289,6 +300,11 @@ final class SliceOps {
                 }
             }
 
+            @Override
+            long exactOutputSize(long previousSize) {
+                return calcSize(previousSize, skip, normalizedLimit);
+            }
+
             @Override
             Sink<Integer> opWrapSink(int flags, Sink<Integer> sink) {
                 return new Sink.ChainedInt<Integer>(sink) {
@@ -336,6 +352,9 @@ final class SliceOps {
         if (skip < 0)
             throw new IllegalArgumentException("Skip must be non-negative: " + skip);
 
+        SortedOps.fuseLimit(upstream, skip, limit);
+        final long normalizedLimit = limit >= 0 ? limit : Long.MAX_VALUE;
+
         return new LongPipeline.StatefulOp<Long>(upstream, StreamShape.LONG_VALUE,
                                                  flags(limit)) {
             Spliterator.OfLong unorderedSkipLimitSpliterator(
@@ -398,6 +417,11 @@ final class SliceOps {
                 }
             }
 
+            @Override
+            long exactOutputSize(long previousSize) {
+                return calcSize(previousSize, skip, normalizedLimit);
+            }
+
             @Override
             Sink<Long> opWrapSink(int flags, Sink<Long> sink) {
                 return new Sink.ChainedLong<Long>(sink) {
@@ -445,6 +469,9 @@ final class SliceOps {
         if (skip < 0)
             throw new IllegalArgumentException("Skip must be non-negative: " + skip);
 
+        SortedOps.fuseLimit(upstream, skip, limit);
+        final long normalizedLimit = limit >= 0 ? limit : Long.MAX_VALUE;
+
         return new DoublePipeline.StatefulOp<Double>(upstream, StreamShape.DOUBLE_VALUE,
                                                      flags(limit)) {
             Spliterator.OfDouble unorderedSkipLimitSpliterator(
@@ -507,6 +534,11 @@ final class SliceOps {
                 }
             }
 
+            @Override
+            long exactOutputSize(long previousSize) {
+                return calcSize(previousSize, skip, normalizedLimit);
+            }
+
             @Override
             Sink<Double> opWrapSink(int flags, Sink<Double> sink) {
                 return new Sink.ChainedDouble<Double>(sink) {
@@ -541,7 +573,7 @@ final class SliceOps {
     }
 
     private static int flags(long limit) {
-        return StreamOpFlag.NOT_SIZED | ((limit != -1) ? StreamOpFlag.IS_SHORT_CIRCUIT : 0);
+        return StreamOpFlag.IS_SIZE_ADJUSTING | ((limit != -1) ? StreamOpFlag.IS_SHORT_CIRCUIT : 0);
     }
 
     /**
@@ -590,12 +622,16 @@ final class SliceOps {
             return Nodes.emptyNode(op.getOutputShape());
         }
 
+        @Override
+        protected boolean prefersLeftmost() {
+            return targetSize >= 0;
+        }
+
         @Override
         protected final Node<P_OUT> doLeaf() {
             if (isRoot()) {
-                long sizeIfKnown = StreamOpFlag.SIZED.isPreserved(op.sourceOrOpFlags)
-                                   ? op.exactOutputSizeIfKnown(spliterator)
-                                   : -1;
+                long sizeIfKnown = calcSize(helper.exactOutputSizeIfKnown(spliterator), targetOffset,
+                                            targetSize >= 0 ? targetSize : Long.MAX_VALUE);
                 final Node.Builder<P_OUT> nb = op.makeNodeBuilder(sizeIfKnown, generator);
                 Sink<P_OUT> opSink = op.opWrapSink(helper.getStreamAndOpFlags(), nb);
                 helper.copyIntoWithCancel(helper.wrapSink(opSink), spliterator);
@@ -605,14 +641,23 @@ final class SliceOps {
             }
             else {
                 Node.Builder<P_OUT> nb = op.makeNodeBuilder(-1, generator);
+                boolean obsolete;
                 if (targetOffset == 0) { // limit only
                     Sink<P_OUT> opSink = op.opWrapSink(helper.getStreamAndOpFlags(), nb);
-                    helper.copyIntoWithCancel(helper.wrapSink(opSink), spliterator);
+                    obsolete = copyIntoWithCancel(opSink);
                 }
-                else {
+                else if (targetSize >= 0) { // skip and limit
+                    obsolete = copyIntoWithCancel(nb);
+                }
+                else { // skip only
+                    // Without a limit no later task is ever canceled, so
+                    // the leaf keeps the bulk traversal
                     helper.wrapAndCopyInto(nb, spliterator);
+                    obsolete = false;
                 }
-                Node<P_OUT> node = nb.build();
+                // The output of an abandoned traversal is incomplete and
+                // gets discarded by a canceled ancestor anyway
+                Node<P_OUT> node = obsolete ? getEmptyResult() : nb.build();
                 thisNodeSize = node.count();
                 completed = true;
                 spliterator = null;
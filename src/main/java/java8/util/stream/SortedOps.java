@@ -96,6 +96,33 @@ final class SortedOps {
         return new OfDouble(upstream);
     }
 
+    /**
+     * Bounds the provided "sorted" operation, if it is one, to the first
+     * {@code skip + limit} elements in sort order because it is immediately
+     * followed by a slice. The sort then retains only those elements in a
+     * bounded heap per leaf (see {@link BoundedHeaps}).
+     *
+     * @param upstream the stream the slice operation is appended to
+     * @param skip the number of elements the slice skips
+     * @param limit the maximum size of the slice, or -1 if no limit is to
+     *        be imposed
+     */
+    static void fuseLimit(AbstractPipeline<?, ?, ?> upstream, long skip, long limit) {
+        long k = skip + limit;
+        if (limit < 0 || k < 0 || k > BoundedHeaps.MAX_K) {
+            return;
+        }
+        if (upstream instanceof OfRef) {
+            ((OfRef<?>) upstream).k = (int) k;
+        } else if (upstream instanceof OfInt) {
+            ((OfInt) upstream).k = (int) k;
+        } else if (upstream instanceof OfLong) {
+            ((OfLong) upstream).k = (int) k;
+        } else if (upstream instanceof OfDouble) {
+            ((OfDouble) upstream).k = (int) k;
+        }
+    }
+
     /**
      * Specialized subtype for sorting reference streams
      */
@@ -105,6 +132,8 @@ final class SortedOps {
          */
         private final boolean isNaturalSort;
         private final Comparator<? super T> comparator;
+        // the number of leading elements that are needed, or -1 for all
+        private int k = -1;
 
         /**
          * Sort using natural order of {@literal <T>} which must be
@@ -140,6 +169,8 @@ final class SortedOps {
             // also naturally sorted then this is a no-op
             if (StreamOpFlag.SORTED.isKnown(flags) && isNaturalSort)
                 return sink;
+            else if (k >= 0)
+                return new RefTopKSink<>(sink, comparator, k);
             else if (StreamOpFlag.SIZED.isKnown(flags))
                 return new SizedRefSortingSink<>(sink, comparator);
             else
@@ -155,6 +186,14 @@ final class SortedOps {
             if (StreamOpFlag.SORTED.isKnown(helper.getStreamAndOpFlags()) && isNaturalSort) {
                 return helper.evaluate(spliterator, false, generator);
             }
+            else if (k >= 0) {
+                // a bounded heap per leaf, merged
+                BoundedHeaps.OfRef<T> heap = ReduceOps.<T, BoundedHeaps.OfRef<T>>makeRef(
+                        () -> new BoundedHeaps.OfRef<T>(k, comparator),
+                        BoundedHeaps.OfRef::accept, BoundedHeaps.OfRef::combine)
+                        .evaluateParallel(helper, spliterator);
+                return Nodes.node(heap.toArray(generator));
+            }
             else {
                 // @@@ Weak two-pass parallel implementation; parallel collect, parallel sort
                 T[] flattenedData = helper.evaluate(spliterator, true, generator).asArray(generator);
@@ -168,6 +207,9 @@ final class SortedOps {
      * Specialized subtype for sorting int streams.
      */
     private static final class OfInt extends IntPipeline.StatefulOp<Integer> {
+        // the number of leading elements that are needed, or -1 for all
+        private int k = -1;
+
         OfInt(AbstractPipeline<?, Integer, ?> upstream) {
             super(upstream, StreamShape.INT_VALUE,
                   StreamOpFlag.IS_ORDERED | StreamOpFlag.IS_SORTED);
@@ -179,8 +221,12 @@ final class SortedOps {
 
             if (StreamOpFlag.SORTED.isKnown(flags))
                 return sink;
+            else if (k >= 0)
+                return new IntTopKSink(sink, k);
             else if (StreamOpFlag.SIZED.isKnown(flags))
                 return new SizedIntSortingSink(sink);
+            else if (isOffHeap())
+                return new OffHeapIntSortingSink(sink);
             else
                 return new IntSortingSink(sink);
         }
@@ -192,8 +238,22 @@ final class SortedOps {
             if (StreamOpFlag.SORTED.isKnown(helper.getStreamAndOpFlags())) {
                 return helper.evaluate(spliterator, false, generator);
             }
+            else if (k >= 0) {
+                BoundedHeaps.OfInt heap = ReduceOps.makeInt(() -> new BoundedHeaps.OfInt(k),
+                        BoundedHeaps.OfInt::accept, BoundedHeaps.OfInt::combine)
+                        .evaluateParallel(helper, spliterator);
+                return Nodes.node(heap.toArray());
+            }
             else {
-                Node.OfInt n = (Node.OfInt) helper.evaluate(spliterator, true, generator);
+                Node.OfInt n = (Node.OfInt) helper.evaluate(spliterator, !isOffHeap(), generator);
+                if (isOffHeap()) {
+                    // sort the off-heap leaves instead of copying them to
+                    // the heap, unless the size was known in advance
+                    Node.OfInt sorted = OffHeapNodes.sort(n);
+                    if (sorted != null) {
+                        return sorted;
+                    }
+                }
 
                 int[] content = n.asPrimitiveArray();
                 java8.util.J8Arrays.parallelSort(content);
@@ -207,6 +267,9 @@ final class SortedOps {
      * Specialized subtype for sorting long streams.
      */
     private static final class OfLong extends LongPipeline.StatefulOp<Long> {
+        // the number of leading elements that are needed, or -1 for all
+        private int k = -1;
+
         OfLong(AbstractPipeline<?, Long, ?> upstream) {
             super(upstream, StreamShape.LONG_VALUE,
                   StreamOpFlag.IS_ORDERED | StreamOpFlag.IS_SORTED);
@@ -218,8 +281,12 @@ final class SortedOps {
 
             if (StreamOpFlag.SORTED.isKnown(flags))
                 return sink;
+            else if (k >= 0)
+                return new LongTopKSink(sink, k);
             else if (StreamOpFlag.SIZED.isKnown(flags))
                 return new SizedLongSortingSink(sink);
+            else if (isOffHeap())
+                return new OffHeapLongSortingSink(sink);
             else
                 return new LongSortingSink(sink);
         }
@@ -231,8 +298,22 @@ final class SortedOps {
             if (StreamOpFlag.SORTED.isKnown(helper.getStreamAndOpFlags())) {
                 return helper.evaluate(spliterator, false, generator);
             }
+            else if (k >= 0) {
+                BoundedHeaps.OfLong heap = ReduceOps.makeLong(() -> new BoundedHeaps.OfLong(k),
+                        BoundedHeaps.OfLong::accept, BoundedHeaps.OfLong::combine)
+                        .evaluateParallel(helper, spliterator);
+                return Nodes.node(heap.toArray());
+            }
             else {
-                Node.OfLong n = (Node.OfLong) helper.evaluate(spliterator, true, generator);
+                Node.OfLong n = (Node.OfLong) helper.evaluate(spliterator, !isOffHeap(), generator);
+                if (isOffHeap()) {
+                    // sort the off-heap leaves instead of copying them to
+                    // the heap, unless the size was known in advance
+                    Node.OfLong sorted = OffHeapNodes.sort(n);
+                    if (sorted != null) {
+                        return sorted;
+                    }
+                }
 
                 long[] content = n.asPrimitiveArray();
                 java8.util.J8Arrays.parallelSort(content);
@@ -246,6 +327,9 @@ final class SortedOps {
      * Specialized subtype for sorting double streams.
      */
     private static final class OfDouble extends DoublePipeline.StatefulOp<Double> {
+        // the number of leading elements that are needed, or -1 for all
+        private int k = -1;
+
         OfDouble(AbstractPipeline<?, Double, ?> upstream) {
             super(upstream, StreamShape.DOUBLE_VALUE,
                   StreamOpFlag.IS_ORDERED | StreamOpFlag.IS_SORTED);
@@ -257,8 +341,12 @@ final class SortedOps {
 
             if (StreamOpFlag.SORTED.isKnown(flags))
                 return sink;
+            else if (k >= 0)
+                return new DoubleTopKSink(sink, k);
             else if (StreamOpFlag.SIZED.isKnown(flags))
                 return new SizedDoubleSortingSink(sink);
+            else if (isOffHeap())
+                return new OffHeapDoubleSortingSink(sink);
             else
                 return new DoubleSortingSink(sink);
         }
@@ -270,8 +358,22 @@ final class SortedOps {
             if (StreamOpFlag.SORTED.isKnown(helper.getStreamAndOpFlags())) {
                 return helper.evaluate(spliterator, false, generator);
             }
+            else if (k >= 0) {
+                BoundedHeaps.OfDouble heap = ReduceOps.makeDouble(() -> new BoundedHeaps.OfDouble(k),
+                        BoundedHeaps.OfDouble::accept, BoundedHeaps.OfDouble::combine)
+                        .evaluateParallel(helper, spliterator);
+                return Nodes.node(heap.toArray());
+            }
             else {
-                Node.OfDouble n = (Node.OfDouble) helper.evaluate(spliterator, true, generator);
+                Node.OfDouble n = (Node.OfDouble) helper.evaluate(spliterator, !isOffHeap(), generator);
+                if (isOffHeap()) {
+                    // sort the off-heap leaves instead of copying them to
+                    // the heap, unless the size was known in advance
+                    Node.OfDouble sorted = OffHeapNodes.sort(n);
+                    if (sorted != null) {
+                        return sorted;
+                    }
+                }
 
                 double[] content = n.asPrimitiveArray();
                 java8.util.J8Arrays.parallelSort(content);
@@ -409,6 +511,47 @@ final class SortedOps {
         }
     }
 
+    /**
+     * {@link Sink} for implementing sort followed by a limit on reference
+     * streams.
+     */
+    private static final class RefTopKSink<T> extends AbstractRefSortingSink<T> {
+        private final int k;
+        private BoundedHeaps.OfRef<T> heap;
+
+        RefTopKSink(Sink<? super T> sink, Comparator<? super T> comparator, int k) {
+            super(sink, comparator);
+            this.k = k;
+        }
+
+        @Override
+        public void begin(long size) {
+            heap = new BoundedHeaps.OfRef<>(k, comparator);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void end() {
+            T[] array = heap.toArray(n -> (T[]) new Object[n]);
+            heap = null;
+            downstream.begin(array.length);
+            if (!cancellationWasRequested) {
+                for (T t : array)
+                    downstream.accept(t);
+            }
+            else {
+                for (int i = 0; i < array.length && !downstream.cancellationRequested(); i++)
+                    downstream.accept(array[i]);
+            }
+            downstream.end();
+        }
+
+        @Override
+        public void accept(T t) {
+            heap.accept(t);
+        }
+    }
+
     /**
      * Abstract {@link Sink} for implementing sort on int streams.
      */
@@ -507,6 +650,79 @@ final class SortedOps {
         }
     }
 
+    /**
+     * {@link Sink} for implementing sort on int streams that buffer their
+     * elements off-heap. The elements are sorted in the off-heap buffer and
+     * never copied to an array on the heap.
+     */
+    private static final class OffHeapIntSortingSink extends AbstractIntSortingSink {
+        private Node.Builder.OfInt b;
+
+        OffHeapIntSortingSink(Sink<? super Integer> sink) {
+            super(sink);
+        }
+
+        @Override
+        public void begin(long size) {
+            b = OffHeapNodes.intBuilder(size);
+            b.begin(size);
+        }
+
+        @Override
+        public void end() {
+            b.end();
+            Node.OfInt node = b.build();
+            b = null;
+            downstream.begin(node.count());
+            OffHeapNodes.sortInto(node, downstream, cancellationWasRequested);
+            downstream.end();
+        }
+
+        @Override
+        public void accept(int t) {
+            b.accept(t);
+        }
+    }
+
+    /**
+     * {@link Sink} for implementing sort followed by a limit on int streams.
+     */
+    private static final class IntTopKSink extends AbstractIntSortingSink {
+        private final int k;
+        private BoundedHeaps.OfInt heap;
+
+        IntTopKSink(Sink<? super Integer> downstream, int k) {
+            super(downstream);
+            this.k = k;
+        }
+
+        @Override
+        public void begin(long size) {
+            heap = new BoundedHeaps.OfInt(k);
+        }
+
+        @Override
+        public void end() {
+            int[] array = heap.toArray();
+            heap = null;
+            downstream.begin(array.length);
+            if (!cancellationWasRequested) {
+                for (int t : array)
+                    downstream.accept(t);
+            }
+            else {
+                for (int i = 0; i < array.length && !downstream.cancellationRequested(); i++)
+                    downstream.accept(array[i]);
+            }
+            downstream.end();
+        }
+
+        @Override
+        public void accept(int t) {
+            heap.accept(t);
+        }
+    }
+
     /**
      * Abstract {@link Sink} for implementing sort on long streams.
      */
@@ -605,6 +821,79 @@ final class SortedOps {
         }
     }
 
+    /**
+     * {@link Sink} for implementing sort on long streams that buffer their
+     * elements off-heap. The elements are sorted in the off-heap buffer and
+     * never copied to an array on the heap.
+     */
+    private static final class OffHeapLongSortingSink extends AbstractLongSortingSink {
+        private Node.Builder.OfLong b;
+
+        OffHeapLongSortingSink(Sink<? super Long> sink) {
+            super(sink);
+        }
+
+        @Override
+        public void begin(long size) {
+            b = OffHeapNodes.longBuilder(size);
+            b.begin(size);
+        }
+
+        @Override
+        public void end() {
+            b.end();
+            Node.OfLong node = b.build();
+            b = null;
+            downstream.begin(node.count());
+            OffHeapNodes.sortInto(node, downstream, cancellationWasRequested);
+            downstream.end();
+        }
+
+        @Override
+        public void accept(long t) {
+            b.accept(t);
+        }
+    }
+
+    /**
+     * {@link Sink} for implementing sort followed by a limit on long streams.
+     */
+    private static final class LongTopKSink extends AbstractLongSortingSink {
+        private final int k;
+        private BoundedHeaps.OfLong heap;
+
+        LongTopKSink(Sink<? super Long> downstream, int k) {
+            super(downstream);
+            this.k = k;
+        }
+
+        @Override
+        public void begin(long size) {
+            heap = new BoundedHeaps.OfLong(k);
+        }
+
+        @Override
+        public void end() {
+            long[] array = heap.toArray();
+            heap = null;
+            downstream.begin(array.length);
+            if (!cancellationWasRequested) {
+                for (long t : array)
+                    downstream.accept(t);
+            }
+            else {
+                for (int i = 0; i < array.length && !downstream.cancellationRequested(); i++)
+                    downstream.accept(array[i]);
+            }
+            downstream.end();
+        }
+
+        @Override
+        public void accept(long t) {
+            heap.accept(t);
+        }
+    }
+
     /**
      * Abstract {@link Sink} for implementing sort on long streams.
      */
@@ -702,4 +991,77 @@ final class SortedOps {
             b.accept(t);
         }
     }
+
+    /**
+     * {@link Sink} for implementing sort on double streams that buffer their
+     * elements off-heap. The elements are sorted in the off-heap buffer and
+     * never copied to an array on the heap.
+     */
+    private static final class OffHeapDoubleSortingSink extends AbstractDoubleSortingSink {
+        private Node.Builder.OfDouble b;
+
+        OffHeapDoubleSortingSink(Sink<? super Double> sink) {
+            super(sink);
+        }
+
+        @Override
+        public void begin(long size) {
+            b = OffHeapNodes.doubleBuilder(size);
+            b.begin(size);
+        }
+
+        @Override
+        public void end() {
+            b.end();
+            Node.OfDouble node = b.build();
+            b = null;
+            downstream.begin(node.count());
+            OffHeapNodes.sortInto(node, downstream, cancellationWasRequested);
+            downstream.end();
+        }
+
+        @Override
+        public void accept(double t) {
+            b.accept(t);
+        }
+    }
+
+    /**
+     * {@link Sink} for implementing sort followed by a limit on double streams.
+     */
+    private static final class DoubleTopKSink extends AbstractDoubleSortingSink {
+        private final int k;
+        private BoundedHeaps.OfDouble heap;
+
+        DoubleTopKSink(Sink<? super Double> downstream, int k) {
+            super(downstream);
+            this.k = k;
+        }
+
+        @Override
+        public void begin(long size) {
+            heap = new BoundedHeaps.OfDouble(k);
+        }
+
+        @Override
+        public void end() {
+            double[] array = heap.toArray();
+            heap = null;
+            downstream.begin(array.length);
+            if (!cancellationWasRequested) {
+                for (double t : array)
+                    downstream.accept(t);
+            }
+            else {
+                for (int i = 0; i < array.length && !downstream.cancellationRequested(); i++)
+                    downstream.accept(array[i]);
+            }
+            downstream.end();
+        }
+
+        @Override
+        public void accept(double t) {
+            heap.accept(t);
+        }
+    }
 }
@@ -25,13 +25,18 @@
 package java8.util.stream;
 
 import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import java8.util.function.BiConsumer;
 import java8.util.function.BiFunction;
 import java8.util.function.BinaryOperator;
 import java8.util.function.Consumer;
+import java8.util.function.DoubleConsumer;
 import java8.util.function.Function;
+import java8.util.function.IntConsumer;
 import java8.util.function.IntFunction;
+import java8.util.function.LongConsumer;
 import java8.util.function.Predicate;
 import java8.util.function.Supplier;
 import java8.util.function.ToDoubleFunction;
@@ -332,6 +337,99 @@ public interface Stream<T> extends BaseStream<T, Stream<T>> {
      */
     DoubleStream flatMapToDouble(Function<? super T, ? extends DoubleStream> mapper);
 
+    /**
+     * Returns a stream consisting of the results of replacing each element of
+     * this stream with multiple elements, specifically zero or more elements.
+     * Replacement is performed by applying the provided mapping function to each
+     * element in conjunction with a {@linkplain Consumer consumer} argument
+     * that accepts replacement elements. The mapping function calls the consumer
+     * zero or more times to provide the replacement elements.
+     *
+     * <p>This is an <a href="package-summary.html#StreamOps">intermediate
+     * operation</a>.
+     *
+     * <p>If the {@linkplain Consumer consumer} argument is used outside the scope of
+     * its application to the mapping function, the results are undefined.
+     *
+     * <p><b>API Note:</b><br>
+     * This method is similar to {@link #flatMap flatMap} in that it applies a one-to-many
+     * transformation to the elements of the stream and flattens the result elements
+     * into a new stream. This method is preferable to {@code flatMap} when replacing
+     * each stream element with a small (possibly zero) number of elements, as it
+     * pushes the replacement elements directly into the rest of the pipeline and
+     * avoids the overhead of creating a new stream for every element.
+     *
+     * <p>The following example replaces each {@code Number} of a stream by its
+     * {@code Integer} values, if any:
+     * <pre>{@code
+     *     Stream<Integer> integers = numbers.<Integer>mapMulti((number, consumer) -> {
+     *         if (number instanceof Integer) {
+     *             consumer.accept((Integer) number);
+     *         }
+     *     });
+     * }</pre>
+     *
+     * @param <R> The element type of the new stream
+     * @param mapper a <a href="package-summary.html#NonInterference">non-interfering</a>,
+     *               <a href="package-summary.html#Statelessness">stateless</a>
+     *               function that generates replacement elements
+     * @return the new stream
+     * @see #flatMap flatMap
+     * @since 1.5.7
+     */
+    <R> Stream<R> mapMulti(BiConsumer<? super T, ? super Consumer<R>> mapper);
+
+    /**
+     * Returns an {@code IntStream} consisting of the results of replacing each
+     * element of this stream with multiple elements, specifically zero or more
+     * elements, see {@link #mapMulti(BiConsumer) mapMulti}.
+     *
+     * <p>This is an <a href="package-summary.html#StreamOps">intermediate
+     * operation</a>.
+     *
+     * @param mapper a <a href="package-summary.html#NonInterference">non-interfering</a>,
+     *               <a href="package-summary.html#Statelessness">stateless</a>
+     *               function that generates replacement elements
+     * @return the new stream
+     * @see #mapMulti mapMulti
+     * @since 1.5.7
+     */
+    IntStream mapMultiToInt(BiConsumer<? super T, ? super IntConsumer> mapper);
+
+    /**
+     * Returns a {@code LongStream} consisting of the results of replacing each
+     * element of this stream with multiple elements, specifically zero or more
+     * elements, see {@link #mapMulti(BiConsumer) mapMulti}.
+     *
+     * <p>This is an <a href="package-summary.html#StreamOps">intermediate
+     * operation</a>.
+     *
+     * @param mapper a <a href="package-summary.html#NonInterference">non-interfering</a>,
+     *               <a href="package-summary.html#Statelessness">stateless</a>
+     *               function that generates replacement elements
+     * @return the new stream
+     * @see #mapMulti mapMulti
+     * @since 1.5.7
+     */
+    LongStream mapMultiToLong(BiConsumer<? super T, ? super LongConsumer> mapper);
+
+    /**
+     * Returns a {@code DoubleStream} consisting of the results of replacing each
+     * element of this stream with multiple elements, specifically zero or more
+     * elements, see {@link #mapMulti(BiConsumer) mapMulti}.
+     *
+     * <p>This is an <a href="package-summary.html#StreamOps">intermediate
+     * operation</a>.
+     *
+     * @param mapper a <a href="package-summary.html#NonInterference">non-interfering</a>,
+     *               <a href="package-summary.html#Statelessness">stateless</a>
+     *               function that generates replacement elements
+     * @return the new stream
+     * @see #mapMulti mapMulti
+     * @since 1.5.7
+     */
+    DoubleStream mapMultiToDouble(BiConsumer<? super T, ? super DoubleConsumer> mapper);
+
     /**
      * Returns a stream consisting of the distinct elements (according to
      * {@link Object#equals(Object)}) of this stream.
@@ -486,6 +584,79 @@ public interface Stream<T> extends BaseStream<T, Stream<T>> {
      */
     Stream<T> skip(long n);
 
+    /**
+     * Returns a stream consisting of the elements of this stream grouped
+     * into consecutive chunks of {@code size} elements in encounter order.
+     * The last chunk holds the remaining elements and may be smaller.
+     * Each chunk is a new fixed-size list that is not retained by the stream.
+     *
+     * <p>This is a <a href="package-summary.html#StreamOps">stateful
+     * intermediate operation</a>.
+     *
+     * <p><b>API Note:</b><br>
+     * Parallel pipelines over {@code SIZED} sources keep the chunk boundaries
+     * of the sequential pipeline without buffering the stream, as every split
+     * is moved to the next chunk boundary. For other sources the elements of
+     * an ordered parallel pipeline are buffered before they are chunked.
+     *
+     * @param size the number of elements in a chunk
+     * @return the new stream
+     * @throws IllegalArgumentException if {@code size} is not positive
+     * @see #windowed(int, int)
+     * @since 1.5.7
+     */
+    Stream<List<T>> chunked(int size);
+
+    /**
+     * Returns a stream consisting of the sliding windows of {@code size}
+     * consecutive elements of this stream that start at every
+     * {@code step}-th element in encounter order. Windows overlap if
+     * {@code step < size} and elements are left out if {@code step > size}.
+     * Incomplete windows at the end of this stream are not included.
+     * Each window is a new fixed-size list that is not retained by the stream.
+     *
+     * <p>This is a <a href="package-summary.html#StreamOps">stateful
+     * intermediate operation</a>.
+     *
+     * <p><b>API Note:</b><br>
+     * Parallel pipelines behave as described for {@link #chunked(int)}.
+     *
+     * @param size the number of elements in a window
+     * @param step the distance between the first elements of two
+     *        consecutive windows
+     * @return the new stream
+     * @throws IllegalArgumentException if {@code size} or {@code step} is
+     *         not positive
+     * @since 1.5.7
+     */
+    Stream<List<T>> windowed(int size, int step);
+
+    /**
+     * Returns a stream consisting of the elements of this stream grouped
+     * into batches of at most {@code maxSize} consecutive elements. A batch
+     * is also closed, before it is full, by the first element that arrives
+     * after the batch has been open for at least the given timeout. The
+     * timeout is checked when an element arrives, so a batch is never
+     * emitted while its stream is idle. The last batch holds the remaining
+     * elements. Each batch is a new fixed-size list that is not retained by
+     * the stream.
+     *
+     * <p>This is a <a href="package-summary.html#StreamOps">stateful
+     * intermediate operation</a>.
+     *
+     * <p>In a parallel pipeline each split of the source forms its own
+     * batches, batches never contain elements of different splits.
+     *
+     * @param maxSize the maximum number of elements in a batch
+     * @param timeout the time after which a batch is closed early
+     * @param unit the time unit of the {@code timeout} argument
+     * @return the new stream
+     * @throws IllegalArgumentException if {@code maxSize} is not positive
+     *         or {@code timeout} is negative
+     * @since 1.5.7
+     */
+    Stream<List<T>> batched(int maxSize, long timeout, TimeUnit unit);
+
     /**
      * Returns, if this stream is ordered, a stream consisting of the longest
      * prefix of elements taken from this stream that match the given predicate.
@@ -226,19 +226,17 @@ class StreamSpliterators {
 
         @Override
         public final long estimateSize() {
-            init();
+            long exactSizeIfKnown = getExactSizeIfKnown();
             // Use the estimate of the wrapped spliterator
             // Note this may not be accurate if there are filter/flatMap
             // operations filtering or adding elements to the stream
-            return spliterator.estimateSize();
+            return exactSizeIfKnown == -1 ? spliterator.estimateSize() : exactSizeIfKnown;
         }
 
         @Override
         public final long getExactSizeIfKnown() {
             init();
-            return StreamOpFlag.SIZED.isKnown(ph.getStreamAndOpFlags())
-                   ? spliterator.getExactSizeIfKnown()
-                   : -1;
+            return ph.exactOutputSizeIfKnown(spliterator);
         }
 
         @Override
@@ -1719,6 +1717,188 @@ class StreamSpliterators {
         public Comparator<? super T> getComparator() {
             return s.getComparator();
         }
+
+        /**
+         * A distinct {@code Spliterator.OfInt} whose seen values are held
+         * unboxed in a {@link PrimitiveHashSets.ConcurrentOfInt}.
+         *
+         * @since 1.5.7
+         */
+        static final class OfInt implements Spliterator.OfInt, IntConsumer {
+
+            // The underlying spliterator
+            private final Spliterator.OfInt s;
+
+            // Concurrent set holding the distinct elements
+            private final PrimitiveHashSets.ConcurrentOfInt seen;
+
+            // Temporary element, only used with tryAdvance
+            private int tmpSlot;
+
+            OfInt(Spliterator.OfInt s, PrimitiveHashSets.ConcurrentOfInt seen) {
+                this.s = s;
+                this.seen = seen;
+            }
+
+            @Override
+            public long getExactSizeIfKnown() {
+                return Spliterators.getExactSizeIfKnown(this);
+            }
+
+            @Override
+            public boolean hasCharacteristics(int characteristics) {
+                return Spliterators.hasCharacteristics(this, characteristics);
+            }
+
+            @Override
+            public void accept(int t) {
+                this.tmpSlot = t;
+            }
+
+            @Override
+            public boolean tryAdvance(IntConsumer action) {
+                while (s.tryAdvance(this)) {
+                    if (seen.add(tmpSlot)) {
+                        action.accept(tmpSlot);
+                        return true;
+                    }
+                }
+                return false;
+            }
+
+            @Override
+            public boolean tryAdvance(Consumer<? super Integer> action) {
+                return Spliterators.OfInt.tryAdvance(this, action);
+            }
+
+            @Override
+            public void forEachRemaining(IntConsumer action) {
+                s.forEachRemaining((int t) -> {
+                    if (seen.add(t)) {
+                        action.accept(t);
+                    }
+                });
+            }
+
+            @Override
+            public void forEachRemaining(Consumer<? super Integer> action) {
+                Spliterators.OfInt.forEachRemaining(this, action);
+            }
+
+            @Override
+            public Spliterator.OfInt trySplit() {
+                Spliterator.OfInt split = s.trySplit();
+                return (split != null) ? new DistinctSpliterator.OfInt(split, seen) : null;
+            }
+
+            @Override
+            public long estimateSize() {
+                return s.estimateSize();
+            }
+
+            @Override
+            public int characteristics() {
+                return (s.characteristics() & ~(Spliterator.SIZED | Spliterator.SUBSIZED |
+                                                Spliterator.SORTED | Spliterator.ORDERED))
+                       | Spliterator.DISTINCT;
+            }
+
+            @Override
+            public Comparator<? super Integer> getComparator() {
+                return s.getComparator();
+            }
+        }
+
+        /**
+         * A distinct {@code Spliterator.OfLong} whose seen values are held
+         * unboxed in a {@link PrimitiveHashSets.ConcurrentOfLong}.
+         *
+         * @since 1.5.7
+         */
+        static final class OfLong implements Spliterator.OfLong, LongConsumer {
+
+            // The underlying spliterator
+            private final Spliterator.OfLong s;
+
+            // Concurrent set holding the distinct elements
+            private final PrimitiveHashSets.ConcurrentOfLong seen;
+
+            // Temporary element, only used with tryAdvance
+            private long tmpSlot;
+
+            OfLong(Spliterator.OfLong s, PrimitiveHashSets.ConcurrentOfLong seen) {
+                this.s = s;
+                this.seen = seen;
+            }
+
+            @Override
+            public long getExactSizeIfKnown() {
+                return Spliterators.getExactSizeIfKnown(this);
+            }
+
+            @Override
+            public boolean hasCharacteristics(int characteristics) {
+                return Spliterators.hasCharacteristics(this, characteristics);
+            }
+
+            @Override
+            public void accept(long t) {
+                this.tmpSlot = t;
+            }
+
+            @Override
+            public boolean tryAdvance(LongConsumer action) {
+                while (s.tryAdvance(this)) {
+                    if (seen.add(tmpSlot)) {
+                        action.accept(tmpSlot);
+                        return true;
+                    }
+                }
+                return false;
+            }
+
+            @Override
+            public boolean tryAdvance(Consumer<? super Long> action) {
+                return Spliterators.OfLong.tryAdvance(this, action);
+            }
+
+            @Override
+            public void forEachRemaining(LongConsumer action) {
+                s.forEachRemaining((long t) -> {
+                    if (seen.add(t)) {
+                        action.accept(t);
+                    }
+                });
+            }
+
+            @Override
+            public void forEachRemaining(Consumer<? super Long> action) {
+                Spliterators.OfLong.forEachRemaining(this, action);
+            }
+
+            @Override
+            public Spliterator.OfLong trySplit() {
+                Spliterator.OfLong split = s.trySplit();
+                return (split != null) ? new DistinctSpliterator.OfLong(split, seen) : null;
+            }
+
+            @Override
+            public long estimateSize() {
+                return s.estimateSize();
+            }
+
+            @Override
+            public int characteristics() {
+                return (s.characteristics() & ~(Spliterator.SIZED | Spliterator.SUBSIZED |
+                                                Spliterator.SORTED | Spliterator.ORDERED))
+                       | Spliterator.DISTINCT;
+            }
+
+            @Override
+            public Comparator<? super Long> getComparator() {
+                return s.getComparator();
+            }
+        }
     }
 
     /**
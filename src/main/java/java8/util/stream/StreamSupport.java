@@ -28,6 +28,7 @@ import java.util.Collection;
 
 import java8.util.Objects;
 import java8.util.Spliterators;
+import java8.util.concurrent.ForkJoinPool;
 import java8.util.function.Supplier;
 import java8.util.Spliterator;
 
@@ -551,6 +552,167 @@ public final class StreamSupport {
                                          parallel);
     }
 
+    /**
+     * Sets the target number of elements that a parallel evaluation of the
+     * given stream pipeline processes per leaf task, i.e., the size below
+     * which the source {@code Spliterator} is no longer split.
+     *
+     * <p>By default, the source is split into roughly four leaves per thread
+     * of the common pool and the leaf size is then adapted to the measured
+     * cost per element of the first few leaves. An explicitly set target
+     * leaf size is used as is, for all leaves, and is useful when the cost
+     * per element is known to be very low (larger leaves) or very uneven
+     * (smaller leaves). Setting a target leaf size of {@code 0} restores the
+     * default behavior.
+     *
+     * <p>The target leaf size applies to the whole pipeline the stream
+     * belongs to and has no effect on a sequential evaluation or on
+     * streams that weren't created by this library.
+     *
+     * @param <T> the type of the stream elements
+     * @param <S> the type of the stream
+     * @param stream the stream
+     * @param targetLeafSize the target number of elements per leaf task, or
+     *        {@code 0} for the default behavior
+     * @return the given stream
+     * @throws NullPointerException if the given stream is {@code null}
+     * @throws IllegalArgumentException if {@code targetLeafSize} is negative
+     * @since 1.5.7
+     */
+    public static <T, S extends BaseStream<T, S>> S targetLeafSize(S stream, long targetLeafSize) {
+        Objects.requireNonNull(stream);
+        if (targetLeafSize < 0L) {
+            throw new IllegalArgumentException(Long.toString(targetLeafSize));
+        }
+        if (stream instanceof AbstractPipeline) {
+            ((AbstractPipeline<?, ?, ?>) stream).setTargetLeafSize(targetLeafSize);
+        }
+        return stream;
+    }
+
+    /**
+     * Makes the given stream parallel and binds its parallel evaluation to
+     * the given {@code ForkJoinPool}, so that it runs in that pool instead of
+     * the {@link ForkJoinPool#commonPool() common pool}.
+     *
+     * <p>All tasks forked by a terminal operation (and by the evaluation of
+     * stateful intermediate operations) of the stream pipeline are executed
+     * by the workers of the given pool; the thread that invokes the terminal
+     * operation waits for its completion. The default leaf size of the
+     * evaluation (see {@link #targetLeafSize(BaseStream, long)}) is derived
+     * from the {@link ForkJoinPool#getParallelism() parallelism} of the given
+     * pool.
+     *
+     * <p>The pool binding applies to the whole pipeline the stream belongs
+     * to. A subsequent call of {@link BaseStream#sequential()} makes the
+     * stream sequential, a subsequent call of {@link BaseStream#parallel()}
+     * makes it parallel again, still bound to the given pool. Streams that
+     * weren't created by this library are made parallel but are otherwise
+     * returned unchanged.
+     *
+     * @param <T> the type of the stream elements
+     * @param <S> the type of the stream
+     * @param stream the stream
+     * @param pool the pool that parallel evaluations of the stream run in
+     * @return the given stream
+     * @throws NullPointerException if the given stream or pool is {@code null}
+     * @since 1.5.7
+     */
+    public static <T, S extends BaseStream<T, S>> S parallel(S stream, ForkJoinPool pool) {
+        Objects.requireNonNull(stream);
+        Objects.requireNonNull(pool);
+        if (stream instanceof AbstractPipeline) {
+            ((AbstractPipeline<?, ?, ?>) stream).setPool(pool);
+            return stream;
+        }
+        return stream.parallel();
+    }
+
+    /**
+     * Sets whether the intermediate results of the given stream pipeline are
+     * buffered off the Java heap, in direct {@code ByteBuffer}s, rather than
+     * in on-heap arrays.
+     *
+     * <p>This affects the buffers of {@code int}, {@code long} and
+     * {@code double} elements that a pipeline uses internally, e.g. to
+     * collect the input of an unsized {@code sorted()} operation or the
+     * leaf results of a parallel evaluation. It is intended for pipelines with huge
+     * intermediate results that would otherwise end up as huge arrays in the
+     * old generation of the garbage collector. Results handed out to the
+     * caller, like the array returned by {@code toArray()}, are always
+     * allocated on the heap. Off-heap buffers are only released when they
+     * become unreachable, so the maximum amount of direct memory of the JVM
+     * ({@code -XX:MaxDirectMemorySize}) may have to be raised accordingly.
+     *
+     * <p>The setting applies to the whole pipeline the stream belongs to and
+     * has no effect on reference streams or on streams that weren't created
+     * by this library.
+     *
+     * @param <T> the type of the stream elements
+     * @param <S> the type of the stream
+     * @param stream the stream
+     * @param offHeap {@code true} to buffer primitive intermediate results
+     *        off-heap, {@code false} to buffer them on-heap (the default)
+     * @return the given stream
+     * @throws NullPointerException if the given stream is {@code null}
+     * @since 1.5.7
+     */
+    public static <T, S extends BaseStream<T, S>> S offHeapBuffers(S stream, boolean offHeap) {
+        Objects.requireNonNull(stream);
+        if (stream instanceof AbstractPipeline) {
+            ((AbstractPipeline<?, ?, ?>) stream).setOffHeap(offHeap);
+        }
+        return stream;
+    }
+
+    /**
+     * Enables or disables the instrumentation of the given stream pipeline,
+     * i.e., the reporting of its execution metrics to the given
+     * {@link PipelineInstrumentation}.
+     *
+     * <p>The instrumentation applies to the whole pipeline the stream
+     * belongs to and has no effect on streams that weren't created by this
+     * library. It replaces the default instrumentation (see
+     * {@link #setDefaultInstrumentation(PipelineInstrumentation)}) the
+     * pipeline was created with, if any.
+     *
+     * @param <T> the type of the stream elements
+     * @param <S> the type of the stream
+     * @param stream the stream
+     * @param instrumentation the receiver of the execution metrics, or
+     *        {@code null} to disable the instrumentation of the pipeline
+     * @return the given stream
+     * @throws NullPointerException if the given stream is {@code null}
+     * @since 1.5.7
+     */
+    public static <T, S extends BaseStream<T, S>> S instrument(S stream,
+            PipelineInstrumentation instrumentation) {
+        Objects.requireNonNull(stream);
+        if (stream instanceof AbstractPipeline) {
+            ((AbstractPipeline<?, ?, ?>) stream).setInstrumentation(instrumentation);
+        }
+        return stream;
+    }
+
+    /**
+     * Sets the {@link PipelineInstrumentation} that all stream pipelines
+     * created from now on report their execution metrics to, unless they
+     * are instrumented otherwise by
+     * {@link #instrument(BaseStream, PipelineInstrumentation)}. Pipelines
+     * that already exist are not affected.
+     *
+     * <p>This includes pipelines that are created internally, e.g. the
+     * streams returned by the mapper of a {@code flatMap} operation.
+     *
+     * @param instrumentation the receiver of the execution metrics, or
+     *        {@code null} to create pipelines without instrumentation (the
+     *        default)
+     * @since 1.5.7
+     */
+    public static void setDefaultInstrumentation(PipelineInstrumentation instrumentation) {
+        PipelineInstrumentation.defaultInstrumentation = instrumentation;
+    }
+
     static Runnable closeHandler(BaseStream<?, ?> stream) {
         return stream::close;
     }
@@ -955,6 +955,228 @@ final class Streams {
         }
     }
 
+    /**
+     * A flat concatenation of any number of spliterators. Traversal walks an
+     * array of spliterators instead of a tree of binary
+     * {@link ConcatSpliterator}s, and {@link #trySplit()} cuts the remaining
+     * spliterators into two runs of about the same estimated size (or the
+     * same number of spliterators if the sizes are unknown), so a
+     * concatenation of n streams splits into a tree of depth log(n). Once a
+     * single spliterator is left it is split itself.
+     */
+    abstract static class MultiConcatSpliterator<T, T_SPLITR extends Spliterator<T>>
+            implements Spliterator<T> {
+        protected final T_SPLITR[] spliterators;
+        // the index of the current spliterator
+        protected int index;
+        // one past the index of the last spliterator
+        protected final int fence;
+        // Never read once a single spliterator is left
+        final boolean unsized;
+
+        MultiConcatSpliterator(T_SPLITR[] spliterators, int origin, int fence) {
+            this.spliterators = spliterators;
+            this.index = origin;
+            this.fence = fence;
+            // The spliterator is known to be unsized if the sum of the
+            // estimates overflows.
+            unsized = sumOfEstimates(spliterators, origin, fence) < 0L;
+        }
+
+        /**
+         * Returns the sum of the estimated sizes of the spliterators
+         * {@code [from, to)}, or a negative value if the sum overflows.
+         */
+        private static long sumOfEstimates(Spliterator<?>[] spliterators, int from, int to) {
+            long sum = 0L;
+            for (int i = from; i < to; i++) {
+                sum += spliterators[i].estimateSize();
+                if (sum < 0L) {
+                    return -1L;
+                }
+            }
+            return sum;
+        }
+
+        abstract T_SPLITR slice(int origin, int fence);
+
+        @Override
+        public T_SPLITR trySplit() {
+            int lo = index, n = fence - lo;
+            if (n <= 0) {
+                return null;
+            }
+            if (n == 1) {
+                @SuppressWarnings("unchecked")
+                T_SPLITR prefix = (T_SPLITR) spliterators[lo].trySplit();
+                return prefix;
+            }
+            int mid = lo + (n >>> 1);
+            long total = sumOfEstimates(spliterators, lo, fence);
+            if (total > 0L) {
+                // the first index at which the prefix reaches half the size,
+                // leaving at least one spliterator on either side
+                long half = total >>> 1, prefix = 0L;
+                mid = lo + 1;
+                for (int i = lo; i < fence - 2; i++) {
+                    prefix += spliterators[i].estimateSize();
+                    if (prefix >= half) {
+                        break;
+                    }
+                    mid = i + 2;
+                }
+            }
+            index = mid;
+            return (mid - lo == 1) ? spliterators[lo] : slice(lo, mid);
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> consumer) {
+            for (; index < fence; index++) {
+                if (spliterators[index].tryAdvance(consumer)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super T> consumer) {
+            for (int i = index, hi = fence; i < hi; i++) {
+                spliterators[i].forEachRemaining(consumer);
+                index = i + 1;
+            }
+        }
+
+        @Override
+        public long estimateSize() {
+            long size = sumOfEstimates(spliterators, index, fence);
+            return (size >= 0L) ? size : Long.MAX_VALUE;
+        }
+
+        @Override
+        public int characteristics() {
+            int lo = index, hi = fence;
+            if (hi - lo == 1) {
+                return spliterators[lo].characteristics();
+            }
+            if (lo >= hi) {
+                // nothing (left) to concatenate, as for an empty spliterator
+                return Spliterator.SIZED | Spliterator.SUBSIZED;
+            }
+            // Concatenation loses DISTINCT and SORTED characteristics
+            int c = ~(Spliterator.DISTINCT | Spliterator.SORTED
+                      | (unsized ? Spliterator.SIZED | Spliterator.SUBSIZED : 0));
+            for (int i = lo; i < hi; i++) {
+                c &= spliterators[i].characteristics();
+            }
+            return c;
+        }
+
+        @Override
+        public Comparator<? super T> getComparator() {
+            if (fence - index != 1)
+                throw new IllegalStateException();
+            return spliterators[index].getComparator();
+        }
+
+        static class OfRef<T> extends MultiConcatSpliterator<T, Spliterator<T>> {
+            OfRef(Spliterator<T>[] spliterators, int origin, int fence) {
+                super(spliterators, origin, fence);
+            }
+
+            @Override
+            Spliterator<T> slice(int origin, int fence) {
+                return new OfRef<>(spliterators, origin, fence);
+            }
+
+            @Override
+            public long getExactSizeIfKnown() {
+                return Spliterators.getExactSizeIfKnown(this);
+            }
+
+            @Override
+            public boolean hasCharacteristics(int characteristics) {
+                return Spliterators.hasCharacteristics(this, characteristics);
+            }
+        }
+
+        private abstract static class OfPrimitive<T, T_CONS, T_SPLITR extends Spliterator.OfPrimitive<T, T_CONS, T_SPLITR>>
+                extends MultiConcatSpliterator<T, T_SPLITR>
+                implements Spliterator.OfPrimitive<T, T_CONS, T_SPLITR> {
+            private OfPrimitive(T_SPLITR[] spliterators, int origin, int fence) {
+                super(spliterators, origin, fence);
+            }
+
+            @Override
+            public boolean tryAdvance(T_CONS action) {
+                for (; index < fence; index++) {
+                    if (spliterators[index].tryAdvance(action)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+
+            @Override
+            public void forEachRemaining(T_CONS action) {
+                for (int i = index, hi = fence; i < hi; i++) {
+                    spliterators[i].forEachRemaining(action);
+                    index = i + 1;
+                }
+            }
+
+            @Override
+            public long getExactSizeIfKnown() {
+                return Spliterators.getExactSizeIfKnown(this);
+            }
+
+            @Override
+            public boolean hasCharacteristics(int characteristics) {
+                return Spliterators.hasCharacteristics(this, characteristics);
+            }
+        }
+
+        static class OfInt
+                extends MultiConcatSpliterator.OfPrimitive<Integer, IntConsumer, Spliterator.OfInt>
+                implements Spliterator.OfInt {
+            OfInt(Spliterator.OfInt[] spliterators, int origin, int fence) {
+                super(spliterators, origin, fence);
+            }
+
+            @Override
+            Spliterator.OfInt slice(int origin, int fence) {
+                return new MultiConcatSpliterator.OfInt(spliterators, origin, fence);
+            }
+        }
+
+        static class OfLong
+                extends MultiConcatSpliterator.OfPrimitive<Long, LongConsumer, Spliterator.OfLong>
+                implements Spliterator.OfLong {
+            OfLong(Spliterator.OfLong[] spliterators, int origin, int fence) {
+                super(spliterators, origin, fence);
+            }
+
+            @Override
+            Spliterator.OfLong slice(int origin, int fence) {
+                return new MultiConcatSpliterator.OfLong(spliterators, origin, fence);
+            }
+        }
+
+        static class OfDouble
+                extends MultiConcatSpliterator.OfPrimitive<Double, DoubleConsumer, Spliterator.OfDouble>
+                implements Spliterator.OfDouble {
+            OfDouble(Spliterator.OfDouble[] spliterators, int origin, int fence) {
+                super(spliterators, origin, fence);
+            }
+
+            @Override
+            Spliterator.OfDouble slice(int origin, int fence) {
+                return new MultiConcatSpliterator.OfDouble(spliterators, origin, fence);
+            }
+        }
+    }
+
     /**
      * Given two Runnables, return a Runnable that executes both in sequence,
      * even if the first throws an exception, and if both throw exceptions, add
@@ -1017,4 +1239,35 @@ final class Streams {
             }
         };
     }
+
+    /**
+     * Given any number of streams, return a Runnable that executes all of
+     * their {@link BaseStream#close} methods in sequence, even if some of
+     * them throw an exception, and rethrows the first exception thrown.
+     */
+    static Runnable composedClose(final BaseStream<?, ?>[] streams) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                Throwable first = null;
+                for (BaseStream<?, ?> stream : streams) {
+                    try {
+                        stream.close();
+                    }
+                    catch (Throwable e) {
+                        if (first == null) {
+                            first = e;
+                        }
+                    }
+                }
+                if (first instanceof RuntimeException) {
+                    throw (RuntimeException) first;
+                } else if (first instanceof Error) {
+                    throw (Error) first;
+                } else if (first != null) {
+                    throw new IllegalStateException(first);
+                }
+            }
+        };
+    }
 }
@@ -0,0 +1,115 @@
+/*
+ * Written by Stefan Zobel and released to the
+ * public domain, as explained at
+ * http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package java8.util.stream;
+
+/**
+ * Mutable accumulators with scalar fields for the summing and averaging
+ * {@link Collectors} and for the {@code sum()} / {@code average()} terminal
+ * operations of the primitive streams (see {@link ReduceOps}). They replace
+ * the small {@code long[]} / {@code double[]} containers used before, which
+ * cost an array header and a bounds check per access and which the JIT
+ * cannot scalar-replace once they escape into a lambda.
+ *
+ * @since 1.5.7
+ */
+/*package*/ final class SumAccumulators {
+
+    // No instances
+    private SumAccumulators() {
+    }
+
+    /**
+     * An {@code int} sum (which overflows like {@code int} arithmetic).
+     */
+    static final class OfInt {
+        int sum;
+
+        void add(int value) {
+            sum += value;
+        }
+
+        OfInt merge(OfInt other) {
+            sum += other.sum;
+            return this;
+        }
+    }
+
+    /**
+     * A {@code long} sum together with the number of values seen.
+     */
+    static class OfLong {
+        long sum;
+        long count;
+
+        void add(long value) {
+            sum += value;
+            count++;
+        }
+
+        OfLong merge(OfLong other) {
+            sum += other.sum;
+            count += other.count;
+            return this;
+        }
+
+        double average() {
+            return count == 0L ? 0.0d : (double) sum / count;
+        }
+    }
+
+    /**
+     * A compensated (Kahan) {@code double} sum together with the simple sum,
+     * used for the proper result if the values contain infinities of the
+     * same sign, and the number of values seen.
+     */
+    static class OfDouble {
+        // high-order bits of the running sum
+        double sum;
+        // low-order bits of the running sum
+        double compensation;
+        double simpleSum;
+        long count;
+
+        void add(double value) {
+            sumWithCompensation(value);
+            simpleSum += value;
+            count++;
+        }
+
+        OfDouble merge(OfDouble other) {
+            sumWithCompensation(other.sum);
+            sumWithCompensation(other.compensation);
+            simpleSum += other.simpleSum;
+            count += other.count;
+            return this;
+        }
+
+        private void sumWithCompensation(double value) {
+            double tmp = value - compensation;
+            double velvel = sum + tmp; // Little wolf of rounding error
+            compensation = (velvel - sum) - tmp;
+            sum = velvel;
+        }
+
+        /**
+         * Returns the compensated sum or, if that is spuriously NaN from
+         * accumulating one or more same-signed infinite values, the
+         * correctly-signed infinity stored in the simple sum.
+         */
+        double sum() {
+            // Better error bounds to add both terms as the final sum
+            double tmp = sum + compensation;
+            if (Double.isNaN(tmp) && Double.isInfinite(simpleSum)) {
+                return simpleSum;
+            }
+            return tmp;
+        }
+
+        double average() {
+            return count == 0L ? 0.0d : sum() / count;
+        }
+    }
+}
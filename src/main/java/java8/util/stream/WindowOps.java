@@ -0,0 +1,861 @@
+/*
+ * Written by Stefan Zobel and released to the
+ * public domain, as explained at
+ * http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package java8.util.stream;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import java8.util.Objects;
+import java8.util.Spliterator;
+import java8.util.Spliterators;
+import java8.util.function.Consumer;
+import java8.util.function.DoubleConsumer;
+import java8.util.function.IntConsumer;
+import java8.util.function.IntFunction;
+import java8.util.function.LongConsumer;
+
+/**
+ * Factory for stateful intermediate operations that group consecutive
+ * elements of their input into chunks, sliding windows or size- and
+ * time-bounded batches. Each group is emitted as a new {@code List} for
+ * reference streams and as a new primitive array for primitive streams.
+ *
+ * <p>Chunks and windows are defined by the positions of the elements in the
+ * encounter order. Sequentially they are formed by a sink that buffers the
+ * window being filled. In parallel, if the upstream pipeline is {@code SIZED}
+ * and its source {@code SUBSIZED}, the wrapped upstream spliterator is split
+ * as usual and the few elements that complete the last window of a prefix are
+ * pulled from the remainder, so no leaf sees a window that straddles it.
+ * Otherwise the upstream elements are buffered first. Batches are not tied to
+ * positions, in parallel each leaf forms its own batches.
+ *
+ * @since 1.5.7
+ */
+final class WindowOps {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    // No instances
+    private WindowOps() { }
+
+    /**
+     * Appends a chunking operation, which groups the elements into
+     * consecutive chunks of {@code size} elements, the last one possibly
+     * being smaller.
+     */
+    static <T, W> Stream<W> makeChunks(AbstractPipeline<?, T, ?> upstream,
+                                       StreamShape shape, int size) {
+        if (size <= 0)
+            throw new IllegalArgumentException("Chunk size must be positive: " + size);
+        return make(upstream, shape, size, size, true, -1L);
+    }
+
+    /**
+     * Appends a sliding window operation, which emits the windows of
+     * {@code size} elements that start at every {@code step}-th element.
+     * Incomplete windows at the end are not emitted.
+     */
+    static <T, W> Stream<W> makeWindows(AbstractPipeline<?, T, ?> upstream,
+                                        StreamShape shape, int size, int step) {
+        if (size <= 0)
+            throw new IllegalArgumentException("Window size must be positive: " + size);
+        if (step <= 0)
+            throw new IllegalArgumentException("Window step must be positive: " + step);
+        return make(upstream, shape, size, step, false, -1L);
+    }
+
+    /**
+     * Appends a batching operation, which closes a batch once it holds
+     * {@code maxSize} elements or once an element is added after the batch
+     * has been open for {@code timeout}.
+     */
+    static <T, W> Stream<W> makeBatches(AbstractPipeline<?, T, ?> upstream,
+                                        StreamShape shape, int maxSize,
+                                        long timeout, TimeUnit unit) {
+        if (maxSize <= 0)
+            throw new IllegalArgumentException("Batch size must be positive: " + maxSize);
+        if (timeout < 0)
+            throw new IllegalArgumentException("Timeout must be non-negative: " + timeout);
+        return make(upstream, shape, maxSize, maxSize, true, unit.toNanos(timeout));
+    }
+
+    /**
+     * Calculates the number of windows formed by {@code n} elements.
+     * Trailing incomplete windows are only counted if {@code partial} is
+     * set, which requires {@code step == size}.
+     */
+    static long windowCount(long n, int size, int step, boolean partial) {
+        if (partial) {
+            return n / size + (n % size == 0 ? 0 : 1);
+        }
+        return n < size ? 0 : (n - size) / step + 1;
+    }
+
+    private static <T, W> Stream<W> make(AbstractPipeline<?, T, ?> upstream,
+                                         final StreamShape shape,
+                                         final int size, final int step,
+                                         final boolean partial, final long timeoutNanos) {
+        return new ReferencePipeline.StatefulOp<T, W>(upstream, shape,
+                StreamOpFlag.NOT_SORTED | StreamOpFlag.NOT_DISTINCT | StreamOpFlag.NOT_SIZED) {
+            @Override
+            Sink<T> opWrapSink(int flags, Sink<W> sink) {
+                return WindowOps.<T, W>windows(shape, size, step, partial, timeoutNanos).wrap(sink);
+            }
+
+            @Override
+            <P_IN> Spliterator<W> opEvaluateParallelLazy(PipelineHelper<W> helper,
+                                                         Spliterator<P_IN> spliterator) {
+                // The helper describes the upstream pipeline, whose output is T
+                @SuppressWarnings("unchecked")
+                PipelineHelper<T> upstreamHelper = (PipelineHelper<T>) (PipelineHelper<?>) helper;
+                Windows<T, ?, W> windows = windows(shape, size, step, partial, timeoutNanos);
+                if (timeoutNanos >= 0
+                        || (upstreamHelper.exactOutputSizeIfKnown(spliterator) >= 0
+                            && spliterator.hasCharacteristics(Spliterator.SUBSIZED))) {
+                    return windows.spliterator(upstreamHelper.wrapSpliterator(spliterator), true);
+                }
+                // The position of an element is only known once all
+                // upstream elements have been buffered
+                Spliterator<T> s = upstreamHelper.evaluate(spliterator, true,
+                        Nodes.<T>castingArray()).spliterator();
+                return windows.spliterator(s, s.hasCharacteristics(Spliterator.SUBSIZED));
+            }
+
+            @Override
+            <P_IN> Node<W> opEvaluateParallel(PipelineHelper<W> helper,
+                                              Spliterator<P_IN> spliterator,
+                                              IntFunction<W[]> generator) {
+                // Collects the windows through a source stage that is
+                // evaluated like this pipeline, e.g. in the same pool
+                Spliterator<W> s = opEvaluateParallelLazy(helper, spliterator);
+                ReferencePipeline.Head<W, W> windows = new ReferencePipeline.Head<>(s,
+                        StreamOpFlag.fromCharacteristics(s), true);
+                windows.inheritSettings(this);
+                return Nodes.collect(windows, s, true, generator);
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T, W> Windows<T, ?, W> windows(StreamShape shape, int size, int step,
+                                                   boolean partial, long timeoutNanos) {
+        switch (shape) {
+            case REFERENCE:
+                return (Windows<T, ?, W>) new RefWindows<>(size, step, partial, timeoutNanos);
+            case INT_VALUE:
+                return (Windows<T, ?, W>) new IntWindows(size, step, partial, timeoutNanos);
+            case LONG_VALUE:
+                return (Windows<T, ?, W>) new LongWindows(size, step, partial, timeoutNanos);
+            case DOUBLE_VALUE:
+                return (Windows<T, ?, W>) new DoubleWindows(size, step, partial, timeoutNanos);
+            default:
+                throw new IllegalStateException("Unknown shape " + shape);
+        }
+    }
+
+    /**
+     * The window being filled, together with the number of elements to drop
+     * before the next window starts.
+     *
+     * @param <T> the type of the elements
+     * @param <T_ARR> the type of the array buffering the elements
+     * @param <W> the type of an emitted window
+     */
+    abstract static class Windows<T, T_ARR, W> {
+        final int size;
+        final int step;
+        // whether a trailing incomplete window is emitted
+        final boolean partial;
+        // the time after which a batch is closed early, or -1
+        final long timeoutNanos;
+        T_ARR window;
+        int capacity;
+        int filled;
+        long gap;
+        // the time the first element of the current batch arrived
+        long opened;
+
+        Windows(int size, int step, boolean partial, long timeoutNanos) {
+            this.size = size;
+            this.step = step;
+            this.partial = partial;
+            this.timeoutNanos = timeoutNanos;
+        }
+
+        abstract T_ARR newArray(int n);
+
+        abstract W copy(T_ARR array, int n);
+
+        /**
+         * Returns a new instance with the same parameters and no state.
+         */
+        abstract Windows<T, T_ARR, W> fresh();
+
+        abstract Sink<T> wrap(Sink<? super W> downstream);
+
+        abstract WindowSpliterator<T, ?, T_ARR, W, ?> spliterator(Spliterator<T> s, boolean sized);
+
+        final void ensureCapacity() {
+            if (filled == capacity) {
+                int n = capacity == 0
+                        ? Math.min(size, INITIAL_CAPACITY)
+                        : (int) Math.min(2L * capacity, size);
+                T_ARR a = newArray(n);
+                if (filled > 0) {
+                    System.arraycopy(window, 0, a, 0, filled);
+                }
+                window = a;
+                capacity = n;
+            }
+        }
+
+        /**
+         * Returns the window that has been completed by the element just
+         * added, or {@code null}.
+         */
+        final W added() {
+            if (filled < size && (timeoutNanos < 0 || !timedOut())) {
+                return null;
+            }
+            int n = filled;
+            W w = copy(window, n);
+            if (n < size) {
+                // a batch closed by its timeout
+                filled = 0;
+            } else if (step >= size) {
+                filled = 0;
+                gap = step - size;
+            } else {
+                System.arraycopy(window, step, window, 0, size - step);
+                filled = size - step;
+            }
+            return w;
+        }
+
+        private boolean timedOut() {
+            long now = System.nanoTime();
+            if (filled == 1) {
+                opened = now;
+            }
+            return now - opened >= timeoutNanos;
+        }
+
+        /**
+         * Returns the trailing incomplete window if it is to be emitted,
+         * otherwise {@code null}.
+         */
+        final W remainder() {
+            if (!partial || filled == 0) {
+                return null;
+            }
+            W w = copy(window, filled);
+            filled = 0;
+            return w;
+        }
+
+        /**
+         * Returns the number of windows formed by the current state
+         * followed by {@code n} further elements.
+         */
+        final long count(long n) {
+            return windowCount(filled + Math.max(0L, n - gap), size, step, partial);
+        }
+
+        final long beginSize(long size) {
+            return size >= 0 && timeoutNanos < 0 ? count(size) : -1;
+        }
+    }
+
+    static final class RefWindows<T> extends Windows<T, Object[], List<T>> {
+        RefWindows(int size, int step, boolean partial, long timeoutNanos) {
+            super(size, step, partial, timeoutNanos);
+        }
+
+        @Override
+        Object[] newArray(int n) {
+            return new Object[n];
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        List<T> copy(Object[] array, int n) {
+            return Arrays.asList((T[]) Arrays.copyOf(array, n));
+        }
+
+        @Override
+        RefWindows<T> fresh() {
+            return new RefWindows<>(size, step, partial, timeoutNanos);
+        }
+
+        List<T> offer(T t) {
+            if (gap > 0) {
+                gap--;
+                return null;
+            }
+            ensureCapacity();
+            window[filled++] = t;
+            return added();
+        }
+
+        @Override
+        Sink<T> wrap(Sink<? super List<T>> downstream) {
+            return new Sink.ChainedReference<T, List<T>>(downstream) {
+                @Override
+                public void begin(long size) {
+                    downstream.begin(beginSize(size));
+                }
+
+                @Override
+                public void accept(T t) {
+                    List<T> w = offer(t);
+                    if (w != null) {
+                        downstream.accept(w);
+                    }
+                }
+
+                @Override
+                public void end() {
+                    List<T> w = remainder();
+                    if (w != null && !downstream.cancellationRequested()) {
+                        downstream.accept(w);
+                    }
+                    downstream.end();
+                }
+            };
+        }
+
+        @Override
+        RefWindowSpliterator<T> spliterator(Spliterator<T> s, boolean sized) {
+            return new RefWindowSpliterator<>(s, this, sized);
+        }
+
+        static final class RefWindowSpliterator<T>
+                extends WindowSpliterator<T, Spliterator<T>, Object[], List<T>, RefWindows<T>>
+                implements Consumer<T> {
+            RefWindowSpliterator(Spliterator<T> s, RefWindows<T> windows, boolean sized) {
+                super(s, windows, sized);
+            }
+
+            @Override
+            boolean tryAdvanceSource() {
+                return s.tryAdvance(this);
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            void take(Object[] array, int i) {
+                accept((T) array[i]);
+            }
+
+            @Override
+            public void accept(T t) {
+                if (collect != null) {
+                    collect[collected++] = t;
+                } else {
+                    next = windows.offer(t);
+                }
+            }
+
+            @Override
+            void drain(Spliterator<T> prefix) {
+                prefix.forEachRemaining(t -> { });
+            }
+
+            @Override
+            RefWindowSpliterator<T> newSpliterator(Spliterator<T> s) {
+                return new RefWindowSpliterator<>(s, windows.fresh(), sized);
+            }
+        }
+    }
+
+    static final class IntWindows extends Windows<Integer, int[], int[]> {
+        IntWindows(int size, int step, boolean partial, long timeoutNanos) {
+            super(size, step, partial, timeoutNanos);
+        }
+
+        @Override
+        int[] newArray(int n) {
+            return new int[n];
+        }
+
+        @Override
+        int[] copy(int[] array, int n) {
+            return Arrays.copyOf(array, n);
+        }
+
+        @Override
+        IntWindows fresh() {
+            return new IntWindows(size, step, partial, timeoutNanos);
+        }
+
+        int[] offer(int t) {
+            if (gap > 0) {
+                gap--;
+                return null;
+            }
+            ensureCapacity();
+            window[filled++] = t;
+            return added();
+        }
+
+        @Override
+        Sink<Integer> wrap(Sink<? super int[]> downstream) {
+            return new Sink.ChainedInt<int[]>(downstream) {
+                @Override
+                public void begin(long size) {
+                    downstream.begin(beginSize(size));
+                }
+
+                @Override
+                public void accept(int t) {
+                    int[] w = offer(t);
+                    if (w != null) {
+                        downstream.accept(w);
+                    }
+                }
+
+                @Override
+                public void end() {
+                    int[] w = remainder();
+                    if (w != null && !downstream.cancellationRequested()) {
+                        downstream.accept(w);
+                    }
+                    downstream.end();
+                }
+            };
+        }
+
+        @Override
+        IntWindowSpliterator spliterator(Spliterator<Integer> s, boolean sized) {
+            return new IntWindowSpliterator((Spliterator.OfInt) s, this, sized);
+        }
+
+        static final class IntWindowSpliterator
+                extends WindowSpliterator<Integer, Spliterator.OfInt, int[], int[], IntWindows>
+                implements IntConsumer {
+            IntWindowSpliterator(Spliterator.OfInt s, IntWindows windows, boolean sized) {
+                super(s, windows, sized);
+            }
+
+            @Override
+            boolean tryAdvanceSource() {
+                return s.tryAdvance(this);
+            }
+
+            @Override
+            void take(int[] array, int i) {
+                accept(array[i]);
+            }
+
+            @Override
+            public void accept(int t) {
+                if (collect != null) {
+                    collect[collected++] = t;
+                } else {
+                    next = windows.offer(t);
+                }
+            }
+
+            @Override
+            void drain(Spliterator.OfInt prefix) {
+                prefix.forEachRemaining((int t) -> { });
+            }
+
+            @Override
+            IntWindowSpliterator newSpliterator(Spliterator.OfInt s) {
+                return new IntWindowSpliterator(s, windows.fresh(), sized);
+            }
+        }
+    }
+
+    static final class LongWindows extends Windows<Long, long[], long[]> {
+        LongWindows(int size, int step, boolean partial, long timeoutNanos) {
+            super(size, step, partial, timeoutNanos);
+        }
+
+        @Override
+        long[] newArray(int n) {
+            return new long[n];
+        }
+
+        @Override
+        long[] copy(long[] array, int n) {
+            return Arrays.copyOf(array, n);
+        }
+
+        @Override
+        LongWindows fresh() {
+            return new LongWindows(size, step, partial, timeoutNanos);
+        }
+
+        long[] offer(long t) {
+            if (gap > 0) {
+                gap--;
+                return null;
+            }
+            ensureCapacity();
+            window[filled++] = t;
+            return added();
+        }
+
+        @Override
+        Sink<Long> wrap(Sink<? super long[]> downstream) {
+            return new Sink.ChainedLong<long[]>(downstream) {
+                @Override
+                public void begin(long size) {
+                    downstream.begin(beginSize(size));
+                }
+
+                @Override
+                public void accept(long t) {
+                    long[] w = offer(t);
+                    if (w != null) {
+                        downstream.accept(w);
+                    }
+                }
+
+                @Override
+                public void end() {
+                    long[] w = remainder();
+                    if (w != null && !downstream.cancellationRequested()) {
+                        downstream.accept(w);
+                    }
+                    downstream.end();
+                }
+            };
+        }
+
+        @Override
+        LongWindowSpliterator spliterator(Spliterator<Long> s, boolean sized) {
+            return new LongWindowSpliterator((Spliterator.OfLong) s, this, sized);
+        }
+
+        static final class LongWindowSpliterator
+                extends WindowSpliterator<Long, Spliterator.OfLong, long[], long[], LongWindows>
+                implements LongConsumer {
+            LongWindowSpliterator(Spliterator.OfLong s, LongWindows windows, boolean sized) {
+                super(s, windows, sized);
+            }
+
+            @Override
+            boolean tryAdvanceSource() {
+                return s.tryAdvance(this);
+            }
+
+            @Override
+            void take(long[] array, int i) {
+                accept(array[i]);
+            }
+
+            @Override
+            public void accept(long t) {
+                if (collect != null) {
+                    collect[collected++] = t;
+                } else {
+                    next = windows.offer(t);
+                }
+            }
+
+            @Override
+            void drain(Spliterator.OfLong prefix) {
+                prefix.forEachRemaining((long t) -> { });
+            }
+
+            @Override
+            LongWindowSpliterator newSpliterator(Spliterator.OfLong s) {
+                return new LongWindowSpliterator(s, windows.fresh(), sized);
+            }
+        }
+    }
+
+    static final class DoubleWindows extends Windows<Double, double[], double[]> {
+        DoubleWindows(int size, int step, boolean partial, long timeoutNanos) {
+            super(size, step, partial, timeoutNanos);
+        }
+
+        @Override
+        double[] newArray(int n) {
+            return new double[n];
+        }
+
+        @Override
+        double[] copy(double[] array, int n) {
+            return Arrays.copyOf(array, n);
+        }
+
+        @Override
+        DoubleWindows fresh() {
+            return new DoubleWindows(size, step, partial, timeoutNanos);
+        }
+
+        double[] offer(double t) {
+            if (gap > 0) {
+                gap--;
+                return null;
+            }
+            ensureCapacity();
+            window[filled++] = t;
+            return added();
+        }
+
+        @Override
+        Sink<Double> wrap(Sink<? super double[]> downstream) {
+            return new Sink.ChainedDouble<double[]>(downstream) {
+                @Override
+                public void begin(long size) {
+                    downstream.begin(beginSize(size));
+                }
+
+                @Override
+                public void accept(double t) {
+                    double[] w = offer(t);
+                    if (w != null) {
+                        downstream.accept(w);
+                    }
+                }
+
+                @Override
+                public void end() {
+                    double[] w = remainder();
+                    if (w != null && !downstream.cancellationRequested()) {
+                        downstream.accept(w);
+                    }
+                    downstream.end();
+                }
+            };
+        }
+
+        @Override
+        DoubleWindowSpliterator spliterator(Spliterator<Double> s, boolean sized) {
+            return new DoubleWindowSpliterator((Spliterator.OfDouble) s, this, sized);
+        }
+
+        static final class DoubleWindowSpliterator
+                extends WindowSpliterator<Double, Spliterator.OfDouble, double[], double[], DoubleWindows>
+                implements DoubleConsumer {
+            DoubleWindowSpliterator(Spliterator.OfDouble s, DoubleWindows windows, boolean sized) {
+                super(s, windows, sized);
+            }
+
+            @Override
+            boolean tryAdvanceSource() {
+                return s.tryAdvance(this);
+            }
+
+            @Override
+            void take(double[] array, int i) {
+                accept(array[i]);
+            }
+
+            @Override
+            public void accept(double t) {
+                if (collect != null) {
+                    collect[collected++] = t;
+                } else {
+                    next = windows.offer(t);
+                }
+            }
+
+            @Override
+            void drain(Spliterator.OfDouble prefix) {
+                prefix.forEachRemaining((double t) -> { });
+            }
+
+            @Override
+            DoubleWindowSpliterator newSpliterator(Spliterator.OfDouble s) {
+                return new DoubleWindowSpliterator(s, windows.fresh(), sized);
+            }
+        }
+    }
+
+    /**
+     * A spliterator of windows over a spliterator of elements. The elements
+     * of this spliterator are those in {@code head}, followed by those of
+     * {@code s}, followed by those in {@code tail}.
+     *
+     * <p>If {@code sized}, a split cuts the elements of {@code s} where it
+     * splits and moves the cut to the start of the first window that does not
+     * start in the prefix. The elements that complete the last window of the
+     * prefix are pulled from the remainder and become the {@code tail} of the
+     * prefix and, for overlapping windows, the {@code head} of the remainder.
+     * Batches are split wherever {@code s} splits.
+     */
+    abstract static class WindowSpliterator<T, T_SPLITR extends Spliterator<T>, T_ARR, W,
+                                            T_WIN extends Windows<T, T_ARR, W>>
+            implements Spliterator<W> {
+        final T_WIN windows;
+        final boolean sized;
+        final T_SPLITR s;
+        T_ARR head;
+        int headIndex;
+        int headFence;
+        T_ARR tail;
+        int tailIndex;
+        int tailFence;
+        // while splitting, the array elements of the remainder are pulled into
+        T_ARR collect;
+        int collected;
+        // the window completed by the last element, if any
+        W next;
+        boolean started;
+
+        WindowSpliterator(T_SPLITR s, T_WIN windows, boolean sized) {
+            this.s = s;
+            this.windows = windows;
+            this.sized = sized;
+        }
+
+        /**
+         * Feeds the next element of {@code s} to this spliterator.
+         */
+        abstract boolean tryAdvanceSource();
+
+        /**
+         * Feeds {@code array[i]} to this spliterator.
+         */
+        abstract void take(T_ARR array, int i);
+
+        abstract void drain(T_SPLITR prefix);
+
+        abstract WindowSpliterator<T, T_SPLITR, T_ARR, W, T_WIN> newSpliterator(T_SPLITR s);
+
+        private boolean advance() {
+            if (headIndex < headFence) {
+                take(head, headIndex++);
+                return true;
+            }
+            if (tryAdvanceSource()) {
+                return true;
+            }
+            if (tailIndex < tailFence) {
+                take(tail, tailIndex++);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super W> action) {
+            Objects.requireNonNull(action);
+            started = true;
+            while (next == null && advance()) {
+            }
+            W w = next != null ? next : windows.remainder();
+            next = null;
+            if (w == null) {
+                return false;
+            }
+            action.accept(w);
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super W> action) {
+            Objects.requireNonNull(action);
+            do { } while (tryAdvance(action));
+        }
+
+        @Override
+        public Spliterator<W> trySplit() {
+            if (started) {
+                return null;
+            }
+            if (windows.timeoutNanos >= 0) {
+                @SuppressWarnings("unchecked")
+                T_SPLITR prefix = (T_SPLITR) s.trySplit();
+                return prefix != null ? newSpliterator(prefix) : null;
+            }
+            if (!sized) {
+                return null;
+            }
+            for (;;) {
+                @SuppressWarnings("unchecked")
+                T_SPLITR prefix = (T_SPLITR) s.trySplit();
+                if (prefix == null) {
+                    return null;
+                }
+                long gap = windows.gap;
+                long n = (headFence - headIndex) + prefix.getExactSizeIfKnown();
+                if (n <= gap) {
+                    // No window starts in the prefix
+                    windows.gap = gap - n;
+                    headIndex = headFence;
+                    drain(prefix);
+                    continue;
+                }
+                int step = windows.step;
+                // the first window that starts beyond the prefix
+                long start = gap + (n - gap + step - 1) / step * step;
+                // the end of the last window that starts in the prefix
+                long end = start - step + windows.size;
+
+                WindowSpliterator<T, T_SPLITR, T_ARR, W, T_WIN> left = newSpliterator(prefix);
+                left.windows.gap = gap;
+                left.head = head;
+                left.headIndex = headIndex;
+                left.headFence = headFence;
+                head = null;
+                headIndex = headFence = 0;
+
+                int pulled = 0;
+                if (end > n) {
+                    collect = windows.newArray((int) (end - n));
+                    collected = 0;
+                    while (collected < end - n && advance()) {
+                    }
+                    pulled = collected;
+                    left.tail = collect;
+                    left.tailFence = pulled;
+                }
+                long skip = start - n;
+                if (skip < pulled) {
+                    head = collect;
+                    headIndex = (int) skip;
+                    headFence = pulled;
+                    windows.gap = 0;
+                } else {
+                    windows.gap = skip - pulled;
+                }
+                collect = null;
+                return left;
+            }
+        }
+
+        @Override
+        public long estimateSize() {
+            long n = s.estimateSize();
+            if (windows.timeoutNanos >= 0 || n == Long.MAX_VALUE) {
+                // at most one batch per element
+                return n;
+            }
+            n += (headFence - headIndex) + (tailFence - tailIndex);
+            return windows.count(n) + (next != null ? 1 : 0);
+        }
+
+        @Override
+        public long getExactSizeIfKnown() {
+            return Spliterators.getExactSizeIfKnown(this);
+        }
+
+        @Override
+        public int characteristics() {
+            int c = (s.characteristics() & Spliterator.ORDERED) | Spliterator.NONNULL;
+            return sized && windows.timeoutNanos < 0 ? c | Spliterator.SIZED | Spliterator.SUBSIZED : c;
+        }
+
+        @Override
+        public boolean hasCharacteristics(int characteristics) {
+            return Spliterators.hasCharacteristics(this, characteristics);
+        }
+
+        @Override
+        public Comparator<? super W> getComparator() {
+            return Spliterators.getComparator(this);
+        }
+    }
+}
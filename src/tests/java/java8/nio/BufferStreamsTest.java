@@ -0,0 +1,108 @@
+/*
+ * Written by Stefan Zobel and released to the
+ * public domain, as explained at
+ * http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package java8.nio;
+
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+
+import org.testng.annotations.Test;
+
+import java8.util.Spliterator;
+import java8.util.SpliteratorTestHelper;
+import java8.util.stream.IntStreams;
+import java8.util.stream.LongStreams;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests the buffer streams of {@link BufferStreams}.
+ */
+@Test
+public class BufferStreamsTest {
+
+    private static final int N = 10000;
+
+    private static IntBuffer directInts(int n) {
+        IntBuffer b = ByteBuffer.allocateDirect(n * 4).asIntBuffer();
+        for (int i = 0; i < n; i++) {
+            b.put(i, i);
+        }
+        return b;
+    }
+
+    private static LongBuffer directLongs(int n) {
+        LongBuffer b = ByteBuffer.allocateDirect(n * 8).asLongBuffer();
+        for (int i = 0; i < n; i++) {
+            b.put(i, i);
+        }
+        return b;
+    }
+
+    private static DoubleBuffer directDoubles(int n) {
+        DoubleBuffer b = ByteBuffer.allocateDirect(n * 8).asDoubleBuffer();
+        for (int i = 0; i < n; i++) {
+            b.put(i, i);
+        }
+        return b;
+    }
+
+    public void testIntBuffers() {
+        int[] expected = IntStreams.range(0, N).toArray();
+        IntBuffer heap = IntBuffer.wrap(expected.clone());
+        IntBuffer direct = directInts(N);
+        assertTrue(!direct.hasArray());
+        for (IntBuffer b : new IntBuffer[] {heap, direct}) {
+            assertEquals(BufferStreams.stream(b).toArray(), expected);
+            assertEquals(BufferStreams.stream(b).parallel().toArray(), expected);
+            assertEquals(BufferStreams.stream(b).parallel().asLongStream().sum(), (long) N * (N - 1) / 2);
+            Spliterator.OfInt s = BufferStreams.spliterator(b);
+            assertTrue(s.hasCharacteristics(Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED));
+            assertEquals(s.getExactSizeIfKnown(), (long) N);
+            assertEquals(b.position(), 0);
+        }
+    }
+
+    public void testLongAndDoubleBuffers() {
+        long[] longs = LongStreams.range(0, N).toArray();
+        double[] doubles = LongStreams.range(0, N).asDoubleStream().toArray();
+        for (LongBuffer b : new LongBuffer[] {LongBuffer.wrap(longs.clone()), directLongs(N)}) {
+            assertEquals(BufferStreams.stream(b).parallel().toArray(), longs);
+        }
+        for (DoubleBuffer b : new DoubleBuffer[] {DoubleBuffer.wrap(doubles.clone()), directDoubles(N)}) {
+            assertEquals(BufferStreams.stream(b).parallel().toArray(), doubles);
+        }
+    }
+
+    public void testPositionAndLimit() {
+        int[] expected = IntStreams.range(10, 90).toArray();
+        IntBuffer heap = IntBuffer.wrap(IntStreams.range(0, 100).toArray());
+        heap.position(5);
+        // a slice has a non-zero array offset
+        IntBuffer slice = heap.slice();
+        slice.position(5).limit(85);
+        IntBuffer direct = directInts(100);
+        direct.position(10).limit(90);
+        for (IntBuffer b : new IntBuffer[] {slice, direct}) {
+            assertEquals(BufferStreams.stream(b).toArray(), expected);
+            assertEquals(BufferStreams.stream(b).parallel().toArray(), expected);
+            assertEquals(b.remaining(), 80);
+        }
+        // later changes of position and limit don't affect the spliterator
+        Spliterator.OfInt s = BufferStreams.spliterator(direct);
+        direct.position(0).limit(1);
+        assertEquals(s.estimateSize(), 80L);
+    }
+
+    public void testSpliterators() {
+        SpliteratorTestHelper.testIntSpliterator(() -> BufferStreams.spliterator(directInts(100)));
+        SpliteratorTestHelper.testIntSpliterator(() -> BufferStreams.spliterator(directInts(0)));
+        SpliteratorTestHelper.testLongSpliterator(() -> BufferStreams.spliterator(directLongs(100)));
+        SpliteratorTestHelper.testDoubleSpliterator(() -> BufferStreams.spliterator(directDoubles(100)));
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Written by Stefan Zobel and released to the
+ * public domain, as explained at
+ * http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package java8.nio;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.testng.annotations.Test;
+
+import java8.util.Spliterator;
+import java8.util.stream.Collectors;
+import java8.util.stream.Stream;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests the memory-mapped file streams of {@link MappedStreams}.
+ */
+@Test
+public class MappedStreamsTest {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static File write(byte[] content) throws IOException {
+        File file = File.createTempFile("mapped", ".txt");
+        file.deleteOnExit();
+        OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(content);
+        } finally {
+            out.close();
+        }
+        return file;
+    }
+
+    private static String string(ByteBuffer buffer) {
+        byte[] b = new byte[buffer.remaining()];
+        buffer.duplicate().get(b);
+        return new String(b, UTF_8);
+    }
+
+    private static List<String> collect(Stream<String> stream) {
+        try {
+            return stream.collect(Collectors.toList());
+        } finally {
+            stream.close();
+        }
+    }
+
+    public void testLines() throws IOException {
+        Random rnd = new Random(42);
+        String[] terminators = {"\n", "\r", "\r\n"};
+        List<String> expected = new ArrayList<>();
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            // includes empty lines and multi-byte characters
+            String line = i % 7 == 0 ? "" : "line " + i + (i % 5 == 0 ? " \u00e4\u20ac" : "");
+            String terminator = terminators[rnd.nextInt(terminators.length)];
+            if (terminator.equals("\r") && (i + 1) % 7 == 0) {
+                // "\r" followed by an empty line terminated by "\n" reads as "\r\n"
+                terminator = "\r\n";
+            }
+            expected.add(line);
+            sb.append(line).append(terminator);
+        }
+        sb.append("last");
+        expected.add("last");
+        File file = write(sb.toString().getBytes(UTF_8));
+        assertEquals(collect(MappedStreams.lines(file)), expected);
+        assertEquals(collect(MappedStreams.lines(file).parallel()), expected);
+        assertEquals(collect(MappedStreams.lines(file).parallel().filter(s -> s.isEmpty())).size(), 20000 / 7 + 1);
+    }
+
+    public void testSplitAtEveryOffset() throws IOException {
+        byte[] content = "a\r\nbb\n\nccc\rd\r\r\n".getBytes(UTF_8);
+        List<String> expected = Arrays.asList("a", "bb", "", "ccc", "d", "");
+        File file = write(content);
+        for (int i = 0; i < content.length; i++) {
+            Stream<String> stream = MappedStreams.lines(file);
+            Spliterator<String> s = stream.spliterator();
+            List<String> actual = new ArrayList<>();
+            // split off prefixes repeatedly, at different positions
+            for (int j = 0; j <= i && s.estimateSize() > 1; j++) {
+                Spliterator<String> prefix = s.trySplit();
+                if (prefix == null) {
+                    break;
+                }
+                prefix.forEachRemaining(actual::add);
+            }
+            s.forEachRemaining(actual::add);
+            stream.close();
+            assertEquals(actual, expected, "splits " + i);
+        }
+    }
+
+    public void testDelimitedRecords() throws IOException {
+        File file = write("alpha|beta||gamma|".getBytes(UTF_8));
+        Stream<ByteBuffer> stream = MappedStreams.delimitedRecords(file, (byte) '|');
+        try {
+            List<String> records = stream.parallel().map(MappedStreamsTest::string).collect(Collectors.toList());
+            assertEquals(records, Arrays.asList("alpha", "beta", "", "gamma"));
+        } finally {
+            stream.close();
+        }
+    }
+
+    public void testFixedLengthRecords() throws IOException {
+        byte[] content = new byte[4 * 1000 + 3];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) ('a' + (i / 4) % 26);
+        }
+        File file = write(content);
+        Stream<ByteBuffer> stream = MappedStreams.fixedLengthRecords(file, 4);
+        try {
+            Spliterator<ByteBuffer> s = stream.spliterator();
+            assertTrue(s.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED));
+            assertEquals(s.getExactSizeIfKnown(), 1001L);
+        } finally {
+            stream.close();
+        }
+        stream = MappedStreams.fixedLengthRecords(file, 4);
+        try {
+            List<ByteBuffer> records = stream.parallel().collect(Collectors.toList());
+            assertEquals(records.size(), 1001);
+            for (int i = 0; i < 1000; i++) {
+                ByteBuffer record = records.get(i);
+                assertTrue(record.isReadOnly());
+                assertEquals(record.remaining(), 4);
+                assertEquals(record.get(3), (byte) ('a' + i % 26));
+            }
+            assertEquals(records.get(1000).remaining(), 3);
+        } finally {
+            stream.close();
+        }
+    }
+
+    public void testEmptyFile() throws IOException {
+        File file = write(new byte[0]);
+        assertEquals(collect(MappedStreams.lines(file)), new ArrayList<String>());
+        Stream<ByteBuffer> records = MappedStreams.fixedLengthRecords(file, 8);
+        assertEquals(records.count(), 0L);
+        records.close();
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testUnsupportedCharset() throws IOException {
+        MappedStreams.lines(write(new byte[1]), Charset.forName("UTF-16"));
+    }
+}
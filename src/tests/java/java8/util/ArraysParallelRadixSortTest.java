@@ -0,0 +1,127 @@
+/*
+ * Written by Stefan Zobel and released to the
+ * public domain, as explained at
+ * http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package java8.util;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.testng.annotations.Test;
+
+import java8.util.concurrent.ForkJoinPool;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests the radix sort behind {@code J8Arrays.parallelSort(int[])} and
+ * {@code J8Arrays.parallelSort(long[])} for large arrays (see
+ * {@link ArraysParallelRadixSort}).
+ */
+@Test
+public class ArraysParallelRadixSortTest {
+
+    private static final int N = ArraysParallelRadixSort.MIN_ARRAY_RADIX_SORT * 3 + 17;
+
+    private static int[] ints(Random rnd, int bound) {
+        int[] a = new int[N];
+        for (int i = 0; i < N; i++) {
+            a[i] = bound == 0 ? rnd.nextInt() : rnd.nextInt(bound) - bound / 2;
+        }
+        return a;
+    }
+
+    private static long[] longs(Random rnd, int bound) {
+        long[] a = new long[N];
+        for (int i = 0; i < N; i++) {
+            a[i] = bound == 0 ? rnd.nextLong() : (long) (rnd.nextInt(bound) - bound / 2) << 24;
+        }
+        return a;
+    }
+
+    public void testInt() {
+        Random rnd = new Random(42);
+        // full range, narrow range (skipped passes) and constant
+        for (int bound : new int[] {0, 1000, 1}) {
+            int[] a = ints(rnd, bound);
+            a[0] = Integer.MIN_VALUE;
+            a[N - 1] = Integer.MAX_VALUE;
+            int[] expected = a.clone();
+            Arrays.sort(expected);
+            for (int parallelism : new int[] {1, 2, 7}) {
+                int[] actual = a.clone();
+                ArraysParallelRadixSort.sort(actual, 0, N, parallelism);
+                assertTrue(Arrays.equals(actual, expected), "bound " + bound + ", parallelism " + parallelism);
+            }
+            J8Arrays.parallelSort(a);
+            assertTrue(Arrays.equals(a, expected));
+        }
+    }
+
+    public void testLong() {
+        Random rnd = new Random(42);
+        for (int bound : new int[] {0, 1000, 1}) {
+            long[] a = longs(rnd, bound);
+            a[0] = Long.MIN_VALUE;
+            a[N - 1] = Long.MAX_VALUE;
+            long[] expected = a.clone();
+            Arrays.sort(expected);
+            for (int parallelism : new int[] {1, 2, 7}) {
+                long[] actual = a.clone();
+                ArraysParallelRadixSort.sort(actual, 0, N, parallelism);
+                assertTrue(Arrays.equals(actual, expected), "bound " + bound + ", parallelism " + parallelism);
+            }
+            J8Arrays.parallelSort(a);
+            assertTrue(Arrays.equals(a, expected));
+        }
+    }
+
+    public void testRange() {
+        Random rnd = new Random(7);
+        int[] ints = ints(rnd, 0);
+        long[] longs = longs(rnd, 0);
+        int from = 5, to = N - 11;
+        int[] expectedInts = ints.clone();
+        Arrays.sort(expectedInts, from, to);
+        long[] expectedLongs = longs.clone();
+        Arrays.sort(expectedLongs, from, to);
+        J8Arrays.parallelSort(ints, from, to);
+        J8Arrays.parallelSort(longs, from, to);
+        assertTrue(Arrays.equals(ints, expectedInts));
+        assertTrue(Arrays.equals(longs, expectedLongs));
+    }
+
+    public void testSingleWorkerPool() throws Exception {
+        Random rnd = new Random(11);
+        final int[] ints = ints(rnd, 0);
+        final long[] longs = longs(rnd, 1000);
+        int[] expectedInts = ints.clone();
+        Arrays.sort(expectedInts);
+        long[] expectedLongs = longs.clone();
+        Arrays.sort(expectedLongs);
+        // not sorted by the radix sort, which has no parallelism to use here
+        ForkJoinPool pool = new ForkJoinPool(1);
+        try {
+            pool.submit(new Runnable() {
+                @Override
+                public void run() {
+                    assertEquals(ArraysParallelRadixSort.parallelism(), 1);
+                    J8Arrays.parallelSort(ints);
+                    J8Arrays.parallelSort(longs, 0, N);
+                }
+            }).get();
+        } finally {
+            pool.shutdown();
+        }
+        assertTrue(Arrays.equals(ints, expectedInts));
+        assertTrue(Arrays.equals(longs, expectedLongs));
+    }
+
+    public void testBlocks() {
+        assertEquals(ArraysParallelRadixSort.blocks(N, 1), 1);
+        assertEquals(ArraysParallelRadixSort.blocks(1 << 20, 4), 16);
+        assertEquals(ArraysParallelRadixSort.blocks(1 << 16, 64), 4);
+    }
+}
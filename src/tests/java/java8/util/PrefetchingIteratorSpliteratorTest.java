@@ -0,0 +1,232 @@
+/*
+ * Written by Stefan Zobel and released to the
+ * public domain, as explained at
+ * http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package java8.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.Test;
+
+import java8.util.concurrent.ForkJoinPool;
+import java8.util.concurrent.ForkJoinTask;
+import java8.util.stream.Collectors;
+import java8.util.stream.IntStreams;
+import java8.util.stream.StreamSupport;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+/**
+ * Tests the spliterator returned by
+ * {@link Spliterators#prefetchingSpliteratorUnknownSize(Iterator, int, int)}
+ * (see {@link PrefetchingIteratorSpliterator}).
+ */
+@Test
+public class PrefetchingIteratorSpliteratorTest {
+
+    private static final int N = 100000;
+
+    private static List<Integer> list(int n) {
+        return IntStreams.range(0, n).boxed().collect(Collectors.toList());
+    }
+
+    private static Spliterator<Integer> prefetching(Iterator<Integer> it, int maxBatches) {
+        return Spliterators.prefetchingSpliteratorUnknownSize(it, Spliterator.ORDERED, maxBatches);
+    }
+
+    public void testOrderedParallel() {
+        List<Integer> list = list(N);
+        for (int maxBatches : new int[] {1, 2, 16}) {
+            List<Integer> actual = StreamSupport.stream(prefetching(list.iterator(), maxBatches), true)
+                    .map(i -> i + 1).map(i -> i - 1).collect(Collectors.toList());
+            assertEquals(actual, list, "maxBatches " + maxBatches);
+        }
+        assertEquals(StreamSupport.stream(prefetching(list.iterator(), 4), true).count(), (long) N);
+    }
+
+    public void testTraversal() {
+        List<Integer> list = list(5000);
+        Spliterator<Integer> s = prefetching(list.iterator(), 3);
+        assertEquals(s.estimateSize(), Long.MAX_VALUE);
+        assertTrue(!s.hasCharacteristics(Spliterator.SIZED));
+        final List<Integer> seen = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            assertTrue(s.tryAdvance(seen::add));
+        }
+        // the rest of the current batch comes first
+        Spliterator<Integer> prefix = s.trySplit();
+        assertTrue(prefix.hasCharacteristics(Spliterator.SIZED | Spliterator.ORDERED));
+        prefix.forEachRemaining(seen::add);
+        s.forEachRemaining(seen::add);
+        assertEquals(seen, list);
+        assertNull(s.trySplit());
+        assertEquals(s.estimateSize(), 0L);
+        assertTrue(!s.tryAdvance(seen::add));
+
+        Spliterator<Integer> empty = prefetching(new ArrayList<Integer>().iterator(), 1);
+        assertNull(empty.trySplit());
+        assertEquals(empty.estimateSize(), 0L);
+    }
+
+    public void testFailure() {
+        Iterator<Integer> failing = new Iterator<Integer>() {
+            int i;
+
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public Integer next() {
+                if (i == 3000) {
+                    throw new NoSuchElementException("broken");
+                }
+                return i++;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+        try {
+            StreamSupport.stream(prefetching(failing, 2), true).count();
+            fail("expected NoSuchElementException");
+        } catch (NoSuchElementException e) {
+            // possibly rethrown as a new exception by the ForkJoinPool,
+            // with the original exception as its cause
+            assertTrue(causedBy(e, "broken"), String.valueOf(e));
+        }
+    }
+
+    /** Returns true if t or one of its causes has a message ending with the suffix. */
+    private static boolean causedBy(Throwable t, String suffix) {
+        for (; t != null; t = t.getCause()) {
+            String message = t.getMessage();
+            if (message != null && message.endsWith(suffix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void testElementsBeforeFailure() {
+        Iterator<Integer> failing = new Iterator<Integer>() {
+            int i;
+
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public Integer next() {
+                if (i == 100) {
+                    throw new NoSuchElementException("broken");
+                }
+                return i++;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+        // the failure happens within the second batch
+        Spliterator<Integer> s = prefetching(failing, 4);
+        List<Integer> seen = new ArrayList<>();
+        try {
+            s.forEachRemaining(seen::add);
+            fail("expected NoSuchElementException");
+        } catch (NoSuchElementException e) {
+            assertEquals(seen, list(100));
+        }
+    }
+
+    public void testManagedBlocking() throws Exception {
+        // the only worker waits for the producer, which waits for a task
+        // queued behind it
+        ForkJoinPool pool = new ForkJoinPool(1);
+        try {
+            final CountDownLatch released = new CountDownLatch(1);
+            final Iterator<Integer> it = list(1000).iterator();
+            Iterator<Integer> gated = new Iterator<Integer>() {
+                @Override
+                public boolean hasNext() {
+                    try {
+                        released.await();
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                    return it.hasNext();
+                }
+
+                @Override
+                public Integer next() {
+                    return it.next();
+                }
+
+                @Override
+                public void remove() {
+                    throw new UnsupportedOperationException();
+                }
+            };
+            ForkJoinTask<Long> count = pool.submit(() -> StreamSupport.stream(prefetching(gated, 2), false).count());
+            pool.submit(released::countDown);
+            assertEquals(count.get(30L, TimeUnit.SECONDS).longValue(), 1000L);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    public void testShortCircuit() {
+        // an infinite iterator, the producer must not keep the stream from completing
+        Iterator<Integer> infinite = new Iterator<Integer>() {
+            int i;
+
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public Integer next() {
+                return i++;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+        assertEquals(StreamSupport.stream(prefetching(infinite, 2), false).limit(3).collect(Collectors.toList()),
+                Arrays.asList(0, 1, 2));
+    }
+
+    public void testNextBatchSize() {
+        int min = PrefetchingIteratorSpliterator.MIN_BATCH;
+        int unit = PrefetchingIteratorSpliterator.BATCH_UNIT;
+        int max = PrefetchingIteratorSpliterator.MAX_BATCH;
+        assertEquals(PrefetchingIteratorSpliterator.nextBatchSize(min, true, false), min + unit);
+        assertEquals(PrefetchingIteratorSpliterator.nextBatchSize(max, true, false), max);
+        assertEquals(PrefetchingIteratorSpliterator.nextBatchSize(4 * unit, false, true), 2 * unit);
+        assertEquals(PrefetchingIteratorSpliterator.nextBatchSize(min, false, true), min);
+        assertEquals(PrefetchingIteratorSpliterator.nextBatchSize(unit, false, false), unit);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testMaxBatches() {
+        prefetching(list(1).iterator(), 0);
+    }
+}
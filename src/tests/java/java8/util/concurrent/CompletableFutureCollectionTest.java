@@ -0,0 +1,221 @@
+/*
+ * Written by Stefan Zobel and released to the
+ * public domain, as explained at
+ * http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package java8.util.concurrent;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+/**
+ * Tests the Collection forms of {@link CompletableFuture#allOf},
+ * {@link CompletableFuture#anyOf} and
+ * {@link CompletableFuture#allResults}, and the array form of
+ * {@link CompletableFuture#allOf} that shares their implementation.
+ */
+@Test
+public class CompletableFutureCollectionTest {
+
+    private static List<CompletableFuture<Integer>> incomplete(int n) {
+        List<CompletableFuture<Integer>> cfs = new ArrayList<CompletableFuture<Integer>>();
+        for (int i = 0; i < n; i++) {
+            cfs.add(new CompletableFuture<Integer>());
+        }
+        return cfs;
+    }
+
+    public void testEmpty() throws Exception {
+        List<CompletableFuture<Integer>> none = Collections.emptyList();
+        CompletableFuture<Void> all = CompletableFuture.allOf(none);
+        assertTrue(all.isDone());
+        assertNull(all.join());
+        assertEquals(CompletableFuture.allResults(none).getNow(null), Collections.emptyList());
+        assertFalse(CompletableFuture.anyOf(none).isDone());
+    }
+
+    public void testAllResults() throws Exception {
+        for (int n : new int[] {1, 2, 3, 100, 10000}) {
+            List<CompletableFuture<Integer>> cfs = incomplete(n);
+            // some sources are complete before
+            for (int i = 0; i < n; i += 3) {
+                cfs.get(i).complete(i);
+            }
+            CompletableFuture<Void> all = CompletableFuture.allOf(cfs);
+            CompletableFuture<List<Integer>> results = CompletableFuture.allResults(cfs);
+            List<Integer> expected = new ArrayList<Integer>();
+            for (int i = 0; i < n; i++) {
+                expected.add(i % 7 == 1 && i % 3 != 0 ? null : i);
+            }
+            for (int i = n - 1; i >= 0; i--) {
+                if (i % 3 != 0) {
+                    assertFalse(all.isDone());
+                    assertFalse(results.isDone());
+                    cfs.get(i).complete(expected.get(i));
+                }
+            }
+            assertTrue(all.isDone());
+            assertNull(all.join());
+            assertEquals(results.join(), expected);
+            for (CompletableFuture<Integer> cf : cfs) {
+                assertEquals(cf.getNumberOfDependents(), 0);
+            }
+        }
+    }
+
+    public void testExceptional() throws Exception {
+        List<CompletableFuture<Integer>> cfs = incomplete(5);
+        CompletableFuture<List<Integer>> results = CompletableFuture.allResults(cfs);
+        CompletableFuture<Void> all = CompletableFuture.allOf(cfs);
+        IllegalStateException second = new IllegalStateException();
+        IllegalArgumentException fourth = new IllegalArgumentException();
+        cfs.get(3).completeExceptionally(fourth);
+        cfs.get(1).completeExceptionally(second);
+        cfs.get(0).complete(0);
+        cfs.get(2).complete(2);
+        // waits for all sources, like allOf(CompletableFuture...)
+        assertFalse(results.isDone());
+        assertFalse(all.isDone());
+        cfs.get(4).complete(4);
+        assertTrue(results.isCompletedExceptionally());
+        try {
+            results.get();
+            fail();
+        } catch (ExecutionException expected) {
+            assertEquals(expected.getCause(), second);
+        }
+        try {
+            all.join();
+            fail();
+        } catch (CompletionException expected) {
+            assertEquals(expected.getCause(), second);
+        }
+    }
+
+    public void testArrayForm() {
+        List<CompletableFuture<Integer>> cfs = incomplete(1000);
+        CompletableFuture<?>[] array = cfs.toArray(new CompletableFuture<?>[0]);
+        CompletableFuture<Void> all = CompletableFuture.allOf(array);
+        // a single completion per source, and the array isn't retained
+        for (CompletableFuture<Integer> cf : cfs) {
+            assertEquals(cf.getNumberOfDependents(), 1);
+        }
+        Arrays.fill(array, null);
+        IllegalStateException failure = new IllegalStateException();
+        for (int i = cfs.size() - 1; i >= 0; i--) {
+            assertFalse(all.isDone());
+            if (i % 100 == 50) {
+                cfs.get(i).completeExceptionally(i == 50 ? failure : new IllegalArgumentException());
+            } else {
+                cfs.get(i).complete(i);
+            }
+        }
+        try {
+            all.join();
+            fail();
+        } catch (CompletionException expected) {
+            // the exception of the first source in array order
+            assertEquals(expected.getCause(), failure);
+        }
+        assertNull(CompletableFuture.allOf().join());
+        try {
+            CompletableFuture.allOf(new CompletableFuture<?>[] {new CompletableFuture<Integer>(), null});
+            fail();
+        } catch (NullPointerException expected) {
+        }
+    }
+
+    public void testDuplicates() {
+        CompletableFuture<Integer> cf = new CompletableFuture<Integer>();
+        CompletableFuture<List<Integer>> results = CompletableFuture.allResults(Arrays.asList(cf, cf, cf));
+        assertFalse(results.isDone());
+        cf.complete(1);
+        assertEquals(results.join(), Arrays.asList(1, 1, 1));
+    }
+
+    public void testConcurrentCompletion() throws Exception {
+        final int n = 20000;
+        final int threads = 4;
+        for (int round = 0; round < 5; round++) {
+            final List<CompletableFuture<Integer>> cfs = incomplete(n);
+            final CountDownLatch start = new CountDownLatch(1);
+            List<Thread> ts = new ArrayList<Thread>();
+            for (int t = 0; t < threads; t++) {
+                final int offset = t;
+                Thread thread = new Thread() {
+                    public void run() {
+                        try {
+                            start.await();
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                        for (int i = offset; i < n; i += threads) {
+                            cfs.get(i).complete(i);
+                        }
+                    }
+                };
+                thread.start();
+                ts.add(thread);
+            }
+            start.countDown();
+            // registers while the sources are being completed
+            CompletableFuture<List<Integer>> results = CompletableFuture.allResults(cfs);
+            List<Integer> list = results.get(30L, TimeUnit.SECONDS);
+            for (Thread thread : ts) {
+                thread.join();
+            }
+            assertEquals(list.size(), n);
+            for (int i = 0; i < n; i++) {
+                assertEquals(list.get(i).intValue(), i);
+            }
+        }
+    }
+
+    public void testAnyOf() {
+        List<CompletableFuture<Integer>> cfs = incomplete(100);
+        CompletableFuture<Object> any = CompletableFuture.anyOf(cfs);
+        assertFalse(any.isDone());
+        cfs.get(42).complete(42);
+        assertEquals(any.join(), 42);
+        cfs.get(7).complete(7);
+        assertEquals(any.join(), 42);
+        assertEquals(CompletableFuture.anyOf(cfs).join(), 7);
+    }
+
+    public void testNullPointerException() {
+        List<CompletableFuture<Integer>> withNull = Arrays.asList(new CompletableFuture<Integer>(), null);
+        try {
+            CompletableFuture.allOf(withNull);
+            fail();
+        } catch (NullPointerException expected) {
+        }
+        try {
+            CompletableFuture.allResults(withNull);
+            fail();
+        } catch (NullPointerException expected) {
+        }
+        try {
+            CompletableFuture.anyOf(withNull);
+            fail();
+        } catch (NullPointerException expected) {
+        }
+        try {
+            CompletableFuture.allResults((List<CompletableFuture<Integer>>) null);
+            fail();
+        } catch (NullPointerException expected) {
+        }
+    }
+}
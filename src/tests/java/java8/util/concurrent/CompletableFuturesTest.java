@@ -0,0 +1,277 @@
+/*
+ * Written by Stefan Zobel and released to the
+ * public domain, as explained at
+ * http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package java8.util.concurrent;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.Test;
+
+import java8.util.function.Function;
+import java8.util.function.Supplier;
+import java8.util.stream.IntStreams;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+/**
+ * Tests {@link CompletableFutures#mapAsync} and
+ * {@link CompletableFutures#mapAsyncUnordered}.
+ */
+@Test
+public class CompletableFuturesTest {
+
+    private static List<Integer> range(int n) {
+        List<Integer> list = new ArrayList<Integer>();
+        for (int i = 0; i < n; i++) {
+            list.add(i);
+        }
+        return list;
+    }
+
+    /** A function whose stages are completed by the test. */
+    static final class Pending implements Function<Integer, CompletableFuture<Integer>> {
+        final List<CompletableFuture<Integer>> stages = new ArrayList<CompletableFuture<Integer>>();
+        final List<Integer> inputs = new ArrayList<Integer>();
+
+        public CompletableFuture<Integer> apply(Integer x) {
+            CompletableFuture<Integer> f = new CompletableFuture<Integer>();
+            stages.add(f);
+            inputs.add(x);
+            return f;
+        }
+
+        int inFlight() {
+            int n = 0;
+            for (CompletableFuture<Integer> f : stages) {
+                if (!f.isDone()) {
+                    n++;
+                }
+            }
+            return n;
+        }
+
+        int pickIncomplete(Random rnd) {
+            List<Integer> incomplete = new ArrayList<Integer>();
+            for (int i = 0; i < stages.size(); i++) {
+                if (!stages.get(i).isDone()) {
+                    incomplete.add(i);
+                }
+            }
+            return incomplete.get(rnd.nextInt(incomplete.size()));
+        }
+    }
+
+    public void testBoundedInFlight() {
+        Random rnd = new Random(7);
+        for (int max : new int[] {1, 3, 16, 200}) {
+            for (boolean ordered : new boolean[] {true, false}) {
+                int n = 100;
+                Pending fn = new Pending();
+                CompletableFuture<List<Integer>> results = ordered
+                        ? CompletableFutures.mapAsync(range(n), max, fn)
+                        : CompletableFutures.mapAsyncUnordered(range(n), max, fn);
+                List<Integer> completionOrder = new ArrayList<Integer>();
+                while (!results.isDone()) {
+                    int inFlight = fn.inFlight();
+                    assertEquals(inFlight, Math.min(max, n - completionOrder.size()));
+                    // the source is consumed lazily
+                    assertEquals(fn.stages.size(), completionOrder.size() + inFlight);
+                    int i = fn.pickIncomplete(rnd);
+                    int x = fn.inputs.get(i);
+                    completionOrder.add(-x);
+                    fn.stages.get(i).complete(-x);
+                }
+                List<Integer> expected = new ArrayList<Integer>();
+                for (int i = 0; i < n; i++) {
+                    expected.add(-i);
+                }
+                assertEquals(results.join(), ordered ? expected : completionOrder);
+            }
+        }
+    }
+
+    public void testSynchronousStages() {
+        // completed stages are processed in a loop, not recursively
+        int n = 1000000;
+        Function<Integer, CompletableFuture<Integer>> twice = new Function<Integer, CompletableFuture<Integer>>() {
+            public CompletableFuture<Integer> apply(Integer x) {
+                return CompletableFuture.completedFuture(2 * x);
+            }
+        };
+        List<Integer> results = CompletableFutures.mapAsync(range(n), 4, twice).join();
+        assertEquals(results.size(), n);
+        for (int i = 0; i < n; i++) {
+            assertEquals(results.get(i).intValue(), 2 * i);
+        }
+        assertEquals(CompletableFutures.mapAsyncUnordered(range(n), 1, twice).join().size(), n);
+    }
+
+    public void testMixedStages() {
+        // every third stage is complete when it is returned, one call at a time
+        for (boolean ordered : new boolean[] {true, false}) {
+            final Pending pending = new Pending();
+            Function<Integer, CompletableFuture<Integer>> fn = new Function<Integer, CompletableFuture<Integer>>() {
+                public CompletableFuture<Integer> apply(Integer x) {
+                    return x % 3 == 0 ? CompletableFuture.completedFuture(x) : pending.apply(x);
+                }
+            };
+            CompletableFuture<List<Integer>> results = ordered
+                    ? CompletableFutures.mapAsync(IntStreams.range(0, 1000).boxed(), 1, fn)
+                    : CompletableFutures.mapAsyncUnordered(IntStreams.range(0, 1000).boxed(), 1, fn);
+            List<Integer> completionOrder = new ArrayList<Integer>();
+            for (int i = 0; i < 1000; i++) {
+                if (i % 3 == 0) {
+                    completionOrder.add(i);
+                } else {
+                    assertEquals(pending.inputs.get(pending.inputs.size() - 1).intValue(), i);
+                    // completing a stage issues the next calls
+                    pending.stages.get(pending.stages.size() - 1).complete(i);
+                    completionOrder.add(i);
+                }
+            }
+            assertEquals(results.join(), ordered ? range(1000) : completionOrder);
+        }
+    }
+
+    public void testEmptySource() {
+        Pending fn = new Pending();
+        CompletableFuture<List<Integer>> results = CompletableFutures.mapAsync(range(0), 8, fn);
+        assertTrue(results.isDone());
+        assertEquals(results.join(), Collections.emptyList());
+        assertTrue(fn.stages.isEmpty());
+    }
+
+    public void testConcurrentCompletion() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            final AtomicInteger inFlight = new AtomicInteger();
+            final AtomicInteger maxInFlight = new AtomicInteger();
+            final int max = 32;
+            final ExecutorService e = pool;
+            Function<Integer, CompletableFuture<Long>> square = new Function<Integer, CompletableFuture<Long>>() {
+                public CompletableFuture<Long> apply(final Integer x) {
+                    int current = inFlight.incrementAndGet();
+                    for (int m; (m = maxInFlight.get()) < current; ) {
+                        maxInFlight.compareAndSet(m, current);
+                    }
+                    return CompletableFuture.supplyAsync(new Supplier<Long>() {
+                        public Long get() {
+                            inFlight.decrementAndGet();
+                            return (long) x * x;
+                        }
+                    }, e);
+                }
+            };
+            for (int round = 0; round < 5; round++) {
+                int n = 50000;
+                List<Long> results = CompletableFutures.mapAsync(IntStreams.range(0, n).boxed(), max, square)
+                        .get(30L, TimeUnit.SECONDS);
+                assertEquals(results.size(), n);
+                for (int i = 0; i < n; i++) {
+                    assertEquals(results.get(i).longValue(), (long) i * i);
+                }
+                List<Long> unordered = CompletableFutures.mapAsyncUnordered(IntStreams.range(0, n).boxed(), max,
+                        square).get(30L, TimeUnit.SECONDS);
+                Collections.sort(unordered);
+                assertEquals(unordered, results);
+            }
+            assertTrue(maxInFlight.get() <= max);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    public void testExceptionalStage() throws Exception {
+        Pending fn = new Pending();
+        CompletableFuture<List<Integer>> results = CompletableFutures.mapAsync(range(100), 4, fn);
+        IllegalStateException failure = new IllegalStateException();
+        fn.stages.get(0).complete(0);
+        fn.stages.get(2).completeExceptionally(failure);
+        assertTrue(results.isCompletedExceptionally());
+        try {
+            results.get();
+            fail();
+        } catch (ExecutionException expected) {
+            assertEquals(expected.getCause(), failure);
+        }
+        // no further calls, and the in-flight stages are left alone
+        int calls = fn.stages.size();
+        assertEquals(calls, 5);
+        fn.stages.get(1).complete(1);
+        assertEquals(fn.stages.size(), calls);
+        assertFalse(fn.stages.get(3).isDone());
+    }
+
+    public void testFunctionFailures() {
+        final RuntimeException failure = new RuntimeException();
+        Function<Integer, CompletableFuture<Integer>> throwing = new Function<Integer, CompletableFuture<Integer>>() {
+            public CompletableFuture<Integer> apply(Integer x) {
+                if (x == 3) {
+                    throw failure;
+                }
+                return CompletableFuture.completedFuture(x);
+            }
+        };
+        CompletableFuture<List<Integer>> results = CompletableFutures.mapAsync(range(10), 2, throwing);
+        try {
+            results.join();
+            fail();
+        } catch (CompletionException expected) {
+            assertEquals(expected.getCause(), failure);
+        }
+        Function<Integer, CompletableFuture<Integer>> returningNull = new Function<Integer, CompletableFuture<Integer>>() {
+            public CompletableFuture<Integer> apply(Integer x) {
+                return null;
+            }
+        };
+        try {
+            CompletableFutures.mapAsyncUnordered(range(10), 2, returningNull).join();
+            fail();
+        } catch (CompletionException expected) {
+            assertTrue(expected.getCause() instanceof NullPointerException);
+        }
+    }
+
+    public void testCancellation() {
+        Pending fn = new Pending();
+        CompletableFuture<List<Integer>> results = CompletableFutures.mapAsyncUnordered(range(100), 3, fn);
+        assertTrue(results.cancel(false));
+        for (CompletableFuture<Integer> f : new ArrayList<CompletableFuture<Integer>>(fn.stages)) {
+            f.complete(0);
+        }
+        assertEquals(fn.stages.size(), 3);
+    }
+
+    public void testIllegalArguments() {
+        Pending fn = new Pending();
+        try {
+            CompletableFutures.mapAsync(range(1), 0, fn);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            CompletableFutures.mapAsync((List<Integer>) null, 1, fn);
+            fail();
+        } catch (NullPointerException expected) {
+        }
+        try {
+            CompletableFutures.mapAsyncUnordered(range(1), 1, (Pending) null);
+            fail();
+        } catch (NullPointerException expected) {
+        }
+        assertTrue(fn.stages.isEmpty());
+    }
+}
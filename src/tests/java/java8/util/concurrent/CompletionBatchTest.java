@@ -0,0 +1,326 @@
+/*
+ * Written by Stefan Zobel and released to the
+ * public domain, as explained at
+ * http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package java8.util.concurrent;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java8.util.function.Function;
+
+/**
+ * Tests the batching of async dependents by
+ * {@link CompletableFuture.Drain} (see the system property
+ * {@code java8.util.concurrent.CompletableFuture.asyncBatchSize}).
+ * As the property is read only once, the completion of futures with
+ * batching enabled is tested in another JVM (see {@link Batched}).
+ */
+@Test
+public class CompletionBatchTest {
+
+    /** An executor that records the submitted tasks. */
+    static final class RecordingExecutor implements Executor {
+        final List<Runnable> tasks = new ArrayList<Runnable>();
+
+        public void execute(Runnable r) {
+            tasks.add(r);
+        }
+
+        void runAll() {
+            for (Runnable r : tasks) {
+                r.run();
+            }
+        }
+    }
+
+    /** An executor that runs each task in a new daemon thread. */
+    static final class ThreadPerTask implements Executor {
+        public void execute(Runnable r) {
+            Thread t = new Thread(r);
+            t.setDaemon(true);
+            t.start();
+        }
+    }
+
+    /** A completion that counts how often it is fired asynchronously. */
+    @SuppressWarnings("serial")
+    static final class CountingCompletion extends CompletableFuture.Completion {
+        int fired;
+
+        CompletableFuture<?> tryFire(int mode) {
+            assertEquals(mode, CompletableFuture.ASYNC);
+            fired++;
+            return null;
+        }
+
+        boolean isLive() {
+            return fired == 0;
+        }
+    }
+
+    private static List<CountingCompletion> completions(int n) {
+        List<CountingCompletion> cs = new ArrayList<CountingCompletion>();
+        for (int i = 0; i < n; i++) {
+            cs.add(new CountingCompletion());
+        }
+        return cs;
+    }
+
+    public void testBatchesByExecutor() {
+        RecordingExecutor e1 = new RecordingExecutor();
+        RecordingExecutor e2 = new RecordingExecutor();
+        CompletableFuture.Drain drain = new CompletableFuture.Drain(3);
+        assertTrue(drain.activate());
+        assertFalse(drain.activate());
+        List<CountingCompletion> cs = completions(9);
+        for (int i = 0; i < 7; i++) {
+            drain.add(e1, cs.get(i));
+        }
+        drain.add(e2, cs.get(7));
+        drain.add(e2, cs.get(8));
+        // full batches are submitted right away
+        assertEquals(e1.tasks.size(), 2);
+        assertEquals(e2.tasks.size(), 0);
+        drain.deactivate();
+        assertFalse(drain.active);
+        assertEquals(e1.tasks.size(), 3);
+        assertEquals(e2.tasks.size(), 1);
+        assertTrue(e1.tasks.get(0) instanceof CompletableFuture.CompletionBatch);
+        assertTrue(e1.tasks.get(0) instanceof CompletableFuture.AsynchronousCompletionTask);
+        // a single dependent is submitted without a batch
+        assertTrue(e1.tasks.get(2) == cs.get(6));
+        e1.runAll();
+        e2.runAll();
+        for (CountingCompletion c : cs) {
+            assertEquals(c.fired, 1);
+        }
+    }
+
+    public void testCallerRunsExecutor() {
+        final CompletableFuture.Drain drain = new CompletableFuture.Drain(2);
+        final List<CountingCompletion> more = completions(5);
+        final int[] runs = new int[1];
+        // runs the tasks in the flushing thread, and claims more
+        // completions from the first batch it runs
+        Executor callerRuns = new Executor() {
+            public void execute(Runnable r) {
+                if (runs[0]++ == 0) {
+                    for (CountingCompletion c : more) {
+                        drain.add(this, c);
+                    }
+                }
+                r.run();
+            }
+        };
+        List<CountingCompletion> cs = completions(3);
+        drain.activate();
+        for (CountingCompletion c : cs) {
+            drain.add(callerRuns, c);
+        }
+        drain.deactivate();
+        for (CountingCompletion c : cs) {
+            assertEquals(c.fired, 1);
+        }
+        for (CountingCompletion c : more) {
+            assertEquals(c.fired, 1);
+        }
+        assertEquals(drain.count, 0);
+    }
+
+    public void testRejection() {
+        RecordingExecutor accepting = new RecordingExecutor();
+        Executor rejecting = new Executor() {
+            public void execute(Runnable r) {
+                throw new RejectedExecutionException();
+            }
+        };
+        CompletableFuture.Drain drain = new CompletableFuture.Drain(8);
+        drain.activate();
+        drain.add(rejecting, new CountingCompletion());
+        drain.add(accepting, new CountingCompletion());
+        try {
+            drain.deactivate();
+            fail();
+        } catch (RejectedExecutionException expected) {
+        }
+        // the other batches are submitted nevertheless
+        assertEquals(accepting.tasks.size(), 1);
+        assertFalse(drain.active);
+    }
+
+    public void testBatchRunsAllTasks() {
+        final IllegalStateException failure = new IllegalStateException();
+        CompletableFuture.CompletionBatch batch = new CompletableFuture.CompletionBatch(new RecordingExecutor(), 3);
+        List<CountingCompletion> cs = completions(2);
+        batch.tasks[batch.size++] = cs.get(0);
+        batch.tasks[batch.size++] = new CompletableFuture.Completion() {
+            private static final long serialVersionUID = 1L;
+
+            CompletableFuture<?> tryFire(int mode) {
+                throw failure;
+            }
+
+            boolean isLive() {
+                return false;
+            }
+        };
+        batch.tasks[batch.size++] = cs.get(1);
+        try {
+            batch.run();
+            fail();
+        } catch (IllegalStateException expected) {
+            assertTrue(expected == failure);
+        }
+        // the tasks after the failing one are fired nevertheless
+        for (CountingCompletion c : cs) {
+            assertEquals(c.fired, 1);
+        }
+    }
+
+    public void testPostCompleteWithBatching() throws Exception {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        Process p = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                "-Djava8.util.concurrent.CompletableFuture.asyncBatchSize=" + Batched.BATCH_SIZE,
+                Batched.class.getName()).redirectErrorStream(true).start();
+        String output = read(p.getInputStream());
+        assertEquals(p.waitFor(), 0, output);
+    }
+
+    private static String read(InputStream in) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in));
+        try {
+            StringBuilder sb = new StringBuilder();
+            for (String line; (line = reader.readLine()) != null; ) {
+                sb.append(line).append('\n');
+            }
+            return sb.toString();
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Completes futures through postComplete with batching enabled,
+     * exiting abnormally if a check fails.
+     */
+    static final class Batched {
+        static final int BATCH_SIZE = 4;
+        static final long TIMEOUT_SECONDS = 30L;
+
+        public static void main(String[] args) throws Exception {
+            assertEquals(CompletableFuture.ASYNC_BATCH_SIZE, BATCH_SIZE);
+            testBatches();
+            testSyncDependentWaitsForAsyncDependent();
+            testNestedCompletion();
+        }
+
+        static Function<Integer, Integer> plus(final int k) {
+            return new Function<Integer, Integer>() {
+                public Integer apply(Integer x) {
+                    return x + k;
+                }
+            };
+        }
+
+        /** Waits for the given future. */
+        static Function<Integer, Integer> await(final CompletableFuture<?>[] future) {
+            return new Function<Integer, Integer>() {
+                public Integer apply(Integer x) {
+                    try {
+                        return (Integer) future[0].get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                    } catch (Exception e) {
+                        throw new CompletionException(e);
+                    }
+                }
+            };
+        }
+
+        static void testBatches() {
+            RecordingExecutor e = new RecordingExecutor();
+            CompletableFuture<Integer> src = new CompletableFuture<Integer>();
+            List<CompletableFuture<Integer>> deps = new ArrayList<CompletableFuture<Integer>>();
+            for (int i = 0; i < 10; i++) {
+                deps.add(src.thenApplyAsync(plus(i), e));
+            }
+            src.complete(1);
+            // claimed by postComplete and submitted as 2 full batches
+            // and the remainder
+            assertEquals(e.tasks.size(), 3);
+            for (Runnable r : e.tasks) {
+                assertTrue(r instanceof CompletableFuture.CompletionBatch);
+            }
+            e.runAll();
+            for (int i = 0; i < 10; i++) {
+                assertEquals(deps.get(i).getNow(null).intValue(), i + 1);
+            }
+        }
+
+        static void testSyncDependentWaitsForAsyncDependent() {
+            CompletableFuture<Integer> src = new CompletableFuture<Integer>();
+            CompletableFuture<?>[] async = new CompletableFuture<?>[1];
+            // the stack is LIFO, so the async dependent is claimed
+            // before the sync one that waits for it runs
+            CompletableFuture<Integer> sync = src.thenApply(await(async));
+            async[0] = src.thenApplyAsync(plus(1), new ThreadPerTask());
+            src.complete(1);
+            assertEquals(sync.join().intValue(), 2);
+        }
+
+        static void testNestedCompletion() {
+            final CompletableFuture<Integer> inner = new CompletableFuture<Integer>();
+            CompletableFuture<?>[] async = new CompletableFuture<?>[1];
+            async[0] = inner.thenApplyAsync(plus(1), new ThreadPerTask());
+            final Function<Integer, Integer> awaitAsync = await(async);
+            CompletableFuture<Integer> src = new CompletableFuture<Integer>();
+            // a sync action that completes another future and then
+            // waits for an async dependent of that future
+            CompletableFuture<Integer> sync = src.thenApply(new Function<Integer, Integer>() {
+                public Integer apply(Integer x) {
+                    inner.complete(x);
+                    return awaitAsync.apply(x);
+                }
+            });
+            src.complete(1);
+            assertEquals(sync.join().intValue(), 2);
+        }
+    }
+
+    public void testAsyncDependents() throws Exception {
+        // batched or not, depending on the system property
+        RecordingExecutor e = new RecordingExecutor();
+        CompletableFuture<Integer> src = new CompletableFuture<Integer>();
+        List<CompletableFuture<Integer>> deps = new ArrayList<CompletableFuture<Integer>>();
+        for (int i = 0; i < 1000; i++) {
+            final int k = i;
+            deps.add(src.thenApplyAsync(new java8.util.function.Function<Integer, Integer>() {
+                public Integer apply(Integer x) {
+                    return x + k;
+                }
+            }, e));
+        }
+        src.complete(1);
+        int batchSize = Math.max(CompletableFuture.ASYNC_BATCH_SIZE, 1);
+        assertEquals(e.tasks.size(), (1000 + batchSize - 1) / batchSize);
+        e.runAll();
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(deps.get(i).getNow(null).intValue(), i + 1);
+        }
+    }
+}
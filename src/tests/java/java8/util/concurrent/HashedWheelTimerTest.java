@@ -0,0 +1,178 @@
+/*
+ * Written by Stefan Zobel and released to the
+ * public domain, as explained at
+ * http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package java8.util.concurrent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+/**
+ * Tests the hashed timing wheel that schedules the delayed actions of
+ * {@link CompletableFuture}.
+ */
+@Test
+public class HashedWheelTimerTest {
+
+    private static HashedWheelTimer newTimer(int wheelSize) {
+        return new HashedWheelTimer(new CompletableFuture.Delayer.DaemonThreadFactory(),
+                1L, TimeUnit.MILLISECONDS, wheelSize);
+    }
+
+    public void testNeverEarly() throws InterruptedException {
+        // a small wheel, so that most delays span several rounds
+        HashedWheelTimer timer = newTimer(8);
+        Random rnd = new Random(42);
+        int n = 500;
+        final CountDownLatch done = new CountDownLatch(n);
+        final AtomicInteger early = new AtomicInteger();
+        for (int i = 0; i < n; i++) {
+            final long delayNanos = TimeUnit.MILLISECONDS.toNanos(rnd.nextInt(60));
+            final long start = System.nanoTime();
+            timer.schedule(new Runnable() {
+                public void run() {
+                    if (System.nanoTime() - start < delayNanos)
+                        early.incrementAndGet();
+                    done.countDown();
+                }
+            }, delayNanos, TimeUnit.NANOSECONDS);
+        }
+        assertTrue(done.await(10L, TimeUnit.SECONDS));
+        assertEquals(early.get(), 0);
+    }
+
+    public void testCancel() throws Exception {
+        HashedWheelTimer timer = newTimer(64);
+        final AtomicInteger runs = new AtomicInteger();
+        Runnable count = new Runnable() {
+            public void run() {
+                runs.incrementAndGet();
+            }
+        };
+        List<Future<?>> futures = new ArrayList<Future<?>>();
+        for (int i = 0; i < 1000; i++) {
+            futures.add(timer.schedule(count, 50 + i % 20, TimeUnit.MILLISECONDS));
+        }
+        for (Future<?> f : futures) {
+            assertTrue(f.cancel(false));
+            assertTrue(f.isCancelled());
+        }
+        Thread.sleep(100L);
+        assertEquals(runs.get(), 0);
+    }
+
+    public void testCancelledTasksAreUnlinked() throws Exception {
+        HashedWheelTimer timer = newTimer(64);
+        Runnable nop = new Runnable() {
+            public void run() {
+            }
+        };
+        List<Future<?>> futures = new ArrayList<Future<?>>();
+        for (int i = 0; i < 10000; i++) {
+            futures.add(timer.schedule(nop, 1L, TimeUnit.HOURS));
+        }
+        // make sure that the tasks have been linked into the wheel
+        assertEquals(linkedTaskCount(timer), 10000L);
+        for (Future<?> f : futures) {
+            f.cancel(false);
+        }
+        // unlinked within a tick, not when the hour has passed
+        assertEquals(linkedTaskCount(timer), 0L);
+    }
+
+    // the count is only accurate on the wheel thread
+    private static long linkedTaskCount(final HashedWheelTimer timer) throws Exception {
+        final AtomicLong count = new AtomicLong(-1L);
+        Future<?> probe = timer.schedule(new Runnable() {
+            public void run() {
+                count.set(timer.linkedTaskCount());
+            }
+        }, 2L, TimeUnit.MILLISECONDS);
+        probe.get(10L, TimeUnit.SECONDS);
+        return count.get();
+    }
+
+    public void testExceptionsDoNotStopTheWheel() throws Exception {
+        HashedWheelTimer timer = newTimer(16);
+        Future<?> f = timer.schedule(new Runnable() {
+            public void run() {
+                throw new IllegalStateException();
+            }
+        }, 1L, TimeUnit.MILLISECONDS);
+        try {
+            f.get(10L, TimeUnit.SECONDS);
+            fail();
+        } catch (java.util.concurrent.ExecutionException expected) {
+            assertTrue(expected.getCause() instanceof IllegalStateException);
+        }
+        final CountDownLatch ran = new CountDownLatch(1);
+        timer.schedule(new Runnable() {
+            public void run() {
+                ran.countDown();
+            }
+        }, 0L, TimeUnit.MILLISECONDS);
+        assertTrue(ran.await(10L, TimeUnit.SECONDS));
+    }
+
+    public void testIdleWheelResumes() throws Exception {
+        HashedWheelTimer timer = newTimer(16);
+        for (int i = 0; i < 3; i++) {
+            final long start = System.nanoTime();
+            Future<?> f = timer.schedule(new Runnable() {
+                public void run() {
+                }
+            }, 10L, TimeUnit.MILLISECONDS);
+            f.get(10L, TimeUnit.SECONDS);
+            assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(10L));
+            // let the wheel go idle
+            Thread.sleep(30L);
+        }
+    }
+
+    public void testCompletableFutureTimeouts() throws Exception {
+        CompletableFuture<String> f = new CompletableFuture<String>();
+        f.orTimeout(10L, TimeUnit.MILLISECONDS);
+        try {
+            f.get(10L, TimeUnit.SECONDS);
+            fail();
+        } catch (java.util.concurrent.ExecutionException expected) {
+            assertTrue(expected.getCause() instanceof TimeoutException);
+        }
+        CompletableFuture<String> g = new CompletableFuture<String>();
+        g.completeOnTimeout("timeout", 10L, TimeUnit.MILLISECONDS);
+        assertEquals(g.get(10L, TimeUnit.SECONDS), "timeout");
+        CompletableFuture<String> h = new CompletableFuture<String>();
+        h.orTimeout(1L, TimeUnit.HOURS);
+        assertTrue(h.complete("done"));
+        assertFalse(h.isCompletedExceptionally());
+
+        final CountDownLatch ran = new CountDownLatch(1);
+        final long start = System.nanoTime();
+        Executor delayed = CompletableFuture.delayedExecutor(20L, TimeUnit.MILLISECONDS);
+        final AtomicLong elapsed = new AtomicLong();
+        delayed.execute(new Runnable() {
+            public void run() {
+                elapsed.set(System.nanoTime() - start);
+                ran.countDown();
+            }
+        });
+        assertTrue(ran.await(10L, TimeUnit.SECONDS));
+        assertTrue(elapsed.get() >= TimeUnit.MILLISECONDS.toNanos(20L));
+    }
+}
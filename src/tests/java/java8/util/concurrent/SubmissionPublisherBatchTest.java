@@ -0,0 +1,249 @@
+/*
+ * Written by Stefan Zobel and released to the
+ * public domain, as explained at
+ * http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package java8.util.concurrent;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.testng.annotations.Test;
+
+import java8.util.function.BiConsumer;
+import java8.util.function.Consumer;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+/**
+ * Tests {@link SubmissionPublisher#submitAll} and the delivery to a
+ * {@link SubmissionPublisher.BatchSubscriber}.
+ */
+@Test
+public class SubmissionPublisherBatchTest {
+
+    /** An executor that records the submitted tasks. */
+    static final class RecordingExecutor implements Executor {
+        final List<Runnable> tasks = new ArrayList<Runnable>();
+
+        public void execute(Runnable r) {
+            tasks.add(r);
+        }
+
+        int runAll() {
+            int n = 0;
+            while (!tasks.isEmpty()) {
+                tasks.remove(0).run();
+                n++;
+            }
+            return n;
+        }
+    }
+
+    /** Records the batches and requests the given number of items per batch. */
+    static class Batches implements SubmissionPublisher.BatchSubscriber<Integer> {
+        final List<List<Integer>> batches = Collections.synchronizedList(new ArrayList<List<Integer>>());
+        final CompletableFuture<Void> done = new CompletableFuture<Void>();
+        final long request;
+        volatile long demand;
+        volatile boolean exceeded;
+        Flow.Subscription subscription;
+
+        Batches(long request) {
+            this.request = request;
+        }
+
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            demand = request;
+            subscription.request(request);
+        }
+
+        public void onNextBatch(List<? extends Integer> items) {
+            batches.add(new ArrayList<Integer>(items));
+            if (items.isEmpty() || items.size() > demand) {
+                exceeded = true;
+            }
+            demand -= items.size();
+            if (demand == 0 && request != Long.MAX_VALUE) {
+                demand = request;
+                subscription.request(request);
+            }
+        }
+
+        public void onNext(Integer item) {
+            fail("onNext");
+        }
+
+        public void onError(Throwable ex) {
+            done.completeExceptionally(ex);
+        }
+
+        public void onComplete() {
+            done.complete(null);
+        }
+
+        List<Integer> items() {
+            List<Integer> all = new ArrayList<Integer>();
+            synchronized (batches) {
+                for (List<Integer> batch : batches) {
+                    all.addAll(batch);
+                }
+            }
+            return all;
+        }
+    }
+
+    private static Integer[] items(int from, int to) {
+        Integer[] items = new Integer[to - from];
+        for (int i = from; i < to; i++) {
+            items[i - from] = i;
+        }
+        return items;
+    }
+
+    public void testSingleBatchPerWakeUp() {
+        RecordingExecutor e = new RecordingExecutor();
+        SubmissionPublisher<Integer> p = new SubmissionPublisher<Integer>(e, 128);
+        Batches s = new Batches(Long.MAX_VALUE);
+        p.subscribe(s);
+        e.runAll();
+        assertEquals(p.submitAll(items(0, 100)), 100);
+        // the consumer task is started once for the whole batch
+        assertEquals(e.tasks.size(), 1);
+        e.runAll();
+        assertEquals(s.batches.size(), 1);
+        assertEquals(s.items(), Arrays.asList(items(0, 100)));
+        p.submit(100);
+        p.submitAll(Arrays.asList(items(101, 110)));
+        e.runAll();
+        assertEquals(s.batches.size(), 2);
+        assertEquals(s.items(), Arrays.asList(items(0, 110)));
+        p.close();
+        e.runAll();
+        assertTrue(s.done.isDone());
+    }
+
+    public void testBatchesAreBoundedByDemand() {
+        RecordingExecutor e = new RecordingExecutor();
+        SubmissionPublisher<Integer> p = new SubmissionPublisher<Integer>(e, 256);
+        Batches s = new Batches(7);
+        p.subscribe(s);
+        e.runAll();
+        p.submitAll(items(0, 200));
+        e.runAll();
+        assertEquals(s.items(), Arrays.asList(items(0, 200)));
+        assertEquals(s.batches.size(), (200 + 6) / 7);
+        assertTrue(!s.exceeded);
+    }
+
+    public void testBlockingAndGrowth() throws Exception {
+        // small buffers force both growth and blocking of the publisher
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            for (int cap : new int[] {1, 8, 100}) {
+                SubmissionPublisher<Integer> p = new SubmissionPublisher<Integer>(pool, cap);
+                Batches batched = new Batches(3);
+                Batches unbounded = new Batches(Long.MAX_VALUE);
+                final List<Integer> plain = Collections.synchronizedList(new ArrayList<Integer>());
+                p.subscribe(batched);
+                p.subscribe(unbounded);
+                CompletableFuture<Void> consumed = p.consume(new Consumer<Integer>() {
+                    public void accept(Integer x) {
+                        plain.add(x);
+                    }
+                });
+                int n = 0;
+                for (int round = 0; round < 100; round++) {
+                    int m = round % 37;
+                    assertTrue(p.submitAll(items(n, n + m)) >= (m > 0 ? 1 : 0));
+                    n += m;
+                }
+                p.close();
+                batched.done.get(30L, TimeUnit.SECONDS);
+                unbounded.done.get(30L, TimeUnit.SECONDS);
+                consumed.get(30L, TimeUnit.SECONDS);
+                List<Integer> expected = Arrays.asList(items(0, n));
+                assertEquals(batched.items(), expected);
+                assertEquals(unbounded.items(), expected);
+                assertEquals(plain, expected);
+                assertTrue(!batched.exceeded && !unbounded.exceeded);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    public void testNullItems() {
+        RecordingExecutor e = new RecordingExecutor();
+        SubmissionPublisher<Integer> p = new SubmissionPublisher<Integer>(e, 16);
+        Batches s = new Batches(Long.MAX_VALUE);
+        p.subscribe(s);
+        e.runAll();
+        try {
+            p.submitAll(new Integer[] {1, null, 3});
+            fail();
+        } catch (NullPointerException expected) {
+        }
+        try {
+            p.submitAll(Arrays.asList(1, 2, null));
+            fail();
+        } catch (NullPointerException expected) {
+        }
+        try {
+            p.submitAll((Integer[]) null);
+            fail();
+        } catch (NullPointerException expected) {
+        }
+        // nothing was published
+        assertEquals(p.estimateMaximumLag(), 0);
+        assertEquals(e.runAll(), 0);
+        assertTrue(s.batches.isEmpty());
+    }
+
+    public void testClosed() {
+        SubmissionPublisher<Integer> p = new SubmissionPublisher<Integer>(new RecordingExecutor(), 16);
+        assertEquals(p.submitAll(new Integer[0]), 0);
+        assertEquals(p.submitAll(items(0, 10)), 0);
+        p.close();
+        try {
+            p.submitAll(new Integer[0]);
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+    public void testOnNextBatchException() {
+        RecordingExecutor e = new RecordingExecutor();
+        final AtomicReference<Throwable> handled = new AtomicReference<Throwable>();
+        SubmissionPublisher<Integer> p = new SubmissionPublisher<Integer>(e, 16,
+                new BiConsumer<Flow.Subscriber<? super Integer>, Throwable>() {
+                    public void accept(Flow.Subscriber<? super Integer> s, Throwable ex) {
+                        handled.set(ex);
+                    }
+                });
+        final IllegalStateException failure = new IllegalStateException();
+        Batches s = new Batches(Long.MAX_VALUE) {
+            public void onNextBatch(List<? extends Integer> items) {
+                throw failure;
+            }
+        };
+        p.subscribe(s);
+        e.runAll();
+        p.submitAll(items(0, 5));
+        e.runAll();
+        assertEquals(handled.get(), failure);
+        assertTrue(s.done.isCompletedExceptionally());
+        assertEquals(p.submitAll(items(5, 10)), 0);
+        assertEquals(p.getNumberOfSubscribers(), 0);
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Written by Stefan Zobel and released to the
+ * public domain, as explained at
+ * http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package java8.util.stream;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.testng.annotations.Test;
+
+import java8.util.J8Arrays;
+import java8.util.Lists;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests the bounded heaps (see {@link BoundedHeaps}) behind the fusion of
+ * {@code sorted()} and a following {@code limit()}.
+ */
+@Test
+public class BoundedHeapsTest extends OpTestCase {
+
+    private static final int N = 10000;
+
+    public void testOfInt() {
+        Random rnd = new Random(42);
+        int[] array = new int[N];
+        for (int i = 0; i < N; i++) {
+            array[i] = rnd.nextInt(N);
+        }
+        int[] sorted = array.clone();
+        Arrays.sort(sorted);
+        for (int k : new int[] {0, 1, 10, 100, N, N + 1}) {
+            BoundedHeaps.OfInt left = new BoundedHeaps.OfInt(k);
+            BoundedHeaps.OfInt right = new BoundedHeaps.OfInt(k);
+            for (int i = 0; i < N; i++) {
+                (i < N / 3 ? left : right).accept(array[i]);
+            }
+            int[] expected = Arrays.copyOf(sorted, Math.min(k, N));
+            assertTrue(Arrays.equals(left.combine(right).toArray(), expected), "k = " + k);
+        }
+    }
+
+    public void testOfDouble() {
+        BoundedHeaps.OfDouble heap = new BoundedHeaps.OfDouble(4);
+        for (double d : new double[] {Double.NaN, 0.0, 1.0, -0.0, Double.NEGATIVE_INFINITY, -0.0}) {
+            heap.accept(d);
+        }
+        // same order as Arrays.sort(double[])
+        assertTrue(Arrays.equals(heap.toArray(), new double[] {Double.NEGATIVE_INFINITY, -0.0, -0.0, 0.0}));
+    }
+
+    public void testOfRefIsStable() {
+        // compares the first character only
+        Comparator<String> comparator = (a, b) -> Character.compare(a.charAt(0), b.charAt(0));
+        List<String> list = new ArrayList<>();
+        Random rnd = new Random(7);
+        for (int i = 0; i < N; i++) {
+            list.add((char) ('a' + rnd.nextInt(8)) + Integer.toString(i));
+        }
+        List<String> expected = new ArrayList<>(list);
+        Lists.sort(expected, comparator);
+        for (int k : new int[] {1, 10, 3000, N}) {
+            BoundedHeaps.OfRef<String> left = new BoundedHeaps.OfRef<>(k, comparator);
+            BoundedHeaps.OfRef<String> right = new BoundedHeaps.OfRef<>(k, comparator);
+            for (int i = 0; i < N; i++) {
+                (i < N / 2 ? left : right).accept(list.get(i));
+            }
+            assertEquals(Arrays.asList(left.combine(right).toArray(String[]::new)), expected.subList(0, k));
+            assertEquals(StreamSupport.parallelStream(list).sorted(comparator).limit(k).collect(Collectors.toList()),
+                    expected.subList(0, k));
+            assertEquals(StreamSupport.stream(list).sorted(comparator).skip(1).limit(k).collect(Collectors.toList()),
+                    expected.subList(1, Math.min(k + 1, N)));
+        }
+    }
+
+    @Test(dataProvider = "StreamTestData<Integer>", dataProviderClass = StreamTestDataProvider.class)
+    public void testRefTopK(String name, TestData.OfRef<Integer> data) {
+        List<Integer> sorted = data.stream().collect(Collectors.toList());
+        Collections.sort(sorted);
+        for (int k : new int[] {0, 1, 10, 1000}) {
+            withData(data)
+                    .stream(s -> s.sorted().limit(k))
+                    .expectedResult(sorted.subList(0, Math.min(k, sorted.size())))
+                    .exercise();
+            withData(data)
+                    .stream(s -> s.sorted(Collections.reverseOrder()).limit(k))
+                    .expectedResult(RefStreams.of(sorted.toArray(new Integer[0])).sorted(Collections.reverseOrder())
+                            .collect(Collectors.toList()).subList(0, Math.min(k, sorted.size())))
+                    .exercise();
+        }
+    }
+
+    @Test(dataProvider = "IntStreamTestData", dataProviderClass = IntStreamTestDataProvider.class)
+    public void testIntTopK(String name, TestData.OfInt data) {
+        int[] sorted = data.stream().toArray();
+        Arrays.sort(sorted);
+        for (int k : new int[] {0, 1, 10, 1000}) {
+            int[] expected = Arrays.copyOf(sorted, Math.min(k, sorted.length));
+            withData(data)
+                    .stream(s -> s.sorted().limit(k))
+                    .expectedResult(expected)
+                    .exercise();
+        }
+    }
+
+    public void testPrimitiveTopK() {
+        Random rnd = new Random(3);
+        long[] longs = new long[N];
+        double[] doubles = new double[N];
+        for (int i = 0; i < N; i++) {
+            longs[i] = rnd.nextLong();
+            doubles[i] = rnd.nextGaussian();
+        }
+        long[] sortedLongs = longs.clone();
+        Arrays.sort(sortedLongs);
+        double[] sortedDoubles = doubles.clone();
+        Arrays.sort(sortedDoubles);
+        for (boolean parallel : new boolean[] {false, true}) {
+            LongStream ls = J8Arrays.stream(longs);
+            DoubleStream ds = J8Arrays.stream(doubles);
+            if (parallel) {
+                ls = ls.parallel();
+                ds = ds.parallel();
+            }
+            assertTrue(Arrays.equals(ls.sorted().limit(20).toArray(), Arrays.copyOf(sortedLongs, 20)));
+            assertTrue(Arrays.equals(ds.sorted().skip(5).limit(20).toArray(),
+                    Arrays.copyOfRange(sortedDoubles, 5, 25)));
+        }
+    }
+}
@@ -28,7 +28,9 @@ import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.Comparator;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import java8.util.DoubleSummaryStatistics;
 import java8.util.IntSummaryStatistics;
@@ -228,6 +230,26 @@ public final class DefaultMethodStreams {
             return s.flatMapToDouble(mapper);
         }
 
+        @Override
+        public <R> Stream<R> mapMulti(BiConsumer<? super T, ? super Consumer<R>> mapper) {
+            return s.mapMulti(mapper);
+        }
+
+        @Override
+        public IntStream mapMultiToInt(BiConsumer<? super T, ? super IntConsumer> mapper) {
+            return s.mapMultiToInt(mapper);
+        }
+
+        @Override
+        public LongStream mapMultiToLong(BiConsumer<? super T, ? super LongConsumer> mapper) {
+            return s.mapMultiToLong(mapper);
+        }
+
+        @Override
+        public DoubleStream mapMultiToDouble(BiConsumer<? super T, ? super DoubleConsumer> mapper) {
+            return s.mapMultiToDouble(mapper);
+        }
+
         @Override
         public Stream<T> distinct() {
             return s.distinct();
@@ -258,6 +280,21 @@ public final class DefaultMethodStreams {
             return s.skip(n);
         }
 
+        @Override
+        public Stream<List<T>> chunked(int size) {
+            return s.chunked(size);
+        }
+
+        @Override
+        public Stream<List<T>> windowed(int size, int step) {
+            return s.windowed(size, step);
+        }
+
+        @Override
+        public Stream<List<T>> batched(int maxSize, long timeout, TimeUnit unit) {
+            return s.batched(maxSize, timeout, unit);
+        }
+
         @Override
         public Stream<T> takeWhile(Predicate<? super T> predicate) {
             return s.takeWhile(predicate);
@@ -434,6 +471,11 @@ public final class DefaultMethodStreams {
             return s.flatMap(mapper);
         }
 
+        @Override
+        public IntStream mapMulti(IntMapMultiConsumer mapper) {
+            return s.mapMulti(mapper);
+        }
+
         @Override
         public IntStream distinct() {
             return s.distinct();
@@ -459,6 +501,21 @@ public final class DefaultMethodStreams {
             return s.skip(n);
         }
 
+        @Override
+        public Stream<int[]> chunked(int size) {
+            return s.chunked(size);
+        }
+
+        @Override
+        public Stream<int[]> windowed(int size, int step) {
+            return s.windowed(size, step);
+        }
+
+        @Override
+        public Stream<int[]> batched(int maxSize, long timeout, TimeUnit unit) {
+            return s.batched(maxSize, timeout, unit);
+        }
+
         @Override
         public IntStream takeWhile(IntPredicate predicate) {
             return s.takeWhile(predicate);
@@ -655,6 +712,11 @@ public final class DefaultMethodStreams {
             return s.flatMap(mapper);
         }
 
+        @Override
+        public LongStream mapMulti(LongMapMultiConsumer mapper) {
+            return s.mapMulti(mapper);
+        }
+
         @Override
         public LongStream distinct() {
             return s.distinct();
@@ -680,6 +742,21 @@ public final class DefaultMethodStreams {
             return s.skip(n);
         }
 
+        @Override
+        public Stream<long[]> chunked(int size) {
+            return s.chunked(size);
+        }
+
+        @Override
+        public Stream<long[]> windowed(int size, int step) {
+            return s.windowed(size, step);
+        }
+
+        @Override
+        public Stream<long[]> batched(int maxSize, long timeout, TimeUnit unit) {
+            return s.batched(maxSize, timeout, unit);
+        }
+
         @Override
         public LongStream takeWhile(LongPredicate predicate) {
             return s.takeWhile(predicate);
@@ -858,6 +935,11 @@ public final class DefaultMethodStreams {
             return s.flatMap(mapper);
         }
 
+        @Override
+        public DoubleStream mapMulti(DoubleMapMultiConsumer mapper) {
+            return s.mapMulti(mapper);
+        }
+
         @Override
         public DoubleStream distinct() {
             return s.distinct();
@@ -883,6 +965,21 @@ public final class DefaultMethodStreams {
             return s.skip(n);
         }
 
+        @Override
+        public Stream<double[]> chunked(int size) {
+            return s.chunked(size);
+        }
+
+        @Override
+        public Stream<double[]> windowed(int size, int step) {
+            return s.windowed(size, step);
+        }
+
+        @Override
+        public Stream<double[]> batched(int maxSize, long timeout, TimeUnit unit) {
+            return s.batched(maxSize, timeout, unit);
+        }
+
         @Override
         public DoubleStream takeWhile(DoublePredicate predicate) {
             return s.takeWhile(predicate);
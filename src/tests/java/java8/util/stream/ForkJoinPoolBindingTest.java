@@ -0,0 +1,151 @@
+/*
+ * Written by Stefan Zobel and released to the
+ * public domain, as explained at
+ * http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package java8.util.stream;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java8.util.Iterators;
+import java8.util.concurrent.ForkJoinPool;
+import java8.util.concurrent.ForkJoinWorkerThread;
+import java8.util.function.Consumer;
+import java8.util.function.Function;
+
+import static java8.util.stream.LambdaTestHelpers.countTo;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests that the parallel evaluation of a stream bound to a
+ * {@code ForkJoinPool} (see
+ * {@link StreamSupport#parallel(BaseStream, ForkJoinPool)}) runs entirely in
+ * that pool.
+ */
+@Test
+public class ForkJoinPoolBindingTest {
+
+    private static final int SIZE = 10000;
+
+    private ForkJoinPool pool;
+    private Set<Thread> threads;
+
+    @BeforeClass
+    public void setUp() {
+        pool = new ForkJoinPool(4);
+        threads = Collections.synchronizedSet(new HashSet<Thread>());
+    }
+
+    @AfterClass
+    public void tearDown() throws InterruptedException {
+        pool.shutdown();
+        pool.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    private <T> void record(T t) {
+        threads.add(Thread.currentThread());
+    }
+
+    /*
+     * Evaluates the given terminal operation on a pool-bound parallel stream
+     * whose leaves contain a handful of elements and checks that all
+     * elements have been processed by workers of the pool.
+     */
+    private <R> R evaluate(Function<Stream<Integer>, R> terminal) {
+        threads.clear();
+        Stream<Integer> s = StreamSupport.parallel(StreamSupport.stream(countTo(SIZE)), pool);
+        assertTrue(s.isParallel());
+        R result = terminal.apply(StreamSupport.targetLeafSize(s, 16).peek(this::record));
+        assertFalse(threads.isEmpty());
+        for (Thread t : threads) {
+            assertTrue(t instanceof ForkJoinWorkerThread, t.getName());
+            assertTrue(((ForkJoinWorkerThread) t).getPool() == pool, t.getName());
+        }
+        return result;
+    }
+
+    public void testTerminalOps() {
+        long sum = (long) SIZE * (SIZE + 1) / 2;
+        assertEquals(evaluate(s -> s.reduce(0, Integer::sum)).longValue(), sum);
+        assertEquals(evaluate(s -> s.mapToLong(i -> i).sum()).longValue(), sum);
+        assertEquals(evaluate(s -> s.mapToInt(i -> i).map(i -> -i).min().getAsInt()).intValue(), -SIZE);
+        assertEquals(evaluate(s -> s.mapToDouble(i -> i).boxed().collect(Collectors.counting())).longValue(), SIZE);
+        assertEquals(evaluate(s -> s.collect(Collectors.toList())), countTo(SIZE));
+        assertEquals(evaluate(s -> s.filter(i -> i % 2 == 0).toArray()).length, SIZE / 2);
+        assertEquals(evaluate(s -> s.filter(i -> i > SIZE / 2).findFirst().get()).intValue(), SIZE / 2 + 1);
+        assertTrue(evaluate(s -> s.anyMatch(i -> i == SIZE)));
+        AtomicLong total = new AtomicLong();
+        evaluate(s -> { s.forEach(total::addAndGet); return null; });
+        assertEquals(total.get(), sum);
+        total.set(0);
+        evaluate(s -> { s.forEachOrdered(total::addAndGet); return null; });
+        assertEquals(total.get(), sum);
+    }
+
+    public void testStatefulOps() {
+        List<Integer> reversed = evaluate(s -> s.sorted(Collections.reverseOrder()).collect(Collectors.toList()));
+        assertEquals(reversed.get(0).intValue(), SIZE);
+        assertEquals(evaluate(s -> s.map(i -> i % 100).distinct().count()).longValue(), 100L);
+        assertEquals(evaluate(s -> s.skip(10).limit(100).collect(Collectors.toList())).size(), 100);
+        assertEquals(evaluate(s -> s.sorted().toArray()).length, SIZE);
+        assertEquals(evaluate(s -> s.windowed(10, 3).toArray()).length, (SIZE - 10) / 3 + 1);
+        assertEquals(evaluate(s -> s.filter(i -> true).chunked(7).toArray()).length, (SIZE + 6) / 7);
+        // a lazily evaluated stateful op also runs in the pool
+        List<Integer> list = evaluate(s -> {
+            List<Integer> l = new ArrayList<>();
+            Iterators.forEachRemaining(s.sorted().iterator(), (Consumer<Integer>) l::add);
+            return l;
+        });
+        assertEquals(list, countTo(SIZE));
+    }
+
+    public void testPoolSizedContainers() {
+        // the container of a concurrent collector is created in the pool
+        List<Thread> suppliers = new ArrayList<>();
+        Collector<Integer, ?, Set<Integer>> toConcurrentSet = Collectors.of(() -> {
+                    suppliers.add(Thread.currentThread());
+                    return Collections.synchronizedSet(new HashSet<Integer>());
+                }, Set::add, (l, r) -> { l.addAll(r); return l; },
+                Collector.Characteristics.CONCURRENT, Collector.Characteristics.UNORDERED,
+                Collector.Characteristics.IDENTITY_FINISH);
+        assertEquals(evaluate(s -> s.unordered().collect(toConcurrentSet)).size(), SIZE);
+        assertEquals(suppliers.size(), 1);
+        assertTrue(((ForkJoinWorkerThread) suppliers.get(0)).getPool() == pool);
+        assertEquals(evaluate(s -> s.unordered().collect(Collectors.groupingByIntConcurrent(i -> i % 7))).size(), 7);
+        assertEquals(evaluate(s -> s.mapToInt(i -> -i).sorted().toArray())[0], -SIZE);
+    }
+
+    public void testSequential() {
+        Thread caller = Thread.currentThread();
+        threads.clear();
+        Stream<Integer> s = StreamSupport.parallel(StreamSupport.stream(countTo(100)), pool).sequential();
+        assertFalse(s.isParallel());
+        assertEquals(s.peek(this::record).reduce(0, Integer::sum).intValue(), 5050);
+        assertEquals(threads, Collections.singleton(caller));
+    }
+
+    public void testNestedEvaluation() {
+        // an evaluation started from within a worker of the pool stays there
+        assertEquals(evaluate(s -> s.filter(i -> i <= 10)
+                .map(i -> StreamSupport.parallel(StreamSupport.stream(countTo(i)), pool)
+                        .peek(this::record).reduce(0, Integer::sum))
+                .reduce(0, Integer::sum)).intValue(), 220);
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testNullPool() {
+        StreamSupport.parallel(StreamSupport.stream(countTo(10)), null);
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Written by Stefan Zobel and released to the
+ * public domain, as explained at
+ * http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package java8.util.stream;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.Test;
+
+import java8.util.Optional;
+import java8.util.function.Function;
+
+import static java8.util.stream.LambdaTestHelpers.countTo;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests the fusion of adjacent map, filter and peek stages into a single sink
+ * (see {@link FusedOps}).
+ */
+@Test
+public class FusedOpsTest extends OpTestCase {
+
+    @SuppressWarnings("rawtypes")
+    private static Sink wrap(BaseStream<?, ?> s) {
+        return ((AbstractPipeline) s).wrapSink(new Sink() {
+            @Override
+            public void accept(Object o) {
+            }
+            @Override
+            public void begin(long size) {
+            }
+            @Override
+            public void end() {
+            }
+            @Override
+            public boolean cancellationRequested() {
+                return false;
+            }
+            @Override
+            public void accept(int value) {
+            }
+            @Override
+            public void accept(long value) {
+            }
+            @Override
+            public void accept(double value) {
+            }
+        });
+    }
+
+    public void testFusedSinks() {
+        // a single stage is never fused
+        assertFalse(wrap(RefStreams.of(1).map(i -> i)) instanceof FusedOps.RefMap);
+        if (!FusedOps.ENABLED) {
+            return;
+        }
+        assertTrue(wrap(RefStreams.of(1).map(i -> i).filter(i -> true)) instanceof FusedOps.RefMapFilter);
+        assertTrue(wrap(RefStreams.of(1).map(i -> i).map(i -> i).map(i -> i)) instanceof FusedOps.RefMap);
+        assertTrue(wrap(IntStreams.of(1).map(i -> i).map(i -> i).filter(i -> true)) instanceof FusedOps.IntMapFilter);
+        assertTrue(wrap(LongStreams.of(1).filter(i -> true).filter(i -> true)) instanceof FusedOps.LongFilter);
+        assertTrue(wrap(DoubleStreams.of(1).peek(i -> {}).peek(i -> {})) instanceof FusedOps.DoublePeek);
+        // a shape change ends the run
+        assertFalse(wrap(RefStreams.of(1).map(i -> i).mapToInt(i -> i).map(i -> i)) instanceof FusedOps.IntMap);
+    }
+
+    @Test(dataProvider = "StreamTestData<Integer>", dataProviderClass = StreamTestDataProvider.class)
+    public void testOps(String name, TestData.OfRef<Integer> data) {
+        List<Integer> expected = new ArrayList<>();
+        for (Integer i : data) {
+            int j = i + 1;
+            if (j % 3 != 0) {
+                j = j * 2;
+                if (j > 10) {
+                    expected.add(j - 1);
+                }
+            }
+        }
+
+        withData(data)
+                .stream(s -> s.map(i -> i + 1).filter(i -> i % 3 != 0).peek(i -> {})
+                        .map(i -> i * 2).filter(i -> i > 10).map(i -> i - 1))
+                .expectedResult(expected)
+                .exercise();
+        withData(data)
+                .stream(s -> s.mapToInt(i -> i).map(i -> i + 1).filter(i -> i % 3 != 0).peek(i -> {})
+                        .map(i -> i * 2).filter(i -> i > 10).map(i -> i - 1).boxed())
+                .expectedResult(expected)
+                .exercise();
+        withData(data)
+                .stream(s -> s.mapToLong(i -> i).map(i -> i + 1).filter(i -> i % 3 != 0).peek(i -> {})
+                        .map(i -> i * 2).filter(i -> i > 10).map(i -> i - 1).mapToObj(i -> (int) i))
+                .expectedResult(expected)
+                .exercise();
+        withData(data)
+                .stream(s -> s.mapToDouble(i -> i).map(i -> i + 1).filter(i -> i % 3 != 0).peek(i -> {})
+                        .map(i -> i * 2).filter(i -> i > 10).map(i -> i - 1).mapToObj(i -> (int) i))
+                .expectedResult(expected)
+                .exercise();
+    }
+
+    @Test(dataProvider = "StreamTestData<Integer>", dataProviderClass = StreamTestDataProvider.class)
+    public void testSizePreservingRun(String name, TestData.OfRef<Integer> data) {
+        // a run without a filter must report the exact size downstream
+        Function<Stream<Integer>, Stream<Integer>> m = s -> s.map(i -> i + 1).peek(i -> {}).map(i -> i - 1);
+        withData(data).stream(m).expectedResult(data.stream().collect(Collectors.toList())).exercise();
+        withData(data).stream(s -> m.apply(s).sorted())
+                .expectedResult(data.stream().sorted().collect(Collectors.toList()))
+                .exercise();
+    }
+
+    public void testPeekOrderAndShortCircuit() {
+        AtomicInteger peeked = new AtomicInteger();
+        Optional<Integer> first = StreamSupport.stream(countTo(100))
+                .map(i -> i * 2).peek(i -> peeked.incrementAndGet()).filter(i -> i > 10).map(i -> i + 1)
+                .findFirst();
+        assertEquals(first.get(), Integer.valueOf(13));
+        assertEquals(peeked.get(), 6);
+
+        assertEquals(RefStreams.iterate(0, i -> i + 1).map(i -> i * 3).filter(i -> (i & 1) == 0)
+                .peek(i -> {}).limit(5).collect(Collectors.toList()), Arrays.asList(0, 6, 12, 18, 24));
+        assertEquals(IntStreams.iterate(0, i -> i + 1).map(i -> i * 3).filter(i -> (i & 1) == 0)
+                .peek(i -> {}).limit(5).sum(), 60);
+    }
+}
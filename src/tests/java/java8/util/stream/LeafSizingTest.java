@@ -0,0 +1,135 @@
+/*
+ * Written by Stefan Zobel and released to the
+ * public domain, as explained at
+ * http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package java8.util.stream;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.Test;
+
+import java8.util.Spliterator;
+import java8.util.Spliterators;
+import java8.util.function.Consumer;
+
+import static java8.util.stream.LambdaTestHelpers.countTo;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests the leaf size policy of parallel evaluations (see {@link LeafSizing}).
+ */
+@Test
+public class LeafSizingTest {
+
+    public void testAdapt() {
+        // cheap leaves get coarser, but not coarser than the upper bound
+        assertEquals(LeafSizing.adapt(100, 10000, 10.0), 10000);
+        assertEquals(LeafSizing.adapt(100, 100000, 10.0), LeafSizing.MIN_LEAF_NANOS / 10);
+        assertEquals(LeafSizing.adapt(100, 10000, 0.0), 10000);
+        // expensive leaves get finer
+        assertEquals(LeafSizing.adapt(100, 10000, 1000000.0), LeafSizing.MAX_LEAF_NANOS / 1000000);
+        assertEquals(LeafSizing.adapt(100, 10000, 1.0E9), 1);
+        // everything else stays as is
+        assertEquals(LeafSizing.adapt(100, 10000, 10000.0), 100);
+    }
+
+    public void testAdaptation() {
+        LeafSizing sizing = LeafSizing.of((PipelineHelper<?>) StreamSupport.parallelStream(countTo(1)), 1000000);
+        long target = sizing.target();
+        assertEquals(target, AbstractTask.suggestTargetSize(1000000));
+        assertEquals(sizing.isSampling(), LeafSizing.ADAPTIVE);
+        for (int i = 0; i < LeafSizing.SAMPLES; i++) {
+            sizing.record(target, 1);
+        }
+        assertTrue(!sizing.isSampling());
+        assertTrue(sizing.target() >= target);
+    }
+
+    public void testTargetLeafSize() {
+        // an explicit target leaf size is used for all leaves
+        assertEquals(countLeaves(1, 64, s -> assertEquals(s.reduce(0, Integer::sum).intValue(), 2080)), 64);
+        assertEquals(countLeaves(16, 64, s -> assertEquals(s.collect(Collectors.toList()).size(), 64)), 4);
+        assertEquals(countLeaves(64, 64, s -> assertEquals(s.toArray().length, 64)), 1);
+        assertEquals(countLeaves(8, 64, s -> assertEquals(s.filter(i -> i > 64).findAny().isPresent(), false)), 8);
+        AtomicInteger sum = new AtomicInteger();
+        assertEquals(countLeaves(1, 64, s -> s.forEach(sum::addAndGet)), 64);
+        assertEquals(sum.get(), 2080);
+        assertEquals(countLeaves(4, 64, s -> s.forEachOrdered(i -> {})), 16);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNegativeTargetLeafSize() {
+        StreamSupport.targetLeafSize(StreamSupport.parallelStream(countTo(10)), -1);
+    }
+
+    /*
+     * Returns the number of leaves of a parallel evaluation over a source of
+     * the given size.
+     */
+    private static int countLeaves(long targetLeafSize, int size, Consumer<Stream<Integer>> terminal) {
+        List<Integer> list = countTo(size);
+        AtomicInteger splits = new AtomicInteger();
+        Spliterator<Integer> spliterator = new CountingSpliterator(Spliterators.spliterator(list), splits);
+        terminal.accept(StreamSupport.targetLeafSize(StreamSupport.stream(spliterator, true), targetLeafSize));
+        return splits.get() + 1;
+    }
+
+    private static final class CountingSpliterator implements Spliterator<Integer> {
+        private final Spliterator<Integer> s;
+        private final AtomicInteger splits;
+
+        CountingSpliterator(Spliterator<Integer> s, AtomicInteger splits) {
+            this.s = s;
+            this.splits = splits;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Integer> action) {
+            return s.tryAdvance(action);
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super Integer> action) {
+            s.forEachRemaining(action);
+        }
+
+        @Override
+        public Spliterator<Integer> trySplit() {
+            Spliterator<Integer> prefix = s.trySplit();
+            if (prefix == null) {
+                return null;
+            }
+            splits.incrementAndGet();
+            return new CountingSpliterator(prefix, splits);
+        }
+
+        @Override
+        public long estimateSize() {
+            return s.estimateSize();
+        }
+
+        @Override
+        public long getExactSizeIfKnown() {
+            return s.getExactSizeIfKnown();
+        }
+
+        @Override
+        public int characteristics() {
+            return s.characteristics();
+        }
+
+        @Override
+        public boolean hasCharacteristics(int characteristics) {
+            return s.hasCharacteristics(characteristics);
+        }
+
+        @Override
+        public Comparator<? super Integer> getComparator() {
+            return s.getComparator();
+        }
+    }
+}
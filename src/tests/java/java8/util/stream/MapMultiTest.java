@@ -0,0 +1,148 @@
+/*
+ * Written by Stefan Zobel and released to the
+ * public domain, as explained at
+ * http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package java8.util.stream;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.testng.annotations.Test;
+
+import java8.util.function.BiConsumer;
+import java8.util.function.Consumer;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests the push-based {@code mapMulti} operations of the reference and
+ * primitive pipelines.
+ */
+@Test
+public class MapMultiTest {
+
+    // replaces n by n copies of n
+    private static final BiConsumer<Integer, Consumer<Integer>> REPEAT = (n, sink) -> {
+        for (int i = 0; i < n; i++) {
+            sink.accept(n);
+        }
+    };
+
+    private static List<Integer> expectedRepeat(int upTo) {
+        return IntStreams.range(0, upTo).flatMap(n -> IntStreams.range(0, n).map(i -> n))
+                .boxed().collect(Collectors.toList());
+    }
+
+    public void testRef() {
+        assertEquals(RefStreams.of(0, 1, 2, 3).<Integer>mapMulti(REPEAT).collect(Collectors.toList()),
+                Arrays.asList(1, 2, 2, 3, 3, 3));
+        assertEquals(IntStreams.range(0, 200).boxed().parallel().<Integer>mapMulti(REPEAT)
+                .collect(Collectors.toList()), expectedRepeat(200));
+        List<Object> mixed = Arrays.<Object>asList(1, "a", 2L, 3, null, 4.0);
+        assertEquals(StreamSupport.stream(mixed).<Integer>mapMulti((o, sink) -> {
+            if (o instanceof Integer) {
+                sink.accept((Integer) o);
+            }
+        }).collect(Collectors.toList()), Arrays.asList(1, 3));
+    }
+
+    public void testStaticRef() {
+        assertEquals(RefStreams.<Integer, Integer>mapMulti(RefStreams.of(0, 1, 2, 3), REPEAT)
+                .collect(Collectors.toList()), Arrays.asList(1, 2, 2, 3, 3, 3));
+        Stream<Integer> parallel = RefStreams.mapMulti(IntStreams.range(0, 200).boxed().parallel(), REPEAT);
+        assertTrue(parallel.isParallel());
+        assertEquals(parallel.collect(Collectors.toList()), expectedRepeat(200));
+        // closing the returned stream closes the passed stream
+        AtomicBoolean closed = new AtomicBoolean();
+        Stream<Integer> s = RefStreams.of(1, 2).onClose(() -> closed.set(true));
+        RefStreams.mapMulti(s, REPEAT).close();
+        assertTrue(closed.get());
+    }
+
+    public void testRefToPrimitive() {
+        assertTrue(Arrays.equals(RefStreams.of("ab", "", "c").mapMultiToInt((s, sink) -> {
+            for (int i = 0; i < s.length(); i++) {
+                sink.accept(s.charAt(i));
+            }
+        }).toArray(), new int[] {'a', 'b', 'c'}));
+        assertEquals(RefStreams.of(1L, 2L).mapMultiToLong((l, sink) -> {
+            sink.accept(l);
+            sink.accept(-l);
+        }).sum(), 0L);
+        assertEquals(RefStreams.of(1.5, 2.5).mapMultiToDouble((d, sink) -> sink.accept(2 * d)).sum(), 8.0);
+    }
+
+    public void testPrimitive() {
+        IntStream.IntMapMultiConsumer repeat = (n, sink) -> {
+            for (int i = 0; i < n; i++) {
+                sink.accept(n);
+            }
+        };
+        assertEquals(IntStreams.range(0, 200).parallel().mapMulti(repeat).boxed()
+                .collect(Collectors.toList()), expectedRepeat(200));
+        assertEquals(LongStreams.range(0, 10).mapMulti((l, sink) -> {
+            if ((l & 1) == 0) {
+                sink.accept(l);
+            }
+        }).count(), 5L);
+        assertEquals(DoubleStreams.of(1.0, 2.0).mapMulti((d, sink) -> {
+            sink.accept(d);
+            sink.accept(d);
+        }).sum(), 6.0);
+    }
+
+    public void testStaticPrimitive() {
+        assertTrue(Arrays.equals(RefStreams.mapMultiToInt(RefStreams.of("ab", "", "c"), (s, sink) -> {
+            for (int i = 0; i < s.length(); i++) {
+                sink.accept(s.charAt(i));
+            }
+        }).toArray(), new int[] {'a', 'b', 'c'}));
+        assertEquals(RefStreams.mapMultiToLong(RefStreams.of(1L, 2L).parallel(), (l, sink) -> {
+            sink.accept(l);
+            sink.accept(-l);
+        }).sum(), 0L);
+        assertEquals(RefStreams.mapMultiToDouble(RefStreams.of(1.5, 2.5), (d, sink) -> sink.accept(2 * d)).sum(), 8.0);
+
+        IntStream ints = IntStreams.mapMulti(IntStreams.range(0, 200).parallel(), (n, sink) -> {
+            for (int i = 0; i < n; i++) {
+                sink.accept(n);
+            }
+        });
+        assertTrue(ints.isParallel());
+        assertEquals(ints.boxed().collect(Collectors.toList()), expectedRepeat(200));
+        assertEquals(LongStreams.mapMulti(LongStreams.range(0, 10), (l, sink) -> {
+            if ((l & 1) == 0) {
+                sink.accept(l);
+            }
+        }).count(), 5L);
+        // closing the returned stream closes the passed stream
+        AtomicBoolean closed = new AtomicBoolean();
+        DoubleStream doubles = DoubleStreams.of(1.0, 2.0).onClose(() -> closed.set(true));
+        DoubleStream twice = DoubleStreams.mapMulti(doubles, (d, sink) -> {
+            sink.accept(d);
+            sink.accept(d);
+        });
+        assertEquals(twice.sum(), 6.0);
+        twice.close();
+        assertTrue(closed.get());
+    }
+
+    public void testNotSized() {
+        // mapMulti changes the number of elements, so the count must be computed
+        assertEquals(IntStreams.range(0, 100).mapMulti((n, sink) -> { }).count(), 0L);
+        assertEquals(RefStreams.of(1, 2, 3).<Integer>mapMulti(REPEAT).toArray().length, 6);
+    }
+
+    public void testShortCircuit() {
+        // an infinite source with a mapper pushing several elements per call
+        assertEquals(IntStreams.iterate(1, i -> i + 1).mapMulti((n, sink) -> {
+            sink.accept(n);
+            sink.accept(n);
+        }).limit(5).boxed().collect(Collectors.toList()), Arrays.asList(1, 1, 2, 2, 3));
+        assertEquals(RefStreams.iterate(1, i -> i + 1).<Integer>mapMulti(REPEAT)
+                .filter(n -> n > 3).findFirst().get(), Integer.valueOf(4));
+    }
+}
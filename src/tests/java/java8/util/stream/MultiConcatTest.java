@@ -0,0 +1,156 @@
+/*
+ * Written by Stefan Zobel and released to the
+ * public domain, as explained at
+ * http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package java8.util.stream;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.Test;
+
+import java8.util.Spliterator;
+import java8.util.function.IntConsumer;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+/**
+ * Tests the n-ary {@code concat} methods and the flat concatenating
+ * spliterator behind them (see {@link Streams.MultiConcatSpliterator}).
+ */
+@Test
+public class MultiConcatTest {
+
+    // shards of uneven sizes, including empty ones
+    private static final int[] SIZES = {0, 3, 1000, 1, 0, 17, 250, 2, 4000, 9, 0, 64};
+
+    private static int total() {
+        int n = 0;
+        for (int size : SIZES) {
+            n += size;
+        }
+        return n;
+    }
+
+    private static List<Stream<Integer>> refShards() {
+        List<Stream<Integer>> shards = new ArrayList<>();
+        int start = 0;
+        for (int size : SIZES) {
+            shards.add(IntStreams.range(start, start + size).boxed());
+            start += size;
+        }
+        return shards;
+    }
+
+    private static IntStream[] intShards() {
+        IntStream[] shards = new IntStream[SIZES.length];
+        int start = 0;
+        for (int i = 0; i < SIZES.length; i++) {
+            shards[i] = IntStreams.range(start, start + SIZES[i]);
+            start += SIZES[i];
+        }
+        return shards;
+    }
+
+    public void testRef() {
+        List<Integer> expected = IntStreams.range(0, total()).boxed().collect(Collectors.toList());
+        assertEquals(RefStreams.concat(refShards()).collect(Collectors.toList()), expected);
+        assertEquals(RefStreams.concat(refShards()).parallel().collect(Collectors.toList()), expected);
+        assertEquals(RefStreams.concat(refShards()).parallel().skip(10).limit(3000).count(), 3000L);
+        assertEquals(RefStreams.concat().count(), 0L);
+    }
+
+    public void testPrimitives() {
+        int n = total();
+        assertTrue(Arrays.equals(IntStreams.concat(intShards()).parallel().toArray(),
+                IntStreams.range(0, n).toArray()));
+        assertEquals(LongStreams.concat(LongStreams.range(0, 5), LongStreams.empty(), LongStreams.of(5, 6))
+                .parallel().sum(), 21L);
+        assertEquals(DoubleStreams.concat(Arrays.asList(DoubleStreams.of(1.0), DoubleStreams.of(2.0, 3.0)))
+                .boxed().collect(Collectors.toList()), Arrays.asList(1.0, 2.0, 3.0));
+        assertEquals(IntStreams.concat(intShards()).spliterator().getExactSizeIfKnown(), n);
+    }
+
+    public void testSpliterator() {
+        SpliteratorTestHelper.testIntSpliterator(() -> IntStreams.concat(intShards()).spliterator());
+        SpliteratorTestHelper.testSpliterator(() -> RefStreams.concat(refShards()).spliterator());
+    }
+
+    public void testBalancedSplit() {
+        Spliterator.OfInt[] shards = new Spliterator.OfInt[4];
+        for (int i = 0; i < 3; i++) {
+            shards[i] = IntStreams.range(0, 10).spliterator();
+        }
+        shards[3] = IntStreams.range(0, 1000).spliterator();
+        Spliterator.OfInt s = new Streams.MultiConcatSpliterator.OfInt(shards, 0, shards.length);
+        // the three small shards go left, the large one stays
+        Spliterator.OfInt prefix = s.trySplit();
+        assertEquals(prefix.estimateSize(), 30L);
+        assertEquals(s.estimateSize(), 1000L);
+        // a single remaining shard splits itself
+        assertEquals(s.trySplit().estimateSize(), 500L);
+        assertEquals(prefix.trySplit().estimateSize(), 20L);
+        assertEquals(prefix.estimateSize(), 10L);
+        // shards[2] is left, which splits itself
+        assertEquals(prefix.trySplit().estimateSize(), 5L);
+
+        Spliterator.OfInt empty = new Streams.MultiConcatSpliterator.OfInt(new Spliterator.OfInt[0], 0, 0);
+        assertNull(empty.trySplit());
+        assertEquals(empty.estimateSize(), 0L);
+    }
+
+    public void testEmptyCharacteristics() {
+        int sizedOnly = Spliterator.SIZED | Spliterator.SUBSIZED;
+        assertEquals(RefStreams.concat().spliterator().characteristics(), sizedOnly);
+        assertEquals(new Streams.MultiConcatSpliterator.OfInt(new Spliterator.OfInt[0], 0, 0).characteristics(),
+                sizedOnly);
+        // exhausted by traversal
+        Spliterator.OfInt s = IntStreams.concat(intShards()).spliterator();
+        s.forEachRemaining((IntConsumer) i -> { });
+        assertEquals(s.characteristics() & Spliterator.CONCURRENT, 0);
+        assertEquals(s.estimateSize(), 0L);
+    }
+
+    public void testUnsized() {
+        Stream<Integer> infinite = RefStreams.iterate(0, i -> i + 1);
+        Spliterator<Integer> s = RefStreams.concat(RefStreams.of(1, 2), infinite, RefStreams.of(3)).spliterator();
+        assertEquals(s.estimateSize(), Long.MAX_VALUE);
+        assertTrue(!s.hasCharacteristics(Spliterator.SIZED));
+        assertEquals(RefStreams.concat(RefStreams.of(-2, -1), RefStreams.iterate(0, i -> i + 1)).limit(5)
+                .collect(Collectors.toList()), Arrays.asList(-2, -1, 0, 1, 2));
+        assertTrue(!RefStreams.concat(RefStreams.of(2, 1).sorted(), RefStreams.of(3).sorted()).spliterator()
+                .hasCharacteristics(Spliterator.SORTED));
+    }
+
+    public void testClose() {
+        final AtomicInteger closed = new AtomicInteger();
+        IntStream[] shards = intShards();
+        for (int i = 0; i < shards.length; i++) {
+            final int k = i;
+            shards[i] = shards[i].onClose(() -> {
+                closed.incrementAndGet();
+                if (k % 2 == 0) {
+                    throw new IllegalArgumentException(Integer.toString(k));
+                }
+            });
+        }
+        try {
+            IntStreams.concat(shards).close();
+            fail("expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            assertEquals(e.getMessage(), "0");
+        }
+        assertEquals(closed.get(), shards.length);
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testNullElement() {
+        IntStreams.concat(IntStreams.empty(), null, IntStreams.empty());
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * Written by Stefan Zobel and released to the
+ * public domain, as explained at
+ * http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package java8.util.stream;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.testng.annotations.Test;
+
+import java8.util.J8Arrays;
+import java8.util.Spliterator;
+import java8.util.function.IntConsumer;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests the off-heap primitive nodes (see {@link OffHeapNodes}) and their
+ * use by pipelines that opted in via
+ * {@link StreamSupport#offHeapBuffers(BaseStream, boolean)}.
+ */
+@Test
+public class OffHeapNodesTest {
+
+    // spans several chunks
+    private static final int SIZE = 50000;
+
+    private static int[] ints(int size) {
+        int[] array = new int[size];
+        Random rnd = new Random(size);
+        for (int i = 0; i < size; i++) {
+            array[i] = rnd.nextInt();
+        }
+        return array;
+    }
+
+    private static Node.OfInt intNode(int[] array, long sizeHint) {
+        Node.Builder.OfInt builder = OffHeapNodes.intBuilder(sizeHint);
+        builder.begin(sizeHint);
+        for (int v : array) {
+            builder.accept(v);
+        }
+        builder.end();
+        return builder.build();
+    }
+
+    public void testIntNode() {
+        for (int size : new int[] {0, 1, 4096, 4097, SIZE}) {
+            int[] array = ints(size);
+            for (long hint : new long[] {-1L, size, size / 2}) {
+                final Node.OfInt node = intNode(array, hint);
+                assertEquals(node.count(), size);
+                assertTrue(Arrays.equals(node.asPrimitiveArray(), array));
+
+                int[] copy = new int[size + 3];
+                node.copyInto(copy, 3);
+                assertTrue(Arrays.equals(Arrays.copyOfRange(copy, 3, size + 3), array));
+
+                final int[] visited = new int[size];
+                node.forEach(new IntConsumer() {
+                    int i;
+                    @Override
+                    public void accept(int v) {
+                        visited[i++] = v;
+                    }
+                });
+                assertTrue(Arrays.equals(visited, array));
+
+                assertTrue(Arrays.equals(StreamSupport.intStream(node.spliterator(), true).toArray(), array));
+                if (size > 10) {
+                    assertTrue(Arrays.equals(node.truncate(3, size - 7, Integer[]::new).asPrimitiveArray(),
+                            Arrays.copyOfRange(array, 3, size - 7)));
+                }
+            }
+        }
+        SpliteratorTestHelper.testIntSpliterator(() -> intNode(ints(SIZE), -1L).spliterator());
+    }
+
+    public void testLongNode() {
+        Node.Builder.OfLong builder = OffHeapNodes.longBuilder(-1L);
+        builder.begin(-1L);
+        for (long v = 0L; v < SIZE; v++) {
+            builder.accept(v << 33);
+        }
+        builder.end();
+        Node.OfLong node = builder.build();
+        assertEquals(node.count(), SIZE);
+        long[] array = node.asPrimitiveArray();
+        for (int i = 0; i < SIZE; i++) {
+            assertEquals(array[i], (long) i << 33);
+        }
+        SpliteratorTestHelper.testLongSpliterator(node::spliterator);
+    }
+
+    public void testDoubleNode() {
+        Node.Builder.OfDouble builder = OffHeapNodes.doubleBuilder(SIZE);
+        builder.begin(SIZE);
+        for (int i = 0; i < SIZE; i++) {
+            builder.accept(i / 2.0);
+        }
+        builder.end();
+        Node.OfDouble node = builder.build();
+        assertEquals(node.count(), SIZE);
+        assertEquals(StreamSupport.doubleStream(node.spliterator(), false).sum(), (SIZE - 1) * (double) SIZE / 4.0);
+        SpliteratorTestHelper.testDoubleSpliterator(node::spliterator);
+    }
+
+    public void testSplitAtMidpoint() {
+        for (long hint : new long[] {-1L, 100L, SIZE}) {
+            Spliterator.OfInt s = intNode(ints(SIZE), hint).spliterator();
+            long size = s.estimateSize();
+            while (size > 1L) {
+                Spliterator.OfInt prefix = s.trySplit();
+                assertEquals(prefix.estimateSize(), size / 2);
+                assertEquals(s.estimateSize(), size - size / 2);
+                size = s.estimateSize();
+            }
+        }
+    }
+
+    public void testOffHeapSort() {
+        Random rnd = new Random(42);
+        for (int size : new int[] {0, 1, 31, 4096, 4097, SIZE}) {
+            int[][] inputs = {ints(size), new int[size], new int[size], new int[size], new int[size]};
+            for (int i = 0; i < size; i++) {
+                inputs[1][i] = rnd.nextInt(5);
+                inputs[2][i] = i;
+                inputs[3][i] = size - i;
+                inputs[4][i] = i < size / 2 ? i : size - i;
+            }
+            for (int[] array : inputs) {
+                int[] sorted = array.clone();
+                Arrays.sort(sorted);
+                // unsized, so that sorted() buffers off-heap
+                IntStream s = StreamSupport.intStream(J8Arrays.spliterator(array), false).filter(i -> true);
+                assertTrue(Arrays.equals(StreamSupport.offHeapBuffers(s, true).sorted().toArray(), sorted));
+            }
+        }
+        double[] doubles = new double[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            int r = rnd.nextInt(8);
+            doubles[i] = r == 0 ? Double.NaN : r == 1 ? -0.0 : r == 2 ? 0.0 : rnd.nextGaussian();
+        }
+        double[] sorted = doubles.clone();
+        Arrays.sort(sorted);
+        DoubleStream ds = StreamSupport.doubleStream(J8Arrays.spliterator(doubles), false).filter(d -> true);
+        assertTrue(Arrays.equals(StreamSupport.offHeapBuffers(ds, true).sorted().toArray(), sorted));
+        LongStream ls = StreamSupport.offHeapBuffers(LongStreams.range(0, SIZE).map(l -> -l).filter(l -> true), true);
+        assertEquals(ls.sorted().findFirst().getAsLong(), 1L - SIZE);
+    }
+
+    public void testParallelOffHeapSort() {
+        int[] array = ints(SIZE);
+        int[] sorted = array.clone();
+        Arrays.sort(sorted);
+        // a conc-node of off-heap leaves, as collected by a parallel evaluation
+        Node.OfInt node = (Node.OfInt) Nodes.conc(StreamShape.INT_VALUE,
+                intNode(Arrays.copyOfRange(array, 0, 10000), -1L),
+                Nodes.conc(StreamShape.INT_VALUE, intNode(new int[0], 0L),
+                        intNode(Arrays.copyOfRange(array, 10000, SIZE), SIZE - 10000)));
+        Node.OfInt result = OffHeapNodes.sort(node);
+        assertTrue(result.getClass().getEnclosingClass() == OffHeapNodes.class);
+        assertTrue(Arrays.equals(result.asPrimitiveArray(), sorted));
+        // a heap leaf can't be sorted off-heap
+        assertTrue(OffHeapNodes.sort(Nodes.node(array)) == null);
+
+        IntStream s = StreamSupport.intStream(J8Arrays.spliterator(array), true).filter(i -> true);
+        assertTrue(Arrays.equals(StreamSupport.offHeapBuffers(s, true).sorted().toArray(), sorted));
+        LongStream ls = StreamSupport.offHeapBuffers(LongStreams.range(0, SIZE).parallel().filter(l -> true), true);
+        assertEquals(ls.map(l -> -l).sorted().toArray()[0], 1L - SIZE);
+        DoubleStream ds = StreamSupport.offHeapBuffers(DoubleStreams.iterate(0.0, d -> d + 1.0).limit(SIZE), true);
+        assertEquals(ds.parallel().map(d -> -d).sorted().sum(), -(SIZE - 1.0) * SIZE / 2);
+    }
+
+    public void testPipelineSelection() {
+        assertTrue(isOffHeap(StreamSupport.offHeapBuffers(IntStreams.range(0, 10), true).map(i -> i), -1L));
+        assertTrue(isOffHeap(StreamSupport.offHeapBuffers(LongStreams.range(0, 10), true), 10L));
+        assertTrue(!isOffHeap(StreamSupport.offHeapBuffers(DoubleStreams.of(1.0), false), -1L));
+        assertTrue(!isOffHeap(IntStreams.range(0, 10), -1L));
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static boolean isOffHeap(BaseStream<?, ?> stream, long exactSizeIfKnown) {
+        Node.Builder<?> builder = ((AbstractPipeline) stream).makeNodeBuilder(exactSizeIfKnown, Object[]::new);
+        return builder.getClass().getEnclosingClass() == OffHeapNodes.class;
+    }
+
+    public void testPipelines() {
+        int[] array = ints(SIZE);
+        int[] sorted = array.clone();
+        Arrays.sort(sorted);
+        for (boolean parallel : new boolean[] {false, true}) {
+            // unsized, so that sorted() has to buffer
+            IntStream s = StreamSupport.intStream(J8Arrays.spliterator(array), parallel).filter(i -> true);
+            assertTrue(Arrays.equals(StreamSupport.offHeapBuffers(s, true).sorted().toArray(), sorted));
+
+            s = StreamSupport.intStream(J8Arrays.spliterator(array), parallel).filter(i -> i % 2 == 0);
+            int[] even = StreamSupport.intStream(J8Arrays.spliterator(array), false).filter(i -> i % 2 == 0).toArray();
+            assertTrue(Arrays.equals(StreamSupport.offHeapBuffers(s, true).toArray(), even));
+
+            LongStream ls = StreamSupport.offHeapBuffers(LongStreams.range(0, SIZE), true);
+            if (parallel) {
+                ls = ls.parallel();
+            }
+            assertEquals(ls.map(l -> SIZE - l).filter(l -> l > 0).sorted().limit(3).sum(), 6L);
+
+            DoubleStream ds = StreamSupport.offHeapBuffers(DoubleStreams.iterate(0.0, d -> d + 1.0).limit(SIZE), true);
+            if (parallel) {
+                ds = ds.parallel();
+            }
+            assertEquals(ds.map(d -> SIZE - d).sorted().skip(SIZE - 1).findFirst().getAsDouble(), (double) SIZE);
+        }
+    }
+}
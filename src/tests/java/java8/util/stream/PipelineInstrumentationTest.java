@@ -0,0 +1,146 @@
+/*
+ * Written by Stefan Zobel and released to the
+ * public domain, as explained at
+ * http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package java8.util.stream;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests the reporting of execution metrics to a
+ * {@link PipelineInstrumentation}.
+ */
+@Test
+public class PipelineInstrumentationTest {
+
+    static final class Recorder extends PipelineInstrumentation {
+        final Map<Integer, String> names = new TreeMap<>();
+        final Map<Integer, Long> elements = new TreeMap<>();
+        final AtomicLong forks = new AtomicLong();
+        final AtomicLong leaves = new AtomicLong();
+        final AtomicLong leafSizes = new AtomicLong();
+        final AtomicLong bufferedElements = new AtomicLong();
+        final AtomicLong bufferedBytes = new AtomicLong();
+
+        @Override
+        public synchronized void stageCompleted(int depth, String name, long count, long nanos) {
+            assertTrue(nanos >= 0L);
+            names.put(depth, name);
+            Long c = elements.get(depth);
+            elements.put(depth, c == null ? count : c + count);
+        }
+
+        @Override
+        public void taskForked() {
+            forks.incrementAndGet();
+        }
+
+        @Override
+        public void leafCompleted(long sizeEstimate, long nanos) {
+            leaves.incrementAndGet();
+            leafSizes.addAndGet(sizeEstimate);
+        }
+
+        @Override
+        public void nodeBuffered(long count, long bytes) {
+            bufferedElements.addAndGet(count);
+            bufferedBytes.addAndGet(bytes);
+        }
+
+        synchronized long elements(int depth) {
+            return elements.get(depth);
+        }
+    }
+
+    public void testSequentialStages() {
+        Recorder r = new Recorder();
+        int sum = StreamSupport.instrument(IntStreams.range(0, 100), r)
+                .filter(i -> i % 2 == 0).map(i -> i * 2).sum();
+        assertEquals(sum, 4900);
+        assertEquals(r.names.get(1), "filter");
+        assertEquals(r.names.get(2), "map");
+        assertEquals(r.names.size(), 3);
+        assertEquals(r.elements(1), 100L);
+        assertEquals(r.elements(2), 50L);
+        assertEquals(r.elements(3), 50L);
+        assertEquals(r.forks.get(), 0L);
+        assertEquals(r.leaves.get(), 0L);
+    }
+
+    public void testParallelStages() {
+        Recorder r = new Recorder();
+        IntStream s = StreamSupport.targetLeafSize(IntStreams.range(0, 10000).parallel(), 100);
+        long count = StreamSupport.instrument(s, r).boxed().filter(i -> i % 3 == 0).mapToLong(i -> i).count();
+        assertEquals(count, 3334L);
+        // boxed() is implemented by mapToObj()
+        assertEquals(r.names.get(1), "mapToObj");
+        assertEquals(r.names.get(2), "filter");
+        assertEquals(r.names.get(3), "mapToLong");
+        assertEquals(r.elements(1), 10000L);
+        assertEquals(r.elements(2), 10000L);
+        assertEquals(r.elements(3), 3334L);
+        assertEquals(r.elements(4), 3334L);
+        assertTrue(r.forks.get() > 0L);
+        // every split forks one child and continues with the other
+        assertEquals(r.leaves.get(), r.forks.get() + 1);
+        assertEquals(r.leafSizes.get(), 10000L);
+    }
+
+    public void testForEach() {
+        Recorder r = new Recorder();
+        AtomicLong sum = new AtomicLong();
+        LongStream s = StreamSupport.targetLeafSize(LongStreams.range(0, 1000).parallel(), 10);
+        StreamSupport.instrument(s, r).forEach(sum::addAndGet);
+        assertEquals(sum.get(), 499500L);
+        assertEquals(r.elements(1), 1000L);
+        assertEquals(r.leaves.get(), r.forks.get() + 1);
+    }
+
+    public void testNodeBuffered() {
+        Recorder r = new Recorder();
+        int[] a = StreamSupport.instrument(IntStreams.range(0, 10), r).filter(i -> i < 5).toArray();
+        assertEquals(a.length, 5);
+        assertEquals(r.bufferedElements.get(), 5L);
+        assertEquals(r.bufferedBytes.get(), 20L);
+        r = new Recorder();
+        Object[] o = StreamSupport.instrument(RefStreams.of("a", "b", "c"), r).parallel().toArray();
+        assertEquals(o.length, 3);
+        assertEquals(r.bufferedElements.get(), 3L);
+    }
+
+    public void testDefaultInstrumentation() {
+        Recorder r = new Recorder();
+        StreamSupport.setDefaultInstrumentation(r);
+        Stream<String> s;
+        try {
+            s = RefStreams.of("a", "bb", "ccc");
+        } finally {
+            StreamSupport.setDefaultInstrumentation(null);
+        }
+        assertEquals(s.map(String::length).reduce(0, Integer::sum).intValue(), 6);
+        assertEquals(r.names.get(1), "map");
+        assertEquals(r.elements(2), 3L);
+        // a pipeline created afterwards isn't instrumented
+        Recorder unused = new Recorder();
+        assertEquals(RefStreams.of(1, 2).filter(i -> i > 1).count(), 1L);
+        assertTrue(unused.names.isEmpty());
+        // the instrumentation can be disabled per pipeline
+        StreamSupport.setDefaultInstrumentation(r);
+        try {
+            s = StreamSupport.instrument(RefStreams.of("x"), null);
+        } finally {
+            StreamSupport.setDefaultInstrumentation(null);
+        }
+        r.names.clear();
+        assertEquals(s.map(String::length).findFirst().get().intValue(), 1);
+        assertTrue(r.names.isEmpty());
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Written by Stefan Zobel and released to the
+ * public domain, as explained at
+ * http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package java8.util.stream;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentMap;
+
+import org.testng.annotations.Test;
+
+import java8.util.function.BinaryOperator;
+
+import static java8.util.stream.LambdaTestHelpers.countTo;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests the primitive-keyed hash maps (see {@link PrimitiveHashMaps}) and the
+ * grouping collectors built on them.
+ */
+@Test
+public class PrimitiveHashMapsTest {
+
+    private static final int N = 100000;
+
+    public void testOfInt() {
+        Random rnd = new Random(42);
+        PrimitiveHashMaps.OfInt<int[]> map = new PrimitiveHashMaps.OfInt<>();
+        Map<Integer, Integer> expected = new HashMap<>();
+        for (int i = 0; i < N; i++) {
+            // includes 0 and plenty of duplicates
+            int key = rnd.nextInt(N / 4) - N / 8;
+            map.computeIfAbsent(key, () -> new int[1])[0]++;
+            Integer count = expected.get(key);
+            expected.put(key, count == null ? 1 : count + 1);
+        }
+        assertEquals(map.size(), expected.size());
+        final Map<Integer, Integer> actual = new HashMap<>();
+        map.forEach((int[] count, int key) -> actual.put(key, count[0]));
+        assertEquals(actual, expected);
+    }
+
+    public void testMerge() {
+        BinaryOperator<long[]> sum = (a, b) -> new long[] {a[0] + b[0]};
+        PrimitiveHashMaps.OfLong<long[]> left = new PrimitiveHashMaps.OfLong<>();
+        PrimitiveHashMaps.OfLong<long[]> right = new PrimitiveHashMaps.OfLong<>();
+        for (long key = 0; key < 1000; key++) {
+            left.computeIfAbsent(key << 32, () -> new long[1])[0] += key;
+            right.computeIfAbsent((key + 500) << 32, () -> new long[1])[0] += 1;
+        }
+        left.merge(right, sum);
+        assertEquals(left.size(), 1500);
+        final long[] total = new long[1];
+        left.forEach((long[] v, long key) -> total[0] += v[0]);
+        assertEquals(total[0], 999L * 1000 / 2 + 1000);
+
+        PrimitiveHashMaps.ConcurrentOfInt<long[]> c1 = new PrimitiveHashMaps.ConcurrentOfInt<>(3);
+        PrimitiveHashMaps.ConcurrentOfInt<long[]> c2 = new PrimitiveHashMaps.ConcurrentOfInt<>(3);
+        for (int key = 0; key < 1000; key++) {
+            c1.segmentFor(key).computeIfAbsent(key, () -> new long[] {1});
+            c2.segmentFor(-key).computeIfAbsent(-key, () -> new long[] {1});
+        }
+        assertEquals(c1.merge(c2, sum).size(), 1999);
+        assertEquals(c1.segmentFor(0).computeIfAbsent(0, () -> null)[0], 2L);
+    }
+
+    private static List<Integer> data() {
+        List<Integer> list = new ArrayList<>(countTo(N));
+        Collections.shuffle(list, new Random(3));
+        return list;
+    }
+
+    public void testGroupingByInt() {
+        List<Integer> list = data();
+        for (boolean parallel : new boolean[] {false, true}) {
+            Stream<Integer> s1 = parallel ? StreamSupport.parallelStream(list) : StreamSupport.stream(list);
+            Stream<Integer> s2 = parallel ? StreamSupport.parallelStream(list) : StreamSupport.stream(list);
+            assertEquals(s1.collect(Collectors.groupingByInt(i -> i % 1000 - 500)),
+                         s2.collect(Collectors.groupingBy(i -> i % 1000 - 500)));
+            Map<Integer, Long> counts = StreamSupport.stream(list)
+                    .collect(Collectors.groupingByInt(i -> i % 7, Collectors.counting()));
+            assertEquals(counts.size(), 7);
+            assertEquals(counts.get(0).longValue(), N / 7);
+        }
+    }
+
+    public void testGroupingByLong() {
+        List<Integer> list = data();
+        Map<Long, Integer> expected = StreamSupport.stream(list)
+                .collect(Collectors.groupingBy(i -> (long) (i % 100) << 40, Collectors.summingInt(i -> i)));
+        for (boolean parallel : new boolean[] {false, true}) {
+            Stream<Integer> s = parallel ? StreamSupport.parallelStream(list) : StreamSupport.stream(list);
+            assertEquals(s.collect(Collectors.groupingByLong(i -> (long) (i % 100) << 40, Collectors.summingInt(i -> i))),
+                         expected);
+        }
+    }
+
+    public void testGroupingByConcurrent() {
+        List<Integer> list = data();
+        for (boolean parallel : new boolean[] {false, true}) {
+            Stream<Integer> s = parallel ? StreamSupport.parallelStream(list) : StreamSupport.stream(list);
+            ConcurrentMap<Integer, List<Integer>> groups = s.collect(Collectors.groupingByIntConcurrent(i -> i % 1000));
+            assertEquals(groups.size(), 1000);
+            for (Map.Entry<Integer, List<Integer>> e : groups.entrySet()) {
+                assertEquals(e.getValue().size(), N / 1000);
+                for (Integer i : e.getValue()) {
+                    assertTrue(i % 1000 == e.getKey());
+                }
+            }
+            s = parallel ? StreamSupport.parallelStream(list) : StreamSupport.stream(list);
+            ConcurrentMap<Long, Long> counts = s.collect(Collectors.groupingByLongConcurrent(i -> -(long) i % 10,
+                    Collectors.counting()));
+            assertEquals(counts.size(), 10);
+            assertEquals(counts.get(-3L).longValue(), N / 10);
+        }
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testNullClassifier() {
+        Collectors.groupingByInt(null);
+    }
+}
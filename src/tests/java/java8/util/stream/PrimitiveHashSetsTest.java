@@ -0,0 +1,177 @@
+/*
+ * Written by Stefan Zobel and released to the
+ * public domain, as explained at
+ * http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package java8.util.stream;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.testng.annotations.Test;
+
+import java8.util.concurrent.ForkJoinPool;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests the primitive hash sets backing {@code IntStream.distinct()} and
+ * {@code LongStream.distinct()} (see {@link PrimitiveHashSets}).
+ */
+@Test
+public class PrimitiveHashSetsTest extends OpTestCase {
+
+    private static final int N = 100000;
+
+    public void testOfInt() {
+        Random rnd = new Random(42);
+        PrimitiveHashSets.OfInt set = new PrimitiveHashSets.OfInt();
+        Set<Integer> expected = new HashSet<>();
+        for (int i = 0; i < N; i++) {
+            // small range to get plenty of duplicates, including 0
+            int v = rnd.nextInt(N) - N / 2;
+            assertEquals(set.add(v), expected.add(v));
+        }
+        assertTrue(set.add(Integer.MIN_VALUE));
+        assertTrue(set.add(Integer.MAX_VALUE));
+        expected.add(Integer.MIN_VALUE);
+        expected.add(Integer.MAX_VALUE);
+        assertEquals(set.size(), expected.size());
+        for (int v : expected) {
+            assertTrue(set.contains(v));
+        }
+        assertFalse(set.contains(N));
+        int[] array = set.toArray();
+        assertEquals(array.length, expected.size());
+        Set<Integer> actual = new HashSet<>();
+        for (int v : array) {
+            actual.add(v);
+        }
+        assertEquals(actual, expected);
+    }
+
+    public void testOfLong() {
+        Random rnd = new Random(42);
+        PrimitiveHashSets.OfLong set = new PrimitiveHashSets.OfLong(10);
+        Set<Long> expected = new HashSet<>();
+        for (int i = 0; i < N; i++) {
+            // values that only differ in their upper half
+            long v = ((long) rnd.nextInt(N / 2) << 32) | (i & 1);
+            assertEquals(set.add(v), expected.add(v));
+        }
+        assertEquals(set.size(), expected.size());
+        assertTrue(set.contains(0L));
+        assertFalse(set.contains(2L));
+        long[] array = set.toArray();
+        Set<Long> actual = new HashSet<>();
+        for (long v : array) {
+            actual.add(v);
+        }
+        assertEquals(array.length, actual.size());
+        assertEquals(actual, expected);
+    }
+
+    public void testLinkedOfInt() {
+        PrimitiveHashSets.LinkedOfInt left = new PrimitiveHashSets.LinkedOfInt();
+        PrimitiveHashSets.LinkedOfInt right = new PrimitiveHashSets.LinkedOfInt();
+        for (int v : new int[] {3, 0, 3, 1, 0}) {
+            left.add(v);
+        }
+        for (int v : new int[] {2, 1, 4, 2}) {
+            right.add(v);
+        }
+        assertTrue(Arrays.equals(left.addAll(right).toArray(), new int[] {3, 0, 1, 2, 4}));
+    }
+
+    public void testLinkedOfLong() {
+        PrimitiveHashSets.LinkedOfLong left = new PrimitiveHashSets.LinkedOfLong();
+        PrimitiveHashSets.LinkedOfLong right = new PrimitiveHashSets.LinkedOfLong();
+        for (long v : new long[] {-3L, 0L, -3L, 1L << 40}) {
+            left.add(v);
+        }
+        for (long v : new long[] {1L << 40, 7L}) {
+            right.add(v);
+        }
+        assertTrue(Arrays.equals(left.addAll(right).toArray(), new long[] {-3L, 0L, 1L << 40, 7L}));
+    }
+
+    public void testConcurrentOfInt() throws InterruptedException {
+        final PrimitiveHashSets.ConcurrentOfInt set = new PrimitiveHashSets.ConcurrentOfInt(4);
+        final int[] added = new int[4];
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < added.length; t++) {
+            final int id = t;
+            threads.add(new Thread() {
+                @Override
+                public void run() {
+                    // all threads add the same values
+                    for (int v = -N / 2; v < N / 2; v++) {
+                        if (set.add(v)) {
+                            added[id]++;
+                        }
+                    }
+                }
+            });
+        }
+        for (Thread t : threads) {
+            t.start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        int total = 0;
+        for (int n : added) {
+            total += n;
+        }
+        // every value has been added exactly once
+        assertEquals(total, N);
+        int[] array = set.toArray();
+        Arrays.sort(array);
+        assertEquals(array.length, N);
+        assertEquals(array[0], -N / 2);
+        assertEquals(array[N - 1], N / 2 - 1);
+    }
+
+    public void testConcurrentOfLong() {
+        PrimitiveHashSets.ConcurrentOfLong set = new PrimitiveHashSets.ConcurrentOfLong(
+                ForkJoinPool.getCommonPoolParallelism() + 1);
+        for (long v = 0L; v < N; v++) {
+            assertTrue(set.add(v * 31L));
+            assertFalse(set.add(v * 31L));
+        }
+        assertEquals(set.toArray().length, N);
+    }
+
+    @Test(dataProvider = "LongStreamTestData", dataProviderClass = LongStreamTestDataProvider.class)
+    public void testLongDistinct(String name, TestData.OfLong data) {
+        LinkedHashSet<Long> expected = new LinkedHashSet<>();
+        for (long v : data.stream().toArray()) {
+            expected.add(v);
+        }
+        withData(data)
+                .stream((LongStream s) -> s.distinct().boxed())
+                .expectedResult(new ArrayList<>(expected))
+                .exercise();
+        withData(data)
+                .stream((LongStream s) -> s.sorted().distinct().boxed())
+                .expectedResult(RefStreams.of(expected.toArray(new Long[0])).sorted().collect(Collectors.toList()))
+                .exercise();
+    }
+
+    public void testUnorderedDistinct() {
+        assertEquals(IntStreams.range(0, 2 * N).parallel().unordered().map(i -> i % 1000).distinct().count(), 1000L);
+        assertEquals(LongStreams.range(0, 2 * N).parallel().unordered().map(i -> i % 1000).distinct().count(), 1000L);
+        // lazy
+        assertEquals(IntStreams.iterate(0, i -> i + 1).parallel().unordered().map(i -> i % 10).distinct()
+                .limit(10).sum(), 45);
+        assertEquals(LongStreams.iterate(0, i -> i + 1).parallel().unordered().map(i -> i % 10).distinct()
+                .limit(10).sum(), 45L);
+    }
+}
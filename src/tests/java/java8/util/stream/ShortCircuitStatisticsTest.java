@@ -0,0 +1,155 @@
+/*
+ * Written by Stefan Zobel and released to the
+ * public domain, as explained at
+ * http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package java8.util.stream;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.testng.annotations.Test;
+
+import java8.util.Spliterator;
+import java8.util.Spliterators;
+import java8.util.function.Consumer;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests the early cancellation of parallel short-circuiting operations
+ * and the counters in {@link ShortCircuitStatistics}.
+ */
+@Test
+public class ShortCircuitStatisticsTest {
+
+    private static final int[] COUNTS = {0, 1, 63, 64, 65, 1000, 100000};
+
+    private static boolean slowEquals(int i, int value) {
+        long x = i;
+        for (int j = 0; j < 100; j++) {
+            x = x * 31 + j;
+        }
+        return x != 42 && i == value;
+    }
+
+    public void testFindFirst() {
+        for (int count : COUNTS) {
+            for (int target : new int[] {0, count / 3, count - 1}) {
+                final int t = target;
+                Integer found = IntStreams.range(0, count).boxed().parallel()
+                        .filter(i -> i >= t).findFirst().orElse(null);
+                assertEquals(found, count == 0 ? null : Integer.valueOf(target));
+                assertEquals(IntStreams.range(0, count).parallel().filter(i -> i >= t).findFirst().orElse(-1),
+                        count == 0 ? -1 : target);
+            }
+        }
+    }
+
+    public void testFindAnyAndMatch() {
+        for (int count : COUNTS) {
+            final int t = count / 2;
+            if (count > 0) {
+                assertEquals(LongStreams.range(0, count).parallel().filter(i -> i == t).findAny().getAsLong(), t);
+            }
+            assertEquals(IntStreams.range(0, count).parallel().anyMatch(i -> i == t), count > 0);
+            assertEquals(DoubleStreams.iterate(0.0, d -> d + 1.0).limit(count).parallel()
+                    .allMatch(d -> d < t), count == 0);
+            assertFalse(IntStreams.range(0, count).boxed().parallel().noneMatch(i -> i == t) && count > 0);
+        }
+    }
+
+    public void testLimitAndSkip() {
+        for (int count : COUNTS) {
+            for (int limit : new int[] {0, 1, 100, 5000}) {
+                List<Integer> limited = IntStreams.range(0, count).boxed().parallel()
+                        .filter(i -> true).limit(limit).collect(Collectors.toList());
+                assertEquals(limited, IntStreams.range(0, Math.min(count, limit)).boxed()
+                        .collect(Collectors.toList()));
+                List<Integer> sliced = IntStreams.range(0, count).boxed().parallel()
+                        .filter(i -> true).skip(7).limit(limit).collect(Collectors.toList());
+                assertEquals(sliced, IntStreams.range(Math.min(count, 7), Math.min(count, 7 + limit)).boxed()
+                        .collect(Collectors.toList()));
+            }
+        }
+    }
+
+    /** Counts the elements delivered one at a time through tryAdvance. */
+    static final class CountingSpliterator implements Spliterator<Integer> {
+        final Spliterator<Integer> s;
+        final AtomicLong advances;
+
+        CountingSpliterator(Spliterator<Integer> s, AtomicLong advances) {
+            this.s = s;
+            this.advances = advances;
+        }
+
+        public boolean tryAdvance(Consumer<? super Integer> action) {
+            advances.incrementAndGet();
+            return s.tryAdvance(action);
+        }
+
+        public void forEachRemaining(Consumer<? super Integer> action) {
+            s.forEachRemaining(action);
+        }
+
+        public Spliterator<Integer> trySplit() {
+            Spliterator<Integer> prefix = s.trySplit();
+            return prefix == null ? null : new CountingSpliterator(prefix, advances);
+        }
+
+        public long estimateSize() {
+            return s.estimateSize();
+        }
+
+        public long getExactSizeIfKnown() {
+            return s.getExactSizeIfKnown();
+        }
+
+        public int characteristics() {
+            return s.characteristics();
+        }
+
+        public boolean hasCharacteristics(int characteristics) {
+            return s.hasCharacteristics(characteristics);
+        }
+
+        public Comparator<? super Integer> getComparator() {
+            return s.getComparator();
+        }
+    }
+
+    public void testSkipOnlyTraversesInBulk() {
+        // without a limit the leaves can't be canceled and don't poll
+        Integer[] elements = IntStreams.range(0, 10000).boxed().toArray(Integer[]::new);
+        AtomicLong advances = new AtomicLong();
+        Spliterator<Integer> s = new CountingSpliterator(Spliterators.spliterator(elements,
+                Spliterator.ORDERED), advances);
+        List<Integer> skipped = StreamSupport.stream(s, true).filter(i -> true).skip(7)
+                .collect(Collectors.toList());
+        assertEquals(skipped, IntStreams.range(7, 10000).boxed().collect(Collectors.toList()));
+        assertEquals(advances.get(), 0L);
+    }
+
+    public void testCounters() {
+        ShortCircuitStatistics.reset();
+        assertEquals(ShortCircuitStatistics.getCanceledLeafCount(), 0L);
+        assertEquals(ShortCircuitStatistics.getWastedElementCount(), 0L);
+        assertEquals(ShortCircuitStatistics.getSkippedTaskCount(), 0L);
+        assertEquals(ShortCircuitStatistics.getAvoidedForkCount(), 0L);
+        // the first element matches, all other tasks are speculative
+        IntStream s = StreamSupport.targetLeafSize(IntStreams.range(0, 1000000).parallel(), 1000);
+        assertEquals(s.filter(i -> slowEquals(i, 0)).findFirst().getAsInt(), 0);
+        assertTrue(ShortCircuitStatistics.getCanceledLeafCount()
+                + ShortCircuitStatistics.getSkippedTaskCount()
+                + ShortCircuitStatistics.getAvoidedForkCount() > 0L);
+        ShortCircuitStatistics.reset();
+        assertEquals(ShortCircuitStatistics.getSkippedTaskCount(), 0L);
+        // sequential evaluation does not touch the counters
+        assertEquals(IntStreams.range(0, 1000).filter(i -> i > 10).findFirst().getAsInt(), 11);
+        assertEquals(ShortCircuitStatistics.getCanceledLeafCount() + ShortCircuitStatistics.getSkippedTaskCount(), 0L);
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Written by Stefan Zobel and released to the
+ * public domain, as explained at
+ * http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package java8.util.stream;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.Test;
+
+import java8.util.Spliterator;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests that {@code skip()} and {@code limit()} preserve the exact size of
+ * a pipeline and that the node trees of parallel evaluations report exact
+ * sizes for their splits.
+ */
+@Test
+public class SizeAdjustingOpsTest {
+
+    private static final int[] COUNTS = {0, 1, 10, 1000, 10000};
+    private static final long[][] SKIPS_AND_LIMITS = {{0, -1}, {0, 0}, {3, -1}, {0, 5}, {7, 100}, {500, 3000}, {20000, 5}};
+
+    private static Integer[] expected(int count, long skip, long limit) {
+        List<Integer> list = new ArrayList<>();
+        for (long i = skip; i < count && (limit < 0 || i < skip + limit); i++) {
+            list.add((int) i);
+        }
+        return list.toArray(new Integer[0]);
+    }
+
+    private static Stream<Integer> slice(Stream<Integer> s, long skip, long limit) {
+        s = s.skip(skip);
+        return limit >= 0 ? s.limit(limit) : s;
+    }
+
+    private static IntStream slice(IntStream s, long skip, long limit) {
+        s = s.skip(skip);
+        return limit >= 0 ? s.limit(limit) : s;
+    }
+
+    public void testExactSize() {
+        for (int count : COUNTS) {
+            for (long[] sl : SKIPS_AND_LIMITS) {
+                long expected = expected(count, sl[0], sl[1]).length;
+                assertEquals(slice(IntStreams.range(0, count).boxed(), sl[0], sl[1])
+                        .spliterator().getExactSizeIfKnown(), expected);
+                assertEquals(slice(IntStreams.range(0, count).boxed().map(i -> i), sl[0], sl[1])
+                        .spliterator().estimateSize(), expected);
+                assertEquals(slice(IntStreams.range(0, count), sl[0], sl[1]).count(), expected);
+                if (count > 0) {
+                    // an empty range is not ORDERED, its unordered slice is not SIZED
+                    assertEquals(slice(IntStreams.range(0, count).parallel(), sl[0], sl[1])
+                            .spliterator().getExactSizeIfKnown(), expected);
+                }
+                assertEquals(slice(IntStreams.range(0, count).boxed().parallel(), sl[0], sl[1]).count(), expected);
+                // not SIZED
+                assertEquals(slice(IntStreams.range(0, count).filter(i -> true), sl[0], sl[1])
+                        .spliterator().getExactSizeIfKnown(), -1L);
+            }
+        }
+    }
+
+    public void testCountDoesNotTraverse() {
+        final AtomicInteger peeked = new AtomicInteger();
+        assertEquals(IntStreams.range(0, 100).peek(i -> peeked.incrementAndGet()).skip(10).limit(50).count(), 50L);
+        assertEquals(RefStreams.of(1, 2, 3).peek(i -> peeked.incrementAndGet()).skip(1).count(), 2L);
+        assertEquals(peeked.get(), 0);
+    }
+
+    public void testToArray() {
+        for (int count : COUNTS) {
+            for (long[] sl : SKIPS_AND_LIMITS) {
+                Integer[] expected = expected(count, sl[0], sl[1]);
+                assertTrue(Arrays.equals(slice(IntStreams.range(0, count).boxed(), sl[0], sl[1])
+                        .toArray(Integer[]::new), expected));
+                assertTrue(Arrays.equals(slice(IntStreams.range(0, count).boxed().parallel(), sl[0], sl[1])
+                        .toArray(Integer[]::new), expected));
+                // the slice is evaluated into a node tree first
+                assertTrue(Arrays.equals(slice(IntStreams.range(0, count).boxed().parallel().filter(i -> true),
+                        sl[0], sl[1]).map(i -> i).toArray(Integer[]::new), expected));
+                assertTrue(Arrays.equals(slice(IntStreams.range(0, count).parallel().filter(i -> true),
+                        sl[0], sl[1]).map(i -> i).boxed().toArray(Integer[]::new), expected));
+            }
+        }
+    }
+
+    public void testSortedAfterSlice() {
+        for (int count : COUNTS) {
+            for (long[] sl : SKIPS_AND_LIMITS) {
+                int length = expected(count, sl[0], sl[1]).length;
+                // the sorting sink is presized with the adjusted size
+                Object[] sorted = slice(IntStreams.range(0, count).map(i -> count - 1 - i).boxed(), sl[0], sl[1])
+                        .sorted().toArray();
+                assertTrue(Arrays.equals(sorted, expected(count, count - sl[0] - length, length)));
+                assertEquals(slice(IntStreams.range(0, count), sl[0], sl[1]).sorted().count(), (long) length);
+            }
+        }
+    }
+
+    public void testNodeSpliteratorSizes() {
+        Node<Integer> leaf = Nodes.node(new Integer[] {1, 2, 3});
+        Node<Integer> tree = Nodes.conc(StreamShape.REFERENCE, leaf,
+                Nodes.conc(StreamShape.REFERENCE, Nodes.node(new Integer[] {4, 5}), leaf));
+        Spliterator<Integer> s = tree.spliterator();
+        assertTrue(s.hasCharacteristics(Spliterator.SUBSIZED));
+        assertEquals(s.getExactSizeIfKnown(), 8L);
+        Spliterator<Integer> prefix = s.trySplit();
+        assertEquals(prefix.getExactSizeIfKnown(), 3L);
+        assertEquals(s.getExactSizeIfKnown(), 5L);
+        assertTrue(s.hasCharacteristics(Spliterator.SUBSIZED));
+
+        // a leaf whose spliterator does not know the sizes of its splits
+        Node<Integer> collectionLeaf = Nodes.node(new HashSet<>(Arrays.asList(6, 7)));
+        Spliterator<Integer> t = Nodes.conc(StreamShape.REFERENCE, leaf, collectionLeaf).spliterator();
+        assertTrue(t.hasCharacteristics(Spliterator.SIZED));
+        assertFalse(t.hasCharacteristics(Spliterator.SUBSIZED));
+
+        // the result of a parallel limit() on an unsized pipeline
+        Spliterator<Integer> u = IntStreams.range(0, 100000).boxed().parallel().filter(i -> true).limit(50000)
+                .spliterator();
+        assertEquals(u.getExactSizeIfKnown(), 50000L);
+        assertTrue(u.hasCharacteristics(Spliterator.SUBSIZED));
+    }
+}
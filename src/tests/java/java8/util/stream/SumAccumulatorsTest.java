@@ -0,0 +1,88 @@
+/*
+ * Written by Stefan Zobel and released to the
+ * public domain, as explained at
+ * http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package java8.util.stream;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+import java8.util.J8Arrays;
+import java8.util.OptionalDouble;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+
+/**
+ * Tests the scalar accumulators (see {@link SumAccumulators}) behind the
+ * summing and averaging collectors and terminal operations.
+ */
+@Test
+public class SumAccumulatorsTest {
+
+    private static final int N = 100000;
+
+    public void testIntAndLongAverage() {
+        for (boolean parallel : new boolean[] {false, true}) {
+            IntStream is = IntStreams.range(0, N);
+            LongStream ls = LongStreams.range(0, N).map(l -> l << 30);
+            if (parallel) {
+                is = is.parallel();
+                ls = ls.parallel();
+            }
+            assertEquals(is.average().getAsDouble(), (N - 1) / 2.0);
+            assertEquals(ls.average().getAsDouble(), (N - 1) / 2.0 * (1L << 30));
+            assertFalse(IntStreams.empty().average().isPresent());
+            assertFalse(LongStreams.empty().parallel().average().isPresent());
+        }
+    }
+
+    public void testDoubleCompensation() {
+        // a naive sum of these loses the small values entirely
+        double[] values = new double[N + 1];
+        Arrays.fill(values, 1.0e-3);
+        values[0] = 1.0e15;
+        double expected = 1.0e15 + N * 1.0e-3;
+        for (boolean parallel : new boolean[] {false, true}) {
+            DoubleStream ds = J8Arrays.stream(values);
+            assertEquals((parallel ? ds.parallel() : ds).sum(), expected, 1.0e-3);
+            ds = J8Arrays.stream(values);
+            assertEquals((parallel ? ds.parallel() : ds).average().getAsDouble(), expected / (N + 1), 1.0e-8);
+        }
+        assertFalse(DoubleStreams.empty().average().isPresent());
+        assertEquals(DoubleStreams.empty().sum(), 0.0d);
+    }
+
+    public void testDoubleInfinities() {
+        double inf = Double.POSITIVE_INFINITY;
+        assertEquals(DoubleStreams.of(1.0, inf, inf).sum(), inf);
+        assertEquals(DoubleStreams.of(-inf, 1.0, -inf).average(), OptionalDouble.of(-inf));
+        assertEquals(DoubleStreams.of(inf, -inf).sum(), Double.NaN);
+        List<Double> list = Arrays.asList(2.0, inf, 3.0, inf);
+        assertEquals(StreamSupport.parallelStream(list).collect(Collectors.summingDouble(d -> d)), inf);
+        assertEquals(StreamSupport.stream(list).collect(Collectors.averagingDouble(d -> d)), inf);
+    }
+
+    public void testCollectors() {
+        List<Integer> list = IntStreams.range(0, N).boxed().collect(Collectors.toList());
+        for (boolean parallel : new boolean[] {false, true}) {
+            Stream<Integer> s = parallel ? StreamSupport.parallelStream(list) : StreamSupport.stream(list);
+            assertEquals(s.collect(Collectors.summingInt(i -> i)).intValue(), N * (N - 1) / 2);
+            s = parallel ? StreamSupport.parallelStream(list) : StreamSupport.stream(list);
+            assertEquals(s.collect(Collectors.summingLong(i -> (long) i << 20)).longValue(),
+                    ((long) N * (N - 1) / 2) << 20);
+            s = parallel ? StreamSupport.parallelStream(list) : StreamSupport.stream(list);
+            assertEquals(s.collect(Collectors.averagingInt(i -> i)), (N - 1) / 2.0);
+            s = parallel ? StreamSupport.parallelStream(list) : StreamSupport.stream(list);
+            assertEquals(s.collect(Collectors.averagingLong(i -> i)), (N - 1) / 2.0);
+            s = parallel ? StreamSupport.parallelStream(list) : StreamSupport.stream(list);
+            assertEquals(s.collect(Collectors.summingDouble(i -> i / 2.0)), (double) N * (N - 1) / 4.0);
+            s = parallel ? StreamSupport.parallelStream(list) : StreamSupport.stream(list);
+            assertEquals(s.collect(Collectors.averagingDouble(i -> i)), (N - 1) / 2.0);
+        }
+        assertEquals(RefStreams.<Integer>empty().collect(Collectors.averagingDouble(i -> i)), 0.0d);
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ * Written by Stefan Zobel and released to the
+ * public domain, as explained at
+ * http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package java8.util.stream;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.Test;
+
+import java8.util.Spliterator;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+/**
+ * Tests the chunking, sliding window and batching operations (see
+ * {@link WindowOps}).
+ */
+@Test
+public class WindowOpsTest extends OpTestCase {
+
+    private static final int[] COUNTS = {0, 1, 7, 100, 1000, 4099};
+    private static final int[][] SIZES_AND_STEPS = {{1, 1}, {3, 1}, {3, 3}, {5, 2}, {2, 5}, {64, 64}, {500, 7}};
+
+    private static List<List<Integer>> expected(int count, int size, int step, boolean partial) {
+        List<List<Integer>> windows = new ArrayList<>();
+        for (int start = 0; start < count; start += step) {
+            int end = Math.min(start + size, count);
+            if (end - start < size && !partial) {
+                break;
+            }
+            List<Integer> w = new ArrayList<>();
+            for (int i = start; i < end; i++) {
+                w.add(i);
+            }
+            windows.add(w);
+        }
+        return windows;
+    }
+
+    private static List<List<Integer>> toLists(List<int[]> arrays) {
+        List<List<Integer>> lists = new ArrayList<>();
+        for (int[] a : arrays) {
+            lists.add(IntStreams.of(a).boxed().collect(Collectors.toList()));
+        }
+        return lists;
+    }
+
+    // the windows of the elements of the given list, in encounter order
+    private static <T> List<List<T>> expected(List<T> elements, int size, int step, boolean partial) {
+        List<List<T>> windows = new ArrayList<>();
+        for (List<Integer> positions : expected(elements.size(), size, step, partial)) {
+            List<T> w = new ArrayList<>();
+            for (int i : positions) {
+                w.add(elements.get(i));
+            }
+            windows.add(w);
+        }
+        return windows;
+    }
+
+    @Test(dataProvider = "StreamTestData<Integer>", dataProviderClass = StreamTestDataProvider.class)
+    public void testChunked(String name, TestData.OfRef<Integer> data) {
+        List<Integer> elements = data.stream().collect(Collectors.toList());
+        for (int[] ss : SIZES_AND_STEPS) {
+            int size = ss[0];
+            withData(data)
+                    .stream(s -> s.chunked(size))
+                    .expectedResult(expected(elements, size, size, true))
+                    .exercise();
+        }
+    }
+
+    @Test(dataProvider = "StreamTestData<Integer>", dataProviderClass = StreamTestDataProvider.class)
+    public void testWindowed(String name, TestData.OfRef<Integer> data) {
+        List<Integer> elements = data.stream().collect(Collectors.toList());
+        for (int[] ss : SIZES_AND_STEPS) {
+            int size = ss[0];
+            int step = ss[1];
+            withData(data)
+                    .stream(s -> s.windowed(size, step))
+                    .expectedResult(expected(elements, size, step, false))
+                    .exercise();
+        }
+    }
+
+    @Test(dataProvider = "IntStreamTestData", dataProviderClass = IntStreamTestDataProvider.class)
+    public void testIntWindows(String name, TestData.OfInt data) {
+        List<Integer> elements = data.stream().boxed().collect(Collectors.toList());
+        for (int[] ss : SIZES_AND_STEPS) {
+            int size = ss[0];
+            int step = ss[1];
+            // the int[] windows are compared as lists
+            withData(data)
+                    .stream(s -> s.chunked(size).map(w -> IntStreams.of(w).boxed().collect(Collectors.toList())))
+                    .expectedResult(expected(elements, size, size, true))
+                    .exercise();
+            withData(data)
+                    .stream(s -> s.windowed(size, step).map(w -> IntStreams.of(w).boxed().collect(Collectors.toList())))
+                    .expectedResult(expected(elements, size, step, false))
+                    .exercise();
+        }
+    }
+
+    public void testCounts() {
+        for (int count : COUNTS) {
+            for (int[] ss : SIZES_AND_STEPS) {
+                int size = ss[0];
+                int step = ss[1];
+                // not SIZED, the elements are buffered first
+                exerciseOps(IntStreams.range(0, count).boxed().collect(Collectors.toList()),
+                        s -> s.filter(i -> true).windowed(size, step), expected(count, size, step, false));
+                assertEquals(toLists(IntStreams.range(0, count).parallel().chunked(size)
+                        .collect(Collectors.toList())), expected(count, size, size, true));
+            }
+        }
+    }
+
+    public void testPrimitiveShapes() {
+        List<long[]> longs = LongStreams.range(0, 10).parallel().chunked(4).collect(Collectors.toList());
+        assertEquals(longs.size(), 3);
+        assertTrue(Arrays.equals(longs.get(2), new long[] {8, 9}));
+        List<double[]> doubles = DoubleStreams.of(1.0, 2.0, 3.0).windowed(2, 1).collect(Collectors.toList());
+        assertEquals(doubles.size(), 2);
+        assertTrue(Arrays.equals(doubles.get(1), new double[] {2.0, 3.0}));
+    }
+
+    public void testSize() {
+        // SIZED pipelines yield SIZED window spliterators in parallel
+        Spliterator<List<Integer>> s = IntStreams.range(0, 1000).boxed().parallel().windowed(10, 3).spliterator();
+        assertEquals(s.getExactSizeIfKnown(), 331L);
+        assertEquals(IntStreams.range(0, 1000).parallel().chunked(7).toArray().length, 143);
+        assertEquals(IntStreams.range(0, 1000).chunked(7).count(), 143L);
+    }
+
+    public void testSpliterator() {
+        List<List<Integer>> expected = expected(1000, 5, 3, false);
+        Spliterator<List<Integer>> s = IntStreams.range(0, 1000).boxed().parallel().windowed(5, 3).spliterator();
+        List<List<Integer>> actual = new ArrayList<>();
+        splitAndTraverse(s, actual, 0);
+        assertEquals(actual, expected);
+    }
+
+    private static <T> void splitAndTraverse(Spliterator<T> s, List<T> into, int depth) {
+        Spliterator<T> prefix = depth < 8 ? s.trySplit() : null;
+        if (prefix != null) {
+            long total = s.getExactSizeIfKnown() + prefix.getExactSizeIfKnown();
+            List<T> left = new ArrayList<>();
+            splitAndTraverse(prefix, left, depth + 1);
+            List<T> right = new ArrayList<>();
+            splitAndTraverse(s, right, depth + 1);
+            assertEquals(left.size() + right.size(), total);
+            into.addAll(left);
+            into.addAll(right);
+        } else {
+            s.forEachRemaining(into::add);
+        }
+    }
+
+    public void testShortCircuit() {
+        assertEquals(IntStreams.iterate(0, i -> i + 1).boxed().chunked(3).limit(2)
+                .collect(Collectors.toList()), Arrays.asList(Arrays.asList(0, 1, 2), Arrays.asList(3, 4, 5)));
+        assertEquals(RefStreams.of(1, 2).chunked(3).findFirst().get(), Arrays.asList(1, 2));
+    }
+
+    @Test(dataProvider = "StreamTestData<Integer>", dataProviderClass = StreamTestDataProvider.class)
+    public void testBatched(String name, TestData.OfRef<Integer> data) {
+        // the batches depend on the splitting, their concatenation doesn't
+        withData(data)
+                .stream(s -> s.batched(64, 1, TimeUnit.DAYS).flatMap(batch -> {
+                    assertTrue(!batch.isEmpty() && batch.size() <= 64);
+                    return StreamSupport.stream(batch);
+                }))
+                .expectedResult(data.stream().collect(Collectors.toList()))
+                .exercise();
+    }
+
+    public void testSequentialBatches() {
+        for (int count : COUNTS) {
+            // the timeout is never reached
+            assertEquals(IntStreams.range(0, count).boxed().batched(64, 1, TimeUnit.DAYS)
+                    .collect(Collectors.toList()), expected(count, 64, 64, true));
+        }
+        // a zero timeout closes every batch with its first element
+        assertEquals(IntStreams.range(0, 10).batched(4, 0, TimeUnit.NANOSECONDS).count(), 10L);
+    }
+
+    public void testStaticHolders() {
+        for (int count : COUNTS) {
+            assertEquals(RefStreams.chunked(IntStreams.range(0, count).boxed().parallel(), 7)
+                    .collect(Collectors.toList()), expected(count, 7, 7, true));
+            assertEquals(RefStreams.windowed(IntStreams.range(0, count).boxed(), 5, 2)
+                    .collect(Collectors.toList()), expected(count, 5, 2, false));
+            assertEquals(RefStreams.batched(IntStreams.range(0, count).boxed(), 64, 1, TimeUnit.DAYS)
+                    .collect(Collectors.toList()), expected(count, 64, 64, true));
+            assertEquals(toLists(IntStreams.chunked(IntStreams.range(0, count).parallel(), 7)
+                    .collect(Collectors.toList())), expected(count, 7, 7, true));
+            assertEquals(toLists(IntStreams.windowed(IntStreams.range(0, count), 5, 2)
+                    .collect(Collectors.toList())), expected(count, 5, 2, false));
+        }
+        List<long[]> longs = LongStreams.chunked(LongStreams.range(0, 10), 4).collect(Collectors.toList());
+        assertTrue(Arrays.equals(longs.get(2), new long[] {8, 9}));
+        assertEquals(LongStreams.batched(LongStreams.range(0, 10), 4, 0, TimeUnit.NANOSECONDS).count(), 10L);
+        List<double[]> doubles = DoubleStreams.windowed(DoubleStreams.of(1.0, 2.0, 3.0), 2, 1)
+                .collect(Collectors.toList());
+        assertTrue(Arrays.equals(doubles.get(1), new double[] {2.0, 3.0}));
+        assertEquals(DoubleStreams.chunked(DoubleStreams.of(1.0, 2.0, 3.0), 2).count(), 2L);
+        assertEquals(IntStreams.batched(IntStreams.range(0, 10), 3, 1, TimeUnit.DAYS).count(), 4L);
+        assertEquals(DoubleStreams.batched(DoubleStreams.of(1.0), 3, 1, TimeUnit.DAYS).count(), 1L);
+        assertEquals(LongStreams.windowed(LongStreams.range(0, 10), 3, 3).count(), 3L);
+        // closing the returned stream closes the passed stream
+        boolean[] closed = {false};
+        Stream<List<Integer>> chunks = RefStreams.chunked(RefStreams.of(1, 2).onClose(() -> closed[0] = true), 3);
+        assertTrue(!chunks.isParallel());
+        chunks.close();
+        assertTrue(closed[0]);
+    }
+
+    public void testIllegalArguments() {
+        try {
+            RefStreams.of(1).chunked(0);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            IntStreams.of(1).windowed(2, 0);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            LongStreams.of(1).batched(1, -1, TimeUnit.SECONDS);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+}
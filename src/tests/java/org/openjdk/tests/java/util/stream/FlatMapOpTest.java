@@ -131,6 +131,35 @@ public class FlatMapOpTest extends OpTestCase {
         assertEquals(before.get(), onClose.get());
     }
 
+    @Test
+    public void testShortCircuit() {
+        AtomicInteger count = new AtomicInteger();
+        // infinite inner streams, the outer stream must terminate
+        assertEquals(RefStreams.of(1, 2).flatMap(i -> RefStreams.iterate(i, j -> j + 1).peek(e -> count.getAndIncrement()))
+                .findFirst().get(), (Integer) 1);
+        assertEquals(count.get(), 1);
+
+        count.set(0);
+        assertEquals(RefStreams.of(1).flatMap(i -> RefStreams.generate(() -> i).peek(e -> count.getAndIncrement()))
+                .limit(100).count(), 100L);
+        assertEquals(count.get(), 100);
+
+        assertEquals(RefStreams.of(1).flatMapToInt(i -> IntStreams.iterate(i, j -> j + 1)).limit(5).sum(), 15);
+        assertEquals(RefStreams.of(1).flatMapToLong(i -> LongStreams.iterate(i, j -> j + 1)).anyMatch(j -> j == 5), true);
+        assertEquals(RefStreams.of(1).flatMapToDouble(i -> DoubleStreams.iterate(i, j -> j + 1)).limit(3).sum(), 6.0);
+        assertEquals(IntStreams.of(1).flatMap(i -> IntStreams.iterate(i, j -> j + 1)).limit(5).sum(), 15);
+        assertEquals(LongStreams.of(1).flatMap(i -> LongStreams.iterate(i, j -> j + 1)).limit(5).sum(), 15L);
+        assertEquals(DoubleStreams.of(1).flatMap(i -> DoubleStreams.iterate(i, j -> j + 1)).findFirst().getAsDouble(), 1.0);
+
+        // sized source streams are pulled element by element too
+        count.set(0);
+        Integer[] array = new Integer[1000];
+        Arrays.fill(array, 1);
+        assertEquals(RefStreams.of(1, 2, 3).peek(e -> count.getAndIncrement()).flatMap(i -> RefStreams.of(array))
+                .limit(1500).count(), 1500L);
+        assertEquals(count.get(), 2);
+    }
+
     @Test(dataProvider = "StreamTestData<Integer>", dataProviderClass = StreamTestDataProvider.class)
     public void testOps(String name, TestData.OfRef<Integer> data) {
         Collection<Integer> result = exerciseOps(data, s -> s.flatMap(mfId));